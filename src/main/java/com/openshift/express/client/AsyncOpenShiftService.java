@@ -0,0 +1,240 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/ 
+package com.openshift.express.client;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+import com.openshift.express.client.bulkhead.Bulkhead;
+import com.openshift.express.client.bulkhead.OperationClass;
+
+/**
+ * Sends broker requests asynchronously. The operations are run in separate
+ * bulkheads per operation class so that a burst of long running lifecycle or
+ * embed operations cannot starve the quick read-only ones (ex. status
+ * polling).
+ * 
+ * <pre>
+ * AsyncOpenShiftService async = new AsyncOpenShiftService(service);
+ * Future&lt;IApplication&gt; application = async.createApplication("app", ICartridge.JBOSSAS_7, user);
+ * Future&lt;String&gt; status = async.getStatus("other", ICartridge.JBOSSAS_7, user);
+ * </pre>
+ * 
+ * @author Daniel Brenner
+ * 
+ * @see OperationClass
+ */
+public class AsyncOpenShiftService {
+
+	public static final int DEFAULT_LIFECYCLE_THREADS = 4;
+	public static final int DEFAULT_LIFECYCLE_QUEUE_CAPACITY = 50;
+	public static final int DEFAULT_EMBED_THREADS = 2;
+	public static final int DEFAULT_EMBED_QUEUE_CAPACITY = 50;
+	public static final int DEFAULT_READ_ONLY_THREADS = 8;
+	public static final int DEFAULT_READ_ONLY_QUEUE_CAPACITY = 200;
+
+	private final IOpenShiftService service;
+	private final Map<OperationClass, Bulkhead> bulkheads = new EnumMap<OperationClass, Bulkhead>(OperationClass.class);
+
+	/**
+	 * Creates an async service with bulkheads of the default sizes.
+	 * 
+	 * @param service
+	 *            the service that sends the requests
+	 */
+	public AsyncOpenShiftService(IOpenShiftService service) {
+		this(service,
+				new Bulkhead("lifecycle", DEFAULT_LIFECYCLE_THREADS, DEFAULT_LIFECYCLE_QUEUE_CAPACITY),
+				new Bulkhead("embed", DEFAULT_EMBED_THREADS, DEFAULT_EMBED_QUEUE_CAPACITY),
+				new Bulkhead("read-only", DEFAULT_READ_ONLY_THREADS, DEFAULT_READ_ONLY_QUEUE_CAPACITY));
+	}
+
+	public AsyncOpenShiftService(IOpenShiftService service, Bulkhead lifecycle, Bulkhead embed, Bulkhead readOnly) {
+		this.service = service;
+		bulkheads.put(OperationClass.LIFECYCLE, lifecycle);
+		bulkheads.put(OperationClass.EMBED, embed);
+		bulkheads.put(OperationClass.READ_ONLY, readOnly);
+	}
+
+	public IOpenShiftService getService() {
+		return service;
+	}
+
+	/**
+	 * Returns the bulkhead that runs the operations of the given class. Its
+	 * saturation and queue waits tell whether it is sized right.
+	 * 
+	 * @param operationClass
+	 *            the class of operations
+	 * @return the bulkhead
+	 */
+	public Bulkhead getBulkhead(OperationClass operationClass) {
+		return bulkheads.get(operationClass);
+	}
+
+	public Future<IApplication> createApplication(final String name, final ICartridge cartridge, final IUser user)
+			throws OpenShiftException {
+		return submit(OperationClass.LIFECYCLE, new Callable<IApplication>() {
+
+			public IApplication call() throws Exception {
+				return service.createApplication(name, cartridge, user);
+			}
+		});
+	}
+
+	public Future<IApplication> createApplication(final String name, final ICartridge cartridge, final IUser user,
+			final String nodeProfile) throws OpenShiftException {
+		return submit(OperationClass.LIFECYCLE, new Callable<IApplication>() {
+
+			public IApplication call() throws Exception {
+				return service.createApplication(name, cartridge, user, nodeProfile);
+			}
+		});
+	}
+
+	public Future<Void> destroyApplication(final String name, final ICartridge cartridge, final IUser user)
+			throws OpenShiftException {
+		return submit(OperationClass.LIFECYCLE, new Callable<Void>() {
+
+			public Void call() throws Exception {
+				service.destroyApplication(name, cartridge, user);
+				return null;
+			}
+		});
+	}
+
+	public Future<IApplication> startApplication(final String name, final ICartridge cartridge, final IUser user)
+			throws OpenShiftException {
+		return submit(OperationClass.LIFECYCLE, new Callable<IApplication>() {
+
+			public IApplication call() throws Exception {
+				return service.startApplication(name, cartridge, user);
+			}
+		});
+	}
+
+	public Future<IApplication> stopApplication(final String name, final ICartridge cartridge, final IUser user)
+			throws OpenShiftException {
+		return submit(OperationClass.LIFECYCLE, new Callable<IApplication>() {
+
+			public IApplication call() throws Exception {
+				return service.stopApplication(name, cartridge, user);
+			}
+		});
+	}
+
+	public Future<IApplication> restartApplication(final String name, final ICartridge cartridge, final IUser user)
+			throws OpenShiftException {
+		return submit(OperationClass.LIFECYCLE, new Callable<IApplication>() {
+
+			public IApplication call() throws Exception {
+				return service.restartApplication(name, cartridge, user);
+			}
+		});
+	}
+
+	public Future<IDomain> createDomain(final String name, final ISSHPublicKey sshKey, final IUser user)
+			throws OpenShiftException {
+		return submit(OperationClass.LIFECYCLE, new Callable<IDomain>() {
+
+			public IDomain call() throws Exception {
+				return service.createDomain(name, sshKey, user);
+			}
+		});
+	}
+
+	public Future<IEmbeddableCartridge> addEmbeddedCartridge(final String applicationName,
+			final IEmbeddableCartridge cartridge, final IUser user) throws OpenShiftException {
+		return submit(OperationClass.EMBED, new Callable<IEmbeddableCartridge>() {
+
+			public IEmbeddableCartridge call() throws Exception {
+				return service.addEmbeddedCartridge(applicationName, cartridge, user);
+			}
+		});
+	}
+
+	public Future<Void> removeEmbeddedCartridge(final String applicationName,
+			final IEmbeddableCartridge cartridge, final IUser user) throws OpenShiftException {
+		return submit(OperationClass.EMBED, new Callable<Void>() {
+
+			public Void call() throws Exception {
+				service.removeEmbeddedCartridge(applicationName, cartridge, user);
+				return null;
+			}
+		});
+	}
+
+	public Future<IUserInfo> getUserInfo(final IUser user) throws OpenShiftException {
+		return submit(OperationClass.READ_ONLY, new Callable<IUserInfo>() {
+
+			public IUserInfo call() throws Exception {
+				return service.getUserInfo(user);
+			}
+		});
+	}
+
+	public Future<String> getStatus(final String name, final ICartridge cartridge, final IUser user)
+			throws OpenShiftException {
+		return submit(OperationClass.READ_ONLY, new Callable<String>() {
+
+			public String call() throws Exception {
+				return service.getStatus(name, cartridge, user);
+			}
+		});
+	}
+
+	public Future<List<ICartridge>> getCartridges(final IUser user) throws OpenShiftException {
+		return submit(OperationClass.READ_ONLY, new Callable<List<ICartridge>>() {
+
+			public List<ICartridge> call() throws Exception {
+				return service.getCartridges(user);
+			}
+		});
+	}
+
+	public Future<List<IEmbeddableCartridge>> getEmbeddableCartridges(final IUser user) throws OpenShiftException {
+		return submit(OperationClass.READ_ONLY, new Callable<List<IEmbeddableCartridge>>() {
+
+			public List<IEmbeddableCartridge> call() throws Exception {
+				return service.getEmbeddableCartridges(user);
+			}
+		});
+	}
+
+	/**
+	 * Submits the given operation to the bulkhead of the given class.
+	 * 
+	 * @param operationClass
+	 *            the class of the operation
+	 * @param operation
+	 *            the operation
+	 * @return the pending result of the operation
+	 * @throws OverloadedOpenShiftException
+	 *             if the bulkhead is saturated
+	 */
+	public <T> Future<T> submit(OperationClass operationClass, Callable<T> operation)
+			throws OverloadedOpenShiftException {
+		return bulkheads.get(operationClass).submit(operation);
+	}
+
+	/**
+	 * Stops accepting new operations. Operations that were already submitted
+	 * are still run.
+	 */
+	public void shutdown() {
+		for (Bulkhead bulkhead : bulkheads.values()) {
+			bulkhead.shutdown();
+		}
+	}
+}
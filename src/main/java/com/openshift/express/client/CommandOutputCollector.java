@@ -0,0 +1,38 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.client;
+
+/**
+ * A command output listener that collects the output of a remote command.
+ * 
+ * @author Daniel Brenner
+ */
+public class CommandOutputCollector implements ICommandOutputListener {
+
+	private final StringBuilder stdout = new StringBuilder();
+	private final StringBuilder stderr = new StringBuilder();
+
+	public synchronized void stdout(CharSequence output) {
+		stdout.append(output);
+	}
+
+	public synchronized void stderr(CharSequence output) {
+		stderr.append(output);
+	}
+
+	public synchronized String getStdout() {
+		return stdout.toString();
+	}
+
+	public synchronized String getStderr() {
+		return stderr.toString();
+	}
+}
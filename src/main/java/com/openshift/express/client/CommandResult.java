@@ -0,0 +1,120 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.client;
+
+/**
+ * The outcome of a command that was executed on a remote gear.
+ * 
+ * @author Daniel Brenner
+ * 
+ * @see IApplication#executeCommand(String, long)
+ */
+public class CommandResult {
+
+	public static final int EXIT_STATUS_UNKNOWN = -1;
+
+	private String command;
+	private int exitStatus;
+	private boolean timedOut;
+	private long duration;
+	private String stdout;
+	private String stderr;
+	private OpenShiftException error;
+
+	public CommandResult(String command, int exitStatus, boolean timedOut, long duration, String stdout,
+			String stderr) {
+		this.command = command;
+		this.exitStatus = exitStatus;
+		this.timedOut = timedOut;
+		this.duration = duration;
+		this.stdout = stdout;
+		this.stderr = stderr;
+	}
+
+	public CommandResult(String command, OpenShiftException error) {
+		this(command, EXIT_STATUS_UNKNOWN, false, -1, null, null);
+		this.error = error;
+	}
+
+	public String getCommand() {
+		return command;
+	}
+
+	/**
+	 * Returns the exit status of the remote command or
+	 * {@link #EXIT_STATUS_UNKNOWN} if it did not terminate.
+	 * 
+	 * @return the exit status
+	 */
+	public int getExitStatus() {
+		return exitStatus;
+	}
+
+	/**
+	 * Returns <code>true</code> if the command was aborted since it did not
+	 * terminate within the given timeout.
+	 * 
+	 * @return true if the command timed out
+	 */
+	public boolean isTimedOut() {
+		return timedOut;
+	}
+
+	/**
+	 * Returns the time in milliseconds that the command took.
+	 * 
+	 * @return the duration in milliseconds
+	 */
+	public long getDuration() {
+		return duration;
+	}
+
+	/**
+	 * Returns the standard output of the command. Returns <code>null</code>
+	 * if the output was streamed to a listener.
+	 * 
+	 * @return the standard output
+	 */
+	public String getStdout() {
+		return stdout;
+	}
+
+	/**
+	 * Returns the standard error of the command. Returns <code>null</code> if
+	 * the output was streamed to a listener.
+	 * 
+	 * @return the standard error
+	 */
+	public String getStderr() {
+		return stderr;
+	}
+
+	/**
+	 * Returns the error that prevented the command from being executed.
+	 * Returns <code>null</code> if it could be executed.
+	 * 
+	 * @return the error that occurred
+	 */
+	public OpenShiftException getError() {
+		return error;
+	}
+
+	public boolean isSuccessful() {
+		return error == null
+				&& !timedOut
+				&& exitStatus == 0;
+	}
+
+	public String toString() {
+		return "CommandResult [command=" + command + ", exitStatus=" + exitStatus + ", timedOut=" + timedOut
+				+ ", duration=" + duration + "]";
+	}
+}
@@ -10,6 +10,7 @@
  ******************************************************************************/
 package com.openshift.express.client;
 
+import java.io.File;
 import java.util.Date;
 import java.util.List;
 
@@ -227,6 +228,65 @@ public interface IApplication {
 	 */
 	public boolean waitForAccessible(long timeout) throws OpenShiftException;
 
+	/**
+	 * Executes the given command on the gear of this application and hands
+	 * its output to the given listener while it runs. Commands share pooled
+	 * ssh sessions.
+	 * 
+	 * @param command
+	 *            the command to execute
+	 * @param timeout
+	 *            the max time in milliseconds the command may run, it is
+	 *            killed if it runs longer. No timeout if 0 or negative.
+	 * @param listener
+	 *            the listener that gets the output, a
+	 *            {@link IBoundedOutputListener} stops the command once it is
+	 *            complete
+	 * @return the result of the command
+	 * @throws OpenShiftException
+	 *             if the command could not be executed
+	 * 
+	 * @see ParallelCommandExecutor
+	 */
+	public CommandResult executeCommand(String command, long timeout, ICommandOutputListener listener)
+			throws OpenShiftException;
+
+	/**
+	 * Executes the given command on the gear of this application and returns
+	 * its result including its output.
+	 * 
+	 * @param command
+	 *            the command to execute
+	 * @param timeout
+	 *            the max time in milliseconds the command may run, it is
+	 *            killed if it runs longer. No timeout if 0 or negative.
+	 * @return the result of the command
+	 * @throws OpenShiftException
+	 *             if the command could not be executed
+	 * 
+	 * @see #executeCommand(String, long, ICommandOutputListener)
+	 */
+	public CommandResult executeCommand(String command, long timeout) throws OpenShiftException;
+
+	/**
+	 * Downloads the given file or directory from the gear of this application
+	 * to the given local directory. The files are streamed to disk over
+	 * several sftp channels at the same time. Files that are present locally
+	 * are skipped, partially present ones are resumed.
+	 * 
+	 * @param remotePath
+	 *            the file or directory to download, relative paths are
+	 *            resolved against the home directory of the gear
+	 * @param localDirectory
+	 *            the directory to download to
+	 * @return the result of the download
+	 * @throws OpenShiftException
+	 *             if the files could not be downloaded
+	 * 
+	 * @see ParallelFileDownloader
+	 */
+	public TransferResult downloadFiles(String remotePath, File localDirectory) throws OpenShiftException;
+
 	public IUser getUser();
 	
 }
\ No newline at end of file
@@ -0,0 +1,32 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.client;
+
+/**
+ * A command output listener that knows when it got all the output it waits
+ * for. Commands that do not terminate on their own (ex. a <code>tail -F</code>)
+ * are stopped as soon as their listener is complete.
+ * 
+ * @author Daniel Brenner
+ * 
+ * @see IApplication#executeCommand(String, long, ICommandOutputListener)
+ */
+public interface IBoundedOutputListener extends ICommandOutputListener {
+
+	/**
+	 * Returns <code>true</code> if this listener got all the output it waits
+	 * for.
+	 * 
+	 * @return true if no further output is needed
+	 */
+	public boolean isComplete();
+
+}
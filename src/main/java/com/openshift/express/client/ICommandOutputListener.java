@@ -0,0 +1,42 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.client;
+
+/**
+ * A listener that gets the output of a command that runs on a remote gear
+ * while it's produced.
+ * <p>
+ * The character sequences that are handed in are only valid within the call,
+ * listeners have to copy them if they want to keep them.
+ * 
+ * @author Daniel Brenner
+ * 
+ * @see IApplication#executeCommand(String, long, ICommandOutputListener)
+ */
+public interface ICommandOutputListener {
+
+	/**
+	 * Called with each chunk the remote command writes to its standard output.
+	 * 
+	 * @param output
+	 *            the output chunk
+	 */
+	public void stdout(CharSequence output);
+
+	/**
+	 * Called with each chunk the remote command writes to its standard error.
+	 * 
+	 * @param output
+	 *            the output chunk
+	 */
+	public void stderr(CharSequence output);
+
+}
@@ -10,6 +10,9 @@
  ******************************************************************************/
 package com.openshift.express.client;
 
+import com.openshift.express.client.threaddump.ThreadDump;
+import com.openshift.express.client.threaddump.ThreadDumpSampler;
+
 /**
  * @author William DeCoste
  */
@@ -23,4 +26,23 @@ public interface IJBossASApplication extends IApplication {
 	 */
 	public String threadDump() throws OpenShiftException;
 
+	/**
+	 * Triggers a thread dump and streams it from the log of this application
+	 * while it is written. The dump is parsed on the fly, the log is not held
+	 * in memory. Returns as soon as the dump was read completely or the
+	 * timeout expired, dumps that were cut short by the timeout are not
+	 * complete.
+	 * 
+	 * @param timeout
+	 *            the max time in milliseconds to wait for the dump
+	 * @return the thread dump
+	 * @throws OpenShiftException
+	 *             if the dump could not be triggered or was not found in the
+	 *             log
+	 * 
+	 * @see ThreadDump#isComplete()
+	 * @see ThreadDumpSampler
+	 */
+	public ThreadDump captureThreadDump(long timeout) throws OpenShiftException;
+
 }
\ No newline at end of file
@@ -10,6 +10,7 @@
  ******************************************************************************/
 package com.openshift.express.client;
 
+import java.io.File;
 import java.net.MalformedURLException;
 import java.util.List;
 
@@ -346,6 +347,47 @@ public interface IOpenShiftService {
 	 */
 	public String getStatus(String name, ICartridge cartridge, IUser user, String logFile, int numLines) throws OpenShiftException;
 
+	/**
+	 * Executes the given command on the gear of the given application and
+	 * hands its output to the given listener while it runs.
+	 * 
+	 * @param application
+	 *            the application whose gear the command shall run on
+	 * @param command
+	 *            the command to execute
+	 * @param timeout
+	 *            the max time in milliseconds the command may run, it is
+	 *            killed if it runs longer. No timeout if 0 or negative.
+	 * @param listener
+	 *            the listener that gets the output
+	 * @return the result of the command
+	 * @throws OpenShiftException
+	 *             if the command could not be executed
+	 * 
+	 * @see IApplication#executeCommand(String, long, ICommandOutputListener)
+	 */
+	public CommandResult executeCommand(IApplication application, String command, long timeout,
+			ICommandOutputListener listener) throws OpenShiftException;
+
+	/**
+	 * Downloads the given file or directory from the gear of the given
+	 * application to the given local directory.
+	 * 
+	 * @param application
+	 *            the application whose gear the files shall be downloaded from
+	 * @param remotePath
+	 *            the file or directory to download
+	 * @param localDirectory
+	 *            the directory to download to
+	 * @return the result of the download
+	 * @throws OpenShiftException
+	 *             if the files could not be downloaded
+	 * 
+	 * @see IApplication#downloadFiles(String, File)
+	 */
+	public TransferResult downloadFiles(IApplication application, String remotePath, File localDirectory)
+			throws OpenShiftException;
+
 
 	/**
 	 * Changes the current domain (namespace) to the given name.
@@ -0,0 +1,41 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.express.client;
+
+/**
+ * The informations that the broker keeps for a user.
+ * 
+ * @author Daniel Brenner
+ */
+public interface IUserInfo {
+
+	public String getRhLogin();
+
+	public String getUuid();
+
+	public SSHPublicKey getSshPublicKey();
+
+	public boolean hasDomain();
+
+	public String getNamespace();
+
+	public String getRhcDomain();
+
+	/**
+	 * Returns the number of gears that the user may consume.
+	 */
+	public long getMaxGears();
+
+	/**
+	 * Returns the number of gears that the applications of the user consume.
+	 */
+	public long getConsumedGears();
+}
@@ -10,26 +10,54 @@
  ******************************************************************************/
 package com.openshift.express.client;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.MalformedURLException;
+import java.net.SocketException;
 import java.net.SocketTimeoutException;
 import java.net.URL;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
 import java.text.MessageFormat;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
 
-import com.jcraft.jsch.Channel;
-import com.jcraft.jsch.ChannelExec;
-import com.jcraft.jsch.JSch;
-import com.jcraft.jsch.Session;
+import javax.management.ObjectName;
+
+import com.jcraft.jsch.JSchException;
+import com.openshift.express.client.balancing.BrokerEndpoint;
+import com.openshift.express.client.balancing.BrokerEndpointGroup;
+import com.openshift.express.client.json.IJsonCodec;
+import com.openshift.express.client.json.StreamingJsonCodec;
+import com.openshift.express.client.limit.ConcurrencyLimiter;
+import com.openshift.express.client.management.OpenShiftServiceMonitor;
+import com.openshift.express.client.metrics.CacheStatistics;
+import com.openshift.express.client.metrics.IBrokerMetrics;
+import com.openshift.express.client.metrics.NoopBrokerMetrics;
+import com.openshift.express.client.timeout.ITimeoutPolicy;
+import com.openshift.express.client.timeout.TimeoutPolicies;
+import com.openshift.express.client.tracing.IRequestListener;
 import com.openshift.express.client.utils.HostUtils;
+import com.openshift.express.internal.client.InternalUser;
+import com.openshift.express.internal.client.UserCaches;
 import com.openshift.express.internal.client.UserInfo;
+import com.openshift.express.internal.client.httpclient.BadRequestException;
 import com.openshift.express.internal.client.httpclient.HttpClientException;
 import com.openshift.express.internal.client.httpclient.NotFoundException;
+import com.openshift.express.internal.client.httpclient.RequestTimer;
 import com.openshift.express.internal.client.httpclient.UnauthorizedException;
 import com.openshift.express.internal.client.httpclient.UrlConnectionHttpClient;
+import com.openshift.express.internal.client.logging.Logger;
 import com.openshift.express.internal.client.request.AbstractDomainRequest;
+import com.openshift.express.internal.client.request.AbstractOpenShiftRequest;
 import com.openshift.express.internal.client.request.ApplicationAction;
 import com.openshift.express.internal.client.request.ApplicationRequest;
 import com.openshift.express.internal.client.request.ChangeDomainRequest;
@@ -37,16 +65,19 @@ import com.openshift.express.internal.client.request.CreateDomainRequest;
 import com.openshift.express.internal.client.request.DestroyDomainRequest;
 import com.openshift.express.internal.client.request.EmbedAction;
 import com.openshift.express.internal.client.request.EmbedRequest;
+import com.openshift.express.internal.client.request.EncodedCredentials;
 import com.openshift.express.internal.client.request.JBossApplicationRequest;
 import com.openshift.express.internal.client.request.ListCartridgesRequest;
-import com.openshift.express.internal.client.request.OpenShiftEnvelopeFactory;
+import com.openshift.express.internal.client.request.OpenShiftEnvelope;
 import com.openshift.express.internal.client.request.UserInfoRequest;
+import com.openshift.express.internal.client.request.marshalling.AbstractJsonMarshaller;
 import com.openshift.express.internal.client.request.marshalling.ApplicationRequestJsonMarshaller;
 import com.openshift.express.internal.client.request.marshalling.DomainRequestJsonMarshaller;
 import com.openshift.express.internal.client.request.marshalling.EmbedRequestJsonMarshaller;
 import com.openshift.express.internal.client.request.marshalling.ListCartridgesRequestJsonMarshaller;
 import com.openshift.express.internal.client.request.marshalling.UserInfoRequestJsonMarshaller;
 import com.openshift.express.internal.client.response.OpenShiftResponse;
+import com.openshift.express.internal.client.response.unmarshalling.AbstractOpenShiftJsonResponseUnmarshaller;
 import com.openshift.express.internal.client.response.unmarshalling.ApplicationResponseUnmarshaller;
 import com.openshift.express.internal.client.response.unmarshalling.ApplicationStatusResponseUnmarshaller;
 import com.openshift.express.internal.client.response.unmarshalling.DomainResponseUnmarshaller;
@@ -56,54 +87,301 @@ import com.openshift.express.internal.client.response.unmarshalling.ListCartridg
 import com.openshift.express.internal.client.response.unmarshalling.ListEmbeddableCartridgesResponseUnmarshaller;
 import com.openshift.express.internal.client.response.unmarshalling.NakedResponseUnmarshaller;
 import com.openshift.express.internal.client.response.unmarshalling.UserInfoResponseUnmarshaller;
-import com.openshift.express.internal.client.utils.StreamUtils;
+import com.openshift.express.internal.client.ssh.SftpDownloader;
+import com.openshift.express.internal.client.ssh.SshCommandExecutor;
+import com.openshift.express.internal.client.ssh.SshSessionFactory;
+import com.openshift.express.internal.client.ssh.SshSessionPool;
+import com.openshift.express.internal.client.utils.DaemonThreadFactory;
+import com.openshift.express.internal.client.utils.IOUtils;
+import com.openshift.express.internal.client.utils.PooledByteArrayOutputStream;
 
 /**
  * @author André Dietisheim
  */
 public class OpenShiftService implements IOpenShiftService {
 
-	private static final String SYSPROPERTY_ENABLE_SNI_EXTENSION = "jsse.enableSNIExtension";
-	private static final String SYSPROPERTY_PROXY_PORT = "proxyPort";
-	private static final String SYSPROPERTY_PROXY_HOST = "proxyHost";
-	private static final String SYSPROPERTY_PROXY_SET = "proxySet";
+	private static final Logger LOGGER = Logger.getLogger(OpenShiftService.class);
+
 	
 	// TODO extract to properties file
 	private static final String USERAGENT_FORMAT = "Java OpenShift/{0} ({1})";
 	private static final long APPLICATION_WAIT_DELAY = 2;
+	private static final long STATUS_COMMAND_TIMEOUT = 60 * 1000;
+	private static final String OPERATION_USERINFO = "userinfo";
 
 	private String baseUrl;
 	private String id;
-	private boolean doSSLChecks = false;
+	private volatile TransportConfiguration transport = TransportConfiguration.fromSystemProperties();
+	private boolean proxySet;
+	private String proxyHost;
+	private String proxyPort;
+	private SshSessionPool sshSessionPool;
+	private ExecutorService transferExecutor;
+	private volatile IBrokerMetrics metrics = NoopBrokerMetrics.INSTANCE;
+	private volatile boolean productionMode;
+	private volatile IJsonCodec jsonCodec = StreamingJsonCodec.INSTANCE;
+	private final List<IRequestListener> requestListeners = new CopyOnWriteArrayList<IRequestListener>();
+	private final String requestIdPrefix = Long.toHexString(new Random().nextLong());
+	private final AtomicLong requestCounter = new AtomicLong();
+	private final TimeoutPolicies timeoutPolicies = new TimeoutPolicies();
+	private volatile BrokerEndpointGroup endpointGroup;
+	private volatile ConcurrencyLimiter concurrencyLimiter;
+	private OpenShiftServiceMonitor monitor;
 	
 	protected static String version = null;
 
 	public OpenShiftService(String id, String baseUrl) {
 		this.id = id;
 		this.baseUrl = baseUrl;
+	}
 
-		// JDK7 bug workaround
-		System.setProperty(SYSPROPERTY_ENABLE_SNI_EXTENSION, "false");
+	/**
+	 * Sets the brokers that this service balances its requests to. Requests
+	 * are sent to the base url of this service if there is no group. The
+	 * health checks of the group are not started by this service.
+	 * 
+	 * @param endpointGroup
+	 *            the brokers, <code>null</code> to only use the base url
+	 * 
+	 * @see BrokerEndpointGroup#startHealthChecks(long)
+	 */
+	public void setEndpointGroup(BrokerEndpointGroup endpointGroup) {
+		this.endpointGroup = endpointGroup;
 	}
 
-	public void setEnableSSLCertChecks(boolean doSSLChecks) {
-		this.doSSLChecks = doSSLChecks;
+	public BrokerEndpointGroup getEndpointGroup() {
+		return endpointGroup;
 	}
 
-	public void setProxySet(boolean proxySet) {
-		if (proxySet) {
-			System.setProperty(SYSPROPERTY_PROXY_SET, "true");
-		} else {
-			System.setProperty(SYSPROPERTY_PROXY_SET, "false");
+	/**
+	 * Sets the limiter that the requests of this service have to pass before
+	 * they are sent. Requests beyond the limit wait or are rejected with an
+	 * {@link OverloadedOpenShiftException}. Requests are not limited by
+	 * default.
+	 * 
+	 * @param concurrencyLimiter
+	 *            the limiter, <code>null</code> to not limit the requests
+	 */
+	public void setConcurrencyLimiter(ConcurrencyLimiter concurrencyLimiter) {
+		this.concurrencyLimiter = concurrencyLimiter;
+	}
+
+	public ConcurrencyLimiter getConcurrencyLimiter() {
+		return concurrencyLimiter;
+	}
+
+	/**
+	 * Sets the configuration of the connections of this service to its
+	 * broker. It replaces the ssl checks and proxy that were set so far.
+	 * 
+	 * @param transport
+	 *            the configuration to use
+	 */
+	public synchronized void setTransportConfiguration(TransportConfiguration transport) {
+		this.transport = transport;
+	}
+
+	public TransportConfiguration getTransportConfiguration() {
+		return transport;
+	}
+
+	public synchronized void setEnableSSLCertChecks(boolean doSSLChecks) {
+		this.transport = transport.withSSLChecks(doSSLChecks);
+	}
+
+	public synchronized void setProxySet(boolean proxySet) {
+		this.proxySet = proxySet;
+		updateProxy();
+	}
+
+	public synchronized void setProxyHost(String proxyHost) {
+		this.proxyHost = proxyHost;
+		updateProxy();
+	}
+
+	public synchronized void setProxyPort(String proxyPort) {
+		this.proxyPort = proxyPort;
+		updateProxy();
+	}
+
+	/**
+	 * Applies the proxy settings to the transport configuration of this
+	 * service. Uses the proxy selector of the JVM unless the proxy is set and
+	 * has a host.
+	 */
+	private void updateProxy() {
+		if (!proxySet
+				|| proxyHost == null) {
+			this.transport = transport.withProxy(null);
+			return;
+		}
+		int port = TransportConfiguration.DEFAULT_PROXY_PORT;
+		try {
+			port = Integer.parseInt(proxyPort);
+		} catch (NumberFormatException e) {
+			LOGGER.debug("Invalid proxy port {0}, using {1}", proxyPort, port);
 		}
+		this.transport = transport.withHttpProxy(proxyHost, port);
+	}
+
+	/**
+	 * Sets the metrics that the latencies, sizes and errors of all broker
+	 * requests are reported to. Requests are not measured by default.
+	 * 
+	 * @param metrics
+	 *            the metrics to report to, <code>null</code> to stop reporting
+	 * 
+	 * @see com.openshift.express.client.metrics.InMemoryBrokerMetrics
+	 */
+	public void setMetrics(IBrokerMetrics metrics) {
+		if (metrics == null) {
+			metrics = NoopBrokerMetrics.INSTANCE;
+		}
+		this.metrics = metrics;
+	}
+
+	public IBrokerMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Adds a listener that is notified of the stages of each broker request.
+	 * 
+	 * @param listener
+	 *            the listener to add
+	 */
+	public void addRequestListener(IRequestListener listener) {
+		requestListeners.add(listener);
+	}
+
+	public void removeRequestListener(IRequestListener listener) {
+		requestListeners.remove(listener);
 	}
 
-	public void setProxyHost(String proxyHost) {
-		System.setProperty(SYSPROPERTY_PROXY_HOST, proxyHost);
+	/**
+	 * Returns a new request id. Ids are unique per service and random across
+	 * services.
+	 */
+	private String createRequestId() {
+		return requestIdPrefix + '-' + requestCounter.incrementAndGet();
+	}
+
+	/**
+	 * Sets this service to production mode. In production mode requests ask
+	 * the broker not to send debug output and the messages of successful
+	 * responses are not retained. The messages of error responses are kept.
+	 * 
+	 * @param productionMode
+	 *            <code>true</code> to switch to production mode
+	 */
+	public void setProductionMode(boolean productionMode) {
+		this.productionMode = productionMode;
 	}
 
-	public void setProxyPort(String proxyPort) {
-		System.setProperty(SYSPROPERTY_PROXY_PORT, proxyPort);
+	public boolean isProductionMode() {
+		return productionMode;
+	}
+
+	/**
+	 * Sets the codec that parses the responses of the broker. The
+	 * {@link StreamingJsonCodec} is used by default, it parses the bytes
+	 * that were received in place.
+	 * 
+	 * @param jsonCodec
+	 *            the codec to use, <code>null</code> to use the default
+	 * 
+	 * @see com.openshift.express.client.json.DmrJsonCodec
+	 */
+	public void setJsonCodec(IJsonCodec jsonCodec) {
+		if (jsonCodec == null) {
+			jsonCodec = StreamingJsonCodec.INSTANCE;
+		}
+		this.jsonCodec = jsonCodec;
+	}
+
+	public IJsonCodec getJsonCodec() {
+		return jsonCodec;
+	}
+
+	private boolean isDebug() {
+		return !productionMode;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	/**
+	 * Returns the hits and misses of the user infos that the users of this
+	 * service cache.
+	 * 
+	 * @return the user info cache statistics
+	 */
+	public CacheStatistics getUserInfoCacheStatistics() {
+		return UserCaches.get(this).getUserInfoStatistics();
+	}
+
+	/**
+	 * Returns the hits and misses of the cartridges that the users of this
+	 * service cache.
+	 * 
+	 * @return the cartridge cache statistics
+	 */
+	public CacheStatistics getCartridgeCacheStatistics() {
+		return UserCaches.get(this).getCartridgeStatistics();
+	}
+
+	/**
+	 * Returns the timeout policies of the broker operations of this service.
+	 * Operations without policy use the timeouts in the system properties.
+	 * 
+	 * @return the timeout policies
+	 */
+	public TimeoutPolicies getTimeoutPolicies() {
+		return timeoutPolicies;
+	}
+
+	/**
+	 * Discards the user infos and cartridges that the users of this service
+	 * cached so far. They get reloaded from the broker on next access.
+	 */
+	public void flushCaches() {
+		UserCaches.get(this).flush();
+	}
+
+	/**
+	 * Disconnects the pooled ssh sessions that are not in use.
+	 */
+	public synchronized void drainPools() {
+		if (sshSessionPool != null) {
+			sshSessionPool.evictIdle();
+		}
+	}
+
+	/**
+	 * Registers an MBean for this service in the platform MBean server. Does
+	 * nothing if it was registered already.
+	 * 
+	 * @return the name of the MBean
+	 * @throws OpenShiftException
+	 *             if the MBean could not be registered
+	 * 
+	 * @see com.openshift.express.client.management.OpenShiftServiceMXBean
+	 */
+	public synchronized ObjectName registerMBean() throws OpenShiftException {
+		if (monitor == null) {
+			OpenShiftServiceMonitor monitor = new OpenShiftServiceMonitor(this);
+			monitor.register();
+			this.monitor = monitor;
+		}
+		return monitor.getObjectName();
+	}
+
+	public synchronized void unregisterMBean() throws OpenShiftException {
+		if (monitor != null) {
+			monitor.unregister();
+			this.monitor = null;
+		}
 	}
 
 	public String getServiceUrl() {
@@ -119,50 +397,38 @@ public class OpenShiftService implements IOpenShiftService {
 	}
 
 	public UserInfo getUserInfo(final IUser user) throws OpenShiftException {
-		System.out.println("**** getUserInfo " + user);
-		UserInfoRequest userInfoRequest = new UserInfoRequest(user.getRhlogin(), true);
+		LOGGER.debug("Getting user info for {0}", user.getRhlogin());
+		UserInfoRequest userInfoRequest = new UserInfoRequest(user.getRhlogin(), isDebug());
 		String url = userInfoRequest.getUrlString(getServiceUrl());
 
-		String request = new UserInfoRequestJsonMarshaller().marshall(userInfoRequest);
-		String response = sendRequest(
-				request, url, user.getPassword(), user.getAuthKey(), user.getAuthIV(),
-				MessageFormat.format("Could not get user info for user \"{0}\" at \"{1}\"", user.getRhlogin(), url));
-		OpenShiftResponse<UserInfo> userInfoResponse =
-				new UserInfoResponseUnmarshaller().unmarshall(response);
-		return userInfoResponse.getOpenShiftObject();
+		return sendRequest(OPERATION_USERINFO, new UserInfoRequestJsonMarshaller(), userInfoRequest, url, user,
+				new UserInfoResponseUnmarshaller(),
+				"Could not get user info for user \"{0}\" at \"{1}\"", user.getRhlogin(), url);
 	}
 
 	public List<IEmbeddableCartridge> getEmbeddableCartridges(final IUser user) throws OpenShiftException {
 		ListCartridgesRequest listCartridgesRequest =
-				new ListCartridgesRequest(ListCartridgesRequest.CartridgeType.EMBEDDED, user.getRhlogin(), true);
+				new ListCartridgesRequest(ListCartridgesRequest.CartridgeType.EMBEDDED, user.getRhlogin(), isDebug());
 		String url = listCartridgesRequest.getUrlString(getServiceUrl());
-		String request =
-				new ListCartridgesRequestJsonMarshaller().marshall(listCartridgesRequest);
-		String response = sendRequest(request, url, user.getPassword(), user.getAuthKey(), user.getAuthIV(),
-				MessageFormat.format("Could not list available embeddable cartridges at \"{0}\"", url));
-		OpenShiftResponse<List<IEmbeddableCartridge>> listCartridgesResponse =
-				new ListEmbeddableCartridgesResponseUnmarshaller().unmarshall(response);
-		return listCartridgesResponse.getOpenShiftObject();
+		return sendRequest(getOperation(listCartridgesRequest), new ListCartridgesRequestJsonMarshaller(), listCartridgesRequest, url, user,
+				new ListEmbeddableCartridgesResponseUnmarshaller(),
+				"Could not list available embeddable cartridges at \"{0}\"", url);
 	}
 
 	public List<ICartridge> getCartridges(final IUser user) throws OpenShiftException {
 		ListCartridgesRequest listCartridgesRequest =
-				new ListCartridgesRequest(ListCartridgesRequest.CartridgeType.STANDALONE, user.getRhlogin(), true);
+				new ListCartridgesRequest(ListCartridgesRequest.CartridgeType.STANDALONE, user.getRhlogin(), isDebug());
 		String url = listCartridgesRequest.getUrlString(getServiceUrl());
-		String request =
-				new ListCartridgesRequestJsonMarshaller().marshall(listCartridgesRequest);
-		String response = sendRequest(request, url, user.getPassword(), user.getAuthKey(), user.getAuthIV(),
-				MessageFormat.format("Could not list embeddable cartridges at \"{0}\"", url));
-		OpenShiftResponse<List<ICartridge>> cartridgesResponse =
-				new ListCartridgesResponseUnmarshaller().unmarshall(response);
-		return cartridgesResponse.getOpenShiftObject();
+		return sendRequest(getOperation(listCartridgesRequest), new ListCartridgesRequestJsonMarshaller(), listCartridgesRequest, url, user,
+				new ListCartridgesResponseUnmarshaller(),
+				"Could not list embeddable cartridges at \"{0}\"", url);
 	}
 
 	public IDomain createDomain(final String name, final ISSHPublicKey sshKey, final IUser user)
 			throws OpenShiftException {
 
 		validateDomainName(name);
-		return requestDomainAction(new CreateDomainRequest(name, sshKey, user.getRhlogin(), true), user);
+		return requestDomainAction(new CreateDomainRequest(name, sshKey, user.getRhlogin(), isDebug()), user);
 	}
 
 	public void destroyDomain(final String name, final IUser user) throws OpenShiftException {
@@ -171,20 +437,15 @@ public class OpenShiftService implements IOpenShiftService {
 	
 	public IDomain changeDomain(final String newName, final ISSHPublicKey sshKey, final IUser user)
 			throws OpenShiftException {
-		return requestDomainAction(new ChangeDomainRequest(newName, sshKey, user.getRhlogin(), true), user);
+		return requestDomainAction(new ChangeDomainRequest(newName, sshKey, user.getRhlogin(), isDebug()), user);
 	}
 
 	protected IDomain requestDomainAction(final AbstractDomainRequest domainRequest, final IUser user)
 			throws OpenShiftException {
 		String url = domainRequest.getUrlString(getServiceUrl());
-		String request = new DomainRequestJsonMarshaller().marshall(domainRequest);
-		String response =
-				sendRequest(
-						request, url, user.getPassword(), user.getAuthKey(), user.getAuthIV(),
-						MessageFormat.format("Could not {0}", domainRequest.getOperation()));
-		OpenShiftResponse<IDomain> domainResponse =
-				new DomainResponseUnmarshaller(domainRequest.getName(), user, this).unmarshall(response);
-		return domainResponse.getOpenShiftObject();
+		return sendRequest(getOperation(domainRequest), new DomainRequestJsonMarshaller(), domainRequest, url, user,
+				new DomainResponseUnmarshaller(domainRequest.getName(), user, this),
+				"Could not {0}", domainRequest.getOperation());
 	}
 
 	public IApplication createApplication(final String name, final ICartridge cartridge, final IUser user)
@@ -290,7 +551,7 @@ public class OpenShiftService implements IOpenShiftService {
 
 		return requestApplicationAction(
 				new ApplicationRequest(
-						name, cartridge, ApplicationAction.CONFIGURE, user.getRhlogin(), true, size), user);
+						name, cartridge, ApplicationAction.CONFIGURE, user.getRhlogin(), isDebug(), size), user);
 	}
 
 	protected void validateApplicationName(final String name)
@@ -317,98 +578,131 @@ public class OpenShiftService implements IOpenShiftService {
 			throws OpenShiftException {
 		requestApplicationAction(
 				new ApplicationRequest(
-						name, cartridge, ApplicationAction.DECONFIGURE, user.getRhlogin(), true), user);
+						name, cartridge, ApplicationAction.DECONFIGURE, user.getRhlogin(), isDebug()), user);
 	}
 
 	public IApplication startApplication(final String name, final ICartridge cartridge, final IUser user)
 			throws OpenShiftException {
 		return requestApplicationAction(
 				new ApplicationRequest(
-						name, cartridge, ApplicationAction.START, user.getRhlogin(), true), user);
+						name, cartridge, ApplicationAction.START, user.getRhlogin(), isDebug()), user);
 	}
 
 	public IApplication restartApplication(final String name, final ICartridge cartridge, final IUser user)
 			throws OpenShiftException {
 		return requestApplicationAction(
 				new ApplicationRequest(
-						name, cartridge, ApplicationAction.RESTART, user.getRhlogin(), true), user);
+						name, cartridge, ApplicationAction.RESTART, user.getRhlogin(), isDebug()), user);
 	}
 
 	public IApplication stopApplication(final String name, final ICartridge cartridge, final IUser user)
 			throws OpenShiftException {
 		return requestApplicationAction(
 				new ApplicationRequest(
-						name, cartridge, ApplicationAction.STOP, user.getRhlogin(), true), user);
+						name, cartridge, ApplicationAction.STOP, user.getRhlogin(), isDebug()), user);
 	}
 
 	public IApplication threadDumpApplication(final String name, final ICartridge cartridge, final IUser user)
 			throws OpenShiftException {
 		return requestApplicationAction(
 				new JBossApplicationRequest(
-						name, cartridge, ApplicationAction.THREADDUMP, user.getRhlogin(), true), user);
+						name, cartridge, ApplicationAction.THREADDUMP, user.getRhlogin(), isDebug()), user);
 	}
 
 	public String getStatus(final String applicationName, final ICartridge cartridge, final IUser user)
 			throws OpenShiftException {
 		ApplicationRequest applicationRequest =
-				new ApplicationRequest(applicationName, cartridge, ApplicationAction.STATUS, user.getRhlogin(), true);
+				new ApplicationRequest(applicationName, cartridge, ApplicationAction.STATUS, user.getRhlogin(), isDebug());
 		String url = applicationRequest.getUrlString(getServiceUrl());
-		String request =
-				new ApplicationRequestJsonMarshaller().marshall(applicationRequest);
-		String response = sendRequest(request, url, user.getPassword(), user.getAuthKey(), user.getAuthIV(),
-				MessageFormat.format("Could not {0} application \"{1}\" at \"{2}\"",
-						applicationRequest.getAction().getCommand(), applicationRequest.getName(), url));
-		OpenShiftResponse<String> openshiftResponse =
-				new ApplicationStatusResponseUnmarshaller().unmarshall(response);
-		return openshiftResponse.getOpenShiftObject();
+		return sendRequest(getOperation(applicationRequest), new ApplicationRequestJsonMarshaller(), applicationRequest, url, user,
+				new ApplicationStatusResponseUnmarshaller(),
+				"Could not {0} application \"{1}\" at \"{2}\"",
+				applicationRequest.getAction().getCommand(), applicationRequest.getName(), url);
 	}
 
 	public String getStatus(final String applicationName, final ICartridge cartridge, final IUser user,
 			final String logFile, final int numLines)
 			throws OpenShiftException {
-		try {
-			JSch jsch = new JSch();
-			String host = this.getServiceUrl().replace("https://", "").replace("/broker", "");
-
-			Session session = jsch.getSession("root", host, 22);
-
-			jsch.setKnownHosts(System.getProperty("KNOWN_HOSTS"));
-			jsch.addIdentity(System.getProperty("IDENTITY"));
-
-			Properties config = new Properties();
-			config.put("StrictHostKeyChecking", "no");
-			session.setConfig(config);
-
-			session.connect();
-
-			Channel channel = session.openChannel("exec");
-			((ChannelExec) channel).setErrStream(System.err);
-			InputStream in = channel.getInputStream();
+		String host = this.getServiceUrl().replace("https://", "").replace("/broker", "");
+		String logLocation = cartridge.getLogLocation();
+		String command =
+				"tail "
+						+ "-" + numLines
+						+ " /var/lib/stickshift/" + applicationName
+						+ "-" + user.getDomain().getNamespace() + "/" + applicationName + logLocation + logFile;
+		CommandOutputCollector collector = new CommandOutputCollector();
+		CommandResult result = 
+				new SshCommandExecutor(getSshSessionPool()).execute("root", host, command, STATUS_COMMAND_TIMEOUT, collector);
+		if (result.isTimedOut()) {
+			throw new OpenShiftException("Unable to reteive status log", applicationName);
+		}
+		if (result.getExitStatus() != 0) {
+			throw new OpenShiftException("Could not retrieve status log of application \"{0}\", \"{1}\" exited with status {2}: {3}",
+					applicationName, command, result.getExitStatus(), collector.getStderr());
+		}
+		return collector.getStdout();
+	}
 
-			
-			String logLocation = cartridge.getLogLocation();
+	public CommandResult executeCommand(final IApplication application, final String command, final long timeout,
+			final ICommandOutputListener listener) throws OpenShiftException {
+		String host = getSshHost(application);
+		return new SshCommandExecutor(getSshSessionPool())
+				.execute(application.getUUID(), host, command, timeout, listener);
+	}
 
-			String command =
-					"tail "
-							+ "-" + numLines
-							+ " /var/lib/stickshift/" + applicationName
-							+ "-" + user.getDomain().getNamespace() + "/" + applicationName + logLocation + logFile;
+	public TransferResult downloadFiles(final IApplication application, final String remotePath,
+			final File localDirectory) throws OpenShiftException {
+		String host = getSshHost(application);
+		return new SftpDownloader(getSshSessionPool(), getTransferExecutor())
+				.download(application.getUUID(), host, remotePath, localDirectory);
+	}
 
-			((ChannelExec) channel).setCommand(command);
+	private synchronized ExecutorService getTransferExecutor() {
+		if (transferExecutor == null) {
+			// transfers are bounded by the channels that the session pool hands out
+			this.transferExecutor = Executors.newCachedThreadPool(new DaemonThreadFactory("transfer"));
+		}
+		return transferExecutor;
+	}
 
-			channel.connect();
+	private String getSshHost(final IApplication application) throws OpenShiftException {
+		String applicationUrl = application.getApplicationUrl();
+		try {
+			return new URL(applicationUrl).getHost();
+		} catch (MalformedURLException e) {
+			throw new OpenShiftException(e, "Application URL {0} is invalid", applicationUrl);
+		}
+	}
 
-			byte[] tmp = new byte[1024];
-			StringBuffer buff = new StringBuffer();
-			int read = 0;
-			while ((read = in.read(tmp)) > 0) {
-				buff.append(new String(tmp, 0, read - 1));
+	/**
+	 * Returns the pool of ssh sessions that remote commands are executed
+	 * over.
+	 * 
+	 * @return the ssh session pool
+	 * @throws OpenShiftException
+	 *             if the ssh identity could not be loaded
+	 */
+	public synchronized SshSessionPool getSshSessionPool() throws OpenShiftException {
+		if (sshSessionPool == null) {
+			try {
+				this.sshSessionPool = new SshSessionPool(new SshSessionFactory());
+			} catch (JSchException e) {
+				throw new OpenShiftException(e, "Could not load ssh identity");
 			}
-			return buff.toString();
-		} catch (Exception e) {
-			e.printStackTrace();
-			throw new OpenShiftException(e, "Unable to reteive status log", applicationName);
 		}
+		return sshSessionPool;
+	}
+
+	/**
+	 * Returns <code>true</code> if the ssh session pool was created (or set)
+	 * already.
+	 */
+	public synchronized boolean hasSshSessionPool() {
+		return sshSessionPool != null;
+	}
+
+	public synchronized void setSshSessionPool(SshSessionPool sshSessionPool) {
+		this.sshSessionPool = sshSessionPool;
 	}
 
 	/*
@@ -432,14 +726,11 @@ public class OpenShiftService implements IOpenShiftService {
 	protected IApplication requestApplicationAction(final ApplicationRequest applicationRequest, final IUser user)
 			throws OpenShiftException {
 		String url = applicationRequest.getUrlString(getServiceUrl());
-		String request = new ApplicationRequestJsonMarshaller().marshall(applicationRequest);
-		String response = sendRequest(request, url, user.getPassword(), user.getAuthKey(), user.getAuthIV(),
-				MessageFormat.format("Could not {0} application \"{1}\" at \"{2}\"",
-						applicationRequest.getAction().getCommand(), applicationRequest.getName(), url));
-		OpenShiftResponse<IApplication> openshiftResponse =
+		return sendRequest(getOperation(applicationRequest), new ApplicationRequestJsonMarshaller(), applicationRequest, url, user,
 				new ApplicationResponseUnmarshaller(applicationRequest.getName(),
-						applicationRequest.getCartridge(), user, this).unmarshall(response);
-		return openshiftResponse.getOpenShiftObject();
+						applicationRequest.getCartridge(), user, this),
+				"Could not {0} application \"{1}\" at \"{2}\"",
+				applicationRequest.getAction().getCommand(), applicationRequest.getName(), url);
 	}
 
 	public boolean waitForApplication(final String healthCheckUrl, final long timeout, final String expectedResponse)
@@ -487,57 +778,307 @@ public class OpenShiftService implements IOpenShiftService {
 			final IEmbeddableCartridge cartridge,
 			IUser user) throws OpenShiftException {
 		return requestEmbedAction(
-				new EmbedRequest(applicationName, cartridge, EmbedAction.ADD, user.getRhlogin(), true)
+				new EmbedRequest(applicationName, cartridge, EmbedAction.ADD, user.getRhlogin(), isDebug())
 				, user);
 	}
 
 	public void removeEmbeddedCartridge(final String applicationName, final IEmbeddableCartridge cartridge,
 			final IUser user) throws OpenShiftException {
 		requestEmbedAction(
-				new EmbedRequest(applicationName, cartridge, EmbedAction.REMOVE, user.getRhlogin(), true)
+				new EmbedRequest(applicationName, cartridge, EmbedAction.REMOVE, user.getRhlogin(), isDebug())
 				, user);
 	}
 
 	protected IEmbeddableCartridge requestEmbedAction(final EmbedRequest embedRequest, final IUser user)
 			throws OpenShiftException {
 		String url = embedRequest.getUrlString(getServiceUrl());
-		String request = new EmbedRequestJsonMarshaller().marshall(embedRequest);
-		String response = sendRequest(request, url, user.getPassword(), user.getAuthKey(), user.getAuthIV(),
-				MessageFormat.format("Could not {0} application \"{1}\" at \"{2}\"",
-						embedRequest.getAction().getCommand(), embedRequest.getName(), url));
-		OpenShiftResponse<IEmbeddableCartridge> openshiftResponse =
-				new EmbedResponseUnmarshaller(embedRequest.getEmbeddableCartridge())
-						.unmarshall(response);
-		return openshiftResponse.getOpenShiftObject();
-	}
-
-	private String sendRequest(final String request, final String url, final String password, final String authKey,
-			final String authIV, final String errorMessage) throws OpenShiftException {
+		return sendRequest(getOperation(embedRequest), new EmbedRequestJsonMarshaller(), embedRequest, url, user,
+				new EmbedResponseUnmarshaller(embedRequest.getEmbeddableCartridge()),
+				"Could not {0} application \"{1}\" at \"{2}\"",
+				embedRequest.getAction().getCommand(), embedRequest.getName(), url);
+	}
+
+	/**
+	 * Sends the given request and unmarshalls the response. The error message
+	 * is only formatted with its arguments if the request fails.
+	 */
+	private <REQUEST extends AbstractOpenShiftRequest, T> T sendRequest(final String operation,
+			final AbstractJsonMarshaller<REQUEST> marshaller, final REQUEST request, final String url, final IUser user,
+			final AbstractOpenShiftJsonResponseUnmarshaller<T> unmarshaller, final String errorMessage,
+			final Object... errorArguments) throws OpenShiftException {
+		ITimeoutPolicy timeoutPolicy = timeoutPolicies.getPolicy(operation);
+		ConcurrencyLimiter limiter = this.concurrencyLimiter;
+		boolean acquired = false;
+		long start = System.nanoTime();
+		Throwable error = null;
+		try {
+			if (limiter != null) {
+				limiter.acquire();
+				acquired = true;
+			}
+			// the time spent waiting for a permit says nothing about the broker
+			start = System.nanoTime();
+			unmarshaller.setRetainMessages(isDebug());
+			unmarshaller.setJsonCodec(jsonCodec);
+			OpenShiftEnvelope<REQUEST> envelope = createEnvelope(marshaller, request, user);
+			BrokerEndpointGroup endpointGroup = this.endpointGroup;
+			if (endpointGroup == null) {
+				return sendTimedRequest(operation, envelope, url, timeoutPolicy, unmarshaller, errorMessage,
+						errorArguments);
+			}
+			return sendRequest(endpointGroup, operation, envelope, url, user, timeoutPolicy, unmarshaller,
+					errorMessage, errorArguments);
+		} catch (OpenShiftException e) {
+			error = e;
+			throw e;
+		} catch (RuntimeException e) {
+			error = e;
+			throw e;
+		} catch (Error e) {
+			error = e;
+			throw e;
+		} finally {
+			long latency = System.nanoTime() - start;
+			if (acquired) {
+				release(limiter, error, latency);
+			}
+			if (timeoutPolicy != null
+					&& error == null) {
+				timeoutPolicy.record(latency / 1000000);
+			}
+		}
+	}
+
+	/**
+	 * Releases the permit of a request. Requests that the broker timed out or
+	 * failed make the limiter back off, requests that failed for other
+	 * reasons do not tell anything about the load of the broker.
+	 */
+	private void release(ConcurrencyLimiter limiter, Throwable error, long latency) {
+		if (error == null) {
+			limiter.release(latency);
+		} else if (error instanceof OpenShiftEndpointException
+				&& !(error.getCause() instanceof BadRequestException)) {
+			limiter.releaseDropped();
+		} else {
+			limiter.releaseIgnored();
+		}
+	}
+
+	/**
+	 * Sends the given envelope to the brokers of the given group. Idempotent
+	 * operations fail over to the next broker if a broker does not answer,
+	 * the others stick to the broker of the user and are not retried.
+	 */
+	private <T> T sendRequest(final BrokerEndpointGroup endpointGroup, final String operation,
+			final OpenShiftEnvelope<?> envelope, final String url, final IUser user,
+			final ITimeoutPolicy timeoutPolicy, final AbstractOpenShiftJsonResponseUnmarshaller<T> unmarshaller,
+			final String errorMessage, final Object[] errorArguments) throws OpenShiftException {
+		boolean idempotent = endpointGroup.isIdempotent(operation);
+		String affinityKey = idempotent ? null : user.getRhlogin();
+		List<BrokerEndpoint> tried = new ArrayList<BrokerEndpoint>(2);
+		while (true) {
+			BrokerEndpoint endpoint = endpointGroup.select(affinityKey, tried);
+			String endpointUrl = endpointGroup.resolve(url, baseUrl, endpoint);
+			endpointGroup.requestStarted(endpoint);
+			boolean succeeded = false;
+			boolean failed = false;
+			long start = System.nanoTime();
+			try {
+				T openShiftObject = sendTimedRequest(operation, envelope, endpointUrl, timeoutPolicy, unmarshaller,
+						errorMessage, errorArguments);
+				succeeded = true;
+				endpointGroup.requestSucceeded(endpoint, System.nanoTime() - start);
+				return openShiftObject;
+			} catch (OpenShiftEndpointException e) {
+				if (!isUnanswered(e)) {
+					throw e;
+				}
+				failed = true;
+				tried.add(endpoint);
+				if (!idempotent
+						|| tried.size() >= endpointGroup.getEndpoints().size()) {
+					throw e;
+				}
+				LOGGER.debug("Broker {0} failed, retrying {1} at the next broker", endpoint.getBaseUrl(), operation);
+			} finally {
+				if (failed) {
+					endpointGroup.requestFailed(endpoint);
+				} else if (!succeeded) {
+					// the broker answered, there is nothing to fail over from
+					endpointGroup.requestEnded(endpoint);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns <code>true</code> if the given exception was caused by a broker
+	 * that could not be reached, reset the connection or timed out. Brokers
+	 * that answered with an error are not unanswered.
+	 */
+	private static boolean isUnanswered(OpenShiftEndpointException e) {
+		Throwable cause = e.getCause();
+		if (cause instanceof SocketTimeoutException) {
+			return true;
+		}
+		return cause instanceof HttpClientException
+				&& (cause.getCause() instanceof SocketException
+				|| cause.getCause() instanceof UnknownHostException);
+	}
+
+	/**
+	 * Sends a single attempt of the given envelope to the given url, reports
+	 * its stages to the request listeners and its metrics to the metrics of
+	 * this service.
+	 */
+	private <T> T sendTimedRequest(final String operation, final OpenShiftEnvelope<?> envelope,
+			final String url, final ITimeoutPolicy timeoutPolicy,
+			final AbstractOpenShiftJsonResponseUnmarshaller<T> unmarshaller, final String errorMessage,
+			final Object[] errorArguments) throws OpenShiftException {
+		RequestTimer timer = new RequestTimer(createRequestId(), operation, url, requestListeners);
+		Throwable error = null;
+		try {
+			T openShiftObject = sendRequest(envelope, url, timer, timeoutPolicy, unmarshaller, errorMessage,
+					errorArguments).getOpenShiftObject();
+			timer.parsed();
+			return openShiftObject;
+		} catch (OpenShiftException e) {
+			error = e;
+			throw e;
+		} catch (RuntimeException e) {
+			error = e;
+			throw e;
+		} catch (Error e) {
+			error = e;
+			throw e;
+		} finally {
+			metrics.record(timer.stop(error));
+		}
+	}
+
+	/**
+	 * Creates the envelope for the given request. Uses the encoded
+	 * credentials of the given user if it keeps them.
+	 */
+	private <REQUEST extends AbstractOpenShiftRequest> OpenShiftEnvelope<REQUEST> createEnvelope(
+			final AbstractJsonMarshaller<REQUEST> marshaller, final REQUEST request, final IUser user)
+			throws OpenShiftException {
+		if (user instanceof InternalUser) {
+			EncodedCredentials credentials = ((InternalUser) user).getEncodedCredentials();
+			if (credentials.isFor(request.getRhLogin())) {
+				return new OpenShiftEnvelope<REQUEST>(credentials, marshaller, request);
+			}
+		}
+		return new OpenShiftEnvelope<REQUEST>(
+				user.getPassword(), user.getAuthKey(), user.getAuthIV(), marshaller, request);
+	}
+
+	private <T> OpenShiftResponse<T> sendRequest(final OpenShiftEnvelope<?> envelope, final String url,
+			final RequestTimer timer, final ITimeoutPolicy timeoutPolicy,
+			final AbstractOpenShiftJsonResponseUnmarshaller<T> unmarshaller, final String errorMessage,
+			final Object[] errorArguments) throws OpenShiftException {
 		try {
-			String requestMessage = new OpenShiftEnvelopeFactory(password, authKey, authIV, request).createString();
-			String response = createHttpClient(id, url, this.doSSLChecks).post(requestMessage);
-			return JsonSanitizer.sanitize(response);
+			timer.envelopeBuilt();
+			IHttpClient client = createHttpClient(id, url, transport.isSSLChecks());
+			if (client instanceof UrlConnectionHttpClient) {
+				UrlConnectionHttpClient urlConnectionClient = (UrlConnectionHttpClient) client;
+				if (timeoutPolicy != null) {
+					urlConnectionClient.setTimeouts(timeoutPolicy.getConnectTimeout(), timeoutPolicy.getReadTimeout());
+				}
+				return sendRequest(envelope, urlConnectionClient, timer, unmarshaller);
+			}
+			String response = client.post(envelope.createString());
+			// clients that do not time the phases report the whole request as download
+			timer.downloaded(response.length());
+			response = JsonSanitizer.sanitize(response);
+			timer.sanitized();
+			return unmarshaller.unmarshall(response);
 		} catch (MalformedURLException e) {
-			throw new OpenShiftException(e, errorMessage);
+			throw new OpenShiftException(e, errorMessage, errorArguments);
 		} catch (UnauthorizedException e) {
 			throw new InvalidCredentialsOpenShiftException(url, e);
 		} catch (NotFoundException e) {
 			throw new NotFoundOpenShiftException(url, e);
 		} catch(SocketTimeoutException e) {
-			throw new OpenShiftEndpointException(url, e, errorMessage);
+			if (timeoutPolicy != null) {
+				timeoutPolicy.recordTimeout();
+			}
+			throw new OpenShiftEndpointException(url, e, errorMessage, errorArguments);
 		} catch (HttpClientException e) {
-			throw new OpenShiftEndpointException(url, e, createNakedResponse(e.getMessage()), errorMessage);
+			if (e.getCause() instanceof SocketException
+					|| e.getCause() instanceof UnknownHostException) {
+				// the broker did not answer, there is no response to parse
+				throw new OpenShiftEndpointException(url, e, errorMessage, errorArguments);
+			}
+			throw new OpenShiftEndpointException(url, e, createNakedResponse(e.getMessage()), errorMessage,
+					errorArguments);
+		}
+	}
+
+	/**
+	 * Streams the given envelope to the connection of the given client and
+	 * unmarshalls the response straight from the bytes that were received.
+	 * Falls back to decoding the response if it is not UTF-8 encoded.
+	 */
+	private <T> OpenShiftResponse<T> sendRequest(final OpenShiftEnvelope<?> envelope,
+			final UrlConnectionHttpClient client, final RequestTimer timer,
+			final AbstractOpenShiftJsonResponseUnmarshaller<T> unmarshaller) throws OpenShiftException,
+			HttpClientException, SocketTimeoutException {
+		client.setRequestTimer(timer);
+		PooledByteArrayOutputStream response = new PooledByteArrayOutputStream();
+		try {
+			Charset charset = client.post(envelope, response);
+			if (!IOUtils.UTF8.equals(charset)) {
+				String decoded = charset.decode(ByteBuffer.wrap(response.getBuffer(), 0, response.size())).toString();
+				decoded = JsonSanitizer.sanitize(decoded);
+				timer.sanitized();
+				return unmarshaller.unmarshall(decoded);
+			}
+			// the codec parses quoted json objects or sanitizes on its own
+			timer.sanitized();
+			return unmarshaller.unmarshall(response.getBuffer(), 0, response.size());
+		} finally {
+			response.release();
+		}
+	}
+
+	private String getOperation(ListCartridgesRequest request) {
+		return request.getResourcePath() + ':' + request.getCartType();
+	}
+
+	private String getOperation(AbstractDomainRequest request) {
+		if (request.isDelete()) {
+			return request.getResourcePath() + ":delete";
+		} else if (request.isAlter()) {
+			return request.getResourcePath() + ":alter";
+		} else {
+			return request.getResourcePath() + ":create";
 		}
 	}
 
+	private String getOperation(ApplicationRequest request) {
+		return request.getResourcePath() + ':' + request.getAction().getCommand();
+	}
+
+	private String getOperation(EmbedRequest request) {
+		return request.getResourcePath() + ':' + request.getAction().getCommand();
+	}
+
 	private OpenShiftResponse<Object> createNakedResponse(String response) throws OpenShiftException {
-		return new NakedResponseUnmarshaller().unmarshall(response);
+		NakedResponseUnmarshaller unmarshaller = new NakedResponseUnmarshaller();
+		unmarshaller.setJsonCodec(jsonCodec);
+		return unmarshaller.unmarshall(response);
 	}
 	
 	protected IHttpClient createHttpClient(final String id, final String url, final boolean verifyHostnames)
 			throws MalformedURLException {
 		String userAgent = MessageFormat.format(USERAGENT_FORMAT, getVersion(), id);
-		return new UrlConnectionHttpClient(userAgent, new URL(url), verifyHostnames);
+		TransportConfiguration transport = this.transport;
+		if (transport.isSSLChecks() != verifyHostnames) {
+			transport = transport.withSSLChecks(verifyHostnames);
+		}
+		return new UrlConnectionHttpClient(userAgent, new URL(url), transport);
 	}
 	
 	public static String getVersion() {
@@ -551,7 +1092,7 @@ public class OpenShiftService implements IOpenShiftService {
 			} catch (IOException e) {
 				version = "Unknown";
 			} finally {
-				StreamUtils.quietlyClose(is);
+				IOUtils.closeQuietly(is);
 			}
 		}
 		
@@ -0,0 +1,146 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.client;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.openshift.express.internal.client.utils.DaemonThreadFactory;
+
+/**
+ * Executes a command on the gears of several applications in parallel. The
+ * number of commands that run at the same time is bounded.
+ * 
+ * @author Daniel Brenner
+ * 
+ * @see IApplication#executeCommand(String, long, ICommandOutputListener)
+ */
+public class ParallelCommandExecutor {
+
+	/**
+	 * Provides the listener that gets the output of the command that runs on
+	 * a given application.
+	 */
+	public interface IOutputListenerProvider {
+
+		public ICommandOutputListener getListener(IApplication application);
+
+	}
+
+	private final ExecutorService executor;
+
+	/**
+	 * Creates an executor that runs at most the given number of commands at
+	 * the same time.
+	 * 
+	 * @param maxConcurrency
+	 *            the max number of commands that run at the same time
+	 */
+	public ParallelCommandExecutor(int maxConcurrency) {
+		this.executor = Executors.newFixedThreadPool(maxConcurrency, new DaemonThreadFactory("command"));
+	}
+
+	/**
+	 * Submits the given command for execution on the given applications and
+	 * returns immediately. The output of each application is streamed to the
+	 * listener that the given provider returns for it.
+	 * 
+	 * @param applications
+	 *            the applications to execute the command on
+	 * @param command
+	 *            the command to execute
+	 * @param timeout
+	 *            the max time in milliseconds each command may run
+	 * @param listenerProvider
+	 *            the provider for the output listeners
+	 * @return the pending results by application
+	 */
+	public Map<IApplication, Future<CommandResult>> submit(Collection<? extends IApplication> applications,
+			final String command, final long timeout, final IOutputListenerProvider listenerProvider) {
+		Map<IApplication, Future<CommandResult>> results = new LinkedHashMap<IApplication, Future<CommandResult>>();
+		for (final IApplication application : applications) {
+			results.put(application, executor.submit(new Callable<CommandResult>() {
+
+				public CommandResult call() throws Exception {
+					return application.executeCommand(command, timeout, listenerProvider.getListener(application));
+				}
+			}));
+		}
+		return results;
+	}
+
+	/**
+	 * Executes the given command on the given applications and waits for all
+	 * of them to finish. The results include the output of the commands.
+	 * Errors are reported in the results of the applications they occurred
+	 * for.
+	 * 
+	 * @param applications
+	 *            the applications to execute the command on
+	 * @param command
+	 *            the command to execute
+	 * @param timeout
+	 *            the max time in milliseconds each command may run
+	 * @return the results by application
+	 * @throws InterruptedException
+	 * 
+	 * @see CommandResult#getError()
+	 */
+	public Map<IApplication, CommandResult> execute(Collection<? extends IApplication> applications,
+			final String command, final long timeout) throws InterruptedException {
+		Map<IApplication, Future<CommandResult>> pendingResults = new LinkedHashMap<IApplication, Future<CommandResult>>();
+		for (final IApplication application : applications) {
+			pendingResults.put(application, executor.submit(new Callable<CommandResult>() {
+
+				public CommandResult call() throws Exception {
+					return application.executeCommand(command, timeout);
+				}
+			}));
+		}
+		return getResults(command, pendingResults);
+	}
+
+	private Map<IApplication, CommandResult> getResults(String command,
+			Map<IApplication, Future<CommandResult>> pendingResults) throws InterruptedException {
+		Map<IApplication, CommandResult> results = new LinkedHashMap<IApplication, CommandResult>();
+		for (Entry<IApplication, Future<CommandResult>> entry : pendingResults.entrySet()) {
+			try {
+				results.put(entry.getKey(), entry.getValue().get());
+			} catch (ExecutionException e) {
+				results.put(entry.getKey(), new CommandResult(command, toOpenShiftException(e.getCause(), entry.getKey())));
+			}
+		}
+		return results;
+	}
+
+	private OpenShiftException toOpenShiftException(Throwable throwable, IApplication application) {
+		if (throwable instanceof OpenShiftException) {
+			return (OpenShiftException) throwable;
+		}
+		return new OpenShiftException(throwable, "Could not execute command on application {0}",
+				application.getName());
+	}
+
+	/**
+	 * Stops accepting new commands. Commands that were already submitted are
+	 * still executed.
+	 */
+	public void shutdown() {
+		executor.shutdown();
+	}
+}
@@ -0,0 +1,120 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.client;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.openshift.express.internal.client.utils.DaemonThreadFactory;
+
+/**
+ * Downloads files from the gears of several applications in parallel. The
+ * files of each application are downloaded to a directory that is named
+ * after the application and its domain. The number of applications that are downloaded
+ * from at the same time is bounded.
+ * 
+ * @author Daniel Brenner
+ * 
+ * @see IApplication#downloadFiles(String, File)
+ */
+public class ParallelFileDownloader {
+
+	private final ExecutorService executor;
+
+	/**
+	 * Creates a downloader that downloads from at most the given number of
+	 * applications at the same time.
+	 * 
+	 * @param maxConcurrency
+	 *            the max number of applications to download from at the same
+	 *            time
+	 */
+	public ParallelFileDownloader(int maxConcurrency) {
+		this.executor = Executors.newFixedThreadPool(maxConcurrency, new DaemonThreadFactory("download"));
+	}
+
+	/**
+	 * Downloads the given file or directory from the gears of the given
+	 * applications and waits for all downloads to finish. The files of an
+	 * application are downloaded to the directory
+	 * <code>&lt;localDirectory&gt;/&lt;application name&gt;-&lt;domain namespace&gt;</code>
+	 * so that applications of the same name in different domains don't
+	 * overwrite each other's files. Errors are reported in the results of the
+	 * applications they occurred for.
+	 * 
+	 * @param applications
+	 *            the applications to download from
+	 * @param remotePath
+	 *            the file or directory to download
+	 * @param localDirectory
+	 *            the directory to download to
+	 * @return the results by application
+	 * @throws InterruptedException
+	 * 
+	 * @see TransferResult#getError()
+	 */
+	public Map<IApplication, TransferResult> download(Collection<? extends IApplication> applications,
+			final String remotePath, final File localDirectory) throws InterruptedException {
+		Map<IApplication, Future<TransferResult>> pendingResults =
+				new LinkedHashMap<IApplication, Future<TransferResult>>();
+		for (final IApplication application : applications) {
+			pendingResults.put(application, executor.submit(new Callable<TransferResult>() {
+
+				public TransferResult call() throws Exception {
+					return application.downloadFiles(remotePath, new File(localDirectory, getDirectoryName(application)));
+				}
+			}));
+		}
+		return getResults(remotePath, pendingResults);
+	}
+
+	private String getDirectoryName(IApplication application) throws OpenShiftException {
+		return application.getName() + "-" + application.getUser().getDomain().getNamespace();
+	}
+
+	private Map<IApplication, TransferResult> getResults(String remotePath,
+			Map<IApplication, Future<TransferResult>> pendingResults) throws InterruptedException {
+		Map<IApplication, TransferResult> results = new LinkedHashMap<IApplication, TransferResult>();
+		for (Entry<IApplication, Future<TransferResult>> entry : pendingResults.entrySet()) {
+			try {
+				results.put(entry.getKey(), entry.getValue().get());
+			} catch (ExecutionException e) {
+				results.put(entry.getKey(),
+						new TransferResult(remotePath, toOpenShiftException(e.getCause(), entry.getKey())));
+			}
+		}
+		return results;
+	}
+
+	private OpenShiftException toOpenShiftException(Throwable throwable, IApplication application) {
+		if (throwable instanceof OpenShiftException) {
+			return (OpenShiftException) throwable;
+		}
+		return new OpenShiftException(throwable, "Could not download files from application {0}",
+				application.getName());
+	}
+
+	/**
+	 * Stops accepting new downloads. Downloads that were already started are
+	 * finished.
+	 */
+	public void shutdown() {
+		executor.shutdown();
+	}
+}
@@ -12,12 +12,11 @@ package com.openshift.express.client;
 
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import com.openshift.express.internal.client.utils.StreamUtils;
+import com.openshift.express.internal.client.utils.IOUtils;
 
 /**
  * @author André Dietisheim
@@ -43,7 +42,7 @@ public class SSHPublicKey implements ISSHPublicKey {
 	}
 
 	private void initializePublicKey(File file) throws OpenShiftException, FileNotFoundException, IOException {
-		String keyWithIdAndComment = StreamUtils.readToString(new FileReader(file));
+		String keyWithIdAndComment = IOUtils.toString(file, IOUtils.UTF8).trim();
 		Matcher matcher = PUBLICKEY_PATTERN.matcher(keyWithIdAndComment);
 		if (!matcher.find()
 				|| matcher.groupCount() < 1) {
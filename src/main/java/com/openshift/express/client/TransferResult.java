@@ -0,0 +1,118 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.client;
+
+import java.io.File;
+
+/**
+ * The outcome of a download of files from a remote gear.
+ * 
+ * @author Daniel Brenner
+ * 
+ * @see IApplication#downloadFiles(String, File)
+ */
+public class TransferResult {
+
+	private String remotePath;
+	private File localFile;
+	private int files;
+	private long bytesTransferred;
+	private long bytesReused;
+	private long duration;
+	private OpenShiftException error;
+
+	public TransferResult(String remotePath, File localFile, int files, long bytesTransferred, long bytesReused,
+			long duration) {
+		this.remotePath = remotePath;
+		this.localFile = localFile;
+		this.files = files;
+		this.bytesTransferred = bytesTransferred;
+		this.bytesReused = bytesReused;
+		this.duration = duration;
+	}
+
+	public TransferResult(String remotePath, OpenShiftException error) {
+		this(remotePath, null, 0, 0, 0, -1);
+		this.error = error;
+	}
+
+	public String getRemotePath() {
+		return remotePath;
+	}
+
+	/**
+	 * Returns the local file or directory that the remote path was downloaded
+	 * to.
+	 * 
+	 * @return the local file or directory
+	 */
+	public File getLocalFile() {
+		return localFile;
+	}
+
+	/**
+	 * Returns the number of files that were downloaded, including the ones that
+	 * were complete already.
+	 * 
+	 * @return the number of files
+	 */
+	public int getFiles() {
+		return files;
+	}
+
+	/**
+	 * Returns the number of bytes that were transferred over the wire.
+	 * 
+	 * @return the number of bytes transferred
+	 */
+	public long getBytesTransferred() {
+		return bytesTransferred;
+	}
+
+	/**
+	 * Returns the number of bytes that were present locally from a former
+	 * (partial) download and were not transferred again.
+	 * 
+	 * @return the number of bytes reused
+	 */
+	public long getBytesReused() {
+		return bytesReused;
+	}
+
+	/**
+	 * Returns the time in milliseconds that the download took.
+	 * 
+	 * @return the duration in milliseconds
+	 */
+	public long getDuration() {
+		return duration;
+	}
+
+	/**
+	 * Returns the error that prevented the download. Returns
+	 * <code>null</code> if the download succeeded.
+	 * 
+	 * @return the error that occurred
+	 */
+	public OpenShiftException getError() {
+		return error;
+	}
+
+	public boolean isSuccessful() {
+		return error == null;
+	}
+
+	public String toString() {
+		return "TransferResult [remotePath=" + remotePath + ", localFile=" + localFile + ", files=" + files
+				+ ", bytesTransferred=" + bytesTransferred + ", bytesReused=" + bytesReused + ", duration="
+				+ duration + "]";
+	}
+}
@@ -0,0 +1,203 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.client;
+
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+
+import javax.net.ssl.SSLSocketFactory;
+
+/**
+ * The settings of the connections of a service to its broker: proxy,
+ * timeouts, certificate checks and the TLS server name indication (SNI).
+ * Configurations are immutable, the <code>with</code> methods return a
+ * modified copy. Each service applies its own configuration to each of its
+ * connections, services in the same JVM thus do not interfere.
+ * 
+ * @author Daniel Brenner
+ * 
+ * @see OpenShiftService#setTransportConfiguration(TransportConfiguration)
+ */
+public class TransportConfiguration {
+
+	public static final int DEFAULT_CONNECT_TIMEOUT = 10 * 1024;
+	public static final int DEFAULT_READ_TIMEOUT = 60 * 1024;
+	public static final int DEFAULT_PROXY_PORT = 8080;
+
+	private static final String SYSPROP_OPENSHIFT_CONNECT_TIMEOUT = "com.openshift.express.httpclient.timeout";
+	private static final String SYSPROP_DEFAULT_CONNECT_TIMEOUT = "sun.net.client.defaultConnectTimeout";
+	private static final String SYSPROP_DEFAULT_READ_TIMEOUT = "sun.net.client.defaultReadTimeout";
+
+	private final Proxy proxy;
+	private final int connectTimeout;
+	private final int readTimeout;
+	private final boolean sslChecks;
+	private final boolean sniEnabled;
+	private final SSLSocketFactory sslSocketFactory;
+
+	/**
+	 * Creates a configuration that connects through the proxy that the proxy
+	 * selector of the JVM picks, with the default timeouts, without
+	 * certificate checks and without SNI.
+	 */
+	public TransportConfiguration() {
+		this(null, DEFAULT_CONNECT_TIMEOUT, DEFAULT_READ_TIMEOUT, false, false, null);
+	}
+
+	private TransportConfiguration(Proxy proxy, int connectTimeout, int readTimeout, boolean sslChecks,
+			boolean sniEnabled, SSLSocketFactory sslSocketFactory) {
+		this.proxy = proxy;
+		this.connectTimeout = connectTimeout;
+		this.readTimeout = readTimeout;
+		this.sslChecks = sslChecks;
+		this.sniEnabled = sniEnabled;
+		this.sslSocketFactory = sslSocketFactory;
+	}
+
+	/**
+	 * Creates a configuration with the timeouts in the system properties that
+	 * the client honored so far. The properties are read once, when the
+	 * configuration is created.
+	 * 
+	 * @return the configuration
+	 */
+	public static TransportConfiguration fromSystemProperties() {
+		int connectTimeout = getSystemPropertyInteger(SYSPROP_OPENSHIFT_CONNECT_TIMEOUT);
+		if (connectTimeout == -1) {
+			connectTimeout = getSystemPropertyInteger(SYSPROP_DEFAULT_CONNECT_TIMEOUT);
+		}
+		if (connectTimeout == -1) {
+			connectTimeout = DEFAULT_CONNECT_TIMEOUT;
+		}
+		int readTimeout = getSystemPropertyInteger(SYSPROP_DEFAULT_READ_TIMEOUT);
+		if (readTimeout == -1) {
+			readTimeout = DEFAULT_READ_TIMEOUT;
+		}
+		return new TransportConfiguration().withTimeouts(connectTimeout, readTimeout);
+	}
+
+	private static int getSystemPropertyInteger(String key) {
+		try {
+			return Integer.parseInt(System.getProperty(key));
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	/**
+	 * Returns a copy that connects through the given proxy.
+	 * 
+	 * @param proxy
+	 *            the proxy, {@link Proxy#NO_PROXY} to connect directly,
+	 *            <code>null</code> to use the proxy selector of the JVM
+	 * @return the modified copy
+	 */
+	public TransportConfiguration withProxy(Proxy proxy) {
+		return new TransportConfiguration(proxy, connectTimeout, readTimeout, sslChecks, sniEnabled,
+				sslSocketFactory);
+	}
+
+	/**
+	 * Returns a copy that connects through the given http proxy.
+	 * 
+	 * @param host
+	 *            the host of the proxy
+	 * @param port
+	 *            the port of the proxy
+	 * @return the modified copy
+	 */
+	public TransportConfiguration withHttpProxy(String host, int port) {
+		return withProxy(new Proxy(Proxy.Type.HTTP, InetSocketAddress.createUnresolved(host, port)));
+	}
+
+	/**
+	 * Returns a copy with the given timeouts.
+	 * 
+	 * @param connectTimeout
+	 *            the connect timeout in milliseconds
+	 * @param readTimeout
+	 *            the read timeout in milliseconds
+	 * @return the modified copy
+	 */
+	public TransportConfiguration withTimeouts(int connectTimeout, int readTimeout) {
+		return new TransportConfiguration(proxy, connectTimeout, readTimeout, sslChecks, sniEnabled,
+				sslSocketFactory);
+	}
+
+	/**
+	 * Returns a copy that checks the certificates and host names of the
+	 * broker or trusts any.
+	 * 
+	 * @param sslChecks
+	 *            <code>true</code> to check certificates and host names
+	 * @return the modified copy
+	 */
+	public TransportConfiguration withSSLChecks(boolean sslChecks) {
+		return new TransportConfiguration(proxy, connectTimeout, readTimeout, sslChecks, sniEnabled,
+				sslSocketFactory);
+	}
+
+	/**
+	 * Returns a copy that sends or omits the TLS server name indication. SNI
+	 * is disabled by default since brokers that answer it with an
+	 * unrecognized name warning break the handshake on JDK 7.
+	 * 
+	 * @param sniEnabled
+	 *            <code>true</code> to send the server name
+	 * @return the modified copy
+	 */
+	public TransportConfiguration withSNI(boolean sniEnabled) {
+		return new TransportConfiguration(proxy, connectTimeout, readTimeout, sslChecks, sniEnabled,
+				sslSocketFactory);
+	}
+
+	/**
+	 * Returns a copy that creates its TLS sockets with the given factory.
+	 * The factory is only used if certificates are checked.
+	 * 
+	 * @param sslSocketFactory
+	 *            the factory, <code>null</code> for the default factory
+	 * @return the modified copy
+	 */
+	public TransportConfiguration withSSLSocketFactory(SSLSocketFactory sslSocketFactory) {
+		return new TransportConfiguration(proxy, connectTimeout, readTimeout, sslChecks, sniEnabled,
+				sslSocketFactory);
+	}
+
+	public Proxy getProxy() {
+		return proxy;
+	}
+
+	public int getConnectTimeout() {
+		return connectTimeout;
+	}
+
+	public int getReadTimeout() {
+		return readTimeout;
+	}
+
+	public boolean isSSLChecks() {
+		return sslChecks;
+	}
+
+	public boolean isSNIEnabled() {
+		return sniEnabled;
+	}
+
+	public SSLSocketFactory getSSLSocketFactory() {
+		return sslSocketFactory;
+	}
+
+	public String toString() {
+		return "TransportConfiguration [proxy=" + proxy + ", connectTimeout=" + connectTimeout
+				+ ", readTimeout=" + readTimeout + ", sslChecks=" + sslChecks + ", sniEnabled=" + sniEnabled + "]";
+	}
+}
@@ -0,0 +1,98 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.client.balancing;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A broker that a {@link BrokerEndpointGroup} balances requests to. Keeps
+ * the number of outstanding requests, a moving average of the latencies and
+ * whether the broker is healthy.
+ * <p>
+ * Endpoints are updated by all threads that send requests and are thread
+ * safe.
+ * 
+ * @author Daniel Brenner
+ */
+public class BrokerEndpoint {
+
+	/** the weight of the latest latency in the moving average */
+	private static final double LATENCY_WEIGHT = 0.2;
+
+	private final String baseUrl;
+	private final AtomicInteger outstandingRequests = new AtomicInteger();
+	private final AtomicInteger consecutiveFailures = new AtomicInteger();
+	private volatile boolean healthy = true;
+	private volatile double averageLatency;
+
+	public BrokerEndpoint(String baseUrl) {
+		this.baseUrl = baseUrl;
+	}
+
+	public String getBaseUrl() {
+		return baseUrl;
+	}
+
+	public boolean isHealthy() {
+		return healthy;
+	}
+
+	public int getOutstandingRequests() {
+		return outstandingRequests.get();
+	}
+
+	/**
+	 * Returns the exponentially weighted moving average of the latencies of
+	 * the successful requests.
+	 * 
+	 * @return the average latency in nanoseconds, 0 if there was no request
+	 *         yet
+	 */
+	public double getAverageLatency() {
+		return averageLatency;
+	}
+
+	void requestStarted() {
+		outstandingRequests.incrementAndGet();
+	}
+
+	void requestEnded() {
+		outstandingRequests.decrementAndGet();
+	}
+
+	synchronized void requestSucceeded(long latency) {
+		consecutiveFailures.set(0);
+		this.healthy = true;
+		if (averageLatency == 0) {
+			this.averageLatency = latency;
+		} else {
+			this.averageLatency = LATENCY_WEIGHT * latency + (1 - LATENCY_WEIGHT) * averageLatency;
+		}
+	}
+
+	void requestFailed(int maxConsecutiveFailures) {
+		if (consecutiveFailures.incrementAndGet() >= maxConsecutiveFailures) {
+			this.healthy = false;
+		}
+	}
+
+	void setHealthy(boolean healthy) {
+		if (healthy) {
+			consecutiveFailures.set(0);
+		}
+		this.healthy = healthy;
+	}
+
+	public String toString() {
+		return "BrokerEndpoint [baseUrl=" + baseUrl + ", healthy=" + healthy + ", outstanding="
+				+ outstandingRequests.get() + ", averageLatency=" + averageLatency + "]";
+	}
+}
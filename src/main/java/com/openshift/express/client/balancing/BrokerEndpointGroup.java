@@ -0,0 +1,289 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.client.balancing;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.openshift.express.client.TransportConfiguration;
+import com.openshift.express.internal.client.logging.Logger;
+import com.openshift.express.internal.client.utils.DaemonThreadFactory;
+
+/**
+ * A group of brokers that a service balances its requests to. Idempotent
+ * operations go to the broker that the selection picks and fail over to the
+ * other brokers if one does not answer. Mutating operations stick to the
+ * broker that the user was sent to first, they are never retried.
+ * <p>
+ * Brokers are marked down after consecutive failures and by the health
+ * checks, which also bring them back up. Brokers that are down are only
+ * picked if all brokers are down.
+ * 
+ * @author Daniel Brenner
+ * 
+ * @see com.openshift.express.client.OpenShiftService#setEndpointGroup(BrokerEndpointGroup)
+ */
+public class BrokerEndpointGroup {
+
+	private static final Logger LOGGER = Logger.getLogger(BrokerEndpointGroup.class);
+
+	public static final int DEFAULT_MAX_CONSECUTIVE_FAILURES = 3;
+	private static final char OPERATION_DELIMITER = ':';
+
+	private final List<BrokerEndpoint> endpoints;
+	private final Map<String, BrokerEndpoint> affinities = new ConcurrentHashMap<String, BrokerEndpoint>();
+	private final Set<String> idempotentOperations = new CopyOnWriteArraySet<String>();
+	private final AtomicInteger nextEndpoint = new AtomicInteger();
+	private volatile EndpointSelection selection = EndpointSelection.LEAST_OUTSTANDING_REQUESTS;
+	private volatile int maxConsecutiveFailures = DEFAULT_MAX_CONSECUTIVE_FAILURES;
+	private volatile IHealthCheck healthCheck = new HttpHealthCheck(new TransportConfiguration().withTimeouts(
+			2 * 1000, 2 * 1000));
+	private ScheduledExecutorService healthCheckExecutor;
+
+	/**
+	 * Creates a group of the brokers at the given base urls.
+	 * 
+	 * @param baseUrls
+	 *            the base urls of the brokers
+	 */
+	public BrokerEndpointGroup(Collection<String> baseUrls) {
+		if (baseUrls.isEmpty()) {
+			throw new IllegalArgumentException("endpoint group needs at least one broker");
+		}
+		List<BrokerEndpoint> endpoints = new ArrayList<BrokerEndpoint>(baseUrls.size());
+		for (String baseUrl : baseUrls) {
+			endpoints.add(new BrokerEndpoint(baseUrl));
+		}
+		this.endpoints = Collections.unmodifiableList(endpoints);
+		idempotentOperations.add("userinfo");
+		idempotentOperations.add("cartlist");
+		idempotentOperations.add("cartridge:status");
+	}
+
+	public List<BrokerEndpoint> getEndpoints() {
+		return endpoints;
+	}
+
+	public void setSelection(EndpointSelection selection) {
+		this.selection = selection;
+	}
+
+	public EndpointSelection getSelection() {
+		return selection;
+	}
+
+	/**
+	 * Sets the number of consecutive failed requests that mark a broker down.
+	 * 
+	 * @param maxConsecutiveFailures
+	 *            the number of failures
+	 */
+	public void setMaxConsecutiveFailures(int maxConsecutiveFailures) {
+		this.maxConsecutiveFailures = Math.max(1, maxConsecutiveFailures);
+	}
+
+	public void setHealthCheck(IHealthCheck healthCheck) {
+		this.healthCheck = healthCheck;
+	}
+
+	/**
+	 * Declares the given operation or resource idempotent so that its
+	 * requests fail over to other brokers. <code>userinfo</code>,
+	 * <code>cartlist</code> and <code>cartridge:status</code> are idempotent
+	 * by default.
+	 * 
+	 * @param operation
+	 *            the operation or resource
+	 */
+	public void addIdempotentOperation(String operation) {
+		idempotentOperations.add(operation);
+	}
+
+	public void removeIdempotentOperation(String operation) {
+		idempotentOperations.remove(operation);
+	}
+
+	/**
+	 * Returns whether requests of the given operation may be sent to several
+	 * brokers.
+	 * 
+	 * @param operation
+	 *            the operation, ex. <code>cartridge:status</code>
+	 * @return <code>true</code> if the operation is idempotent
+	 */
+	public boolean isIdempotent(String operation) {
+		if (operation == null) {
+			return false;
+		}
+		if (idempotentOperations.contains(operation)) {
+			return true;
+		}
+		int index = operation.indexOf(OPERATION_DELIMITER);
+		return index > 0
+				&& idempotentOperations.contains(operation.substring(0, index));
+	}
+
+	/**
+	 * Picks the broker for a request. Requests with an affinity key go to the
+	 * broker that the key was sent to before as long as it is up.
+	 * 
+	 * @param affinityKey
+	 *            the key of the session to stick to or <code>null</code>
+	 * @param excluded
+	 *            the brokers that shall not be picked
+	 * @return the broker or <code>null</code> if all brokers are excluded
+	 */
+	public BrokerEndpoint select(String affinityKey, Collection<BrokerEndpoint> excluded) {
+		if (affinityKey != null) {
+			BrokerEndpoint endpoint = affinities.get(affinityKey);
+			if (endpoint != null
+					&& endpoint.isHealthy()
+					&& !excluded.contains(endpoint)) {
+				return endpoint;
+			}
+		}
+		BrokerEndpoint endpoint = select(excluded, true);
+		if (endpoint == null) {
+			// all brokers are down, try the ones that are not excluded
+			endpoint = select(excluded, false);
+		}
+		if (affinityKey != null
+				&& endpoint != null) {
+			affinities.put(affinityKey, endpoint);
+		}
+		return endpoint;
+	}
+
+	private BrokerEndpoint select(Collection<BrokerEndpoint> excluded, boolean healthyOnly) {
+		// start at a rotating index so that ties are spread evenly
+		int start = (nextEndpoint.getAndIncrement() & Integer.MAX_VALUE) % endpoints.size();
+		BrokerEndpoint best = null;
+		double bestScore = Double.MAX_VALUE;
+		for (int i = 0; i < endpoints.size(); i++) {
+			BrokerEndpoint endpoint = endpoints.get((start + i) % endpoints.size());
+			if (excluded.contains(endpoint)
+					|| (healthyOnly && !endpoint.isHealthy())) {
+				continue;
+			}
+			double score = getScore(endpoint);
+			if (score < bestScore) {
+				best = endpoint;
+				bestScore = score;
+			}
+		}
+		return best;
+	}
+
+	private double getScore(BrokerEndpoint endpoint) {
+		if (selection == EndpointSelection.LATENCY_AWARE) {
+			// brokers without latency yet are tried first
+			return endpoint.getAverageLatency() * (endpoint.getOutstandingRequests() + 1);
+		}
+		return endpoint.getOutstandingRequests();
+	}
+
+	/**
+	 * Returns the url of the given broker for the given url of the given base
+	 * url.
+	 * 
+	 * @param url
+	 *            the url to rewrite
+	 * @param baseUrl
+	 *            the base url that the url starts with
+	 * @param endpoint
+	 *            the broker to address
+	 * @return the url of the broker
+	 */
+	public String resolve(String url, String baseUrl, BrokerEndpoint endpoint) {
+		if (!url.startsWith(baseUrl)) {
+			return url;
+		}
+		return endpoint.getBaseUrl() + url.substring(baseUrl.length());
+	}
+
+	public void requestStarted(BrokerEndpoint endpoint) {
+		endpoint.requestStarted();
+	}
+
+	public void requestSucceeded(BrokerEndpoint endpoint, long latency) {
+		endpoint.requestSucceeded(latency);
+		endpoint.requestEnded();
+	}
+
+	/**
+	 * Ends a request that neither succeeded nor failed because of the broker.
+	 */
+	public void requestEnded(BrokerEndpoint endpoint) {
+		endpoint.requestEnded();
+	}
+
+	public void requestFailed(BrokerEndpoint endpoint) {
+		endpoint.requestFailed(maxConsecutiveFailures);
+		endpoint.requestEnded();
+	}
+
+	/**
+	 * Checks the health of all brokers now.
+	 */
+	public void checkHealth() {
+		IHealthCheck healthCheck = this.healthCheck;
+		for (BrokerEndpoint endpoint : endpoints) {
+			boolean healthy = false;
+			try {
+				healthy = healthCheck.isHealthy(endpoint);
+			} catch (RuntimeException e) {
+				LOGGER.debug("Health check of {0} failed: {1}", endpoint.getBaseUrl(), e);
+			}
+			if (healthy != endpoint.isHealthy()) {
+				LOGGER.debug("Broker {0} is {1}", endpoint.getBaseUrl(), healthy ? "up" : "down");
+			}
+			endpoint.setHealthy(healthy);
+		}
+	}
+
+	/**
+	 * Checks the health of all brokers in the given interval in a background
+	 * thread. Does nothing if the checks run already.
+	 * 
+	 * @param interval
+	 *            the interval in milliseconds
+	 */
+	public synchronized void startHealthChecks(long interval) {
+		if (healthCheckExecutor != null) {
+			return;
+		}
+		this.healthCheckExecutor = Executors.newSingleThreadScheduledExecutor(
+				new DaemonThreadFactory("broker-health-check"));
+		healthCheckExecutor.scheduleWithFixedDelay(new Runnable() {
+
+			public void run() {
+				checkHealth();
+			}
+		}, 0, interval, TimeUnit.MILLISECONDS);
+	}
+
+	public synchronized void stopHealthChecks() {
+		if (healthCheckExecutor != null) {
+			healthCheckExecutor.shutdownNow();
+			this.healthCheckExecutor = null;
+		}
+	}
+}
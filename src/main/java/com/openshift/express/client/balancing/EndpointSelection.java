@@ -0,0 +1,29 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.client.balancing;
+
+/**
+ * How a {@link BrokerEndpointGroup} picks the broker of a request.
+ * 
+ * @author Daniel Brenner
+ */
+public enum EndpointSelection {
+
+	/** picks the broker with the fewest outstanding requests */
+	LEAST_OUTSTANDING_REQUESTS,
+
+	/**
+	 * picks the broker with the lowest average latency weighted by its
+	 * outstanding requests
+	 */
+	LATENCY_AWARE
+
+}
@@ -0,0 +1,68 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.client.balancing;
+
+import java.net.MalformedURLException;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+
+import com.openshift.express.client.IOpenShiftService;
+import com.openshift.express.client.TransportConfiguration;
+import com.openshift.express.internal.client.httpclient.BadRequestException;
+import com.openshift.express.internal.client.httpclient.HttpClientException;
+import com.openshift.express.internal.client.httpclient.NotFoundException;
+import com.openshift.express.internal.client.httpclient.UnauthorizedException;
+import com.openshift.express.internal.client.httpclient.UrlConnectionHttpClient;
+
+/**
+ * Gets the service url of a broker. The broker is up if it answers, even if
+ * it answers with a client error. Server errors, timeouts and connection
+ * failures mark it down.
+ * 
+ * @author Daniel Brenner
+ */
+public class HttpHealthCheck implements IHealthCheck {
+
+	private static final String USER_AGENT = "Java OpenShift health check";
+
+	private final TransportConfiguration transport;
+
+	/**
+	 * Creates a health check that connects with the given configuration.
+	 * Checks should time out well within the interval of the health checks.
+	 * 
+	 * @param transport
+	 *            the configuration of the connections
+	 */
+	public HttpHealthCheck(TransportConfiguration transport) {
+		this.transport = transport;
+	}
+
+	public boolean isHealthy(BrokerEndpoint endpoint) {
+		try {
+			new UrlConnectionHttpClient(USER_AGENT, new URL(endpoint.getBaseUrl() + IOpenShiftService.SERVICE_PATH),
+					transport).get();
+			return true;
+		} catch (NotFoundException e) {
+			return true;
+		} catch (BadRequestException e) {
+			return true;
+		} catch (UnauthorizedException e) {
+			return true;
+		} catch (HttpClientException e) {
+			return false;
+		} catch (SocketTimeoutException e) {
+			return false;
+		} catch (MalformedURLException e) {
+			return false;
+		}
+	}
+}
@@ -0,0 +1,32 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.client.balancing;
+
+/**
+ * Checks whether a broker is up.
+ * 
+ * @author Daniel Brenner
+ * 
+ * @see BrokerEndpointGroup#startHealthChecks(long)
+ */
+public interface IHealthCheck {
+
+	/**
+	 * Returns whether the given broker is up. Must not block longer than the
+	 * interval of the health checks.
+	 * 
+	 * @param endpoint
+	 *            the broker to check
+	 * @return <code>true</code> if the broker is up
+	 */
+	public boolean isHealthy(BrokerEndpoint endpoint);
+
+}
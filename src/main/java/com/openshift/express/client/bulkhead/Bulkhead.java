@@ -0,0 +1,166 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/ 
+package com.openshift.express.client.bulkhead;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.openshift.express.client.OverloadedOpenShiftException;
+import com.openshift.express.client.metrics.DistributionSnapshot;
+import com.openshift.express.client.metrics.ValueWindow;
+import com.openshift.express.internal.client.utils.DaemonThreadFactory;
+
+/**
+ * A bounded executor that runs the operations of one operation class. It has
+ * a fixed number of threads and a bounded queue, operations that are
+ * submitted while both are full are rejected. Keeps the saturation and the
+ * time that operations waited in the queue.
+ * 
+ * @author Daniel Brenner
+ * 
+ * @see OperationClass
+ */
+public class Bulkhead {
+
+	private static final long IDLE_TIMEOUT = 60;
+
+	private final String name;
+	private final int threads;
+	private final int queueCapacity;
+	private final ThreadPoolExecutor executor;
+	private final AtomicLong rejected = new AtomicLong();
+	private final ValueWindow queueWaits = new ValueWindow();
+
+	/**
+	 * Creates a bulkhead with the given number of threads and queue capacity.
+	 * 
+	 * @param name
+	 *            the name of the bulkhead, used to name its threads
+	 * @param threads
+	 *            the number of operations that run at the same time
+	 * @param queueCapacity
+	 *            the number of operations that may wait, 0 to reject
+	 *            operations if all threads are busy
+	 */
+	public Bulkhead(String name, int threads, int queueCapacity) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("threads must be >= 1");
+		}
+		if (queueCapacity < 0) {
+			throw new IllegalArgumentException("queue capacity must be >= 0");
+		}
+		this.name = name;
+		this.threads = threads;
+		this.queueCapacity = queueCapacity;
+		this.executor = new ThreadPoolExecutor(threads, threads, IDLE_TIMEOUT, TimeUnit.SECONDS,
+				createQueue(queueCapacity), new DaemonThreadFactory(name), new ThreadPoolExecutor.AbortPolicy());
+		executor.allowCoreThreadTimeOut(true);
+	}
+
+	private static BlockingQueue<Runnable> createQueue(int capacity) {
+		if (capacity == 0) {
+			return new SynchronousQueue<Runnable>();
+		}
+		return new ArrayBlockingQueue<Runnable>(capacity);
+	}
+
+	/**
+	 * Submits the given operation.
+	 * 
+	 * @param operation
+	 *            the operation to run
+	 * @return the pending result of the operation
+	 * @throws OverloadedOpenShiftException
+	 *             if all threads are busy and the queue is full
+	 */
+	public <T> Future<T> submit(final Callable<T> operation) throws OverloadedOpenShiftException {
+		final long submitted = System.nanoTime();
+		try {
+			return executor.submit(new Callable<T>() {
+
+				public T call() throws Exception {
+					queueWaits.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - submitted));
+					return operation.call();
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			rejected.incrementAndGet();
+			throw new OverloadedOpenShiftException("Bulkhead {0} is saturated: {1} operations running, {2} queued",
+					name, executor.getActiveCount(), executor.getQueue().size());
+		}
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	public int getQueueCapacity() {
+		return queueCapacity;
+	}
+
+	public int getActiveThreads() {
+		return executor.getActiveCount();
+	}
+
+	public int getQueueDepth() {
+		return executor.getQueue().size();
+	}
+
+	public long getCompleted() {
+		return executor.getCompletedTaskCount();
+	}
+
+	public long getRejected() {
+		return rejected.get();
+	}
+
+	/**
+	 * Returns the ratio of the running and queued operations to the number of
+	 * threads and the queue capacity.
+	 * 
+	 * @return the saturation, 0 to 1
+	 */
+	public double getSaturation() {
+		return (double) (executor.getActiveCount() + executor.getQueue().size()) / (threads + queueCapacity);
+	}
+
+	/**
+	 * Returns the times in microseconds that the latest operations waited in
+	 * the queue before they ran.
+	 */
+	public DistributionSnapshot getQueueWaits() {
+		return queueWaits.snapshot();
+	}
+
+	/**
+	 * Stops accepting new operations. Operations that were already submitted
+	 * are still run.
+	 */
+	public void shutdown() {
+		executor.shutdown();
+	}
+
+	public String toString() {
+		return "Bulkhead [name=" + name + ", active=" + getActiveThreads() + "/" + threads
+				+ ", queued=" + getQueueDepth() + "/" + queueCapacity + ", rejected=" + getRejected() + "]";
+	}
+}
@@ -0,0 +1,42 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/ 
+package com.openshift.express.client.bulkhead;
+
+/**
+ * The classes of broker operations that are isolated from each other in
+ * bulkheads so that slow operations cannot starve the fast ones.
+ * 
+ * @author Daniel Brenner
+ * 
+ * @see com.openshift.express.client.AsyncOpenShiftService
+ */
+public enum OperationClass {
+
+	/**
+	 * Creating, destroying, starting, stopping and restarting applications
+	 * and domains. Configuring or deconfiguring a cartridge may take tens of
+	 * seconds.
+	 */
+	LIFECYCLE,
+
+	/**
+	 * Adding and removing embedded cartridges, which configure them on the
+	 * gear and may take as long as lifecycle operations.
+	 */
+	EMBED,
+
+	/**
+	 * Operations that only read: user info, status and the cartridge lists.
+	 * They return quickly and are polled frequently.
+	 */
+	READ_ONLY;
+
+}
@@ -20,7 +20,7 @@ import java.util.Properties;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import com.openshift.express.internal.client.utils.StreamUtils;
+import com.openshift.express.internal.client.utils.IOUtils;
 
 /**
  * @author André Dietisheim
@@ -81,7 +81,7 @@ public abstract class AbstractOpenshiftConfiguration implements IOpenShiftConfig
 			properties.load(reader);
 			return properties;
 		} finally {
-			StreamUtils.close(reader);
+			IOUtils.close(reader);
 		}
 	}
 
@@ -102,7 +102,7 @@ public abstract class AbstractOpenshiftConfiguration implements IOpenShiftConfig
 			writer = new FileWriter(file);
 			properties.store(writer, "");
 		} finally {
-			StreamUtils.close(writer);
+			IOUtils.close(writer);
 		}
 	}
 
@@ -0,0 +1,164 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.client.json;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ModelType;
+
+import com.openshift.express.internal.client.response.unmarshalling.JsonSanitizer;
+import com.openshift.express.internal.client.utils.IOUtils;
+
+/**
+ * A codec that reads and writes json with jboss-dmr. Bytes are decoded and
+ * sanitized before they're parsed, skipped properties are parsed, too. The
+ * parsed {@link ModelNode}s are handed out as {@link IJsonNode}s, dmr does
+ * not leak out of this codec.
+ * 
+ * @author Daniel Brenner
+ */
+public class DmrJsonCodec implements IJsonCodec {
+
+	public static final DmrJsonCodec INSTANCE = new DmrJsonCodec();
+
+	public IJsonObjectWriter createObjectWriter() {
+		return new ModelNodeWriter();
+	}
+
+	public IJsonNode parse(String json) throws IllegalArgumentException {
+		return new ModelNodeAdapter(ModelNode.fromJSONString(json));
+	}
+
+	public IJsonNode parse(byte[] json, int offset, int length, String... skippedProperties)
+			throws IllegalArgumentException {
+		String decoded = IOUtils.UTF8.decode(ByteBuffer.wrap(json, offset, length)).toString();
+		return parse(JsonSanitizer.sanitize(decoded));
+	}
+
+	private static class ModelNodeWriter implements IJsonObjectWriter {
+
+		private final ModelNode node = new ModelNode();
+
+		private ModelNodeWriter() {
+			node.setEmptyObject();
+		}
+
+		public void writeProperty(String name, String value) {
+			node.get(name).set(value);
+		}
+
+		public String toJson() {
+			return node.toJSONString(true);
+		}
+	}
+
+	/**
+	 * Reads a {@link ModelNode} without altering it, dmr creates the nodes
+	 * that it's asked for.
+	 */
+	private static class ModelNodeAdapter implements IJsonNode {
+
+		private static final ModelNodeAdapter UNDEFINED = new ModelNodeAdapter(new ModelNode());
+
+		private final ModelNode node;
+
+		private ModelNodeAdapter(ModelNode node) {
+			this.node = node;
+		}
+
+		public boolean isDefined() {
+			return node.isDefined();
+		}
+
+		public boolean isObject() {
+			return node.getType() == ModelType.OBJECT;
+		}
+
+		public boolean isList() {
+			return node.getType() == ModelType.LIST;
+		}
+
+		public IJsonNode get(String name) {
+			if (!isObject()
+					|| !node.has(name)) {
+				return UNDEFINED;
+			}
+			return new ModelNodeAdapter(node.get(name));
+		}
+
+		public boolean hasDefined(String name) {
+			return isObject()
+					&& node.hasDefined(name);
+		}
+
+		public Set<String> keys() {
+			if (!isObject()) {
+				return Collections.emptySet();
+			}
+			return Collections.unmodifiableSet(node.keys());
+		}
+
+		public List<IJsonNode> asList() {
+			if (!isList()) {
+				return Collections.emptyList();
+			}
+			List<IJsonNode> elements = new ArrayList<IJsonNode>();
+			for (ModelNode element : node.asList()) {
+				elements.add(new ModelNodeAdapter(element));
+			}
+			return elements;
+		}
+
+		public String asString() {
+			if (!isDefined()) {
+				return null;
+			}
+			if (isObject()
+					|| isList()) {
+				return node.toJSONString(true);
+			}
+			return node.asString();
+		}
+
+		public boolean asBoolean() {
+			return isDefined()
+					&& node.asBoolean();
+		}
+
+		public int asInt() throws IllegalArgumentException {
+			return node.asInt();
+		}
+
+		public long asLong() throws IllegalArgumentException {
+			return node.asLong();
+		}
+
+		public long asLong(long defaultValue) {
+			if (!isDefined()) {
+				return defaultValue;
+			}
+			try {
+				return node.asLong();
+			} catch (IllegalArgumentException e) {
+				return defaultValue;
+			}
+		}
+
+		public String toString() {
+			return String.valueOf(asString());
+		}
+	}
+}
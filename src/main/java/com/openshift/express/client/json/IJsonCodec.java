@@ -0,0 +1,66 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.client.json;
+
+/**
+ * Writes the json of requests and parses the json of broker responses. The
+ * marshallers and unmarshallers use a codec to do so and may be switched to
+ * any json engine. The unmarshallers read the parsed documents through
+ * {@link IJsonNode}, the engine stays an implementation detail of the codec.
+ * <p>
+ * Implementations have to be thread safe.
+ * 
+ * @author Daniel Brenner
+ * 
+ * @see DmrJsonCodec
+ * @see StreamingJsonCodec
+ */
+public interface IJsonCodec {
+
+	/**
+	 * Creates a writer for a new json object.
+	 * 
+	 * @return the writer
+	 */
+	public IJsonObjectWriter createObjectWriter();
+
+	/**
+	 * Parses the given json document.
+	 * 
+	 * @param json
+	 *            the json to parse
+	 * @return the parsed document
+	 * @throws IllegalArgumentException
+	 *             if the given string is no valid json
+	 */
+	public IJsonNode parse(String json) throws IllegalArgumentException;
+
+	/**
+	 * Parses the given UTF-8 encoded json document. Json objects that the
+	 * broker sends as quoted string in the data property are parsed as
+	 * objects. The values of the given top level properties may be skipped,
+	 * codecs that skip them return empty strings for them.
+	 * 
+	 * @param json
+	 *            the bytes of the json to parse
+	 * @param offset
+	 *            the offset of the first byte
+	 * @param length
+	 *            the number of bytes
+	 * @param skippedProperties
+	 *            the top level properties whose values are not needed
+	 * @return the parsed document
+	 * @throws IllegalArgumentException
+	 *             if the given bytes are no valid json
+	 */
+	public IJsonNode parse(byte[] json, int offset, int length, String... skippedProperties)
+			throws IllegalArgumentException;
+}
@@ -0,0 +1,123 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.client.json;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A node of a parsed json document. The unmarshallers read the responses of
+ * the broker through this interface and do not depend on the json engine of
+ * the codec that parsed them.
+ * <p>
+ * Nodes are read only. Properties and list elements that do not exist are
+ * returned as undefined nodes, json <code>null</code> values are undefined,
+ * too.
+ * 
+ * @author Daniel Brenner
+ * 
+ * @see IJsonCodec
+ */
+public interface IJsonNode {
+
+	/**
+	 * Returns <code>true</code> if this node has a value. Missing properties
+	 * and <code>null</code> values are undefined.
+	 * 
+	 * @return <code>true</code> if this node has a value
+	 */
+	public boolean isDefined();
+
+	public boolean isObject();
+
+	public boolean isList();
+
+	/**
+	 * Returns the value of the given property of this object.
+	 * 
+	 * @param name
+	 *            the name of the property
+	 * @return the value, an undefined node if this is no object or has no
+	 *         such property
+	 */
+	public IJsonNode get(String name);
+
+	/**
+	 * Returns <code>true</code> if this is an object whose given property has
+	 * a value.
+	 * 
+	 * @param name
+	 *            the name of the property
+	 * @return <code>true</code> if the property is defined
+	 */
+	public boolean hasDefined(String name);
+
+	/**
+	 * Returns the names of the properties of this object in the order of the
+	 * document.
+	 * 
+	 * @return the names, an empty set if this is no object
+	 */
+	public Set<String> keys();
+
+	/**
+	 * Returns the elements of this list.
+	 * 
+	 * @return the elements, an empty list if this is no list
+	 */
+	public List<IJsonNode> asList();
+
+	/**
+	 * Returns the value of this node as string. Numbers and booleans are
+	 * returned as they are written, objects and lists as json.
+	 * 
+	 * @return the value, <code>null</code> if this node is undefined
+	 */
+	public String asString();
+
+	/**
+	 * Returns the value of this boolean or of the string that it is written
+	 * as.
+	 * 
+	 * @return the value, <code>false</code> if this node is undefined
+	 */
+	public boolean asBoolean();
+
+	/**
+	 * Returns the value of this number or of the string that it is written
+	 * as.
+	 * 
+	 * @return the value
+	 * @throws IllegalArgumentException
+	 *             if this node is no number
+	 */
+	public int asInt() throws IllegalArgumentException;
+
+	/**
+	 * Returns the value of this number or of the string that it is written
+	 * as.
+	 * 
+	 * @return the value
+	 * @throws IllegalArgumentException
+	 *             if this node is no number
+	 */
+	public long asLong() throws IllegalArgumentException;
+
+	/**
+	 * Returns the value of this number or of the string that it is written
+	 * as.
+	 * 
+	 * @param defaultValue
+	 *            the value to return if this node is undefined or no number
+	 * @return the value or the given default
+	 */
+	public long asLong(long defaultValue);
+}
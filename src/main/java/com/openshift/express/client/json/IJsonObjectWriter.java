@@ -0,0 +1,27 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.client.json;
+
+/**
+ * Collects the properties of a json object and writes it.
+ * 
+ * @author Daniel Brenner
+ */
+public interface IJsonObjectWriter extends IJsonPropertyWriter {
+
+	/**
+	 * Returns the json object with the properties that were written so far.
+	 * 
+	 * @return the json object
+	 */
+	public String toJson();
+
+}
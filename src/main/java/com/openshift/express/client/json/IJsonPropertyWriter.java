@@ -0,0 +1,25 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.client.json;
+
+import java.io.IOException;
+
+/**
+ * Receives the properties of the json object that a marshaller creates for a
+ * request.
+ * 
+ * @author Daniel Brenner
+ */
+public interface IJsonPropertyWriter {
+
+	public void writeProperty(String name, String value) throws IOException;
+
+}
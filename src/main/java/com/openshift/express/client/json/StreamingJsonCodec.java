@@ -0,0 +1,116 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.client.json;
+
+import java.io.UnsupportedEncodingException;
+
+import com.openshift.express.internal.client.response.unmarshalling.JsonByteParser;
+
+/**
+ * A codec that writes json straight to a string and parses it straight from
+ * its UTF-8 bytes. Unlike the {@link DmrJsonCodec} it neither builds a node
+ * to write json nor decodes or sanitizes responses to parse them. The
+ * parsed nodes decode strings when they're read, values of skipped
+ * properties are not decoded at all. Responses are parsed with this codec
+ * by default.
+ * 
+ * @author Daniel Brenner
+ * 
+ * @see JsonByteParser
+ */
+public class StreamingJsonCodec implements IJsonCodec {
+
+	public static final StreamingJsonCodec INSTANCE = new StreamingJsonCodec();
+
+	private static final char[] HEX_DIGITS = { '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c',
+			'd', 'e', 'f' };
+
+	public IJsonObjectWriter createObjectWriter() {
+		return new StringObjectWriter();
+	}
+
+	public IJsonNode parse(String json) throws IllegalArgumentException {
+		try {
+			byte[] bytes = json.getBytes("UTF-8");
+			return new JsonByteParser(bytes).parse();
+		} catch (UnsupportedEncodingException e) {
+			// UTF-8 is always supported
+			throw new IllegalStateException(e);
+		}
+	}
+
+	public IJsonNode parse(byte[] json, int offset, int length, String... skippedProperties)
+			throws IllegalArgumentException {
+		JsonByteParser parser = new JsonByteParser(json, offset, length);
+		for (String property : skippedProperties) {
+			parser.skip(property);
+		}
+		return parser.parse();
+	}
+
+	/**
+	 * Writes a compact json object to a string builder.
+	 */
+	private static class StringObjectWriter implements IJsonObjectWriter {
+
+		private final StringBuilder builder = new StringBuilder(128).append('{');
+		private boolean firstProperty = true;
+
+		public void writeProperty(String name, String value) {
+			if (!firstProperty) {
+				builder.append(',');
+			}
+			this.firstProperty = false;
+			appendString(name);
+			builder.append(':');
+			if (value == null) {
+				builder.append("null");
+			} else {
+				appendString(value);
+			}
+		}
+
+		public String toJson() {
+			return new StringBuilder(builder.length() + 1).append(builder).append('}').toString();
+		}
+
+		private void appendString(String value) {
+			builder.append('"');
+			for (int i = 0; i < value.length(); i++) {
+				char character = value.charAt(i);
+				switch (character) {
+				case '"':
+				case '\\':
+					builder.append('\\').append(character);
+					break;
+				case '\n':
+					builder.append("\\n");
+					break;
+				case '\r':
+					builder.append("\\r");
+					break;
+				case '\t':
+					builder.append("\\t");
+					break;
+				default:
+					if (character < 0x20) {
+						builder.append("\\u00")
+								.append(HEX_DIGITS[character >> 4])
+								.append(HEX_DIGITS[character & 0xf]);
+					} else {
+						builder.append(character);
+					}
+				}
+			}
+			builder.append('"');
+		}
+	}
+}
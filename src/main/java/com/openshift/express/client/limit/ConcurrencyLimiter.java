@@ -0,0 +1,380 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/ 
+package com.openshift.express.client.limit;
+
+import java.text.MessageFormat;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.openshift.express.client.OverloadedOpenShiftException;
+
+/**
+ * Limits the number of concurrent broker requests to the concurrency that the
+ * broker sustains. The limit is learnt from the latencies of the requests: it
+ * grows while the latency stays close to the lowest latency that was seen
+ * (the broker is not queueing) and shrinks in proportion to the latency
+ * rising above it. Requests that fail because the broker timed out or
+ * failed cut the limit by the backoff ratio. Requests beyond the limit wait in
+ * a bounded queue and are rejected if the queue is full or if they waited
+ * longer than the maximum queue wait.
+ * 
+ * <pre>
+ * service.setConcurrencyLimiter(new ConcurrencyLimiter(10, 2, 200));
+ * </pre>
+ * 
+ * @author Daniel Brenner
+ * 
+ * @see com.openshift.express.client.OpenShiftService#setConcurrencyLimiter(ConcurrencyLimiter)
+ */
+public class ConcurrencyLimiter {
+
+	public static final int DEFAULT_MAX_QUEUE_SIZE = 100;
+	public static final long DEFAULT_MAX_QUEUE_WAIT = 10 * 1000;
+	public static final double DEFAULT_TOLERANCE = 2.0;
+	public static final double DEFAULT_SMOOTHING = 0.2;
+	public static final double DEFAULT_BACKOFF_RATIO = 0.9;
+	/** the number of samples after which the lowest latency is learnt anew */
+	public static final int DEFAULT_MIN_LATENCY_WINDOW = 500;
+
+	private static final double MIN_GRADIENT = 0.5;
+
+	private final int minLimit;
+	private final int maxLimit;
+	private int maxQueueSize = DEFAULT_MAX_QUEUE_SIZE;
+	private long maxQueueWait = DEFAULT_MAX_QUEUE_WAIT;
+	private double tolerance = DEFAULT_TOLERANCE;
+	private double smoothing = DEFAULT_SMOOTHING;
+	private double backoffRatio = DEFAULT_BACKOFF_RATIO;
+	private int minLatencyWindow = DEFAULT_MIN_LATENCY_WINDOW;
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition available = lock.newCondition();
+	private double limit;
+	private int inFlight;
+	private int queued;
+	private long minLatency;
+	private int minLatencySamples;
+	private final AtomicLong rejected = new AtomicLong();
+
+	/**
+	 * Creates a limiter that starts at the given limit and keeps it within the
+	 * given minimum and maximum.
+	 * 
+	 * @param initialLimit
+	 *            the limit to start with
+	 * @param minLimit
+	 *            the lowest limit, at least 1
+	 * @param maxLimit
+	 *            the highest limit
+	 */
+	public ConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+		if (minLimit < 1) {
+			throw new IllegalArgumentException("min limit must be >= 1");
+		}
+		if (minLimit > maxLimit) {
+			throw new IllegalArgumentException("min limit must be <= max limit");
+		}
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.limit = clamp(initialLimit);
+	}
+
+	/**
+	 * Sets the number of requests that may wait for a permit. Requests beyond
+	 * are rejected right away.
+	 * 
+	 * @param maxQueueSize
+	 *            the size of the queue, 0 to reject all requests beyond the
+	 *            limit
+	 * @return this limiter
+	 */
+	public ConcurrencyLimiter setMaxQueueSize(int maxQueueSize) {
+		lock.lock();
+		try {
+			this.maxQueueSize = Math.max(0, maxQueueSize);
+			return this;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Sets the time that a request waits in the queue before it is rejected.
+	 * 
+	 * @param maxQueueWait
+	 *            the time in milliseconds
+	 * @return this limiter
+	 */
+	public ConcurrencyLimiter setMaxQueueWait(long maxQueueWait) {
+		lock.lock();
+		try {
+			this.maxQueueWait = Math.max(0, maxQueueWait);
+			return this;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Sets the factor by which the latency may exceed the lowest latency
+	 * before the limit shrinks.
+	 * 
+	 * @param tolerance
+	 *            the factor, at least 1
+	 * @return this limiter
+	 */
+	public ConcurrencyLimiter setTolerance(double tolerance) {
+		if (tolerance < 1) {
+			throw new IllegalArgumentException("tolerance must be >= 1");
+		}
+		lock.lock();
+		try {
+			this.tolerance = tolerance;
+			return this;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Sets the weight of a new limit against the current one.
+	 * 
+	 * @param smoothing
+	 *            the weight in the range 0..1, 1 to apply new limits right
+	 *            away
+	 * @return this limiter
+	 */
+	public ConcurrencyLimiter setSmoothing(double smoothing) {
+		if (smoothing <= 0 || smoothing > 1) {
+			throw new IllegalArgumentException("smoothing must be within 0..1");
+		}
+		lock.lock();
+		try {
+			this.smoothing = smoothing;
+			return this;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Sets the factor that the limit is multiplied with if a request is
+	 * dropped by the broker.
+	 * 
+	 * @param backoffRatio
+	 *            the factor in the range 0..1
+	 * @return this limiter
+	 */
+	public ConcurrencyLimiter setBackoffRatio(double backoffRatio) {
+		if (backoffRatio <= 0 || backoffRatio >= 1) {
+			throw new IllegalArgumentException("backoff ratio must be within 0..1");
+		}
+		lock.lock();
+		try {
+			this.backoffRatio = backoffRatio;
+			return this;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Sets the number of samples after which the lowest latency is forgotten
+	 * and learnt anew so that the limiter follows brokers that got slower.
+	 * 
+	 * @param minLatencyWindow
+	 *            the number of samples
+	 * @return this limiter
+	 */
+	public ConcurrencyLimiter setMinLatencyWindow(int minLatencyWindow) {
+		lock.lock();
+		try {
+			this.minLatencyWindow = Math.max(1, minLatencyWindow);
+			return this;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Acquires a permit to send a request. Waits in the queue if the limit is
+	 * reached. Each permit has to be given back by one of
+	 * {@link #release(long)}, {@link #releaseDropped()} or
+	 * {@link #releaseIgnored()}.
+	 * 
+	 * @throws OverloadedOpenShiftException
+	 *             if the queue is full, the request waited too long or the
+	 *             thread was interrupted while waiting
+	 */
+	public void acquire() throws OverloadedOpenShiftException {
+		lock.lock();
+		try {
+			if (inFlight < (int) limit) {
+				inFlight++;
+				return;
+			}
+			if (queued >= maxQueueSize) {
+				throw reject("the queue is full ({0} requests)", queued);
+			}
+			queued++;
+			try {
+				long remaining = TimeUnit.MILLISECONDS.toNanos(maxQueueWait);
+				while (inFlight >= (int) limit) {
+					if (remaining <= 0) {
+						throw reject("the request waited more than {0}ms", maxQueueWait);
+					}
+					remaining = available.awaitNanos(remaining);
+				}
+				inFlight++;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw reject("the request was interrupted while it waited");
+			} finally {
+				queued--;
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private OverloadedOpenShiftException reject(String reason, Object... arguments) {
+		rejected.incrementAndGet();
+		return new OverloadedOpenShiftException("Broker is at its concurrency limit of {0}, {1}",
+				(int) limit, MessageFormat.format(reason, arguments));
+	}
+
+	/**
+	 * Releases a permit of a request that the broker answered in the given
+	 * time and adapts the limit to it.
+	 * 
+	 * @param latency
+	 *            the time in nanoseconds that the request took
+	 */
+	public void release(long latency) {
+		lock.lock();
+		try {
+			adapt(latency);
+			inFlight--;
+			signal();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Releases a permit of a request that the broker dropped (timed out or
+	 * failed) and backs off.
+	 */
+	public void releaseDropped() {
+		lock.lock();
+		try {
+			this.limit = clamp(limit * backoffRatio);
+			inFlight--;
+			signal();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Releases a permit of a request that tells nothing about the load of the
+	 * broker, ex. a request that failed before it was sent.
+	 */
+	public void releaseIgnored() {
+		lock.lock();
+		try {
+			inFlight--;
+			signal();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void adapt(long latency) {
+		if (latency <= 0) {
+			return;
+		}
+		if (++minLatencySamples > minLatencyWindow) {
+			// forget the lowest latency to follow brokers that got slower
+			this.minLatency = 0;
+			this.minLatencySamples = 1;
+		}
+		if (minLatency == 0
+				|| latency < minLatency) {
+			this.minLatency = latency;
+		}
+		double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, tolerance * minLatency / latency));
+		double newLimit = limit * gradient + Math.sqrt(limit);
+		if (newLimit > limit
+				&& inFlight < limit / 2) {
+			// the limit was not used, there's nothing learnt about a higher one
+			return;
+		}
+		this.limit = clamp(limit * (1 - smoothing) + newLimit * smoothing);
+	}
+
+	private void signal() {
+		int permits = (int) limit - inFlight;
+		if (permits > 1) {
+			available.signalAll();
+		} else if (permits == 1) {
+			available.signal();
+		}
+	}
+
+	private double clamp(double limit) {
+		return Math.max(minLimit, Math.min(maxLimit, limit));
+	}
+
+	/**
+	 * Returns the number of requests that may currently be in flight.
+	 */
+	public int getLimit() {
+		lock.lock();
+		try {
+			return (int) limit;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public int getInFlight() {
+		lock.lock();
+		try {
+			return inFlight;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the number of requests that wait for a permit.
+	 */
+	public int getQueueDepth() {
+		lock.lock();
+		try {
+			return queued;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public long getRejected() {
+		return rejected.get();
+	}
+
+	public String toString() {
+		return "ConcurrencyLimiter [limit=" + getLimit() + ", inFlight=" + getInFlight()
+				+ ", queued=" + getQueueDepth() + ", rejected=" + getRejected() + "]";
+	}
+}
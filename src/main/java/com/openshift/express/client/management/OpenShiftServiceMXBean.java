@@ -0,0 +1,109 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.client.management;
+
+import java.util.Map;
+
+/**
+ * The management interface of an OpenShiftService. Exposes the usage of its
+ * connections and pools, the hit rates of the caches of its users, the
+ * requests that are in flight, the concurrency limit and the error rates of
+ * the broker requests.
+ * 
+ * @author Daniel Brenner
+ * 
+ * @see com.openshift.express.client.OpenShiftService#registerMBean()
+ */
+public interface OpenShiftServiceMXBean {
+
+	public String getId();
+
+	public String getServiceUrl();
+
+	/**
+	 * Returns the number of http connections that are in use. Each broker
+	 * request that is in flight holds a connection, idle keep-alive
+	 * connections are pooled by the jdk and are not accounted for.
+	 */
+	public int getOpenHttpConnections();
+
+	public int getSshOpenSessions();
+
+	public int getSshLeasedChannels();
+
+	public long getUserInfoCacheHits();
+
+	public long getUserInfoCacheMisses();
+
+	public double getUserInfoCacheHitRate();
+
+	public long getCartridgeCacheHits();
+
+	public long getCartridgeCacheMisses();
+
+	public double getCartridgeCacheHitRate();
+
+	public int getInFlightRequests();
+
+	/**
+	 * Returns the number of requests that are in flight for each operation
+	 * that was requested so far.
+	 */
+	public Map<String, Integer> getInFlightRequestsByOperation();
+
+	public long getCompletedRequests();
+
+	public long getFailedRequests();
+
+	/**
+	 * Returns the ratio of failed to completed requests.
+	 * 
+	 * @return the error rate, 0 to 1
+	 */
+	public double getErrorRate();
+
+	/**
+	 * Returns the number of failed requests for each error class.
+	 */
+	public Map<String, Long> getErrorsByType();
+
+	/**
+	 * Returns the number of requests that the concurrency limiter currently
+	 * lets through or -1 if requests are not limited.
+	 */
+	public int getConcurrencyLimit();
+
+	/**
+	 * Returns the number of requests that wait for the concurrency limiter.
+	 */
+	public int getQueuedRequests();
+
+	/**
+	 * Returns the number of requests that the concurrency limiter rejected.
+	 */
+	public long getRejectedRequests();
+
+	/**
+	 * Discards the user infos and cartridges that the users of the service
+	 * cached so that they are reloaded from the broker on next access.
+	 */
+	public void flushCaches();
+
+	/**
+	 * Disconnects all pooled ssh sessions that are not in use.
+	 */
+	public void drainPools();
+
+	/**
+	 * Resets the request and cache counters.
+	 */
+	public void resetStatistics();
+}
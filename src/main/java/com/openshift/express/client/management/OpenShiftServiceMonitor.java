@@ -0,0 +1,293 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.client.management;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.openshift.express.client.OpenShiftException;
+import com.openshift.express.client.OpenShiftService;
+import com.openshift.express.client.limit.ConcurrencyLimiter;
+import com.openshift.express.client.tracing.IRequestListener;
+import com.openshift.express.client.tracing.RequestStage;
+import com.openshift.express.internal.client.ssh.SshSessionPool;
+
+/**
+ * Monitors an OpenShiftService and exposes it in the platform MBean server.
+ * Tracks the requests of the service by listening to them.
+ * 
+ * @author Daniel Brenner
+ * 
+ * @see OpenShiftService#registerMBean()
+ */
+public class OpenShiftServiceMonitor implements OpenShiftServiceMXBean, IRequestListener {
+
+	public static final String DOMAIN = "com.openshift.express";
+
+	private static final AtomicInteger instances = new AtomicInteger();
+
+	private final OpenShiftService service;
+	private final ObjectName objectName;
+	private final ConcurrentMap<String, String> operationsByRequest = new ConcurrentHashMap<String, String>();
+	private final ConcurrentMap<String, AtomicInteger> inFlightByOperation =
+			new ConcurrentHashMap<String, AtomicInteger>();
+	private final ConcurrentMap<String, AtomicLong> errorsByType = new ConcurrentHashMap<String, AtomicLong>();
+	private final AtomicLong completed = new AtomicLong();
+	private final AtomicLong failed = new AtomicLong();
+
+	public OpenShiftServiceMonitor(OpenShiftService service) throws OpenShiftException {
+		this.service = service;
+		this.objectName = createObjectName(service);
+	}
+
+	private static ObjectName createObjectName(OpenShiftService service) throws OpenShiftException {
+		String name = DOMAIN + ":type=OpenShiftService,id=" + ObjectName.quote(String.valueOf(service.getId()))
+				+ ",instance=" + instances.incrementAndGet();
+		try {
+			return new ObjectName(name);
+		} catch (JMException e) {
+			throw new OpenShiftException(e, "Could not create mbean name {0}", name);
+		}
+	}
+
+	public ObjectName getObjectName() {
+		return objectName;
+	}
+
+	/**
+	 * Registers this monitor in the platform MBean server and starts listening
+	 * to the requests of the service.
+	 * 
+	 * @throws OpenShiftException
+	 *             if the registration failed
+	 */
+	public void register() throws OpenShiftException {
+		try {
+			getMBeanServer().registerMBean(this, objectName);
+			service.addRequestListener(this);
+		} catch (JMException e) {
+			throw new OpenShiftException(e, "Could not register mbean {0}", objectName);
+		}
+	}
+
+	/**
+	 * Stops listening to the requests of the service and unregisters this
+	 * monitor from the platform MBean server.
+	 * 
+	 * @throws OpenShiftException
+	 *             if the monitor could not be unregistered
+	 */
+	public void unregister() throws OpenShiftException {
+		service.removeRequestListener(this);
+		try {
+			MBeanServer server = getMBeanServer();
+			if (server.isRegistered(objectName)) {
+				server.unregisterMBean(objectName);
+			}
+		} catch (JMException e) {
+			throw new OpenShiftException(e, "Could not unregister mbean {0}", objectName);
+		}
+	}
+
+	private MBeanServer getMBeanServer() {
+		return ManagementFactory.getPlatformMBeanServer();
+	}
+
+	public String getId() {
+		return service.getId();
+	}
+
+	public String getServiceUrl() {
+		return service.getServiceUrl();
+	}
+
+	public int getOpenHttpConnections() {
+		return getInFlightRequests();
+	}
+
+	public int getSshOpenSessions() {
+		SshSessionPool pool = getSshSessionPool();
+		if (pool == null) {
+			return 0;
+		}
+		return pool.getOpenSessions();
+	}
+
+	public int getSshLeasedChannels() {
+		SshSessionPool pool = getSshSessionPool();
+		if (pool == null) {
+			return 0;
+		}
+		return pool.getLeasedChannels();
+	}
+
+	private SshSessionPool getSshSessionPool() {
+		if (!service.hasSshSessionPool()) {
+			// dont load the ssh identity for the sake of monitoring
+			return null;
+		}
+		try {
+			return service.getSshSessionPool();
+		} catch (OpenShiftException e) {
+			return null;
+		}
+	}
+
+	public long getUserInfoCacheHits() {
+		return service.getUserInfoCacheStatistics().getHits();
+	}
+
+	public long getUserInfoCacheMisses() {
+		return service.getUserInfoCacheStatistics().getMisses();
+	}
+
+	public double getUserInfoCacheHitRate() {
+		return service.getUserInfoCacheStatistics().getHitRate();
+	}
+
+	public long getCartridgeCacheHits() {
+		return service.getCartridgeCacheStatistics().getHits();
+	}
+
+	public long getCartridgeCacheMisses() {
+		return service.getCartridgeCacheStatistics().getMisses();
+	}
+
+	public double getCartridgeCacheHitRate() {
+		return service.getCartridgeCacheStatistics().getHitRate();
+	}
+
+	public int getInFlightRequests() {
+		return operationsByRequest.size();
+	}
+
+	public Map<String, Integer> getInFlightRequestsByOperation() {
+		Map<String, Integer> inFlight = new HashMap<String, Integer>();
+		for (Map.Entry<String, AtomicInteger> entry : inFlightByOperation.entrySet()) {
+			inFlight.put(entry.getKey(), entry.getValue().get());
+		}
+		return inFlight;
+	}
+
+	public long getCompletedRequests() {
+		return completed.get();
+	}
+
+	public long getFailedRequests() {
+		return failed.get();
+	}
+
+	public double getErrorRate() {
+		long completed = this.completed.get();
+		if (completed == 0) {
+			return 0;
+		}
+		return (double) failed.get() / completed;
+	}
+
+	public Map<String, Long> getErrorsByType() {
+		Map<String, Long> errors = new HashMap<String, Long>();
+		for (Map.Entry<String, AtomicLong> entry : errorsByType.entrySet()) {
+			errors.put(entry.getKey(), entry.getValue().get());
+		}
+		return errors;
+	}
+
+	public int getConcurrencyLimit() {
+		ConcurrencyLimiter limiter = service.getConcurrencyLimiter();
+		if (limiter == null) {
+			return -1;
+		}
+		return limiter.getLimit();
+	}
+
+	public int getQueuedRequests() {
+		ConcurrencyLimiter limiter = service.getConcurrencyLimiter();
+		if (limiter == null) {
+			return 0;
+		}
+		return limiter.getQueueDepth();
+	}
+
+	public long getRejectedRequests() {
+		ConcurrencyLimiter limiter = service.getConcurrencyLimiter();
+		if (limiter == null) {
+			return 0;
+		}
+		return limiter.getRejected();
+	}
+
+	public void flushCaches() {
+		service.flushCaches();
+	}
+
+	public void drainPools() {
+		service.drainPools();
+	}
+
+	public void resetStatistics() {
+		completed.set(0);
+		failed.set(0);
+		errorsByType.clear();
+		service.getUserInfoCacheStatistics().clear();
+		service.getCartridgeCacheStatistics().clear();
+	}
+
+	public void started(String requestId, String operation, String url, long nanoTime) {
+		operationsByRequest.put(requestId, operation);
+		getInFlight(operation).incrementAndGet();
+	}
+
+	public void stageReached(String requestId, RequestStage stage, long nanoTime) {
+		// not tracked
+	}
+
+	public void completed(String requestId, Throwable error, long nanoTime) {
+		String operation = operationsByRequest.remove(requestId);
+		if (operation != null) {
+			getInFlight(operation).decrementAndGet();
+		}
+		completed.incrementAndGet();
+		if (error != null) {
+			failed.incrementAndGet();
+			AtomicLong errors = errorsByType.get(error.getClass().getName());
+			if (errors == null) {
+				AtomicLong newErrors = new AtomicLong();
+				errors = errorsByType.putIfAbsent(error.getClass().getName(), newErrors);
+				if (errors == null) {
+					errors = newErrors;
+				}
+			}
+			errors.incrementAndGet();
+		}
+	}
+
+	private AtomicInteger getInFlight(String operation) {
+		AtomicInteger counter = inFlightByOperation.get(operation);
+		if (counter == null) {
+			AtomicInteger newCounter = new AtomicInteger();
+			counter = inFlightByOperation.putIfAbsent(operation, newCounter);
+			if (counter == null) {
+				counter = newCounter;
+			}
+		}
+		return counter;
+	}
+}
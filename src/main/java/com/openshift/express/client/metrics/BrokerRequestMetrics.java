@@ -0,0 +1,118 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.client.metrics;
+
+/**
+ * The metrics of a single broker request. Latencies are in nanoseconds and
+ * split into the phases of the request:
+ * <ul>
+ * <li>connect: opening the connection (incl. the ssl handshake)</li>
+ * <li>time to first byte: sending the request and waiting for the response
+ * headers</li>
+ * <li>download: reading the response body</li>
+ * <li>parse: sanitizing and unmarshalling the json response</li>
+ * </ul>
+ * Phases that the request did not get to are 0.
+ * 
+ * @author Daniel Brenner
+ */
+public class BrokerRequestMetrics {
+
+	private final String operation;
+	private final long requestBytes;
+	private final long responseBytes;
+	private final long connectNanos;
+	private final long timeToFirstByteNanos;
+	private final long downloadNanos;
+	private final long parseNanos;
+	private final long totalNanos;
+	private final String error;
+
+	public BrokerRequestMetrics(String operation, long requestBytes, long responseBytes, long connectNanos,
+			long timeToFirstByteNanos, long downloadNanos, long parseNanos, long totalNanos, String error) {
+		this.operation = operation;
+		this.requestBytes = requestBytes;
+		this.responseBytes = responseBytes;
+		this.connectNanos = connectNanos;
+		this.timeToFirstByteNanos = timeToFirstByteNanos;
+		this.downloadNanos = downloadNanos;
+		this.parseNanos = parseNanos;
+		this.totalNanos = totalNanos;
+		this.error = error;
+	}
+
+	/**
+	 * Returns the broker operation, the resource and action of the request,
+	 * ex. <code>userinfo</code>, <code>cartridge:start</code> or
+	 * <code>embed_cartridge:configure</code>.
+	 * 
+	 * @return the operation
+	 */
+	public String getOperation() {
+		return operation;
+	}
+
+	public long getRequestBytes() {
+		return requestBytes;
+	}
+
+	public long getResponseBytes() {
+		return responseBytes;
+	}
+
+	public long getConnectNanos() {
+		return connectNanos;
+	}
+
+	public long getTimeToFirstByteNanos() {
+		return timeToFirstByteNanos;
+	}
+
+	public long getDownloadNanos() {
+		return downloadNanos;
+	}
+
+	public long getParseNanos() {
+		return parseNanos;
+	}
+
+	public long getTotalNanos() {
+		return totalNanos;
+	}
+
+	/**
+	 * Returns the class name of the exception the request failed with or
+	 * <code>null</code> if it succeeded.
+	 * 
+	 * @return the error class or <code>null</code>
+	 */
+	public String getError() {
+		return error;
+	}
+
+	public boolean isSuccessful() {
+		return error == null;
+	}
+
+	public String toString() {
+		return "BrokerRequestMetrics ["
+				+ "operation=" + operation
+				+ ", requestBytes=" + requestBytes
+				+ ", responseBytes=" + responseBytes
+				+ ", connect=" + connectNanos
+				+ ", ttfb=" + timeToFirstByteNanos
+				+ ", download=" + downloadNanos
+				+ ", parse=" + parseNanos
+				+ ", total=" + totalNanos
+				+ ", error=" + error
+				+ "]";
+	}
+}
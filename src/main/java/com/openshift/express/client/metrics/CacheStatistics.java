@@ -0,0 +1,59 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.client.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the hits and misses of a cache.
+ * 
+ * @author Daniel Brenner
+ */
+public class CacheStatistics {
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	public void hit() {
+		hits.incrementAndGet();
+	}
+
+	public void miss() {
+		misses.incrementAndGet();
+	}
+
+	public long getHits() {
+		return hits.get();
+	}
+
+	public long getMisses() {
+		return misses.get();
+	}
+
+	/**
+	 * Returns the ratio of hits to lookups or 0 if there were no lookups yet.
+	 * 
+	 * @return the hit rate, 0 to 1
+	 */
+	public double getHitRate() {
+		long hits = this.hits.get();
+		long lookups = hits + misses.get();
+		if (lookups == 0) {
+			return 0;
+		}
+		return (double) hits / lookups;
+	}
+
+	public void clear() {
+		hits.set(0);
+		misses.set(0);
+	}
+}
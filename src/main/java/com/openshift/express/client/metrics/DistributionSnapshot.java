@@ -0,0 +1,106 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.client.metrics;
+
+import java.util.Arrays;
+
+/**
+ * The distribution of the values that were recorded up to a point in time:
+ * their count, minimum, maximum, mean and percentiles. Latencies are in
+ * microseconds, sizes in bytes.
+ * 
+ * @author Daniel Brenner
+ */
+public class DistributionSnapshot {
+
+	private static final DistributionSnapshot EMPTY = new DistributionSnapshot(0, 0, 0, 0, 0, 0, 0, 0);
+
+	private final long count;
+	private final long min;
+	private final long max;
+	private final double mean;
+	private final long median;
+	private final long percentile90;
+	private final long percentile99;
+	private final long percentile999;
+
+	DistributionSnapshot(long count, long min, long max, double mean, long median, long percentile90,
+			long percentile99, long percentile999) {
+		this.count = count;
+		this.min = min;
+		this.max = max;
+		this.mean = mean;
+		this.median = median;
+		this.percentile90 = percentile90;
+		this.percentile99 = percentile99;
+		this.percentile999 = percentile999;
+	}
+
+	/**
+	 * Creates the snapshot of the given values. Sorts the given array.
+	 */
+	static DistributionSnapshot of(long[] values) {
+		if (values.length == 0) {
+			return EMPTY;
+		}
+		Arrays.sort(values);
+		double sum = 0;
+		for (long value : values) {
+			sum += value;
+		}
+		return new DistributionSnapshot(values.length, values[0], values[values.length - 1], sum / values.length,
+				getValueAtPercentile(50, values), getValueAtPercentile(90, values),
+				getValueAtPercentile(99, values), getValueAtPercentile(99.9, values));
+	}
+
+	private static long getValueAtPercentile(double percentile, long[] sortedValues) {
+		int index = (int) Math.ceil(percentile / 100.0 * sortedValues.length) - 1;
+		return sortedValues[Math.max(0, index)];
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public long getMin() {
+		return min;
+	}
+
+	public long getMax() {
+		return max;
+	}
+
+	public double getMean() {
+		return mean;
+	}
+
+	public long getMedian() {
+		return median;
+	}
+
+	public long get90thPercentile() {
+		return percentile90;
+	}
+
+	public long get99thPercentile() {
+		return percentile99;
+	}
+
+	public long get999thPercentile() {
+		return percentile999;
+	}
+
+	public String toString() {
+		return "DistributionSnapshot [count=" + count + ", min=" + min + ", max=" + max + ", mean=" + mean
+				+ ", p50=" + median + ", p90=" + percentile90 + ", p99=" + percentile99
+				+ ", p99.9=" + percentile999 + "]";
+	}
+}
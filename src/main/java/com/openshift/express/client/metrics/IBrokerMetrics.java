@@ -0,0 +1,34 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.client.metrics;
+
+/**
+ * Receives the metrics of each request that the client sends to the broker.
+ * Implementations are called from the threads that send the requests and
+ * thus need to be thread safe and fast.
+ * 
+ * @author Daniel Brenner
+ * 
+ * @see NoopBrokerMetrics
+ * @see InMemoryBrokerMetrics
+ * @see com.openshift.express.client.OpenShiftService#setMetrics(IBrokerMetrics)
+ */
+public interface IBrokerMetrics {
+
+	/**
+	 * Records the metrics of a completed (or failed) broker request.
+	 * 
+	 * @param metrics
+	 *            the metrics of the request
+	 */
+	public void record(BrokerRequestMetrics metrics);
+
+}
@@ -0,0 +1,214 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.client.metrics;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.HdrHistogram.AtomicHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Keeps histograms of the latencies and sizes of the broker requests per
+ * operation in memory. The histograms are HdrHistograms, HdrHistogram is an
+ * optional dependency of the client that has to be on the classpath to use
+ * these metrics.
+ * 
+ * <pre>
+ * InMemoryBrokerMetrics metrics = new InMemoryBrokerMetrics();
+ * service.setMetrics(metrics);
+ * ...
+ * metrics.print(System.out);
+ * </pre>
+ * 
+ * @author Daniel Brenner
+ */
+public class InMemoryBrokerMetrics implements IBrokerMetrics {
+
+	private static final double MICROS_PER_MILLI = 1000.0;
+
+	private final ConcurrentMap<String, OperationHistograms> operations =
+			new ConcurrentHashMap<String, OperationHistograms>();
+
+	public void record(BrokerRequestMetrics metrics) {
+		getOrCreate(metrics.getOperation()).record(metrics);
+	}
+
+	private OperationHistograms getOrCreate(String operation) {
+		OperationHistograms histograms = operations.get(operation);
+		if (histograms == null) {
+			OperationHistograms newHistograms = new OperationHistograms(operation);
+			histograms = operations.putIfAbsent(operation, newHistograms);
+			if (histograms == null) {
+				histograms = newHistograms;
+			}
+		}
+		return histograms;
+	}
+
+	/**
+	 * Returns the metrics of the given operation or <code>null</code> if no
+	 * request of this operation was recorded.
+	 * 
+	 * @param operation
+	 *            the operation, ex. <code>cartridge:start</code>
+	 * @return the metrics of the operation
+	 */
+	public OperationMetrics getOperation(String operation) {
+		OperationHistograms histograms = operations.get(operation);
+		if (histograms == null) {
+			return null;
+		}
+		return histograms.snapshot();
+	}
+
+	/**
+	 * Returns the metrics of all operations that were recorded, sorted by
+	 * operation name.
+	 * 
+	 * @return the metrics of all operations
+	 */
+	public List<OperationMetrics> getOperations() {
+		List<String> names = new ArrayList<String>(operations.keySet());
+		Collections.sort(names);
+		List<OperationMetrics> metrics = new ArrayList<OperationMetrics>();
+		for (String name : names) {
+			metrics.add(operations.get(name).snapshot());
+		}
+		return metrics;
+	}
+
+	public void clear() {
+		operations.clear();
+	}
+
+	/**
+	 * Prints the count, errors, mean sizes and the median and p99 latency of
+	 * each phase of each operation.
+	 * 
+	 * @param out
+	 *            the stream to print to
+	 */
+	public void print(PrintStream out) {
+		out.println(String.format("%-28s %8s %6s %9s %9s %17s %17s %17s %17s %17s",
+				"operation", "count", "errors", "req B", "resp B",
+				"connect p50/p99", "ttfb p50/p99", "download p50/p99", "parse p50/p99", "total p50/p99"));
+		for (OperationMetrics metrics : getOperations()) {
+			out.println(String.format("%-28s %8d %6d %9.0f %9.0f %17s %17s %17s %17s %17s",
+					metrics.getOperation(),
+					metrics.getCount(),
+					metrics.getErrorCount(),
+					metrics.getRequestBytes().getMean(),
+					metrics.getResponseBytes().getMean(),
+					toMillis(metrics.getConnectLatencies()),
+					toMillis(metrics.getTimeToFirstByteLatencies()),
+					toMillis(metrics.getDownloadLatencies()),
+					toMillis(metrics.getParseLatencies()),
+					toMillis(metrics.getTotalLatencies())));
+		}
+	}
+
+	private String toMillis(DistributionSnapshot latencies) {
+		return String.format("%.2f/%.2f",
+				latencies.getMedian() / MICROS_PER_MILLI,
+				latencies.get99thPercentile() / MICROS_PER_MILLI);
+	}
+
+	/**
+	 * The histograms of the requests of an operation.
+	 */
+	private static class OperationHistograms {
+
+		/** an hour in microseconds */
+		private static final long HIGHEST_TRACKABLE_LATENCY = TimeUnit.HOURS.toMicros(1);
+		private static final long HIGHEST_TRACKABLE_SIZE = 1024 * 1024 * 1024;
+		private static final int SIGNIFICANT_DIGITS = 2;
+
+		private final String operation;
+		private final Histogram connect = createLatencyHistogram();
+		private final Histogram timeToFirstByte = createLatencyHistogram();
+		private final Histogram download = createLatencyHistogram();
+		private final Histogram parse = createLatencyHistogram();
+		private final Histogram total = createLatencyHistogram();
+		private final Histogram requestBytes = new AtomicHistogram(HIGHEST_TRACKABLE_SIZE, SIGNIFICANT_DIGITS);
+		private final Histogram responseBytes = new AtomicHistogram(HIGHEST_TRACKABLE_SIZE, SIGNIFICANT_DIGITS);
+		private final ConcurrentMap<String, AtomicLong> errors = new ConcurrentHashMap<String, AtomicLong>();
+
+		private OperationHistograms(String operation) {
+			this.operation = operation;
+		}
+
+		private static Histogram createLatencyHistogram() {
+			return new AtomicHistogram(HIGHEST_TRACKABLE_LATENCY, SIGNIFICANT_DIGITS);
+		}
+
+		private void record(BrokerRequestMetrics metrics) {
+			record(connect, toMicros(metrics.getConnectNanos()));
+			record(timeToFirstByte, toMicros(metrics.getTimeToFirstByteNanos()));
+			record(download, toMicros(metrics.getDownloadNanos()));
+			record(parse, toMicros(metrics.getParseNanos()));
+			record(total, toMicros(metrics.getTotalNanos()));
+			record(requestBytes, metrics.getRequestBytes());
+			record(responseBytes, metrics.getResponseBytes());
+			if (!metrics.isSuccessful()) {
+				countError(metrics.getError());
+			}
+		}
+
+		/**
+		 * Records the given value, values beyond the highest trackable one are
+		 * recorded as the highest one.
+		 */
+		private static void record(Histogram histogram, long value) {
+			histogram.recordValue(Math.min(value, histogram.getHighestTrackableValue()));
+		}
+
+		private void countError(String error) {
+			AtomicLong count = errors.get(error);
+			if (count == null) {
+				AtomicLong newCount = new AtomicLong();
+				count = errors.putIfAbsent(error, newCount);
+				if (count == null) {
+					count = newCount;
+				}
+			}
+			count.incrementAndGet();
+		}
+
+		private static long toMicros(long nanos) {
+			return Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos));
+		}
+
+		private OperationMetrics snapshot() {
+			Map<String, Long> errorCounts = new HashMap<String, Long>();
+			for (Map.Entry<String, AtomicLong> entry : errors.entrySet()) {
+				errorCounts.put(entry.getKey(), entry.getValue().get());
+			}
+			return new OperationMetrics(operation, snapshot(connect), snapshot(timeToFirstByte), snapshot(download),
+					snapshot(parse), snapshot(total), snapshot(requestBytes), snapshot(responseBytes), errorCounts);
+		}
+
+		private static DistributionSnapshot snapshot(Histogram histogram) {
+			return new DistributionSnapshot(histogram.getTotalCount(), histogram.getMinValue(),
+					histogram.getMaxValue(), histogram.getMean(), histogram.getValueAtPercentile(50),
+					histogram.getValueAtPercentile(90), histogram.getValueAtPercentile(99),
+					histogram.getValueAtPercentile(99.9));
+		}
+	}
+}
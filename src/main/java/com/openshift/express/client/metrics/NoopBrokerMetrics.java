@@ -0,0 +1,25 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.client.metrics;
+
+/**
+ * Metrics that discard all recordings. The default of the client.
+ * 
+ * @author Daniel Brenner
+ */
+public class NoopBrokerMetrics implements IBrokerMetrics {
+
+	public static final NoopBrokerMetrics INSTANCE = new NoopBrokerMetrics();
+
+	public void record(BrokerRequestMetrics metrics) {
+		// do nothing
+	}
+}
@@ -0,0 +1,102 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.client.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * The aggregated metrics of all requests of a broker operation up to a point
+ * in time. Latencies are in microseconds, sizes in bytes.
+ * 
+ * @author Daniel Brenner
+ * 
+ * @see InMemoryBrokerMetrics
+ */
+public class OperationMetrics {
+
+	private final String operation;
+	private final DistributionSnapshot connect;
+	private final DistributionSnapshot timeToFirstByte;
+	private final DistributionSnapshot download;
+	private final DistributionSnapshot parse;
+	private final DistributionSnapshot total;
+	private final DistributionSnapshot requestBytes;
+	private final DistributionSnapshot responseBytes;
+	private final Map<String, Long> errors;
+
+	OperationMetrics(String operation, DistributionSnapshot connect, DistributionSnapshot timeToFirstByte,
+			DistributionSnapshot download, DistributionSnapshot parse, DistributionSnapshot total,
+			DistributionSnapshot requestBytes, DistributionSnapshot responseBytes, Map<String, Long> errors) {
+		this.operation = operation;
+		this.connect = connect;
+		this.timeToFirstByte = timeToFirstByte;
+		this.download = download;
+		this.parse = parse;
+		this.total = total;
+		this.requestBytes = requestBytes;
+		this.responseBytes = responseBytes;
+		this.errors = Collections.unmodifiableMap(errors);
+	}
+
+	public String getOperation() {
+		return operation;
+	}
+
+	public long getCount() {
+		return total.getCount();
+	}
+
+	public DistributionSnapshot getConnectLatencies() {
+		return connect;
+	}
+
+	public DistributionSnapshot getTimeToFirstByteLatencies() {
+		return timeToFirstByte;
+	}
+
+	public DistributionSnapshot getDownloadLatencies() {
+		return download;
+	}
+
+	public DistributionSnapshot getParseLatencies() {
+		return parse;
+	}
+
+	public DistributionSnapshot getTotalLatencies() {
+		return total;
+	}
+
+	public DistributionSnapshot getRequestBytes() {
+		return requestBytes;
+	}
+
+	public DistributionSnapshot getResponseBytes() {
+		return responseBytes;
+	}
+
+	/**
+	 * Returns the number of failed requests per error class.
+	 * 
+	 * @return the error counts
+	 */
+	public Map<String, Long> getErrors() {
+		return errors;
+	}
+
+	public long getErrorCount() {
+		long count = 0;
+		for (Long errorCount : errors.values()) {
+			count += errorCount;
+		}
+		return count;
+	}
+}
@@ -0,0 +1,79 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.client.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Keeps the latest values that were recorded in a ring buffer of fixed size
+ * and reports their distribution. Recording does not lock and does not
+ * allocate, snapshots copy and sort the values in the window. A snapshot that
+ * is taken while values are recorded may miss the latest of them.
+ * 
+ * @author Daniel Brenner
+ */
+public class ValueWindow {
+
+	public static final int DEFAULT_SIZE = 1024;
+
+	private final AtomicLongArray values;
+	private final AtomicLong recorded = new AtomicLong();
+
+	/**
+	 * Creates a window of the latest {@link #DEFAULT_SIZE} values.
+	 */
+	public ValueWindow() {
+		this(DEFAULT_SIZE);
+	}
+
+	/**
+	 * Creates a window of the given number of latest values.
+	 * 
+	 * @param size
+	 *            the number of values to keep
+	 */
+	public ValueWindow(int size) {
+		if (size < 1) {
+			throw new IllegalArgumentException("size must be >= 1");
+		}
+		this.values = new AtomicLongArray(size);
+	}
+
+	public void record(long value) {
+		long index = recorded.getAndIncrement();
+		values.set((int) (index % values.length()), value);
+	}
+
+	/**
+	 * Returns the number of values that were recorded, including the ones
+	 * that are not in the window any more.
+	 * 
+	 * @return the number of values
+	 */
+	public long getRecorded() {
+		return recorded.get();
+	}
+
+	/**
+	 * Returns the distribution of the values in the window.
+	 * 
+	 * @return the distribution
+	 */
+	public DistributionSnapshot snapshot() {
+		int count = (int) Math.min(recorded.get(), values.length());
+		long[] window = new long[count];
+		for (int i = 0; i < count; i++) {
+			window[i] = values.get(i);
+		}
+		return DistributionSnapshot.of(window);
+	}
+}
@@ -0,0 +1,183 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/ 
+package com.openshift.express.client.pipeline;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.openshift.express.client.IApplication;
+import com.openshift.express.client.OpenShiftException;
+
+/**
+ * An application creation that runs in an {@link ApplicationCreationPipeline}.
+ * Tells the stages that ran, when they started and how long they took.
+ * 
+ * @author Daniel Brenner
+ */
+public class ApplicationCreation {
+
+	private final String name;
+	private final long startTime = System.nanoTime();
+	private final ConcurrentMap<CreationStage, long[]> stages = new ConcurrentHashMap<CreationStage, long[]>();
+	private final AtomicReference<OpenShiftException> error = new AtomicReference<OpenShiftException>();
+	private final AtomicInteger pendingBranches = new AtomicInteger();
+	private final CountDownLatch done = new CountDownLatch(1);
+	private volatile IApplication application;
+	private volatile String gitUri;
+	private final ICreationListener listener;
+	private volatile long endTime;
+
+	ApplicationCreation(String name, ICreationListener listener) {
+		this.name = name;
+		this.listener = listener;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Returns the application or <code>null</code> if it was not created
+	 * (yet).
+	 */
+	public IApplication getApplication() {
+		return application;
+	}
+
+	/**
+	 * Returns the git uri of the application or <code>null</code> if it was
+	 * not looked up (yet).
+	 */
+	public String getGitUri() {
+		return gitUri;
+	}
+
+	/**
+	 * Returns the first error that occurred or <code>null</code> if all
+	 * stages succeeded so far.
+	 */
+	public OpenShiftException getError() {
+		return error.get();
+	}
+
+	public boolean isDone() {
+		return done.getCount() == 0;
+	}
+
+	public boolean isSuccessful() {
+		return isDone()
+				&& error.get() == null;
+	}
+
+	/**
+	 * Waits for all stages to finish.
+	 * 
+	 * @param timeout
+	 *            the max time to wait in milliseconds
+	 * @return <code>true</code> if the creation is done
+	 * @throws InterruptedException
+	 */
+	public boolean await(long timeout) throws InterruptedException {
+		return done.await(timeout, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Returns the time in milliseconds from the start of the creation to the
+	 * start of the given stage or -1 if it did not start.
+	 */
+	public long getStageStart(CreationStage stage) {
+		long[] timing = stages.get(stage);
+		if (timing == null) {
+			return -1;
+		}
+		return TimeUnit.NANOSECONDS.toMillis(timing[0] - startTime);
+	}
+
+	/**
+	 * Returns the time in milliseconds that the given stage took or -1 if it
+	 * did not finish.
+	 */
+	public long getStageDuration(CreationStage stage) {
+		long[] timing = stages.get(stage);
+		if (timing == null
+				|| timing[1] == 0) {
+			return -1;
+		}
+		return TimeUnit.NANOSECONDS.toMillis(timing[1] - timing[0]);
+	}
+
+	/**
+	 * Returns the time in milliseconds that the whole creation took or -1 if
+	 * it is not done.
+	 */
+	public long getDuration() {
+		if (!isDone()) {
+			return -1;
+		}
+		return TimeUnit.NANOSECONDS.toMillis(endTime - startTime);
+	}
+
+	void stageStarted(CreationStage stage) {
+		stages.put(stage, new long[] { System.nanoTime(), 0 });
+	}
+
+	void stageEnded(CreationStage stage) {
+		long[] timing = stages.get(stage);
+		if (timing != null) {
+			timing[1] = System.nanoTime();
+		}
+	}
+
+	void setApplication(IApplication application) {
+		this.application = application;
+	}
+
+	void setGitUri(String gitUri) {
+		this.gitUri = gitUri;
+	}
+
+	void failed(OpenShiftException e) {
+		error.compareAndSet(null, e);
+	}
+
+	void branchesStarted(int branches) {
+		pendingBranches.set(branches);
+	}
+
+	void branchEnded() {
+		if (pendingBranches.decrementAndGet() <= 0) {
+			done();
+		}
+	}
+
+	void done() {
+		this.endTime = System.nanoTime();
+		done.countDown();
+		if (listener != null) {
+			listener.done(this);
+		}
+	}
+
+	public String toString() {
+		StringBuilder builder = new StringBuilder("ApplicationCreation [name=").append(name);
+		for (CreationStage stage : CreationStage.values()) {
+			if (stages.containsKey(stage)) {
+				builder.append(", ").append(stage).append('=')
+						.append(getStageStart(stage)).append('+').append(getStageDuration(stage)).append("ms");
+			}
+		}
+		return builder.append(", error=").append(error.get()).append(']').toString();
+	}
+}
@@ -0,0 +1,288 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/ 
+package com.openshift.express.client.pipeline;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.openshift.express.client.AsyncOpenShiftService;
+import com.openshift.express.client.IApplication;
+import com.openshift.express.client.ICartridge;
+import com.openshift.express.client.IEmbeddableCartridge;
+import com.openshift.express.client.IUser;
+import com.openshift.express.client.OpenShiftException;
+import com.openshift.express.client.bulkhead.OperationClass;
+import com.openshift.express.internal.client.utils.DaemonThreadFactory;
+
+/**
+ * Creates applications in stages that overlap: once the broker created an
+ * application, its cartridges are embedded and its git uri is looked up while
+ * its host name propagates through dns and the application starts up. Many
+ * applications may be created at the same time, the broker operations run in
+ * the bulkheads of the given async service. The latency to create a batch of
+ * applications is thus bounded by the slowest application rather than the sum
+ * of all of them.
+ * 
+ * <pre>
+ * ApplicationCreationPipeline pipeline = new ApplicationCreationPipeline(new AsyncOpenShiftService(service));
+ * List&lt;ApplicationCreation&gt; creations = new ArrayList&lt;ApplicationCreation&gt;();
+ * for (String name : names) {
+ * 	creations.add(pipeline.submit(user, name, ICartridge.JBOSSAS_7, cartridges));
+ * }
+ * ApplicationCreationPipeline.awaitAll(creations, 10 * 60 * 1000);
+ * </pre>
+ * 
+ * @author Daniel Brenner
+ * 
+ * @see CreationStage
+ */
+public class ApplicationCreationPipeline {
+
+	public static final long DEFAULT_HOST_RESOLVE_TIMEOUT = 5 * 60 * 1000;
+	public static final long DEFAULT_ACCESSIBLE_TIMEOUT = 5 * 60 * 1000;
+
+	private static final int WAITING_BRANCHES = 3;
+
+	private final AsyncOpenShiftService async;
+	/** runs the stages that poll, they would block the bulkheads for minutes */
+	private final ExecutorService waitExecutor = Executors.newCachedThreadPool(new DaemonThreadFactory("creation-wait"));
+	private volatile long hostResolveTimeout = DEFAULT_HOST_RESOLVE_TIMEOUT;
+	private volatile long accessibleTimeout = DEFAULT_ACCESSIBLE_TIMEOUT;
+	private volatile boolean waitForAccessible = true;
+
+	public ApplicationCreationPipeline(AsyncOpenShiftService async) {
+		this.async = async;
+	}
+
+	/**
+	 * Sets the time in milliseconds to wait for the host of an application to
+	 * resolve.
+	 */
+	public void setHostResolveTimeout(long hostResolveTimeout) {
+		this.hostResolveTimeout = hostResolveTimeout;
+	}
+
+	/**
+	 * Sets the time in milliseconds to wait for an application to answer its
+	 * health check.
+	 */
+	public void setAccessibleTimeout(long accessibleTimeout) {
+		this.accessibleTimeout = accessibleTimeout;
+	}
+
+	/**
+	 * Sets whether the pipeline waits for the host of the applications to
+	 * resolve and the applications to answer. Applications are done once they
+	 * are created and their cartridges embedded if it does not wait.
+	 */
+	public void setWaitForAccessible(boolean waitForAccessible) {
+		this.waitForAccessible = waitForAccessible;
+	}
+
+	/**
+	 * Submits the creation of an application and returns immediately.
+	 * 
+	 * @param user
+	 *            the user to create the application for
+	 * @param name
+	 *            the name of the application
+	 * @param cartridge
+	 *            the cartridge of the application
+	 * @param embeddedCartridges
+	 *            the cartridges to embed, may be empty
+	 * @return the creation that tells the progress of the stages
+	 */
+	public ApplicationCreation submit(IUser user, String name, ICartridge cartridge,
+			List<IEmbeddableCartridge> embeddedCartridges) {
+		return submit(user, name, cartridge, embeddedCartridges, null);
+	}
+
+	/**
+	 * Submits the creation of an application and returns immediately. The
+	 * given listener is notified once the creation is done.
+	 * 
+	 * @param user
+	 *            the user to create the application for
+	 * @param name
+	 *            the name of the application
+	 * @param cartridge
+	 *            the cartridge of the application
+	 * @param embeddedCartridges
+	 *            the cartridges to embed, may be empty
+	 * @param listener
+	 *            the listener to notify, may be <code>null</code>
+	 * @return the creation that tells the progress of the stages
+	 */
+	public ApplicationCreation submit(final IUser user, final String name, final ICartridge cartridge,
+			final List<IEmbeddableCartridge> embeddedCartridges, ICreationListener listener) {
+		final ApplicationCreation creation = new ApplicationCreation(name, listener);
+		runStage(creation, CreationStage.CREATE, OperationClass.LIFECYCLE, new Callable<Boolean>() {
+
+			public Boolean call() throws Exception {
+				IApplication application = user.createApplication(name, cartridge);
+				creation.setApplication(application);
+				return true;
+			}
+		}, new Runnable() {
+
+			public void run() {
+				startBranches(creation, embeddedCartridges);
+			}
+		});
+		return creation;
+	}
+
+	private void startBranches(final ApplicationCreation creation, final List<IEmbeddableCartridge> embeddedCartridges) {
+		final IApplication application = creation.getApplication();
+		creation.branchesStarted(WAITING_BRANCHES);
+		if (waitForAccessible) {
+			runStage(creation, CreationStage.RESOLVE_HOST, null, new Callable<Boolean>() {
+
+				public Boolean call() throws Exception {
+					String url = application.getApplicationUrl();
+					if (!async.getService().waitForHostResolves(url, hostResolveTimeout)) {
+						throw new OpenShiftException("Host of application {0} did not resolve within {1}ms",
+								url, hostResolveTimeout);
+					}
+					return true;
+				}
+			}, new Runnable() {
+
+				public void run() {
+					runStage(creation, CreationStage.ACCESSIBLE, null, new Callable<Boolean>() {
+
+						public Boolean call() throws Exception {
+							if (!application.waitForAccessible(accessibleTimeout)) {
+								throw new OpenShiftException("Application {0} was not accessible within {1}ms",
+										application.getName(), accessibleTimeout);
+							}
+							return true;
+						}
+					}, null);
+				}
+			});
+		} else {
+			creation.branchEnded();
+		}
+		if (embeddedCartridges != null
+				&& !embeddedCartridges.isEmpty()) {
+			runStage(creation, CreationStage.EMBED, OperationClass.EMBED, new Callable<Boolean>() {
+
+				public Boolean call() throws Exception {
+					application.addEmbbedCartridges(embeddedCartridges);
+					return true;
+				}
+			}, null);
+		} else {
+			creation.branchEnded();
+		}
+		runStage(creation, CreationStage.GIT_URI, OperationClass.READ_ONLY, new Callable<Boolean>() {
+
+			public Boolean call() throws Exception {
+				creation.setGitUri(application.getGitUri());
+				return true;
+			}
+		}, null);
+	}
+
+	/**
+	 * Runs the given stage in the bulkhead of the given operation class or in
+	 * the wait executor if there's no class. Runs the given next stage if the
+	 * stage succeeded. Ends the branch of the stage if it failed or if it is
+	 * the last one of its branch.
+	 */
+	private void runStage(final ApplicationCreation creation, final CreationStage stage,
+			final OperationClass operationClass, final Callable<Boolean> work, final Runnable next) {
+		Callable<Boolean> task = new Callable<Boolean>() {
+
+			public Boolean call() throws Exception {
+				creation.stageStarted(stage);
+				boolean succeeded = false;
+				try {
+					work.call();
+					succeeded = true;
+				} catch (OpenShiftException e) {
+					creation.failed(e);
+				} catch (Exception e) {
+					creation.failed(new OpenShiftException(e, "Could not {0} application {1}",
+							stage, creation.getName()));
+				} finally {
+					creation.stageEnded(stage);
+					end(creation, stage, succeeded, next);
+				}
+				return succeeded;
+			}
+		};
+		try {
+			if (operationClass == null) {
+				waitExecutor.submit(task);
+			} else {
+				async.submit(operationClass, task);
+			}
+		} catch (OpenShiftException e) {
+			creation.failed(e);
+			end(creation, stage, false, null);
+		} catch (RuntimeException e) {
+			creation.failed(new OpenShiftException(e, "Could not {0} application {1}", stage, creation.getName()));
+			end(creation, stage, false, null);
+		}
+	}
+
+	private void end(ApplicationCreation creation, CreationStage stage, boolean succeeded, Runnable next) {
+		if (stage == CreationStage.CREATE) {
+			if (succeeded) {
+				next.run();
+			} else {
+				creation.done();
+			}
+		} else if (succeeded
+				&& next != null) {
+			next.run();
+		} else {
+			creation.branchEnded();
+		}
+	}
+
+	/**
+	 * Waits for all given creations to finish.
+	 * 
+	 * @param creations
+	 *            the creations to wait for
+	 * @param timeout
+	 *            the max time to wait for all of them in milliseconds
+	 * @return the creations that did not finish in time
+	 * @throws InterruptedException
+	 */
+	public static List<ApplicationCreation> awaitAll(Collection<ApplicationCreation> creations, long timeout)
+			throws InterruptedException {
+		long deadline = System.currentTimeMillis() + timeout;
+		List<ApplicationCreation> pending = new ArrayList<ApplicationCreation>();
+		for (ApplicationCreation creation : creations) {
+			if (!creation.await(Math.max(0, deadline - System.currentTimeMillis()))) {
+				pending.add(creation);
+			}
+		}
+		return Collections.unmodifiableList(pending);
+	}
+
+	/**
+	 * Stops the wait executor. The bulkheads of the async service are not
+	 * shut down.
+	 */
+	public void shutdown() {
+		waitExecutor.shutdown();
+	}
+}
@@ -0,0 +1,39 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/ 
+package com.openshift.express.client.pipeline;
+
+/**
+ * The stages of an application creation. The stages after {@link #CREATE} run
+ * in parallel branches: the host resolution followed by the accessibility
+ * check, the embedding of the cartridges and the lookup of the git uri.
+ * 
+ * @author Daniel Brenner
+ * 
+ * @see ApplicationCreationPipeline
+ */
+public enum CreationStage {
+
+	/** creates the application at the broker */
+	CREATE,
+
+	/** waits for the host of the application to resolve */
+	RESOLVE_HOST,
+
+	/** waits for the application to answer its health check */
+	ACCESSIBLE,
+
+	/** embeds the requested cartridges */
+	EMBED,
+
+	/** looks up the git uri of the application */
+	GIT_URI;
+
+}
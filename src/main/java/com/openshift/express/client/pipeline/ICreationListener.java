@@ -0,0 +1,26 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/ 
+package com.openshift.express.client.pipeline;
+
+/**
+ * Is notified when an application creation is done. Called from the thread
+ * that ran the last stage, implementations should return quickly.
+ * 
+ * @author Daniel Brenner
+ * 
+ * @see ApplicationCreationPipeline#submit(com.openshift.express.client.IUser, String,
+ *      com.openshift.express.client.ICartridge, java.util.List, ICreationListener)
+ */
+public interface ICreationListener {
+
+	public void done(ApplicationCreation creation);
+
+}
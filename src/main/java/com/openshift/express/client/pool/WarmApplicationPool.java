@@ -0,0 +1,508 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/ 
+package com.openshift.express.client.pool;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.openshift.express.client.AsyncOpenShiftService;
+import com.openshift.express.client.IApplication;
+import com.openshift.express.client.ICartridge;
+import com.openshift.express.client.IEmbeddableCartridge;
+import com.openshift.express.client.IUser;
+import com.openshift.express.client.IUserInfo;
+import com.openshift.express.client.OpenShiftException;
+import com.openshift.express.client.metrics.DistributionSnapshot;
+import com.openshift.express.client.metrics.ValueWindow;
+import com.openshift.express.client.pipeline.ApplicationCreation;
+import com.openshift.express.client.pipeline.ApplicationCreationPipeline;
+import com.openshift.express.client.pipeline.ICreationListener;
+import com.openshift.express.internal.client.logging.Logger;
+import com.openshift.express.internal.client.utils.DaemonThreadFactory;
+
+/**
+ * Keeps applications of a user created and accessible ahead of time so that
+ * they can be handed out instantly. The pool keeps the configured number of
+ * warm applications per cartridge, replenishes them in the background and
+ * destroys the ones that stayed warm for longer than their time to live. It
+ * never creates applications beyond the gears that the user has left
+ * (<code>max gears - consumed gears</code>), minus the gears that are reserved
+ * for other use.
+ * 
+ * <pre>
+ * WarmApplicationPool pool = new WarmApplicationPool(user, new AsyncOpenShiftService(service));
+ * pool.setPoolSize(ICartridge.JBOSSAS_7, 2);
+ * pool.start(30 * 1000);
+ * ...
+ * IApplication application = pool.acquire(ICartridge.JBOSSAS_7);
+ * </pre>
+ * 
+ * @author Daniel Brenner
+ */
+public class WarmApplicationPool {
+
+	private static final Logger LOGGER = Logger.getLogger(WarmApplicationPool.class);
+
+	public static final String DEFAULT_NAME_PREFIX = "warm";
+	public static final long DEFAULT_TIME_TO_LIVE = 60 * 60 * 1000;
+
+	private final IUser user;
+	private final AsyncOpenShiftService async;
+	private final ApplicationCreationPipeline pipeline;
+	private final ScheduledExecutorService maintenance =
+			Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("warm-pool"));
+	private final Map<ICartridge, Integer> poolSizes = new ConcurrentHashMap<ICartridge, Integer>();
+	private final Map<ICartridge, List<IEmbeddableCartridge>> embeddedCartridges =
+			new ConcurrentHashMap<ICartridge, List<IEmbeddableCartridge>>();
+	private final Map<ICartridge, Queue<WarmApplication>> warm =
+			new ConcurrentHashMap<ICartridge, Queue<WarmApplication>>();
+	private final List<PendingCreation> pending = new CopyOnWriteArrayList<PendingCreation>();
+	private final AtomicLong nameCounter = new AtomicLong();
+	private volatile String namePrefix = DEFAULT_NAME_PREFIX;
+	private volatile long timeToLive = DEFAULT_TIME_TO_LIVE;
+	private volatile int reservedGears;
+	private volatile boolean stopped;
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong created = new AtomicLong();
+	private final AtomicLong failed = new AtomicLong();
+	private final AtomicLong expired = new AtomicLong();
+	private final ValueWindow provisioningLatencies = new ValueWindow();
+
+	public WarmApplicationPool(IUser user, AsyncOpenShiftService async) {
+		this.user = user;
+		this.async = async;
+		this.pipeline = new ApplicationCreationPipeline(async);
+	}
+
+	/**
+	 * Sets the number of warm applications to keep for the given cartridge.
+	 * 
+	 * @param cartridge
+	 *            the cartridge of the applications
+	 * @param size
+	 *            the number of applications, 0 to keep none
+	 * @return this pool
+	 */
+	public WarmApplicationPool setPoolSize(ICartridge cartridge, int size) {
+		if (size <= 0) {
+			poolSizes.remove(cartridge);
+		} else {
+			poolSizes.put(cartridge, size);
+		}
+		return this;
+	}
+
+	public int getPoolSize(ICartridge cartridge) {
+		Integer size = poolSizes.get(cartridge);
+		if (size == null) {
+			return 0;
+		}
+		return size;
+	}
+
+	/**
+	 * Sets the cartridges to embed into the warm applications of the given
+	 * cartridge.
+	 * 
+	 * @return this pool
+	 */
+	public WarmApplicationPool setEmbeddedCartridges(ICartridge cartridge, List<IEmbeddableCartridge> cartridges) {
+		embeddedCartridges.put(cartridge, new ArrayList<IEmbeddableCartridge>(cartridges));
+		return this;
+	}
+
+	/**
+	 * Sets the time in milliseconds that an application stays warm. Older
+	 * applications are destroyed and replaced.
+	 * 
+	 * @return this pool
+	 */
+	public WarmApplicationPool setTimeToLive(long timeToLive) {
+		this.timeToLive = timeToLive;
+		return this;
+	}
+
+	/**
+	 * Sets the number of gears that the pool leaves free for applications
+	 * that are created outside of it.
+	 * 
+	 * @return this pool
+	 */
+	public WarmApplicationPool setReservedGears(int reservedGears) {
+		this.reservedGears = Math.max(0, reservedGears);
+		return this;
+	}
+
+	/**
+	 * Sets the prefix of the names of the warm applications. Their names
+	 * have to be unique among the applications of the user.
+	 * 
+	 * @return this pool
+	 */
+	public WarmApplicationPool setNamePrefix(String namePrefix) {
+		this.namePrefix = namePrefix;
+		return this;
+	}
+
+	/**
+	 * Sets whether the warm applications have to answer their health checks
+	 * before they're handed out. Applications are ready once they're created
+	 * and their cartridges embedded otherwise.
+	 * 
+	 * @return this pool
+	 */
+	public WarmApplicationPool setWaitForAccessible(boolean waitForAccessible) {
+		pipeline.setWaitForAccessible(waitForAccessible);
+		return this;
+	}
+
+	/**
+	 * Replenishes the pool right away and then every given interval.
+	 * 
+	 * @param interval
+	 *            the interval in milliseconds
+	 */
+	public void start(long interval) {
+		maintenance.scheduleWithFixedDelay(new Runnable() {
+
+			public void run() {
+				replenishQuietly();
+			}
+		}, 0, interval, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Hands out a warm application of the given cartridge. The application is
+	 * removed from the pool, which replenishes in the background.
+	 * 
+	 * @param cartridge
+	 *            the cartridge of the application
+	 * @return the application or <code>null</code> if there's no warm one
+	 */
+	public IApplication acquire(ICartridge cartridge) {
+		Queue<WarmApplication> applications = warm.get(cartridge);
+		WarmApplication application = null;
+		while (applications != null
+				&& (application = applications.poll()) != null) {
+			if (!application.isExpired(timeToLive)) {
+				break;
+			}
+			expire(application);
+			application = null;
+		}
+		scheduleReplenish();
+		if (application == null) {
+			misses.incrementAndGet();
+			return null;
+		}
+		hits.incrementAndGet();
+		return application.getApplication();
+	}
+
+	/**
+	 * Destroys the expired warm applications and creates the missing ones
+	 * within the gears that the user has left.
+	 * 
+	 * @throws OpenShiftException
+	 *             if the user info could not be loaded
+	 */
+	public synchronized void replenish() throws OpenShiftException {
+		if (stopped) {
+			return;
+		}
+		removeExpired();
+		long freeGears = getFreeGears();
+		for (Map.Entry<ICartridge, Integer> entry : poolSizes.entrySet()) {
+			ICartridge cartridge = entry.getKey();
+			int missing = entry.getValue() - getWarmApplications(cartridge) - getPendingCreations(cartridge);
+			for (; missing > 0 && freeGears > 0; missing--, freeGears--) {
+				create(cartridge);
+			}
+			if (missing > 0) {
+				LOGGER.debug("No gears left to warm {0} more {1} applications", missing, cartridge.getName());
+			}
+		}
+	}
+
+	private void replenishQuietly() {
+		try {
+			replenish();
+		} catch (Exception e) {
+			LOGGER.debug("Could not replenish the warm applications: {0}", e.getMessage());
+		}
+	}
+
+	private void scheduleReplenish() {
+		if (stopped) {
+			return;
+		}
+		execute(new Runnable() {
+
+			public void run() {
+				replenishQuietly();
+			}
+		});
+	}
+
+	/**
+	 * Returns the gears that may be used for warm applications. Creations
+	 * that did not reach the broker yet are not consumed yet.
+	 */
+	private long getFreeGears() throws OpenShiftException {
+		IUserInfo userInfo = async.getService().getUserInfo(user);
+		long free = userInfo.getMaxGears() - userInfo.getConsumedGears() - reservedGears;
+		for (PendingCreation creation : pending) {
+			if (creation.getCreation() == null
+					|| creation.getCreation().getApplication() == null) {
+				free--;
+			}
+		}
+		return free;
+	}
+
+	private void create(final ICartridge cartridge) {
+		String name = namePrefix + Long.toString(System.currentTimeMillis(), Character.MAX_RADIX)
+				+ nameCounter.incrementAndGet();
+		List<IEmbeddableCartridge> embedded = embeddedCartridges.get(cartridge);
+		if (embedded == null) {
+			embedded = Collections.emptyList();
+		}
+		final PendingCreation pendingCreation = new PendingCreation(cartridge);
+		pending.add(pendingCreation);
+		pendingCreation.setCreation(pipeline.submit(user, name, cartridge, embedded, new ICreationListener() {
+
+			public void done(ApplicationCreation creation) {
+				created(pendingCreation, creation);
+			}
+		}));
+	}
+
+	private void created(PendingCreation pendingCreation, ApplicationCreation creation) {
+		pending.remove(pendingCreation);
+		final IApplication application = creation.getApplication();
+		if (creation.isSuccessful()
+				&& !stopped) {
+			created.incrementAndGet();
+			provisioningLatencies.record(creation.getDuration());
+			getWarm(pendingCreation.getCartridge()).add(new WarmApplication(application));
+			return;
+		}
+		if (!creation.isSuccessful()) {
+			failed.incrementAndGet();
+			LOGGER.debug("Could not warm application {0}: {1}", creation.getName(), creation.getError());
+		}
+		if (application != null) {
+			execute(new Runnable() {
+
+				public void run() {
+					destroyQuietly(application);
+				}
+			});
+		}
+	}
+
+	private void removeExpired() {
+		for (Queue<WarmApplication> applications : warm.values()) {
+			for (Iterator<WarmApplication> it = applications.iterator(); it.hasNext();) {
+				WarmApplication application = it.next();
+				if (application.isExpired(timeToLive)
+						&& applications.remove(application)) {
+					expire(application);
+				}
+			}
+		}
+	}
+
+	private void expire(final WarmApplication application) {
+		expired.incrementAndGet();
+		execute(new Runnable() {
+
+			public void run() {
+				destroyQuietly(application.getApplication());
+			}
+		});
+	}
+
+	/**
+	 * Runs the given task in the maintenance thread or in the calling thread
+	 * if the pool was stopped.
+	 */
+	private void execute(Runnable task) {
+		try {
+			maintenance.execute(task);
+		} catch (RejectedExecutionException e) {
+			task.run();
+		}
+	}
+
+	private void destroyQuietly(IApplication application) {
+		try {
+			application.destroy();
+		} catch (OpenShiftException e) {
+			LOGGER.debug("Could not destroy warm application {0}: {1}", application.getName(), e.getMessage());
+		}
+	}
+
+	private Queue<WarmApplication> getWarm(ICartridge cartridge) {
+		Queue<WarmApplication> applications = warm.get(cartridge);
+		if (applications == null) {
+			synchronized (warm) {
+				applications = warm.get(cartridge);
+				if (applications == null) {
+					applications = new ConcurrentLinkedQueue<WarmApplication>();
+					warm.put(cartridge, applications);
+				}
+			}
+		}
+		return applications;
+	}
+
+	/**
+	 * Returns the number of warm applications of the given cartridge that are
+	 * ready to be handed out.
+	 */
+	public int getWarmApplications(ICartridge cartridge) {
+		Queue<WarmApplication> applications = warm.get(cartridge);
+		if (applications == null) {
+			return 0;
+		}
+		return applications.size();
+	}
+
+	/**
+	 * Returns the number of applications of the given cartridge that are
+	 * being created.
+	 */
+	public int getPendingCreations(ICartridge cartridge) {
+		int count = 0;
+		for (PendingCreation creation : pending) {
+			if (cartridge.equals(creation.getCartridge())) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the number of requests that got a warm application.
+	 */
+	public long getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * Returns the number of requests that found no warm application.
+	 */
+	public long getMisses() {
+		return misses.get();
+	}
+
+	public long getCreated() {
+		return created.get();
+	}
+
+	public long getFailed() {
+		return failed.get();
+	}
+
+	public long getExpired() {
+		return expired.get();
+	}
+
+	/**
+	 * Returns the distribution of the times in milliseconds that it took to
+	 * create the latest warm applications and get them accessible.
+	 */
+	public DistributionSnapshot getProvisioningLatencies() {
+		return provisioningLatencies.snapshot();
+	}
+
+	/**
+	 * Stops replenishing. Applications that are being created are destroyed
+	 * once created. The warm applications are destroyed if requested.
+	 * 
+	 * @param destroyWarmApplications
+	 *            <code>true</code> to destroy the warm applications
+	 */
+	public void stop(boolean destroyWarmApplications) {
+		this.stopped = true;
+		if (destroyWarmApplications) {
+			for (Queue<WarmApplication> applications : warm.values()) {
+				WarmApplication application = null;
+				while ((application = applications.poll()) != null) {
+					final IApplication toDestroy = application.getApplication();
+					execute(new Runnable() {
+
+						public void run() {
+							destroyQuietly(toDestroy);
+						}
+					});
+				}
+			}
+		}
+		pipeline.shutdown();
+		maintenance.shutdown();
+	}
+
+	private static class WarmApplication {
+
+		private final IApplication application;
+		private final long readyTime = System.currentTimeMillis();
+
+		private WarmApplication(IApplication application) {
+			this.application = application;
+		}
+
+		public IApplication getApplication() {
+			return application;
+		}
+
+		public boolean isExpired(long timeToLive) {
+			return System.currentTimeMillis() - readyTime > timeToLive;
+		}
+	}
+
+	private static class PendingCreation {
+
+		private final ICartridge cartridge;
+		private volatile ApplicationCreation creation;
+
+		private PendingCreation(ICartridge cartridge) {
+			this.cartridge = cartridge;
+		}
+
+		public ICartridge getCartridge() {
+			return cartridge;
+		}
+
+		public ApplicationCreation getCreation() {
+			return creation;
+		}
+
+		public void setCreation(ApplicationCreation creation) {
+			this.creation = creation;
+		}
+	}
+}
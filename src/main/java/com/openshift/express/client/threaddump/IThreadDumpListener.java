@@ -0,0 +1,44 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.client.threaddump;
+
+import com.openshift.express.client.IJBossASApplication;
+import com.openshift.express.client.OpenShiftException;
+
+/**
+ * A listener that gets the thread dumps that a {@link ThreadDumpSampler}
+ * captures.
+ * 
+ * @author Daniel Brenner
+ */
+public interface IThreadDumpListener {
+
+	/**
+	 * Called with each thread dump that was captured.
+	 * 
+	 * @param application
+	 *            the application the dump was captured for
+	 * @param threadDump
+	 *            the thread dump
+	 */
+	public void threadDump(IJBossASApplication application, ThreadDump threadDump);
+
+	/**
+	 * Called if a thread dump could not be captured.
+	 * 
+	 * @param application
+	 *            the application the dump could not be captured for
+	 * @param e
+	 *            the error that occurred
+	 */
+	public void error(IJBossASApplication application, OpenShiftException e);
+
+}
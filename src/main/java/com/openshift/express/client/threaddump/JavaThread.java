@@ -0,0 +1,153 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.client.threaddump;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A thread as listed in a thread dump of a remote JVM.
+ * 
+ * @author Daniel Brenner
+ * 
+ * @see ThreadDump
+ */
+public class JavaThread {
+
+	public static final int PRIORITY_UNKNOWN = -1;
+
+	private final String name;
+	private final boolean daemon;
+	private final int priority;
+	private final String tid;
+	private final String nid;
+	private final String description;
+	private Thread.State state;
+	private final List<String> stackTrace = new ArrayList<String>();
+	private final List<String> lockedMonitors = new ArrayList<String>();
+	private String waitingOn;
+
+	public JavaThread(String name, boolean daemon, int priority, String tid, String nid, String description) {
+		this.name = name;
+		this.daemon = daemon;
+		this.priority = priority;
+		this.tid = tid;
+		this.nid = nid;
+		this.description = description;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public boolean isDaemon() {
+		return daemon;
+	}
+
+	/**
+	 * Returns the java priority of this thread or {@link #PRIORITY_UNKNOWN} if
+	 * the dump does not list it (ex. for vm internal threads).
+	 * 
+	 * @return the priority
+	 */
+	public int getPriority() {
+		return priority;
+	}
+
+	/**
+	 * Returns the address of the thread structure in the vm.
+	 * 
+	 * @return the thread id
+	 */
+	public String getTid() {
+		return tid;
+	}
+
+	/**
+	 * Returns the id of the native thread (in hex).
+	 * 
+	 * @return the native id
+	 */
+	public String getNid() {
+		return nid;
+	}
+
+	/**
+	 * Returns what the vm reports the thread is doing (ex. "waiting on
+	 * condition" or "runnable").
+	 * 
+	 * @return the description
+	 */
+	public String getDescription() {
+		return description;
+	}
+
+	/**
+	 * Returns the state of this thread. Returns <code>null</code> for vm
+	 * internal threads whose state is not listed.
+	 * 
+	 * @return the state
+	 */
+	public Thread.State getState() {
+		return state;
+	}
+
+	void setState(Thread.State state) {
+		this.state = state;
+	}
+
+	/**
+	 * Returns the frames of the stack of this thread, topmost frame first (ex.
+	 * "java.lang.Object.wait(Native Method)").
+	 * 
+	 * @return the stack frames
+	 */
+	public List<String> getStackTrace() {
+		return Collections.unmodifiableList(stackTrace);
+	}
+
+	void addStackFrame(String frame) {
+		stackTrace.add(frame);
+	}
+
+	/**
+	 * Returns the addresses of the monitors this thread holds.
+	 * 
+	 * @return the locked monitors
+	 */
+	public List<String> getLockedMonitors() {
+		return Collections.unmodifiableList(lockedMonitors);
+	}
+
+	void addLockedMonitor(String address) {
+		lockedMonitors.add(address);
+	}
+
+	/**
+	 * Returns the address of the monitor or lock this thread waits for.
+	 * Returns <code>null</code> if it's not waiting for any.
+	 * 
+	 * @return the address of the monitor waited for
+	 */
+	public String getWaitingOn() {
+		return waitingOn;
+	}
+
+	void setWaitingOn(String address) {
+		this.waitingOn = address;
+	}
+
+	public String toString() {
+		return "JavaThread [name=" + name + ", daemon=" + daemon + ", state=" + state + ", frames="
+				+ stackTrace.size() + "]";
+	}
+}
@@ -0,0 +1,117 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.client.threaddump;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A thread dump of a remote JVM.
+ * 
+ * @author Daniel Brenner
+ * 
+ * @see ThreadDumpParser
+ * @see com.openshift.express.client.IJBossASApplication#captureThreadDump(long)
+ */
+public class ThreadDump {
+
+	private final String timestamp;
+	private final String vmInfo;
+	private final List<JavaThread> threads = new ArrayList<JavaThread>();
+	private boolean complete;
+
+	public ThreadDump(String timestamp, String vmInfo) {
+		this.timestamp = timestamp;
+		this.vmInfo = vmInfo;
+	}
+
+	/**
+	 * Returns the time the vm printed this dump at, as printed by the vm.
+	 * Returns <code>null</code> if the vm did not print it.
+	 * 
+	 * @return the timestamp
+	 */
+	public String getTimestamp() {
+		return timestamp;
+	}
+
+	/**
+	 * Returns the name and version of the vm (ex.
+	 * "OpenJDK 64-Bit Server VM (20.0-b11 mixed mode)").
+	 * 
+	 * @return the vm info
+	 */
+	public String getVmInfo() {
+		return vmInfo;
+	}
+
+	public List<JavaThread> getThreads() {
+		return Collections.unmodifiableList(threads);
+	}
+
+	/**
+	 * Returns the threads that are in the given state.
+	 * 
+	 * @param state
+	 *            the state of the threads to return
+	 * @return the threads in the given state
+	 */
+	public List<JavaThread> getThreads(Thread.State state) {
+		List<JavaThread> threads = new ArrayList<JavaThread>();
+		for (JavaThread thread : this.threads) {
+			if (thread.getState() == state) {
+				threads.add(thread);
+			}
+		}
+		return threads;
+	}
+
+	/**
+	 * Returns the (first) thread with the given name. Returns
+	 * <code>null</code> if there's none.
+	 * 
+	 * @param name
+	 *            the name of the thread
+	 * @return the thread with the given name
+	 */
+	public JavaThread getThread(String name) {
+		for (JavaThread thread : threads) {
+			if (thread.getName().equals(name)) {
+				return thread;
+			}
+		}
+		return null;
+	}
+
+	void addThread(JavaThread thread) {
+		threads.add(thread);
+	}
+
+	/**
+	 * Returns <code>true</code> if the whole dump was read. Dumps that were
+	 * cut short (ex. by a timeout) are not complete.
+	 * 
+	 * @return true if the whole dump was read
+	 */
+	public boolean isComplete() {
+		return complete;
+	}
+
+	void setComplete() {
+		this.complete = true;
+	}
+
+	public String toString() {
+		return "ThreadDump [timestamp=" + timestamp + ", vmInfo=" + vmInfo + ", threads=" + threads.size()
+				+ ", complete=" + complete + "]";
+	}
+}
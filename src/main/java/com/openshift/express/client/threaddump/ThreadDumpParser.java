@@ -0,0 +1,199 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.client.threaddump;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.openshift.express.client.IBoundedOutputListener;
+
+/**
+ * Parses a thread dump of a HotSpot vm (as printed on SIGQUIT) while it is
+ * streamed in. Output that precedes the dump (ex. the former content of a
+ * log) is skipped, the parser is complete once the end of the dump was read.
+ * Only the line that is currently parsed is buffered, the dump is held as
+ * {@link ThreadDump}.
+ * 
+ * @author Daniel Brenner
+ */
+public class ThreadDumpParser implements IBoundedOutputListener {
+
+	private static final String DUMP_START = "Full thread dump ";
+	/** "JNI global references: n" up to java 8, "JNI global refs: n, weak refs: m" since */
+	private static final String DUMP_END = "JNI global ref";
+	private static final String THREAD_START = "\"";
+	private static final String STATE = "java.lang.Thread.State: ";
+	private static final String STACK_FRAME = "at ";
+	private static final String MONITOR = "- ";
+
+	private static final Pattern THREAD_REGEX = Pattern.compile("^\"(.*)\" (.*)$");
+	private static final Pattern PRIORITY_REGEX = Pattern.compile("(?:^| )prio=(\\d+)");
+	private static final Pattern TID_REGEX = Pattern.compile("(?:^| )tid=(\\S+)");
+	private static final Pattern NID_REGEX = Pattern.compile("(?:^| )nid=(\\S+) ?([^\\[]*)");
+	private static final Pattern DAEMON_REGEX = Pattern.compile("(?:^| )daemon ");
+	private static final Pattern MONITOR_REGEX =
+			Pattern.compile("^- (locked|waiting on|waiting to lock|parking to wait for) +<(\\S+)>");
+	private static final String LOCKED = "locked";
+
+	private final StringBuilder line = new StringBuilder();
+	private String previousLine;
+	private ThreadDump threadDump;
+	private JavaThread thread;
+	private volatile boolean complete;
+
+	public synchronized void stdout(CharSequence output) {
+		for (int i = 0; i < output.length() && !complete; i++) {
+			char character = output.charAt(i);
+			if (character == '\n') {
+				parse(getLine());
+				line.setLength(0);
+			} else {
+				line.append(character);
+			}
+		}
+	}
+
+	public void stderr(CharSequence output) {
+		// ignore
+	}
+
+	public boolean isComplete() {
+		return complete;
+	}
+
+	/**
+	 * Returns the dump that was parsed so far. Returns <code>null</code> if
+	 * no dump was found (yet).
+	 * 
+	 * @return the thread dump
+	 * 
+	 * @see ThreadDump#isComplete()
+	 */
+	public synchronized ThreadDump getThreadDump() {
+		return threadDump;
+	}
+
+	private String getLine() {
+		int length = line.length();
+		if (length > 0
+				&& line.charAt(length - 1) == '\r') {
+			length--;
+		}
+		return line.substring(0, length);
+	}
+
+	private void parse(String line) {
+		if (threadDump == null) {
+			parseDumpStart(line);
+			return;
+		}
+		String trimmed = line.trim();
+		if (trimmed.startsWith(DUMP_END)) {
+			threadDump.setComplete();
+			this.complete = true;
+		} else if (line.startsWith(THREAD_START)) {
+			this.thread = parseThread(line);
+			if (thread != null) {
+				threadDump.addThread(thread);
+			}
+		} else if (thread == null) {
+			return;
+		} else if (trimmed.startsWith(STACK_FRAME)) {
+			thread.addStackFrame(trimmed.substring(STACK_FRAME.length()));
+		} else if (trimmed.startsWith(MONITOR)) {
+			parseMonitor(trimmed, thread);
+		} else if (trimmed.startsWith(STATE)) {
+			thread.setState(parseState(trimmed.substring(STATE.length())));
+		}
+	}
+
+	private void parseDumpStart(String line) {
+		if (!line.startsWith(DUMP_START)) {
+			this.previousLine = line;
+			return;
+		}
+		String vmInfo = line.substring(DUMP_START.length());
+		if (vmInfo.endsWith(":")) {
+			vmInfo = vmInfo.substring(0, vmInfo.length() - 1);
+		}
+		String timestamp = null;
+		if (previousLine != null
+				&& previousLine.trim().length() > 0) {
+			timestamp = previousLine.trim();
+		}
+		this.threadDump = new ThreadDump(timestamp, vmInfo);
+		this.previousLine = null;
+	}
+
+	private JavaThread parseThread(String line) {
+		Matcher matcher = THREAD_REGEX.matcher(line);
+		if (!matcher.matches()) {
+			return null;
+		}
+		String name = matcher.group(1);
+		String attributes = matcher.group(2);
+		String nid = null;
+		String description = null;
+		Matcher nidMatcher = NID_REGEX.matcher(attributes);
+		if (nidMatcher.find()) {
+			nid = nidMatcher.group(1);
+			description = nidMatcher.group(2).trim();
+		}
+		return new JavaThread(name, isDaemon(attributes), getPriority(attributes),
+				find(TID_REGEX, attributes), nid, description);
+	}
+
+	private boolean isDaemon(String attributes) {
+		int tidIndex = attributes.indexOf("tid=");
+		String flags = tidIndex >= 0 ? attributes.substring(0, tidIndex) : attributes;
+		return DAEMON_REGEX.matcher(flags).find();
+	}
+
+	private int getPriority(String attributes) {
+		String priority = find(PRIORITY_REGEX, attributes);
+		if (priority == null) {
+			return JavaThread.PRIORITY_UNKNOWN;
+		}
+		return Integer.parseInt(priority);
+	}
+
+	private String find(Pattern pattern, String attributes) {
+		Matcher matcher = pattern.matcher(attributes);
+		if (!matcher.find()) {
+			return null;
+		}
+		return matcher.group(1);
+	}
+
+	private Thread.State parseState(String state) {
+		int end = state.indexOf(' ');
+		if (end >= 0) {
+			state = state.substring(0, end);
+		}
+		try {
+			return Thread.State.valueOf(state);
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	private void parseMonitor(String line, JavaThread thread) {
+		Matcher matcher = MONITOR_REGEX.matcher(line);
+		if (!matcher.find()) {
+			return;
+		}
+		if (LOCKED.equals(matcher.group(1))) {
+			thread.addLockedMonitor(matcher.group(2));
+		} else {
+			thread.setWaitingOn(matcher.group(2));
+		}
+	}
+}
@@ -0,0 +1,106 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.client.threaddump;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import com.openshift.express.client.IJBossASApplication;
+import com.openshift.express.client.OpenShiftException;
+import com.openshift.express.internal.client.logging.Logger;
+import com.openshift.express.internal.client.utils.DaemonThreadFactory;
+
+/**
+ * Periodically captures thread dumps of several JBoss AS applications. Each
+ * application is sampled at a fixed delay after its former sample completed,
+ * samples of a slow application thus never pile up. The number of
+ * applications that are sampled at the same time is bounded.
+ * 
+ * @author Daniel Brenner
+ * 
+ * @see IJBossASApplication#captureThreadDump(long)
+ */
+public class ThreadDumpSampler {
+
+	private static final Logger LOGGER = Logger.getLogger(ThreadDumpSampler.class);
+
+	private final ScheduledExecutorService executor;
+	private final List<ScheduledFuture<?>> samplings = new ArrayList<ScheduledFuture<?>>();
+
+	/**
+	 * Creates a sampler that captures at most the given number of thread
+	 * dumps at the same time.
+	 * 
+	 * @param maxConcurrency
+	 *            the max number of dumps that are captured at the same time
+	 */
+	public ThreadDumpSampler(int maxConcurrency) {
+		this.executor = Executors.newScheduledThreadPool(maxConcurrency, new DaemonThreadFactory("threaddump"));
+	}
+
+	/**
+	 * Starts sampling the given applications. The dumps are handed to the
+	 * given listener as soon as they are captured.
+	 * 
+	 * @param applications
+	 *            the applications to sample
+	 * @param delay
+	 *            the delay in milliseconds between the samples of an
+	 *            application
+	 * @param timeout
+	 *            the max time in milliseconds capturing a single dump may take
+	 * @param listener
+	 *            the listener that gets the dumps
+	 */
+	public synchronized void start(Collection<? extends IJBossASApplication> applications, long delay,
+			final long timeout, final IThreadDumpListener listener) {
+		for (final IJBossASApplication application : applications) {
+			samplings.add(executor.scheduleWithFixedDelay(new Runnable() {
+
+				public void run() {
+					// an exception that escapes would cancel all further samples
+					try {
+						sample(application, timeout, listener);
+					} catch (RuntimeException e) {
+						LOGGER.error("Could not sample thread dump of application " + application.getName(), e);
+					}
+				}
+			}, 0, delay, TimeUnit.MILLISECONDS));
+		}
+	}
+
+	private void sample(IJBossASApplication application, long timeout, IThreadDumpListener listener) {
+		ThreadDump threadDump = null;
+		try {
+			threadDump = application.captureThreadDump(timeout);
+		} catch (OpenShiftException e) {
+			listener.error(application, e);
+			return;
+		}
+		listener.threadDump(application, threadDump);
+	}
+
+	/**
+	 * Stops sampling. Dumps that are being captured are finished.
+	 */
+	public synchronized void stop() {
+		for (ScheduledFuture<?> sampling : samplings) {
+			sampling.cancel(false);
+		}
+		samplings.clear();
+		executor.shutdown();
+	}
+}
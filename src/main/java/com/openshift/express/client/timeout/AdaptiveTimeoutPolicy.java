@@ -0,0 +1,165 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.client.timeout;
+
+import java.util.Arrays;
+
+/**
+ * A policy whose read timeout follows the latencies of the latest requests:
+ * it is a multiple of the given percentile of the latencies in a rolling
+ * window, kept within a minimum and maximum. The initial read timeout is used
+ * until the window holds the minimum number of samples. Requests that time
+ * out count as taking the read timeout, so that the read timeout grows back
+ * if the broker slows down.
+ * 
+ * @author Daniel Brenner
+ */
+public class AdaptiveTimeoutPolicy implements ITimeoutPolicy {
+
+	public static final int DEFAULT_WINDOW_SIZE = 100;
+	public static final int DEFAULT_MIN_SAMPLES = 20;
+	public static final double DEFAULT_PERCENTILE = 99.0;
+	public static final double DEFAULT_MULTIPLIER = 3.0;
+
+	private final int connectTimeout;
+	private final int initialReadTimeout;
+	private final int minReadTimeout;
+	private final int maxReadTimeout;
+	private double percentile = DEFAULT_PERCENTILE;
+	private double multiplier = DEFAULT_MULTIPLIER;
+	private int minSamples = DEFAULT_MIN_SAMPLES;
+
+	private final long[] window;
+	private int samples;
+	private int next;
+	private volatile int readTimeout;
+
+	/**
+	 * Creates a policy with a window of {@link #DEFAULT_WINDOW_SIZE} samples.
+	 * 
+	 * @param connectTimeout
+	 *            the connect timeout in milliseconds
+	 * @param initialReadTimeout
+	 *            the read timeout until there are enough samples
+	 * @param minReadTimeout
+	 *            the lowest read timeout
+	 * @param maxReadTimeout
+	 *            the highest read timeout
+	 */
+	public AdaptiveTimeoutPolicy(int connectTimeout, int initialReadTimeout, int minReadTimeout,
+			int maxReadTimeout) {
+		this(connectTimeout, initialReadTimeout, minReadTimeout, maxReadTimeout, DEFAULT_WINDOW_SIZE);
+	}
+
+	public AdaptiveTimeoutPolicy(int connectTimeout, int initialReadTimeout, int minReadTimeout,
+			int maxReadTimeout, int windowSize) {
+		if (minReadTimeout > maxReadTimeout) {
+			throw new IllegalArgumentException("min read timeout must be <= max read timeout");
+		}
+		if (windowSize < 1) {
+			throw new IllegalArgumentException("window size must be >= 1");
+		}
+		this.connectTimeout = connectTimeout;
+		this.initialReadTimeout = initialReadTimeout;
+		this.minReadTimeout = minReadTimeout;
+		this.maxReadTimeout = maxReadTimeout;
+		this.window = new long[windowSize];
+		this.readTimeout = initialReadTimeout;
+	}
+
+	/**
+	 * Sets the percentile of the latencies that the read timeout is based on.
+	 * 
+	 * @param percentile
+	 *            the percentile in the range 0..100
+	 * @return this policy
+	 */
+	public synchronized AdaptiveTimeoutPolicy setPercentile(double percentile) {
+		if (percentile < 0 || percentile > 100) {
+			throw new IllegalArgumentException("percentile must be within 0..100");
+		}
+		this.percentile = percentile;
+		return this;
+	}
+
+	/**
+	 * Sets the factor that the latency at the percentile is multiplied by.
+	 * 
+	 * @param multiplier
+	 *            the factor, at least 1
+	 * @return this policy
+	 */
+	public synchronized AdaptiveTimeoutPolicy setMultiplier(double multiplier) {
+		if (multiplier < 1) {
+			throw new IllegalArgumentException("multiplier must be >= 1");
+		}
+		this.multiplier = multiplier;
+		return this;
+	}
+
+	/**
+	 * Sets the number of samples that are needed before the read timeout
+	 * adapts.
+	 * 
+	 * @param minSamples
+	 *            the number of samples, at most the size of the window
+	 * @return this policy
+	 */
+	public synchronized AdaptiveTimeoutPolicy setMinSamples(int minSamples) {
+		this.minSamples = Math.max(1, Math.min(minSamples, window.length));
+		return this;
+	}
+
+	public int getConnectTimeout() {
+		return connectTimeout;
+	}
+
+	public int getReadTimeout() {
+		return readTimeout;
+	}
+
+	public synchronized void recordTimeout() {
+		record(readTimeout);
+	}
+
+	public synchronized void record(long latency) {
+		window[next] = latency;
+		this.next = (next + 1) % window.length;
+		if (samples < window.length) {
+			samples++;
+		}
+		if (samples >= minSamples) {
+			this.readTimeout = computeReadTimeout();
+		}
+	}
+
+	private int computeReadTimeout() {
+		long[] sorted = Arrays.copyOf(window, samples);
+		Arrays.sort(sorted);
+		int index = Math.max(0, (int) Math.ceil(percentile / 100.0 * samples) - 1);
+		double timeout = sorted[index] * multiplier;
+		return (int) Math.max(minReadTimeout, Math.min(maxReadTimeout, timeout));
+	}
+
+	/**
+	 * Forgets all latencies and goes back to the initial read timeout.
+	 */
+	public synchronized void reset() {
+		this.samples = 0;
+		this.next = 0;
+		this.readTimeout = initialReadTimeout;
+	}
+
+	public String toString() {
+		return "AdaptiveTimeoutPolicy [connect=" + connectTimeout + ", read=" + readTimeout
+				+ ", min=" + minReadTimeout + ", max=" + maxReadTimeout + "]";
+	}
+}
@@ -0,0 +1,55 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.client.timeout;
+
+/**
+ * A policy with fixed timeouts.
+ * 
+ * @author Daniel Brenner
+ */
+public class FixedTimeoutPolicy implements ITimeoutPolicy {
+
+	private final int connectTimeout;
+	private final int readTimeout;
+
+	/**
+	 * Creates a policy with the given timeouts.
+	 * 
+	 * @param connectTimeout
+	 *            the connect timeout in milliseconds
+	 * @param readTimeout
+	 *            the read timeout in milliseconds
+	 */
+	public FixedTimeoutPolicy(int connectTimeout, int readTimeout) {
+		this.connectTimeout = connectTimeout;
+		this.readTimeout = readTimeout;
+	}
+
+	public int getConnectTimeout() {
+		return connectTimeout;
+	}
+
+	public int getReadTimeout() {
+		return readTimeout;
+	}
+
+	public void record(long latency) {
+		// fixed timeouts do not adapt
+	}
+
+	public void recordTimeout() {
+		// fixed timeouts do not adapt
+	}
+
+	public String toString() {
+		return "FixedTimeoutPolicy [connect=" + connectTimeout + ", read=" + readTimeout + "]";
+	}
+}
@@ -0,0 +1,55 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.client.timeout;
+
+/**
+ * The timeouts of the requests of a broker operation. Policies are told the
+ * latencies of the successful requests and the requests that timed out and
+ * may adapt their timeouts to them.
+ * <p>
+ * Policies are shared by all threads that send requests and have to be thread
+ * safe.
+ * 
+ * @author Daniel Brenner
+ * 
+ * @see TimeoutPolicies
+ */
+public interface ITimeoutPolicy {
+
+	/**
+	 * Returns the time to wait for a connection to the broker.
+	 * 
+	 * @return the connect timeout in milliseconds
+	 */
+	public int getConnectTimeout();
+
+	/**
+	 * Returns the time to wait for the response of the broker.
+	 * 
+	 * @return the read timeout in milliseconds
+	 */
+	public int getReadTimeout();
+
+	/**
+	 * Records the latency of a request that succeeded.
+	 * 
+	 * @param latency
+	 *            the latency of the request in milliseconds
+	 */
+	public void record(long latency);
+
+	/**
+	 * Records a request that timed out. Its latency is unknown, it took at
+	 * least the timeout.
+	 */
+	public void recordTimeout();
+
+}
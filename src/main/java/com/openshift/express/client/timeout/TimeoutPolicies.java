@@ -0,0 +1,96 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.client.timeout;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The timeout policies of the broker operations of a service. Operations are
+ * named like the operations in the metrics, ex. <code>cartridge:status</code>
+ * or <code>userinfo</code>. A policy may be set for an operation or for a
+ * whole resource (<code>cartridge</code>), the policy of the operation wins.
+ * Operations without policy use the default policy. If there's no default
+ * policy the system properties of the http client apply.
+ * 
+ * @author Daniel Brenner
+ * 
+ * @see com.openshift.express.client.metrics.BrokerRequestMetrics#getOperation()
+ */
+public class TimeoutPolicies {
+
+	private static final char OPERATION_DELIMITER = ':';
+
+	private final Map<String, ITimeoutPolicy> policies = new ConcurrentHashMap<String, ITimeoutPolicy>();
+	private volatile ITimeoutPolicy defaultPolicy;
+
+	/**
+	 * Sets the policy of the given operation or resource.
+	 * 
+	 * @param operation
+	 *            the operation or resource
+	 * @param policy
+	 *            the policy, <code>null</code> to remove it
+	 */
+	public void setPolicy(String operation, ITimeoutPolicy policy) {
+		if (policy == null) {
+			policies.remove(operation);
+		} else {
+			policies.put(operation, policy);
+		}
+	}
+
+	/**
+	 * Sets the policy of the operations that have no policy of their own.
+	 * 
+	 * @param policy
+	 *            the policy, <code>null</code> to use the system properties
+	 */
+	public void setDefaultPolicy(ITimeoutPolicy policy) {
+		this.defaultPolicy = policy;
+	}
+
+	public ITimeoutPolicy getDefaultPolicy() {
+		return defaultPolicy;
+	}
+
+	/**
+	 * Returns the policy that applies to the given operation.
+	 * 
+	 * @param operation
+	 *            the operation
+	 * @return the policy or <code>null</code> if none applies
+	 */
+	public ITimeoutPolicy getPolicy(String operation) {
+		if (operation == null) {
+			return defaultPolicy;
+		}
+		ITimeoutPolicy policy = policies.get(operation);
+		if (policy != null) {
+			return policy;
+		}
+		int index = operation.indexOf(OPERATION_DELIMITER);
+		if (index > 0) {
+			policy = policies.get(operation.substring(0, index));
+			if (policy != null) {
+				return policy;
+			}
+		}
+		return defaultPolicy;
+	}
+
+	/**
+	 * Removes all policies but the default policy.
+	 */
+	public void clear() {
+		policies.clear();
+	}
+}
@@ -0,0 +1,69 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.client.tracing;
+
+/**
+ * Is notified of the lifecycle of each broker request that an
+ * OpenShiftService sends. All notifications carry the id of the request,
+ * which is also sent to the broker in the {@link #HEADER_REQUEST_ID} header,
+ * and a timestamp from {@link System#nanoTime()}.
+ * <p>
+ * Listeners are called synchronously by the thread that sends the request.
+ * They need to be thread safe and should return quickly. Exceptions thrown by
+ * listeners are ignored.
+ * 
+ * @author Daniel Brenner
+ * 
+ * @see com.openshift.express.client.OpenShiftService#addRequestListener(IRequestListener)
+ */
+public interface IRequestListener {
+
+	public static final String HEADER_REQUEST_ID = "X-Request-Id";
+
+	/**
+	 * A request is about to be sent.
+	 * 
+	 * @param requestId
+	 *            the id of the request
+	 * @param operation
+	 *            the broker operation, ex. <code>cartridge:start</code>
+	 * @param url
+	 *            the url the request is sent to
+	 * @param nanoTime
+	 *            the time the request started at
+	 */
+	public void started(String requestId, String operation, String url, long nanoTime);
+
+	/**
+	 * A request reached the given stage.
+	 * 
+	 * @param requestId
+	 *            the id of the request
+	 * @param stage
+	 *            the stage that was reached
+	 * @param nanoTime
+	 *            the time the stage was reached at
+	 */
+	public void stageReached(String requestId, RequestStage stage, long nanoTime);
+
+	/**
+	 * A request completed, successfully or not.
+	 * 
+	 * @param requestId
+	 *            the id of the request
+	 * @param error
+	 *            the error the request failed with or <code>null</code>
+	 * @param nanoTime
+	 *            the time the request completed at
+	 */
+	public void completed(String requestId, Throwable error, long nanoTime);
+
+}
@@ -0,0 +1,39 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.client.tracing;
+
+/**
+ * The stages that a broker request passes, in the order they are reached.
+ * Stages that a request does not get to (because it failed or because the
+ * http client does not report them) are skipped.
+ * 
+ * @author Daniel Brenner
+ * 
+ * @see IRequestListener
+ */
+public enum RequestStage {
+
+	/** the form encoded request envelope was built */
+	ENVELOPE_BUILT,
+	/** the connection to the broker was opened (incl. the ssl handshake) */
+	CONNECTION_ACQUIRED,
+	/** the request was written to the connection */
+	REQUEST_WRITTEN,
+	/** the response headers arrived */
+	FIRST_BYTE,
+	/** the response body was read */
+	BODY_READ,
+	/** the json response was sanitized */
+	SANITIZED,
+	/** the json response was unmarshalled to client objects */
+	UNMARSHALLED
+
+}
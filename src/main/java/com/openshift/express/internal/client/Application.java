@@ -10,6 +10,7 @@
  ******************************************************************************/
 package com.openshift.express.internal.client;
 
+import java.io.File;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Date;
@@ -17,13 +18,18 @@ import java.util.HashMap;
 import java.util.List;
 
 import com.openshift.express.client.ApplicationLogReader;
+import com.openshift.express.client.CommandOutputCollector;
+import com.openshift.express.client.CommandResult;
 import com.openshift.express.client.IApplication;
 import com.openshift.express.client.ICartridge;
+import com.openshift.express.client.ICommandOutputListener;
 import com.openshift.express.client.IDomain;
 import com.openshift.express.client.IEmbeddableCartridge;
 import com.openshift.express.client.IOpenShiftService;
 import com.openshift.express.client.IUser;
 import com.openshift.express.client.OpenShiftException;
+import com.openshift.express.client.TransferResult;
+import com.openshift.express.internal.client.logging.Logger;
 import com.openshift.express.internal.client.utils.Assert;
 
 /**
@@ -31,6 +37,8 @@ import com.openshift.express.internal.client.utils.Assert;
  */
 public class Application extends UserInfoAware implements IApplication {
 
+	private static final Logger LOGGER = Logger.getLogger(Application.class);
+
 	private static final String GIT_URI_PATTERN = "ssh://{0}@{1}-{2}.{3}/~/git/{1}.git/";
 	private static final String APPLICATION_URL_PATTERN = "https://{0}-{1}.{2}/";
 	private static final String DEFAULT_LOGREADER = "defaultLogReader";
@@ -222,10 +230,26 @@ public class Application extends UserInfoAware implements IApplication {
 		String url = getHealthCheckUrl();
 		String response = getHealthCheckResponse();
 		boolean success = service.waitForApplication(url, timeout, response);
-		System.out.println("!!!!!!!!!!!!!!!! waitForAccessible " + success + " " + url + " " + response);
+		LOGGER.debug("Application at {0} accessible: {1}, expected response {2}", url, success, response);
 		return success;
 	}
 
+	public CommandResult executeCommand(String command, long timeout, ICommandOutputListener listener)
+			throws OpenShiftException {
+		return service.executeCommand(this, command, timeout, listener);
+	}
+
+	public CommandResult executeCommand(String command, long timeout) throws OpenShiftException {
+		CommandOutputCollector collector = new CommandOutputCollector();
+		CommandResult result = executeCommand(command, timeout, collector);
+		return new CommandResult(result.getCommand(), result.getExitStatus(), result.isTimedOut(),
+				result.getDuration(), collector.getStdout(), collector.getStderr());
+	}
+
+	public TransferResult downloadFiles(String remotePath, File localDirectory) throws OpenShiftException {
+		return service.downloadFiles(this, remotePath, localDirectory);
+	}
+
 	public IUser getUser() {
 		return getInternalUser();
 	}
@@ -15,6 +15,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import com.openshift.express.client.IApplication;
 import com.openshift.express.client.ICartridge;
@@ -29,6 +30,7 @@ import com.openshift.express.client.OpenShiftException;
 import com.openshift.express.client.OpenShiftService;
 import com.openshift.express.client.configuration.IOpenShiftConfiguration;
 import com.openshift.express.client.configuration.OpenShiftConfiguration;
+import com.openshift.express.internal.client.request.EncodedCredentials;
 
 /**
  * @author André Dietisheim
@@ -44,9 +46,14 @@ public class InternalUser implements IUser {
 	private UserInfo userInfo;
 	private List<ICartridge> cartridges;
 	private List<IEmbeddableCartridge> embeddableCartridges;
-	private List<IApplication> applications = new ArrayList<IApplication>();
+	private List<IApplication> applications = new CopyOnWriteArrayList<IApplication>();
+	private long userInfoGeneration;
+	private long cartridgesGeneration;
+	private long embeddableCartridgesGeneration;
 
 	private IOpenShiftService service;
+	private final UserCaches caches;
+	private EncodedCredentials encodedCredentials;
 
 	public InternalUser(String password, String id) throws OpenShiftException, IOException {
 		this(new OpenShiftConfiguration(), password, id);
@@ -85,6 +92,8 @@ public class InternalUser implements IUser {
 		this.authIV = authIV;
 		this.sshKey = sshKey;
 		this.service = service;
+		this.caches = UserCaches.get(service);
+		this.userInfoGeneration = caches.getGeneration();
 	}
 
 	public boolean isValid() throws OpenShiftException {
@@ -95,13 +104,13 @@ public class InternalUser implements IUser {
 		}
 	}
 
-	public IDomain createDomain(String name, ISSHPublicKey key) throws OpenShiftException {
+	public synchronized IDomain createDomain(String name, ISSHPublicKey key) throws OpenShiftException {
 		setSshKey(key);
 		this.domain = getService().createDomain(name, key, this);
 		return domain;
 	}
 
-    protected void destroyDomain() throws OpenShiftException {
+    protected synchronized void destroyDomain() throws OpenShiftException {
         if (getApplications().size() > 0) {
             throw new OpenShiftException(
                     "There are still applications, you can only delete the domain only if you delete all apps first!");
@@ -112,7 +121,8 @@ public class InternalUser implements IUser {
         this.domain = null;
     }
 	
-	public IDomain getDomain() throws OpenShiftException {
+	public synchronized IDomain getDomain() throws OpenShiftException {
+		discardIfFlushed();
 		if (domain == null
 				&& getUserInfo().hasDomain()) {
 			try {
@@ -137,11 +147,12 @@ public class InternalUser implements IUser {
 		}
 	}
 	
-	private void setSshKey(ISSHPublicKey key) {
+	private synchronized void setSshKey(ISSHPublicKey key) {
 		this.sshKey = key;
 	}
 
-	public ISSHPublicKey getSshKey() throws OpenShiftException {
+	public synchronized ISSHPublicKey getSshKey() throws OpenShiftException {
+		discardIfFlushed();
 		if (sshKey == null) {
 			this.sshKey = getUserInfo().getSshPublicKey();
 		}
@@ -164,20 +175,84 @@ public class InternalUser implements IUser {
 		return authIV;
 	}
 
+	/**
+	 * Replaces the password of this user. The encoded credentials are
+	 * cleared and get encoded again for the next request.
+	 */
+	public synchronized void setPassword(String password) {
+		this.password = password;
+		clearEncodedCredentials();
+	}
+
+	/**
+	 * Replaces the auth key and iv of this user. The encoded credentials
+	 * are cleared and get encoded again for the next request.
+	 */
+	public synchronized void setAuthKey(String authKey, String authIV) {
+		this.authKey = authKey;
+		this.authIV = authIV;
+		clearEncodedCredentials();
+	}
+
+	/**
+	 * Returns the credentials and rhlogin of this user, encoded for the
+	 * requests to the broker. They're encoded once and kept until the
+	 * credentials change or the user logs out.
+	 * 
+	 * @throws OpenShiftException
+	 *             if this user has neither a password nor an auth key and iv
+	 */
+	public synchronized EncodedCredentials getEncodedCredentials() throws OpenShiftException {
+		if (encodedCredentials == null) {
+			this.encodedCredentials = EncodedCredentials.create(rhlogin, password, authKey, authIV);
+		}
+		return encodedCredentials;
+	}
+
+	/**
+	 * Forgets the credentials of this user and overwrites their encoded
+	 * form. Requests that are sent for this user afterwards fail.
+	 */
+	public synchronized void logout() {
+		this.password = null;
+		this.authKey = null;
+		this.authIV = null;
+		clearEncodedCredentials();
+	}
+
+	private void clearEncodedCredentials() {
+		if (encodedCredentials != null) {
+			encodedCredentials.clear();
+			this.encodedCredentials = null;
+		}
+	}
+
 	public String getUUID() throws OpenShiftException {
 		return getUserInfo().getUuid();
 	}
 
-	public List<ICartridge> getCartridges() throws OpenShiftException {
-		if (cartridges == null) {
+	public synchronized List<ICartridge> getCartridges() throws OpenShiftException {
+		UserCaches caches = getCaches();
+		if (cartridges == null
+				|| cartridgesGeneration != caches.getGeneration()) {
+			caches.getCartridgeStatistics().miss();
+			this.cartridgesGeneration = caches.getGeneration();
 			this.cartridges = service.getCartridges(this);
+		} else {
+			caches.getCartridgeStatistics().hit();
 		}
 		return Collections.unmodifiableList(cartridges);
 	}
 
-	public List<IEmbeddableCartridge> getEmbeddableCartridges() throws OpenShiftException {
-		if (embeddableCartridges == null) {
+	public synchronized List<IEmbeddableCartridge> getEmbeddableCartridges() throws OpenShiftException {
+		UserCaches caches = getCaches();
+		if (embeddableCartridges == null
+				|| embeddableCartridgesGeneration != caches.getGeneration()) {
+			caches.getCartridgeStatistics().miss();
+			this.embeddableCartridgesGeneration = caches.getGeneration();
 			this.embeddableCartridges = service.getEmbeddableCartridges(this);
+		} else {
+			caches.getCartridgeStatistics().hit();
 		}
 		return embeddableCartridges;
 	}
@@ -199,7 +274,7 @@ public class InternalUser implements IUser {
 		return application;
 	}
 
-	public List<IApplication> getApplications() throws OpenShiftException {
+	public synchronized List<IApplication> getApplications() throws OpenShiftException {
 		if (getUserInfo().getApplicationInfos().size() > applications.size()) {
 			update(getUserInfo().getApplicationInfos());
 		}
@@ -248,28 +323,58 @@ public class InternalUser implements IUser {
 		remove(application);
 	}
 	
-	protected void remove(IApplication application) {
+	protected synchronized void remove(IApplication application) {
 		applications.remove(application);
-		this.userInfo.removeApplicationInfo(application.getName());
+		if (userInfo != null) {
+			userInfo.removeApplicationInfo(application.getName());
+		}
 	}
 
-	public void setSshPublicKey(ISSHPublicKey key) {
+	public synchronized void setSshPublicKey(ISSHPublicKey key) {
 		this.sshKey = key;
 	}
 
-	protected UserInfo refreshUserInfo() throws OpenShiftException {
+	protected synchronized UserInfo refreshUserInfo() throws OpenShiftException {
 		this.userInfo = null;
 		return getUserInfo();
 	}
 	
-	protected UserInfo getUserInfo() throws OpenShiftException {
+	protected synchronized UserInfo getUserInfo() throws OpenShiftException {
+		discardIfFlushed();
+		UserCaches caches = getCaches();
 		if (userInfo == null) {
+			caches.getUserInfoStatistics().miss();
 			this.userInfo = service.getUserInfo(this);
+		} else {
+			caches.getUserInfoStatistics().hit();
 		}
 		return userInfo;
 	}
 
-	public void refresh() throws OpenShiftException {
+	/**
+	 * Discards the user info and the domain, key and applications that were
+	 * derived from it if the caches were flushed since they were loaded.
+	 */
+	private void discardIfFlushed() {
+		long generation = getCaches().getGeneration();
+		if (userInfoGeneration != generation) {
+			this.userInfoGeneration = generation;
+			this.userInfo = null;
+			this.domain = null;
+			this.sshKey = null;
+			applications.clear();
+		}
+	}
+
+	/**
+	 * Returns the caches that this user shares with the other users of its
+	 * service.
+	 */
+	private UserCaches getCaches() {
+		return caches;
+	}
+
+	public synchronized void refresh() throws OpenShiftException {
 		this.domain = null;
 		this.sshKey = null;
 		this.userInfo = null;
@@ -10,10 +10,13 @@
  ******************************************************************************/
 package com.openshift.express.internal.client;
 
+import com.openshift.express.client.CommandResult;
 import com.openshift.express.client.ICartridge;
 import com.openshift.express.client.IJBossASApplication;
 import com.openshift.express.client.IOpenShiftService;
 import com.openshift.express.client.OpenShiftException;
+import com.openshift.express.client.threaddump.ThreadDump;
+import com.openshift.express.client.threaddump.ThreadDumpParser;
 
 /**
  * @author William DeCoste
@@ -21,6 +24,8 @@ import com.openshift.express.client.OpenShiftException;
  */
 public class JBossASApplication extends Application implements IJBossASApplication {
 
+	private static final String THREAD_DUMP_LOG_SUFFIX = ".log";
+
 	public JBossASApplication(String name, String uuid, String creationLog, String healthCheckPath, ICartridge cartridge,
 			InternalUser user,
 			IOpenShiftService service) {
@@ -35,7 +40,41 @@ public class JBossASApplication extends Application implements IJBossASApplicati
 	public String threadDump() throws OpenShiftException {
 		service.threadDumpApplication(name, cartridge, getInternalUser());
 		
-		return getName() + ".log";
+		return getThreadDumpLogFile();
+	}
+
+	public ThreadDump captureThreadDump(long timeout) throws OpenShiftException {
+		long start = System.currentTimeMillis();
+		String logPath = getName() + getCartridge().getLogLocation() + getThreadDumpLogFile();
+		long logSize = getFileSize(logPath, timeout);
+		threadDump();
+		long remaining = timeout - (System.currentTimeMillis() - start);
+		if (remaining <= 0) {
+			throw new OpenShiftException("Timed out capturing the thread dump of application {0}", getName());
+		}
+		ThreadDumpParser parser = new ThreadDumpParser();
+		// follow the log from where it ended before the dump was triggered
+		executeCommand("tail -c +" + (logSize + 1) + " -F " + logPath, remaining, parser);
+		ThreadDump threadDump = parser.getThreadDump();
+		if (threadDump == null) {
+			throw new OpenShiftException("Could not find the thread dump of application {0} in {1}",
+					getName(), logPath);
+		}
+		return threadDump;
+	}
+
+	private long getFileSize(String path, long timeout) throws OpenShiftException {
+		CommandResult result = executeCommand("stat -c %s " + path + " 2>/dev/null || echo 0", timeout);
+		try {
+			return Long.parseLong(result.getStdout().trim());
+		} catch (NumberFormatException e) {
+			throw new OpenShiftException(e, "Could not get the size of {0} on application {1}: {2}",
+					path, getName(), result.getStdout());
+		}
+	}
+
+	private String getThreadDumpLogFile() {
+		return getName() + THREAD_DUMP_LOG_SUFFIX;
 	}
 
 }
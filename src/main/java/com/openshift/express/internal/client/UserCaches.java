@@ -0,0 +1,74 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.openshift.express.client.IOpenShiftService;
+import com.openshift.express.client.metrics.CacheStatistics;
+
+/**
+ * The state that the users of a service share for the user info and
+ * cartridges that each of them caches. Users remember the generation they
+ * loaded their cached values in and discard them once the caches were
+ * flushed.
+ * 
+ * @author Daniel Brenner
+ */
+public class UserCaches {
+
+	private static final Map<IOpenShiftService, UserCaches> CACHES_BY_SERVICE =
+			new WeakHashMap<IOpenShiftService, UserCaches>();
+
+	private final AtomicLong generation = new AtomicLong();
+	private final CacheStatistics userInfo = new CacheStatistics();
+	private final CacheStatistics cartridges = new CacheStatistics();
+
+	/**
+	 * Returns the caches that the users of the given service share. They're
+	 * discarded along with the service.
+	 * 
+	 * @param service
+	 *            the service to get the caches for
+	 * @return the caches of the given service
+	 */
+	public static UserCaches get(IOpenShiftService service) {
+		synchronized (CACHES_BY_SERVICE) {
+			UserCaches caches = CACHES_BY_SERVICE.get(service);
+			if (caches == null) {
+				caches = new UserCaches();
+				CACHES_BY_SERVICE.put(service, caches);
+			}
+			return caches;
+		}
+	}
+
+	public long getGeneration() {
+		return generation.get();
+	}
+
+	/**
+	 * Invalidates all values that the users cached so far.
+	 */
+	public void flush() {
+		generation.incrementAndGet();
+	}
+
+	public CacheStatistics getUserInfoStatistics() {
+		return userInfo;
+	}
+
+	public CacheStatistics getCartridgeStatistics() {
+		return cartridges;
+	}
+}
@@ -13,13 +13,14 @@ package com.openshift.express.internal.client;
 import java.util.Iterator;
 import java.util.List;
 
+import com.openshift.express.client.IUserInfo;
 import com.openshift.express.client.OpenShiftUnknonwSSHKeyTypeException;
 import com.openshift.express.client.SSHPublicKey;
 
 /**
  * @author André Dietisheim
  */
-public class UserInfo {
+public class UserInfo implements IUserInfo {
 
 	private String rhLogin;
 	private String uuid;
@@ -0,0 +1,33 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.httpclient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * The body of a http request that writes itself to the connection.
+ * 
+ * @author Daniel Brenner
+ */
+public interface IRequestBody {
+
+	/**
+	 * Writes this body to the given stream.
+	 * 
+	 * @param out
+	 *            the stream to write to
+	 * @return the number of bytes written
+	 * @throws IOException
+	 */
+	public long writeTo(OutputStream out) throws IOException;
+
+}
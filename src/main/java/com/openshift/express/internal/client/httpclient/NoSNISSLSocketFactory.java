@@ -0,0 +1,129 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.httpclient;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.Collections;
+import java.util.List;
+
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+
+/**
+ * Creates TLS sockets that do not send the server name indication (SNI). Turns
+ * SNI off for the connections of a single client instead of the whole JVM
+ * (<code>jsse.enableSNIExtension</code>).
+ * <p>
+ * HttpsURLConnection hands the host to the TLS sockets that it gets
+ * unconnected from {@link #createSocket()} once they're connected, which turns
+ * SNI on again. This factory therefore returns plain sockets there, the
+ * connection then layers TLS over them with
+ * {@link #createSocket(Socket, String, int, boolean)} and does not touch the
+ * host any more.
+ * <p>
+ * The server names of a socket can only be removed on Java 8 and later. Java 7
+ * does not send SNI for IP addresses, TLS is therefore layered with the
+ * address of the peer instead of its host name there. The host name is still
+ * verified by the connection.
+ * 
+ * @author Daniel Brenner
+ */
+public class NoSNISSLSocketFactory extends SSLSocketFactory {
+
+	private static final Method SET_SERVER_NAMES = getSetServerNames();
+
+	private final SSLSocketFactory delegate;
+
+	public NoSNISSLSocketFactory(SSLSocketFactory delegate) {
+		this.delegate = delegate;
+	}
+
+	/**
+	 * Returns <code>SSLParameters#setServerNames(List)</code> or
+	 * <code>null</code> if the runtime is older than Java 8.
+	 */
+	private static Method getSetServerNames() {
+		try {
+			Class.forName("javax.net.ssl.SNIServerName");
+			return SSLParameters.class.getMethod("setServerNames", List.class);
+		} catch (ClassNotFoundException e) {
+			// older than Java 8
+		} catch (NoSuchMethodException e) {
+			// older than Java 8
+		}
+		return null;
+	}
+
+	public String[] getDefaultCipherSuites() {
+		return delegate.getDefaultCipherSuites();
+	}
+
+	public String[] getSupportedCipherSuites() {
+		return delegate.getSupportedCipherSuites();
+	}
+
+	/**
+	 * Returns an unconnected plain socket so that HttpsURLConnection layers
+	 * TLS over it with {@link #createSocket(Socket, String, int, boolean)}.
+	 */
+	public Socket createSocket() throws IOException {
+		return new Socket();
+	}
+
+	public Socket createSocket(Socket socket, String host, int port, boolean autoClose) throws IOException {
+		if (SET_SERVER_NAMES == null
+				&& socket.getInetAddress() != null) {
+			// older runtimes do not send SNI for ip addresses
+			host = socket.getInetAddress().getHostAddress();
+		}
+		return disableSNI(delegate.createSocket(socket, host, port, autoClose));
+	}
+
+	public Socket createSocket(String host, int port) throws IOException {
+		return disableSNI(delegate.createSocket(host, port));
+	}
+
+	public Socket createSocket(String host, int port, InetAddress localHost, int localPort) throws IOException {
+		return disableSNI(delegate.createSocket(host, port, localHost, localPort));
+	}
+
+	public Socket createSocket(InetAddress host, int port) throws IOException {
+		return disableSNI(delegate.createSocket(host, port));
+	}
+
+	public Socket createSocket(InetAddress address, int port, InetAddress localAddress, int localPort)
+			throws IOException {
+		return disableSNI(delegate.createSocket(address, port, localAddress, localPort));
+	}
+
+	private Socket disableSNI(Socket socket) throws IOException {
+		if (SET_SERVER_NAMES == null
+				|| !(socket instanceof SSLSocket)) {
+			return socket;
+		}
+		SSLSocket sslSocket = (SSLSocket) socket;
+		SSLParameters parameters = sslSocket.getSSLParameters();
+		try {
+			SET_SERVER_NAMES.invoke(parameters, Collections.emptyList());
+		} catch (IllegalAccessException e) {
+			throw new IOException("Could not disable SNI: " + e.getMessage());
+		} catch (InvocationTargetException e) {
+			throw new IOException("Could not disable SNI: " + e.getCause().getMessage());
+		}
+		sslSocket.setSSLParameters(parameters);
+		return socket;
+	}
+}
@@ -0,0 +1,170 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.httpclient;
+
+import java.util.Collections;
+import java.util.List;
+
+import com.openshift.express.client.metrics.BrokerRequestMetrics;
+import com.openshift.express.client.tracing.IRequestListener;
+import com.openshift.express.client.tracing.RequestStage;
+
+/**
+ * Follows a broker request through its stages: notifies the request
+ * listeners of each stage and takes the time of the phases that are reported
+ * to the metrics. The connect phase starts when the connection is being
+ * opened, each other phase lasts from the end of the former one to the stage
+ * that ends it. Phases that are not reached last 0 and add to the next phase
+ * that is.
+ * <p>
+ * A timer is used by the thread that sends a request, it is not thread safe.
+ * 
+ * @author Daniel Brenner
+ * 
+ * @see BrokerRequestMetrics
+ * @see IRequestListener
+ */
+public class RequestTimer {
+
+	private final String requestId;
+	private final String operation;
+	private final List<IRequestListener> listeners;
+	private final long start;
+	private long lastMark;
+	private long connect;
+	private long timeToFirstByte;
+	private long download;
+	private long parse;
+	private long requestBytes;
+	private long responseBytes;
+	private boolean downloaded;
+
+	public RequestTimer() {
+		this(null, null, null, Collections.<IRequestListener> emptyList());
+	}
+
+	/**
+	 * Creates a timer for a request and notifies the given listeners that the
+	 * request started.
+	 * 
+	 * @param requestId
+	 *            the id of the request
+	 * @param operation
+	 *            the broker operation
+	 * @param url
+	 *            the url the request is sent to
+	 * @param listeners
+	 *            the listeners to notify
+	 */
+	public RequestTimer(String requestId, String operation, String url, List<IRequestListener> listeners) {
+		this.requestId = requestId;
+		this.operation = operation;
+		this.listeners = listeners;
+		this.start = System.nanoTime();
+		this.lastMark = start;
+		for (IRequestListener listener : listeners) {
+			try {
+				listener.started(requestId, operation, url, start);
+			} catch (RuntimeException e) {
+				// ignore
+			}
+		}
+	}
+
+	public String getRequestId() {
+		return requestId;
+	}
+
+	public void envelopeBuilt() {
+		notify(RequestStage.ENVELOPE_BUILT, System.nanoTime());
+	}
+
+	/**
+	 * Marks the start of the connect phase. The time that passes before (ex.
+	 * to build the request) only adds to the total.
+	 */
+	public void connecting() {
+		this.lastMark = System.nanoTime();
+	}
+
+	public void connected() {
+		this.connect = mark(RequestStage.CONNECTION_ACQUIRED);
+	}
+
+	public void sent(long requestBytes) {
+		this.requestBytes = requestBytes;
+		notify(RequestStage.REQUEST_WRITTEN, System.nanoTime());
+	}
+
+	public void firstByte() {
+		this.timeToFirstByte = mark(RequestStage.FIRST_BYTE);
+	}
+
+	/**
+	 * Marks the end of the download. Only the first call counts so that
+	 * callers that do not know whether the http client did it may call again.
+	 */
+	public void downloaded(long responseBytes) {
+		if (downloaded) {
+			return;
+		}
+		this.downloaded = true;
+		this.download = mark(RequestStage.BODY_READ);
+		this.responseBytes = responseBytes;
+	}
+
+	public void sanitized() {
+		notify(RequestStage.SANITIZED, System.nanoTime());
+	}
+
+	public void parsed() {
+		this.parse = mark(RequestStage.UNMARSHALLED);
+	}
+
+	private long mark(RequestStage stage) {
+		long now = System.nanoTime();
+		long duration = now - lastMark;
+		this.lastMark = now;
+		notify(stage, now);
+		return duration;
+	}
+
+	private void notify(RequestStage stage, long nanoTime) {
+		for (IRequestListener listener : listeners) {
+			try {
+				listener.stageReached(requestId, stage, nanoTime);
+			} catch (RuntimeException e) {
+				// ignore
+			}
+		}
+	}
+
+	/**
+	 * Notifies the listeners that the request completed and returns its
+	 * metrics.
+	 * 
+	 * @param t
+	 *            the error the request failed with or <code>null</code>
+	 * @return the metrics of the request
+	 */
+	public BrokerRequestMetrics stop(Throwable t) {
+		long end = System.nanoTime();
+		for (IRequestListener listener : listeners) {
+			try {
+				listener.completed(requestId, t, end);
+			} catch (RuntimeException e) {
+				// ignore
+			}
+		}
+		return new BrokerRequestMetrics(operation, requestBytes, responseBytes,
+				connect, timeToFirstByte, download, parse, end - start, t == null ? null : t.getClass().getName());
+	}
+}
@@ -12,10 +12,15 @@ package com.openshift.express.internal.client.httpclient;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.HttpURLConnection;
+import java.net.Proxy;
 import java.net.SocketTimeoutException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
 import java.security.KeyManagementException;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
@@ -33,42 +38,152 @@ import javax.net.ssl.TrustManager;
 import javax.net.ssl.X509TrustManager;
 
 import com.openshift.express.client.IHttpClient;
-import com.openshift.express.internal.client.utils.StreamUtils;
+import com.openshift.express.client.TransportConfiguration;
+import com.openshift.express.client.tracing.IRequestListener;
+import com.openshift.express.internal.client.logging.Logger;
+import com.openshift.express.internal.client.utils.IOUtils;
+import com.openshift.express.internal.client.utils.PooledByteArrayOutputStream;
 
 /**
  * @author André Dietisheim
  */
 public class UrlConnectionHttpClient implements IHttpClient {
 
+	private static final Logger LOGGER = Logger.getLogger(UrlConnectionHttpClient.class);
+
 	private static final String PROPERTY_CONTENT_TYPE = "Content-Type";
-	private static final int DEFAULT_CONNECT_TIMEOUT = 10 * 1024;
-	private static final int DEFAULT_READ_TIMEOUT = 60 * 1024;
-	private static final String SYSPROP_OPENSHIFT_CONNECT_TIMEOUT = "com.openshift.express.httpclient.timeout";
-	private static final String SYSPROP_DEFAULT_CONNECT_TIMEOUT = "sun.net.client.defaultConnectTimeout";
-	private static final String SYSPROP_DEFAULT_READ_TIMEOUT = "sun.net.client.defaultReadTimeout";
-	
+	private static final String UTF8 = "UTF-8";
+	private static final String CHARSET = "charset=";
+
+	private static SSLSocketFactory permissiveSocketFactory;
+
 	private URL url;
 	private String userAgent;
-	private boolean doSSLChecks;
+	private TransportConfiguration transport;
+	private RequestTimer timer = new RequestTimer();
+	private int connectTimeout = -1;
+	private int readTimeout = -1;
 
 	public UrlConnectionHttpClient(String userAgent, URL url) {
 		this(userAgent, url, false);
 	}
 
 	public UrlConnectionHttpClient(String userAgent, URL url, boolean verifyHostNames) {
+		this(userAgent, url, TransportConfiguration.fromSystemProperties().withSSLChecks(verifyHostNames));
+	}
+
+	/**
+	 * Creates a client that applies the given configuration to each of its
+	 * connections.
+	 * 
+	 * @param userAgent
+	 *            the user agent to send
+	 * @param url
+	 *            the url to connect to
+	 * @param transport
+	 *            the configuration of the connections
+	 */
+	public UrlConnectionHttpClient(String userAgent, URL url, TransportConfiguration transport) {
 		this.userAgent = userAgent;
 		this.url = url;
-		this.doSSLChecks = verifyHostNames;
+		this.transport = transport;
+	}
+
+	/**
+	 * Sets the timer that the stages of the next post are reported to. The id
+	 * of the request is sent in the {@link IRequestListener#HEADER_REQUEST_ID}
+	 * header.
+	 * 
+	 * @param timer
+	 *            the timer to report to
+	 */
+	public void setRequestTimer(RequestTimer timer) {
+		this.timer = timer;
+	}
+
+	/**
+	 * Sets the timeouts of the requests of this client. They take precedence
+	 * over the timeouts of the transport configuration.
+	 * 
+	 * @param connectTimeout
+	 *            the connect timeout in milliseconds, -1 for the timeout of
+	 *            the configuration
+	 * @param readTimeout
+	 *            the read timeout in milliseconds, -1 for the timeout of the
+	 *            configuration
+	 */
+	public void setTimeouts(int connectTimeout, int readTimeout) {
+		this.connectTimeout = connectTimeout;
+		this.readTimeout = readTimeout;
+	}
+
+	public String post(final String data) throws HttpClientException, SocketTimeoutException {
+		return post(new IRequestBody() {
+
+			public long writeTo(OutputStream out) throws IOException {
+				byte[] request = data.getBytes(UTF8);
+				out.write(request);
+				return request.length;
+			}
+
+			public String toString() {
+				return data;
+			}
+		});
+	}
+
+	/**
+	 * Posts the given body, which writes itself to the connection.
+	 * 
+	 * @param body
+	 *            the body to post
+	 * @return the response
+	 * @throws HttpClientException
+	 * @throws SocketTimeoutException
+	 */
+	public String post(IRequestBody body) throws HttpClientException, SocketTimeoutException {
+		PooledByteArrayOutputStream response = new PooledByteArrayOutputStream();
+		try {
+			Charset charset = post(body, response);
+			return charset.decode(ByteBuffer.wrap(response.getBuffer(), 0, response.size())).toString();
+		} finally {
+			response.release();
+		}
 	}
 
-	public String post(String data) throws HttpClientException, SocketTimeoutException {
+	/**
+	 * Posts the given body, which writes itself to the connection, and copies
+	 * the body of the response to the given stream.
+	 * 
+	 * @param body
+	 *            the body to post
+	 * @param response
+	 *            the stream to copy the response body to
+	 * @return the charset of the response body
+	 * @throws HttpClientException
+	 * @throws SocketTimeoutException
+	 */
+	public Charset post(IRequestBody body, OutputStream response) throws HttpClientException, SocketTimeoutException {
 		HttpURLConnection connection = null;
-		System.out.println("***** post " + url + " " + data);
+		LOGGER.debug("Posting to {0}: {1}", url, body);
 		try {
+			timer.connecting();
 			connection = createConnection(userAgent, url);
 			connection.setDoOutput(true);
-			StreamUtils.writeTo(data.getBytes(), connection.getOutputStream());
-			return StreamUtils.readToString(connection.getInputStream());
+			if (timer.getRequestId() != null) {
+				connection.setRequestProperty(IRequestListener.HEADER_REQUEST_ID, timer.getRequestId());
+			}
+			connection.connect();
+			timer.connected();
+			OutputStream out = connection.getOutputStream();
+			long sent = body.writeTo(out);
+			out.close();
+			timer.sent(sent);
+			InputStream in = connection.getInputStream();
+			timer.firstByte();
+			long received = IOUtils.copy(in, response);
+			timer.downloaded(received);
+			return getCharset(connection);
 		} catch (FileNotFoundException e) {
 			throw new NotFoundException(
 					MessageFormat.format("Could not find resource {0}", url.toString()), e);
@@ -85,7 +200,7 @@ public class UrlConnectionHttpClient implements IHttpClient {
 		HttpURLConnection connection = null;
 		try {
 			connection = createConnection(userAgent, url);
-			return StreamUtils.readToString(connection.getInputStream());
+			return IOUtils.toString(connection.getInputStream(), getCharset(connection));
 		} catch (FileNotFoundException e) {
 			throw new NotFoundException(
 					MessageFormat.format("Could not find resource {0}", url.toString()), e);
@@ -102,7 +217,10 @@ public class UrlConnectionHttpClient implements IHttpClient {
 			throws SocketTimeoutException {
 		try {
 			int responseCode = connection.getResponseCode();
-			String errorMessage = StreamUtils.readToString(connection.getErrorStream());
+			timer.firstByte();
+			byte[] error = IOUtils.toByteArray(connection.getErrorStream());
+			timer.downloaded(error == null ? 0 : error.length);
+			String errorMessage = error == null ? null : new String(error, getCharset(connection).name());
 			switch (responseCode) {
 			case 500:
 				return new InternalServerErrorException(errorMessage, ioe);
@@ -122,14 +240,30 @@ public class UrlConnectionHttpClient implements IHttpClient {
 		}
 	}
 
+	/**
+	 * Returns the charset that the content type of the given connection
+	 * specifies. Defaults to UTF-8, the charset of json.
+	 */
+	private Charset getCharset(HttpURLConnection connection) {
+		String contentType = connection.getContentType();
+		if (contentType != null) {
+			int index = contentType.toLowerCase().indexOf(CHARSET);
+			if (index >= 0) {
+				String charset = contentType.substring(index + CHARSET.length()).split(";")[0].trim();
+				try {
+					return Charset.forName(charset.replace("\"", ""));
+				} catch (IllegalArgumentException e) {
+					LOGGER.debug("Unsupported charset {0} in content type of {1}", charset, url);
+				}
+			}
+		}
+		return IOUtils.UTF8;
+	}
+
 	private HttpURLConnection createConnection(String userAgent, URL url) throws IOException {
-		HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-		if (isHttps(url)
-				&& !doSSLChecks) {
-			System.out.println("*** createConnection HTTPS " + url);
-			HttpsURLConnection httpsConnection = (HttpsURLConnection) connection;
-			httpsConnection.setHostnameVerifier(new NoopHostnameVerifier());
-			setPermissiveSSLSocketFactory(httpsConnection);
+		HttpURLConnection connection = openConnection(url);
+		if (isHttps(url)) {
+			configureSSL((HttpsURLConnection) connection);
 		}
 		connection.setUseCaches(false);
 		connection.setDoInput(true);
@@ -142,54 +276,77 @@ public class UrlConnectionHttpClient implements IHttpClient {
 		return connection;
 	}
 
-	private void setConnectTimeout(URLConnection connection) {
-		int timeout = getSystemPropertyInteger(SYSPROP_OPENSHIFT_CONNECT_TIMEOUT);
-		if (timeout > -1) {
-			connection.setConnectTimeout(timeout);
-			return;
+	private HttpURLConnection openConnection(URL url) throws IOException {
+		Proxy proxy = transport.getProxy();
+		if (proxy == null) {
+			return (HttpURLConnection) url.openConnection();
 		}
-		timeout = getSystemPropertyInteger(SYSPROP_DEFAULT_CONNECT_TIMEOUT);
-		if (timeout == -1) {
-			connection.setConnectTimeout(DEFAULT_CONNECT_TIMEOUT);
+		return (HttpURLConnection) url.openConnection(proxy);
+	}
+
+	private void configureSSL(HttpsURLConnection connection) {
+		SSLSocketFactory socketFactory = null;
+		if (!transport.isSSLChecks()) {
+			LOGGER.debug("Disabling certificate and host name checks for {0}", url);
+			connection.setHostnameVerifier(new NoopHostnameVerifier());
+			socketFactory = getPermissiveSSLSocketFactory();
+		} else if (transport.getSSLSocketFactory() != null) {
+			socketFactory = transport.getSSLSocketFactory();
+		}
+		if (!transport.isSNIEnabled()) {
+			if (socketFactory == null) {
+				socketFactory = connection.getSSLSocketFactory();
+			}
+			socketFactory = new NoSNISSLSocketFactory(socketFactory);
+		}
+		if (socketFactory != null) {
+			connection.setSSLSocketFactory(socketFactory);
 		}
 	}
 
-	private void setReadTimeout(URLConnection connection) {
-		int timeout = getSystemPropertyInteger(SYSPROP_DEFAULT_READ_TIMEOUT);
-		if (timeout == -1) {
-			connection.setReadTimeout(DEFAULT_READ_TIMEOUT);
+	private void setConnectTimeout(URLConnection connection) {
+		if (connectTimeout > -1) {
+			connection.setConnectTimeout(connectTimeout);
+		} else {
+			connection.setConnectTimeout(transport.getConnectTimeout());
 		}
 	}
 
-	private int getSystemPropertyInteger(String key) {
-		try {
-			return Integer.parseInt(System.getProperty(key));
-		} catch (NumberFormatException e) {
-			return -1;
+	private void setReadTimeout(URLConnection connection) {
+		if (readTimeout > -1) {
+			connection.setReadTimeout(readTimeout);
+		} else {
+			connection.setReadTimeout(transport.getReadTimeout());
 		}
 	}
-	
+
 	private boolean isHttps(URL url) {
 		return "https".equals(url.getProtocol());
 	}
 	
 	/**
-	 * Sets a trust manager that will always trust.
+	 * Returns a socket factory with a trust manager that will always trust.
+	 * The factory is created once and shared by all clients.
 	 * <p>
 	 * TODO: dont swallog exceptions and setup things so that they dont disturb
 	 * other components.
+	 * 
+	 * @return the factory or <code>null</code> if it could not be created
 	 */
-	private void setPermissiveSSLSocketFactory(HttpsURLConnection connection) {
-		try {
-			SSLContext sslContext = SSLContext.getInstance("SSL");
-			sslContext.init(new KeyManager[0], new TrustManager[] { new PermissiveTrustManager() }, new SecureRandom());
-			SSLSocketFactory socketFactory = sslContext.getSocketFactory();
-			((HttpsURLConnection) connection).setSSLSocketFactory(socketFactory);
-		} catch (KeyManagementException e) {
-			// ignore
-		} catch (NoSuchAlgorithmException e) {
-			// ignore
+	private static synchronized SSLSocketFactory getPermissiveSSLSocketFactory() {
+		if (permissiveSocketFactory == null) {
+			try {
+				SSLContext sslContext = SSLContext.getInstance("SSL");
+				sslContext.init(new KeyManager[0], new TrustManager[] { new PermissiveTrustManager() },
+						new SecureRandom());
+				permissiveSocketFactory = sslContext.getSocketFactory();
+			} catch (KeyManagementException e) {
+				// ignore
+			} catch (NoSuchAlgorithmException e) {
+				// ignore
+			}
 		}
+		return permissiveSocketFactory;
 	}
 
 	private static class NoopHostnameVerifier implements HostnameVerifier {
@@ -0,0 +1,52 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.logging;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Masks the values of the credentials in form encoded broker requests
+ * (<code>password</code>, <code>broker_auth_key</code> and
+ * <code>broker_auth_iv</code>) and in json (<code>"password":"..."</code>).
+ * 
+ * @author Daniel Brenner
+ */
+public class CredentialsRedactor {
+
+	public static final String REDACTED = "*****";
+
+	private static final String CREDENTIALS = "password|broker_auth_key|broker_auth_iv";
+	private static final Pattern FORM_CREDENTIALS =
+			Pattern.compile("(^|[&?\\s])(" + CREDENTIALS + ")=[^&\\s]*");
+	private static final Pattern JSON_CREDENTIALS =
+			Pattern.compile("(\"(?:" + CREDENTIALS + ")\"\\s*:\\s*)\"(?:[^\"\\\\]|\\\\.)*\"");
+
+	private CredentialsRedactor() {
+		// inhibit instantiation
+	}
+
+	public static String redact(String message) {
+		if (message == null
+				|| !mayContainCredentials(message)) {
+			return message;
+		}
+		Matcher matcher = FORM_CREDENTIALS.matcher(message);
+		message = matcher.replaceAll("$1$2=" + REDACTED);
+		matcher = JSON_CREDENTIALS.matcher(message);
+		return matcher.replaceAll("$1\"" + REDACTED + "\"");
+	}
+
+	private static boolean mayContainCredentials(String message) {
+		return message.indexOf("password") >= 0
+				|| message.indexOf("broker_auth_") >= 0;
+	}
+}
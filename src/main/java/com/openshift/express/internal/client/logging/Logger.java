@@ -0,0 +1,121 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.logging;
+
+import java.text.MessageFormat;
+import java.util.logging.Level;
+
+/**
+ * A thin facade to java.util.logging. Messages are only formatted if their
+ * level is enabled so that disabled log statements don't cost more than a
+ * level check: there are overloads for up to 3 arguments that spare the
+ * allocation of a varargs array. Credentials are redacted from all messages
+ * before they're logged.
+ * 
+ * @author Daniel Brenner
+ * 
+ * @see CredentialsRedactor
+ */
+public class Logger {
+
+	private final java.util.logging.Logger logger;
+
+	private Logger(java.util.logging.Logger logger) {
+		this.logger = logger;
+	}
+
+	public static Logger getLogger(Class<?> clazz) {
+		return new Logger(java.util.logging.Logger.getLogger(clazz.getName()));
+	}
+
+	public boolean isTraceEnabled() {
+		return logger.isLoggable(Level.FINEST);
+	}
+
+	public boolean isDebugEnabled() {
+		return logger.isLoggable(Level.FINE);
+	}
+
+	public boolean isInfoEnabled() {
+		return logger.isLoggable(Level.INFO);
+	}
+
+	public void trace(String message) {
+		if (logger.isLoggable(Level.FINEST)) {
+			log(Level.FINEST, message, null);
+		}
+	}
+
+	public void trace(String pattern, Object argument) {
+		if (logger.isLoggable(Level.FINEST)) {
+			log(Level.FINEST, MessageFormat.format(pattern, argument), null);
+		}
+	}
+
+	public void trace(String pattern, Object argument1, Object argument2) {
+		if (logger.isLoggable(Level.FINEST)) {
+			log(Level.FINEST, MessageFormat.format(pattern, argument1, argument2), null);
+		}
+	}
+
+	public void debug(String message) {
+		if (logger.isLoggable(Level.FINE)) {
+			log(Level.FINE, message, null);
+		}
+	}
+
+	public void debug(String pattern, Object argument) {
+		if (logger.isLoggable(Level.FINE)) {
+			log(Level.FINE, MessageFormat.format(pattern, argument), null);
+		}
+	}
+
+	public void debug(String pattern, Object argument1, Object argument2) {
+		if (logger.isLoggable(Level.FINE)) {
+			log(Level.FINE, MessageFormat.format(pattern, argument1, argument2), null);
+		}
+	}
+
+	public void debug(String pattern, Object argument1, Object argument2, Object argument3) {
+		if (logger.isLoggable(Level.FINE)) {
+			log(Level.FINE, MessageFormat.format(pattern, argument1, argument2, argument3), null);
+		}
+	}
+
+	public void info(String message) {
+		if (logger.isLoggable(Level.INFO)) {
+			log(Level.INFO, message, null);
+		}
+	}
+
+	public void info(String pattern, Object argument) {
+		if (logger.isLoggable(Level.INFO)) {
+			log(Level.INFO, MessageFormat.format(pattern, argument), null);
+		}
+	}
+
+	public void warn(String message, Throwable t) {
+		if (logger.isLoggable(Level.WARNING)) {
+			log(Level.WARNING, message, t);
+		}
+	}
+
+	public void error(String message, Throwable t) {
+		if (logger.isLoggable(Level.SEVERE)) {
+			log(Level.SEVERE, message, t);
+		}
+	}
+
+	private void log(Level level, String message, Throwable t) {
+		// source is the logger, inferring the caller would walk the stack
+		logger.logp(level, logger.getName(), null, CredentialsRedactor.redact(message), t);
+	}
+}
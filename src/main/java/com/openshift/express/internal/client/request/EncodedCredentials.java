@@ -0,0 +1,126 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.request;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import com.openshift.express.client.OpenShiftException;
+import com.openshift.express.internal.client.utils.IOpenShiftJsonConstants;
+
+/**
+ * The credentials and the rhlogin of a user, form encoded once so that they
+ * can be written ahead of the json data of any number of requests. Holds the
+ * encoded bytes only, they are overwritten when the credentials get
+ * {@link #clear() cleared}.
+ * 
+ * @author Daniel Brenner
+ * 
+ * @see OpenShiftEnvelope#OpenShiftEnvelope(EncodedCredentials,
+ *      com.openshift.express.internal.client.request.marshalling.AbstractJsonMarshaller,
+ *      AbstractOpenShiftRequest)
+ */
+public class EncodedCredentials {
+
+	private final String rhlogin;
+	private final byte[] encoded;
+	private boolean cleared;
+
+	private EncodedCredentials(String rhlogin, byte[] encoded) {
+		this.rhlogin = rhlogin;
+		this.encoded = encoded;
+	}
+
+	/**
+	 * Encodes the given credentials and rhlogin.
+	 * 
+	 * @throws OpenShiftException
+	 *             if there's neither a password nor an auth key and iv
+	 */
+	public static EncodedCredentials create(String rhlogin, String password, String authKey, String authIV)
+			throws OpenShiftException {
+		OpenShiftEnvelope.assertCredentials(password, authKey, authIV);
+		SecretByteArrayOutputStream out = new SecretByteArrayOutputStream();
+		JsonFormEncoder encoder = new JsonFormEncoder(out);
+		try {
+			OpenShiftEnvelope.writeCredentials(password, authKey, authIV, encoder);
+			encoder.beginJsonProperty(OpenShiftEnvelope.PROPERTY_JSON_DATA);
+			if (isSet(rhlogin)) {
+				encoder.writeProperty(IOpenShiftJsonConstants.PROPERTY_RHLOGIN, rhlogin);
+			} else {
+				rhlogin = null;
+			}
+			encoder.flush();
+			return new EncodedCredentials(rhlogin, out.toByteArray());
+		} catch (IOException e) {
+			throw new OpenShiftException(e, "Could not encode the credentials of user {0}", rhlogin);
+		} finally {
+			encoder.clear();
+			out.clear();
+		}
+	}
+
+	/**
+	 * Returns <code>true</code> if these credentials were encoded for the
+	 * given rhlogin.
+	 */
+	public boolean isFor(String rhlogin) {
+		if (!isSet(rhlogin)) {
+			return this.rhlogin == null;
+		}
+		return rhlogin.equals(this.rhlogin);
+	}
+
+	/**
+	 * Writes the encoded credentials, the start of the json data and the
+	 * rhlogin to the given encoder.
+	 * 
+	 * @throws IOException
+	 *             if these credentials were cleared
+	 */
+	synchronized void writeTo(JsonFormEncoder encoder) throws IOException {
+		if (cleared) {
+			throw new IOException("Could not write credentials, they were cleared");
+		}
+		encoder.resumeJsonProperty(encoded, rhlogin != null);
+	}
+
+	/**
+	 * Overwrites the encoded credentials. Requests that use these
+	 * credentials afterwards fail.
+	 */
+	public synchronized void clear() {
+		Arrays.fill(encoded, (byte) 0);
+		this.cleared = true;
+	}
+
+	public synchronized boolean isCleared() {
+		return cleared;
+	}
+
+	private static boolean isSet(String value) {
+		return value != null
+				&& value.length() > 0;
+	}
+
+	private static class SecretByteArrayOutputStream extends ByteArrayOutputStream {
+
+		private SecretByteArrayOutputStream() {
+			super(256);
+		}
+
+		private void clear() {
+			Arrays.fill(buf, (byte) 0);
+			reset();
+		}
+	}
+}
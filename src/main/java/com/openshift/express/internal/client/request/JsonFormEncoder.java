@@ -0,0 +1,261 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.request;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import com.openshift.express.client.json.IJsonPropertyWriter;
+
+/**
+ * Writes a form encoded (application/x-www-form-urlencoded) request body as
+ * UTF-8 bytes to a stream. Json data is written in compact form and percent
+ * encoded on the fly so that neither the json nor the encoded form ever exist
+ * as Strings. Encodes the same way {@link java.net.URLEncoder} does.
+ * <p>
+ * Bytes are collected in a small buffer that is written to the stream once
+ * it's full and on {@link #flush()}.
+ * 
+ * @author Daniel Brenner
+ */
+public class JsonFormEncoder implements IJsonPropertyWriter {
+
+	private static final int BUFFER_SIZE = 1024;
+	private static final byte[] HEX_DIGITS = { '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'A', 'B', 'C',
+			'D', 'E', 'F' };
+	private static final char REPLACEMENT = '?';
+
+	private final OutputStream out;
+	private final byte[] buffer = new byte[BUFFER_SIZE];
+	private int position;
+	private long count;
+	private boolean firstFormProperty = true;
+	private boolean firstJsonProperty;
+
+	public JsonFormEncoder(OutputStream out) {
+		this.out = out;
+	}
+
+	/**
+	 * Writes a form property with the given name and value.
+	 */
+	public void writeFormProperty(String name, String value) throws IOException {
+		writeFormPropertyName(name);
+		encode(value);
+	}
+
+	/**
+	 * Starts a form property whose value is a json object. The properties of
+	 * the object are written by {@link #writeProperty(String, String)}.
+	 * 
+	 * @see #endJsonProperty()
+	 */
+	public void beginJsonProperty(String name) throws IOException {
+		writeFormPropertyName(name);
+		encode('{');
+		this.firstJsonProperty = true;
+	}
+
+	/**
+	 * Writes the given bytes that were encoded by another encoder and
+	 * continues with the json property that they started. The bytes have to
+	 * hold at least the start of a json property (see
+	 * {@link #beginJsonProperty(String)}) and may hold some of its properties.
+	 * 
+	 * @param encoded
+	 *            the encoded form properties and start of a json property
+	 * @param hasJsonProperties
+	 *            whether the given bytes hold properties of the json
+	 *            property
+	 * 
+	 * @see #endJsonProperty()
+	 */
+	public void resumeJsonProperty(byte[] encoded, boolean hasJsonProperties) throws IOException {
+		if (!firstFormProperty) {
+			write('&');
+		}
+		this.firstFormProperty = false;
+		for (int offset = 0; offset < encoded.length;) {
+			if (position == buffer.length) {
+				out.write(buffer, 0, position);
+				this.count += position;
+				this.position = 0;
+			}
+			int length = Math.min(encoded.length - offset, buffer.length - position);
+			System.arraycopy(encoded, offset, buffer, position, length);
+			offset += length;
+			position += length;
+		}
+		this.firstJsonProperty = !hasJsonProperties;
+	}
+
+	public void writeProperty(String name, String value) throws IOException {
+		if (!firstJsonProperty) {
+			encode(',');
+		}
+		this.firstJsonProperty = false;
+		encodeJsonString(name);
+		encode(':');
+		if (value == null) {
+			encode("null");
+		} else {
+			encodeJsonString(value);
+		}
+	}
+
+	public void endJsonProperty() throws IOException {
+		encode('}');
+	}
+
+	/**
+	 * Writes the buffered bytes to the stream.
+	 * 
+	 * @return the number of bytes written so far
+	 * @throws IOException
+	 */
+	public long flush() throws IOException {
+		out.write(buffer, 0, position);
+		this.count += position;
+		this.position = 0;
+		out.flush();
+		return count;
+	}
+
+	/**
+	 * Overwrites the buffer of this encoder. Encoders that wrote secrets
+	 * should be cleared once they're flushed.
+	 */
+	public void clear() {
+		Arrays.fill(buffer, (byte) 0);
+		this.position = 0;
+	}
+
+	private void writeFormPropertyName(String name) throws IOException {
+		if (!firstFormProperty) {
+			write('&');
+		}
+		this.firstFormProperty = false;
+		encode(name);
+		write('=');
+	}
+
+	private void encodeJsonString(String value) throws IOException {
+		encode('"');
+		for (int i = 0; i < value.length(); i++) {
+			char character = value.charAt(i);
+			switch (character) {
+			case '"':
+			case '\\':
+				encode('\\');
+				encode(character);
+				break;
+			case '\n':
+				encode('\\');
+				encode('n');
+				break;
+			case '\r':
+				encode('\\');
+				encode('r');
+				break;
+			case '\t':
+				encode('\\');
+				encode('t');
+				break;
+			default:
+				if (character < 0x20) {
+					encode('\\');
+					encode('u');
+					encode('0');
+					encode('0');
+					encode((char) HEX_DIGITS[character >> 4]);
+					encode((char) HEX_DIGITS[character & 0xf]);
+				} else {
+					i = encode(value, i);
+				}
+			}
+		}
+		encode('"');
+	}
+
+	private void encode(String value) throws IOException {
+		for (int i = 0; i < value.length(); i++) {
+			i = encode(value, i);
+		}
+	}
+
+	/**
+	 * Encodes the character at the given index of the given string. Surrogate
+	 * pairs are encoded as a whole.
+	 * 
+	 * @return the index of the last character that was encoded
+	 */
+	private int encode(String value, int index) throws IOException {
+		char character = value.charAt(index);
+		if (character < 0x80) {
+			encode(character);
+		} else if (character < 0x800) {
+			writePercentEncoded(0xc0 | (character >> 6));
+			writePercentEncoded(0x80 | (character & 0x3f));
+		} else if (Character.isHighSurrogate(character)
+				&& index + 1 < value.length()
+				&& Character.isLowSurrogate(value.charAt(index + 1))) {
+			int codePoint = Character.toCodePoint(character, value.charAt(++index));
+			writePercentEncoded(0xf0 | (codePoint >> 18));
+			writePercentEncoded(0x80 | ((codePoint >> 12) & 0x3f));
+			writePercentEncoded(0x80 | ((codePoint >> 6) & 0x3f));
+			writePercentEncoded(0x80 | (codePoint & 0x3f));
+		} else if (Character.isHighSurrogate(character)
+				|| Character.isLowSurrogate(character)) {
+			// unpaired surrogate, URLEncoder replaces it, too
+			encode(REPLACEMENT);
+		} else {
+			writePercentEncoded(0xe0 | (character >> 12));
+			writePercentEncoded(0x80 | ((character >> 6) & 0x3f));
+			writePercentEncoded(0x80 | (character & 0x3f));
+		}
+		return index;
+	}
+
+	/**
+	 * Encodes the given ascii character.
+	 */
+	private void encode(char character) throws IOException {
+		if ((character >= 'a' && character <= 'z')
+				|| (character >= 'A' && character <= 'Z')
+				|| (character >= '0' && character <= '9')
+				|| character == '.'
+				|| character == '-'
+				|| character == '*'
+				|| character == '_') {
+			write(character);
+		} else if (character == ' ') {
+			write('+');
+		} else {
+			writePercentEncoded(character);
+		}
+	}
+
+	private void writePercentEncoded(int value) throws IOException {
+		write('%');
+		write(HEX_DIGITS[(value >> 4) & 0xf]);
+		write(HEX_DIGITS[value & 0xf]);
+	}
+
+	private void write(int value) throws IOException {
+		if (position == buffer.length) {
+			out.write(buffer, 0, position);
+			this.count += position;
+			this.position = 0;
+		}
+		buffer[position++] = (byte) value;
+	}
+}
@@ -43,7 +43,7 @@ public class ListCartridgesRequest extends AbstractOpenShiftRequest {
 		return cartridgeType;
 	}
 	
-	protected String getResourcePath() {
+	public String getResourcePath() {
 		return "cartlist";
 	}
 }
@@ -0,0 +1,131 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.request;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.openshift.express.client.OpenShiftException;
+import com.openshift.express.internal.client.httpclient.IRequestBody;
+import com.openshift.express.internal.client.request.marshalling.AbstractJsonMarshaller;
+
+/**
+ * The envelope of a request to the broker: the credentials and the json data
+ * of the request as form properties. Unlike the
+ * {@link OpenShiftEnvelopeFactory} it streams itself to the connection. The
+ * request is marshalled to compact json that is form encoded on the fly.
+ * 
+ * @author Daniel Brenner
+ * 
+ * @see JsonFormEncoder
+ */
+public class OpenShiftEnvelope<REQUEST extends AbstractOpenShiftRequest> implements IRequestBody,
+		IOpenShiftRequestFactory {
+
+	private static final String PROPERTY_PASSWORD = "password";
+	static final String PROPERTY_JSON_DATA = "json_data";
+	private static final String PROPERTY_AUTHKEY = "broker_auth_key";
+	private static final String PROPERTY_AUTHIV = "broker_auth_iv";
+
+	private final String password;
+	private final String authKey;
+	private final String authIV;
+	private final EncodedCredentials credentials;
+	private final AbstractJsonMarshaller<REQUEST> marshaller;
+	private final REQUEST request;
+
+	public OpenShiftEnvelope(String password, String authKey, String authIV,
+			AbstractJsonMarshaller<REQUEST> marshaller, REQUEST request) throws OpenShiftException {
+		assertCredentials(password, authKey, authIV);
+		this.password = password;
+		this.authKey = authKey;
+		this.authIV = authIV;
+		this.credentials = null;
+		this.marshaller = marshaller;
+		this.request = request;
+	}
+
+	/**
+	 * Creates an envelope that writes the given pre-encoded credentials and
+	 * rhlogin instead of encoding them. The credentials have to be encoded
+	 * for the rhlogin of the given request.
+	 * 
+	 * @see EncodedCredentials#isFor(String)
+	 */
+	public OpenShiftEnvelope(EncodedCredentials credentials, AbstractJsonMarshaller<REQUEST> marshaller,
+			REQUEST request) throws OpenShiftException {
+		if (!credentials.isFor(request.getRhLogin())) {
+			throw new OpenShiftException("Could not create request, credentials are not encoded for user {0}",
+					request.getRhLogin());
+		}
+		this.password = null;
+		this.authKey = null;
+		this.authIV = null;
+		this.credentials = credentials;
+		this.marshaller = marshaller;
+		this.request = request;
+	}
+
+	public long writeTo(OutputStream out) throws IOException {
+		JsonFormEncoder encoder = new JsonFormEncoder(out);
+		try {
+			if (credentials != null) {
+				credentials.writeTo(encoder);
+				marshaller.marshallProperties(request, encoder);
+			} else {
+				writeCredentials(password, authKey, authIV, encoder);
+				encoder.beginJsonProperty(PROPERTY_JSON_DATA);
+				marshaller.marshall(request, encoder);
+			}
+		} catch (OpenShiftException e) {
+			throw new IOException("Could not marshall request: " + e.getMessage());
+		}
+		encoder.endJsonProperty();
+		return encoder.flush();
+	}
+
+	static void assertCredentials(String password, String authKey, String authIV) throws OpenShiftException {
+		if ((authKey == null || authIV == null)
+				&& password == null) {
+			throw new OpenShiftException("Could not create request, no password nor authKey specified");
+		}
+	}
+
+	static void writeCredentials(String password, String authKey, String authIV, JsonFormEncoder encoder)
+			throws IOException {
+		if (authKey != null && authIV != null) {
+			encoder.writeFormProperty(PROPERTY_AUTHKEY, authKey);
+			encoder.writeFormProperty(PROPERTY_AUTHIV, authIV);
+		} else {
+			encoder.writeFormProperty(PROPERTY_PASSWORD, password);
+		}
+	}
+
+	public String createString() throws OpenShiftException {
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			writeTo(out);
+			// form encoded, ascii only
+			return out.toString("US-ASCII");
+		} catch (IOException e) {
+			throw new OpenShiftException(e, "Could not create request");
+		}
+	}
+
+	public String toString() {
+		try {
+			return createString();
+		} catch (OpenShiftException e) {
+			return e.getMessage();
+		}
+	}
+}
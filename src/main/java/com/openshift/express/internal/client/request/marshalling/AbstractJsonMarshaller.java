@@ -10,8 +10,13 @@
  ******************************************************************************/
 package com.openshift.express.internal.client.request.marshalling;
 
-import org.jboss.dmr.ModelNode;
+import java.io.IOException;
+
 import com.openshift.express.client.OpenShiftException;
+import com.openshift.express.client.json.DmrJsonCodec;
+import com.openshift.express.client.json.IJsonCodec;
+import com.openshift.express.client.json.IJsonObjectWriter;
+import com.openshift.express.client.json.IJsonPropertyWriter;
 import com.openshift.express.internal.client.request.AbstractOpenShiftRequest;
 import com.openshift.express.internal.client.utils.IOpenShiftJsonConstants;
 
@@ -21,35 +26,89 @@ import com.openshift.express.internal.client.utils.IOpenShiftJsonConstants;
 public abstract class AbstractJsonMarshaller<REQUEST extends AbstractOpenShiftRequest> implements
 		IOpenShiftMarshaller<REQUEST> {
 
+	private IJsonCodec codec = DmrJsonCodec.INSTANCE;
+
+	/**
+	 * Sets the codec that writes the json of the requests. The
+	 * {@link DmrJsonCodec} is used by default.
+	 * 
+	 * @param codec
+	 *            the codec to use
+	 */
+	public void setJsonCodec(IJsonCodec codec) {
+		this.codec = codec;
+	}
+
 	public String marshall(REQUEST request) throws OpenShiftException {
-		ModelNode node = new ModelNode();
+		IJsonObjectWriter writer = codec.createObjectWriter();
+		try {
+			marshall(request, writer);
+		} catch (IOException e) {
+			throw new OpenShiftException(e, "Could not marshall request {0}", request);
+		}
+		return writer.toJson();
+	}
+
+	/**
+	 * Writes the properties of the given request to the given writer.
+	 * 
+	 * @param request
+	 *            the request to marshall
+	 * @param writer
+	 *            the writer to write the properties to
+	 * @throws OpenShiftException
+	 * @throws IOException
+	 *             if the writer could not write
+	 */
+	public void marshall(REQUEST request, IJsonPropertyWriter writer) throws OpenShiftException, IOException {
 		if (request.getRhLogin() != null && request.getRhLogin().length() > 0)
-			setStringProperty(IOpenShiftJsonConstants.PROPERTY_RHLOGIN, request.getRhLogin(), node);
-		setStringProperty(IOpenShiftJsonConstants.PROPERTY_DEBUG, String.valueOf(request.isDebug()), node);
+			setStringProperty(IOpenShiftJsonConstants.PROPERTY_RHLOGIN, request.getRhLogin(), writer);
+		marshallProperties(request, writer);
+	}
+
+	/**
+	 * Writes all properties of the given request but the rhlogin to the
+	 * given writer. Allows the rhlogin to be written ahead by someone else.
+	 * 
+	 * @param request
+	 *            the request to marshall
+	 * @param writer
+	 *            the writer to write the properties to
+	 * @throws OpenShiftException
+	 * @throws IOException
+	 *             if the writer could not write
+	 * 
+	 * @see com.openshift.express.internal.client.request.EncodedCredentials
+	 */
+	public void marshallProperties(REQUEST request, IJsonPropertyWriter writer) throws OpenShiftException,
+			IOException {
+		setStringProperty(IOpenShiftJsonConstants.PROPERTY_DEBUG, String.valueOf(request.isDebug()), writer);
 		
-		setJsonDataProperties(node, request);
-		return node.toJSONString(true);
+		setJsonDataProperties(writer, request);
 	}
 
-	protected void setJsonDataProperties(ModelNode node, REQUEST request) throws OpenShiftException {
+	protected void setJsonDataProperties(IJsonPropertyWriter writer, REQUEST request)
+			throws OpenShiftException, IOException {
 		// empty default implementation
 	}
 
-	protected void setStringProperty(String propertyName, Object value, ModelNode node) {
+	protected void setStringProperty(String propertyName, Object value, IJsonPropertyWriter writer)
+			throws IOException {
 		if (!(value instanceof String)
 				&& !isSet((String) value)) {
 			return;
 		}
 
-		setStringProperty((String) value, propertyName, node);
+		setStringProperty((String) value, propertyName, writer);
 	}
 
-	protected void setStringProperty(String propertyName, String value, ModelNode node) {
+	protected void setStringProperty(String propertyName, String value, IJsonPropertyWriter writer)
+			throws IOException {
 		if (!isSet(value)) {
 			return;
 		}
 
-		node.get(propertyName).set(value);
+		writer.writeProperty(propertyName, value);
 	}
 
 	protected boolean isSet(String value) {
@@ -60,5 +119,4 @@ public abstract class AbstractJsonMarshaller<REQUEST extends AbstractOpenShiftRe
 	protected boolean isSet(Object value) {
 		return value != null;
 	}
-
 }
@@ -10,8 +10,10 @@
  ******************************************************************************/ 
 package com.openshift.express.internal.client.request.marshalling;
 
-import org.jboss.dmr.ModelNode;
+import java.io.IOException;
+
 import com.openshift.express.client.ICartridge;
+import com.openshift.express.client.json.IJsonPropertyWriter;
 import com.openshift.express.internal.client.request.ApplicationAction;
 import com.openshift.express.internal.client.request.ApplicationRequest;
 import com.openshift.express.internal.client.utils.IOpenShiftJsonConstants;
@@ -21,12 +23,12 @@ import com.openshift.express.internal.client.utils.IOpenShiftJsonConstants;
  */
 public class ApplicationRequestJsonMarshaller extends AbstractJsonMarshaller<ApplicationRequest> {
 
-	protected void setJsonDataProperties(ModelNode node, ApplicationRequest request) {
-		setStringProperty(IOpenShiftJsonConstants.PROPERTY_CARTRIDGE, getCartridgeName(request.getCartridge()), node);
-		setStringProperty(IOpenShiftJsonConstants.PROPERTY_ACTION, getActionName(request.getAction()), node);
-		setStringProperty(IOpenShiftJsonConstants.PROPERTY_APP_NAME, request.getName(), node);
+	protected void setJsonDataProperties(IJsonPropertyWriter writer, ApplicationRequest request) throws IOException {
+		setStringProperty(IOpenShiftJsonConstants.PROPERTY_CARTRIDGE, getCartridgeName(request.getCartridge()), writer);
+		setStringProperty(IOpenShiftJsonConstants.PROPERTY_ACTION, getActionName(request.getAction()), writer);
+		setStringProperty(IOpenShiftJsonConstants.PROPERTY_APP_NAME, request.getName(), writer);
 		if (request.getNodeProfile() != null)
-			setStringProperty(IOpenShiftJsonConstants.PROPERTY_NODE_PROFILE, request.getNodeProfile(), node);
+			setStringProperty(IOpenShiftJsonConstants.PROPERTY_NODE_PROFILE, request.getNodeProfile(), writer);
 		
 	}
 
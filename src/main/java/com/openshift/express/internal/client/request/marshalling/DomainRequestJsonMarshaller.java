@@ -10,8 +10,10 @@
  ******************************************************************************/ 
 package com.openshift.express.internal.client.request.marshalling;
 
-import org.jboss.dmr.ModelNode;
+import java.io.IOException;
+
 import com.openshift.express.client.OpenShiftException;
+import com.openshift.express.client.json.IJsonPropertyWriter;
 import com.openshift.express.internal.client.request.AbstractDomainRequest;
 import com.openshift.express.internal.client.utils.IOpenShiftJsonConstants;
 
@@ -20,11 +22,12 @@ import com.openshift.express.internal.client.utils.IOpenShiftJsonConstants;
  */
 public class DomainRequestJsonMarshaller extends AbstractJsonMarshaller<AbstractDomainRequest> {
 
-	protected void setJsonDataProperties(ModelNode node, AbstractDomainRequest request) throws OpenShiftException {
-		node.get(IOpenShiftJsonConstants.PROPERTY_NAMESPACE).set(request.getName());
-		node.get(IOpenShiftJsonConstants.PROPERTY_ALTER).set(String.valueOf(request.isAlter()));
-		node.get(IOpenShiftJsonConstants.PROPERTY_SSH).set(request.getSshKey().getPublicKey());
-		node.get(IOpenShiftJsonConstants.PROPERTY_KEY_TYPE).set(request.getSshKey().getKeyType().getTypeId());
-		node.get(IOpenShiftJsonConstants.PROPERTY_DELETE).set(String.valueOf(request.isDelete()));
+	protected void setJsonDataProperties(IJsonPropertyWriter writer, AbstractDomainRequest request)
+			throws OpenShiftException, IOException {
+		writer.writeProperty(IOpenShiftJsonConstants.PROPERTY_NAMESPACE, request.getName());
+		writer.writeProperty(IOpenShiftJsonConstants.PROPERTY_ALTER, String.valueOf(request.isAlter()));
+		writer.writeProperty(IOpenShiftJsonConstants.PROPERTY_SSH, request.getSshKey().getPublicKey());
+		writer.writeProperty(IOpenShiftJsonConstants.PROPERTY_KEY_TYPE, request.getSshKey().getKeyType().getTypeId());
+		writer.writeProperty(IOpenShiftJsonConstants.PROPERTY_DELETE, String.valueOf(request.isDelete()));
 	}
 }
@@ -10,8 +10,10 @@
  ******************************************************************************/ 
 package com.openshift.express.internal.client.request.marshalling;
 
-import org.jboss.dmr.ModelNode;
+import java.io.IOException;
+
 import com.openshift.express.client.IEmbeddableCartridge;
+import com.openshift.express.client.json.IJsonPropertyWriter;
 import com.openshift.express.internal.client.request.EmbedRequest;
 import com.openshift.express.internal.client.utils.IOpenShiftJsonConstants;
 
@@ -20,10 +22,10 @@ import com.openshift.express.internal.client.utils.IOpenShiftJsonConstants;
  */
 public class EmbedRequestJsonMarshaller extends AbstractJsonMarshaller<EmbedRequest> {
 
-	protected void setJsonDataProperties(ModelNode node, EmbedRequest request) {
-		setStringProperty(IOpenShiftJsonConstants.PROPERTY_CARTRIDGE, getCartridgeName(request.getEmbeddableCartridge()), node);
-		setStringProperty(IOpenShiftJsonConstants.PROPERTY_ACTION, request.getAction().getCommand(), node);
-		setStringProperty(IOpenShiftJsonConstants.PROPERTY_APP_NAME, request.getName(), node);
+	protected void setJsonDataProperties(IJsonPropertyWriter writer, EmbedRequest request) throws IOException {
+		setStringProperty(IOpenShiftJsonConstants.PROPERTY_CARTRIDGE, getCartridgeName(request.getEmbeddableCartridge()), writer);
+		setStringProperty(IOpenShiftJsonConstants.PROPERTY_ACTION, request.getAction().getCommand(), writer);
+		setStringProperty(IOpenShiftJsonConstants.PROPERTY_APP_NAME, request.getName(), writer);
 	}
 
 	private String getCartridgeName(IEmbeddableCartridge cartridge) {
@@ -10,7 +10,9 @@
  ******************************************************************************/ 
 package com.openshift.express.internal.client.request.marshalling;
 
-import org.jboss.dmr.ModelNode;
+import java.io.IOException;
+
+import com.openshift.express.client.json.IJsonPropertyWriter;
 import com.openshift.express.internal.client.request.ListCartridgesRequest;
 import com.openshift.express.internal.client.utils.IOpenShiftJsonConstants;
 
@@ -19,7 +21,7 @@ import com.openshift.express.internal.client.utils.IOpenShiftJsonConstants;
  */
 public class ListCartridgesRequestJsonMarshaller extends AbstractJsonMarshaller<ListCartridgesRequest> {
 
-	protected void setJsonDataProperties(ModelNode node, ListCartridgesRequest request) {
-		setStringProperty(IOpenShiftJsonConstants.PROPERTY_CART_TYPE, request.getCartType().toString(), node);
+	protected void setJsonDataProperties(IJsonPropertyWriter writer, ListCartridgesRequest request) throws IOException {
+		setStringProperty(IOpenShiftJsonConstants.PROPERTY_CART_TYPE, request.getCartType().toString(), writer);
 	}
 }
@@ -12,8 +12,7 @@ package com.openshift.express.internal.client.response.unmarshalling;
 
 import java.util.List;
 
-import org.jboss.dmr.ModelNode;
-
+import com.openshift.express.client.json.IJsonNode;
 import com.openshift.express.internal.client.utils.IOpenShiftJsonConstants;
 
 /**
@@ -21,20 +20,20 @@ import com.openshift.express.internal.client.utils.IOpenShiftJsonConstants;
  */
 public abstract class AbstractListCartridgesResponseUnmarshaller<CARTRIDGE> extends AbstractOpenShiftJsonResponseUnmarshaller<List<CARTRIDGE>> {
 
-	protected List<CARTRIDGE> createCartridgeList(ModelNode responseNode, List<CARTRIDGE> cartridges) {
-		ModelNode dataNode = responseNode.get(IOpenShiftJsonConstants.PROPERTY_DATA);
+	protected List<CARTRIDGE> createCartridgeList(IJsonNode responseNode, List<CARTRIDGE> cartridges) {
+		IJsonNode dataNode = responseNode.get(IOpenShiftJsonConstants.PROPERTY_DATA);
 		if (dataNode == null) {
 			return cartridges;
 		}
-		ModelNode cartridgesNode = dataNode.get(IOpenShiftJsonConstants.PROPERTY_CARTS);
+		IJsonNode cartridgesNode = dataNode.get(IOpenShiftJsonConstants.PROPERTY_CARTS);
 		if (cartridgesNode == null) {
 			return cartridges;
 		}
-		for (ModelNode cartridgeNode : cartridgesNode.asList()) {
+		for (IJsonNode cartridgeNode : cartridgesNode.asList()) {
 			cartridges.add(createCartridge(cartridgeNode));
 		}
 		return cartridges;
 	}
 
-	protected abstract CARTRIDGE createCartridge(ModelNode cartridgeNode);
+	protected abstract CARTRIDGE createCartridge(IJsonNode cartridgeNode);
 }
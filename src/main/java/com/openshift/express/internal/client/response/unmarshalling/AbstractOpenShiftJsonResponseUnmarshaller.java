@@ -10,16 +10,18 @@
  ******************************************************************************/
 package com.openshift.express.internal.client.response.unmarshalling;
 
+import java.nio.ByteBuffer;
 import java.util.Date;
 
 import javax.xml.datatype.DatatypeConfigurationException;
 
-import org.jboss.dmr.ModelNode;
-import org.jboss.dmr.ModelType;
-
 import com.openshift.express.client.OpenShiftException;
+import com.openshift.express.client.json.IJsonCodec;
+import com.openshift.express.client.json.IJsonNode;
+import com.openshift.express.client.json.StreamingJsonCodec;
 import com.openshift.express.client.utils.RFC822DateUtils;
 import com.openshift.express.internal.client.response.OpenShiftResponse;
+import com.openshift.express.internal.client.utils.IOUtils;
 import com.openshift.express.internal.client.utils.IOpenShiftJsonConstants;
 import com.openshift.express.internal.client.utils.StringUtils;
 
@@ -29,16 +31,34 @@ import com.openshift.express.internal.client.utils.StringUtils;
 public abstract class AbstractOpenShiftJsonResponseUnmarshaller<OPENSHIFTOBJECT> {
 
 	private String response;
+	private boolean retainMessages = true;
+	private IJsonCodec codec = StreamingJsonCodec.INSTANCE;
+
+	/**
+	 * Sets whether the messages of the broker are kept in the response. They
+	 * are retained by default.
+	 * 
+	 * @param retainMessages
+	 *            <code>false</code> to drop the messages
+	 */
+	public void setRetainMessages(boolean retainMessages) {
+		this.retainMessages = retainMessages;
+	}
+
+	/**
+	 * Sets the codec that parses the responses. The
+	 * {@link StreamingJsonCodec} is used by default.
+	 * 
+	 * @param codec
+	 *            the codec to use
+	 */
+	public void setJsonCodec(IJsonCodec codec) {
+		this.codec = codec;
+	}
 
 	public OpenShiftResponse<OPENSHIFTOBJECT> unmarshall(String response) throws OpenShiftException {
 		try {
-			ModelNode node = ModelNode.fromJSONString(response);
-			boolean debug = node.get(IOpenShiftJsonConstants.PROPERTY_DEBUG).asBoolean();
-			String messages = getString(IOpenShiftJsonConstants.PROPERTY_MESSAGES, node);
-			String result = getString(IOpenShiftJsonConstants.PROPERTY_RESULT, node);
-			int exitCode = node.get(IOpenShiftJsonConstants.PROPERTY_EXIT_CODE).asInt();
-			OPENSHIFTOBJECT openshiftObject = createOpenShiftObject(node);
-			return new OpenShiftResponse<OPENSHIFTOBJECT>(debug, messages, result, openshiftObject, exitCode);
+			return createResponse(codec.parse(response));
 		} catch (IllegalArgumentException e) {
 			throw new OpenShiftException(e, "Could not parse response \"{0}\"", response);
 		} catch (Exception e) {
@@ -46,14 +66,71 @@ public abstract class AbstractOpenShiftJsonResponseUnmarshaller<OPENSHIFTOBJECT>
 		}
 	}
 
-	protected abstract OPENSHIFTOBJECT createOpenShiftObject(ModelNode responseNode) throws Exception;
+	/**
+	 * Unmarshalls the given UTF-8 encoded response. The codec is told to skip
+	 * the debug output and the messages that are not retained. Quoted json
+	 * objects are parsed as objects so that the response does not need to be
+	 * sanitized. Responses that the codec cannot parse are decoded, sanitized
+	 * and unmarshalled as string.
+	 * 
+	 * @param response
+	 *            the bytes of the response
+	 * @param offset
+	 *            the offset of the first byte
+	 * @param length
+	 *            the number of bytes
+	 * @return the unmarshalled response
+	 * @throws OpenShiftException
+	 * 
+	 * @see IJsonCodec#parse(byte[], int, int, String...)
+	 * @see #setRetainMessages(boolean)
+	 */
+	public OpenShiftResponse<OPENSHIFTOBJECT> unmarshall(byte[] response, int offset, int length)
+			throws OpenShiftException {
+		IJsonNode node = null;
+		try {
+			if (retainMessages) {
+				node = codec.parse(response, offset, length, IOpenShiftJsonConstants.PROPERTY_DEBUG);
+			} else {
+				node = codec.parse(response, offset, length,
+						IOpenShiftJsonConstants.PROPERTY_DEBUG, IOpenShiftJsonConstants.PROPERTY_MESSAGES);
+			}
+		} catch (IllegalArgumentException e) {
+			// mangled quoting that only the sanitizer corrects
+			return unmarshall(JsonSanitizer.sanitize(toString(response, offset, length)));
+		}
+		try {
+			return createResponse(node);
+		} catch (Exception e) {
+			throw new OpenShiftException(e, "Could not unmarshall response \"{0}\": {1}",
+					toString(response, offset, length), e.getMessage());
+		}
+	}
+
+	private OpenShiftResponse<OPENSHIFTOBJECT> createResponse(IJsonNode node) throws Exception {
+		boolean debug = node.get(IOpenShiftJsonConstants.PROPERTY_DEBUG).asBoolean();
+		String messages = null;
+		if (retainMessages) {
+			messages = getString(IOpenShiftJsonConstants.PROPERTY_MESSAGES, node);
+		}
+		String result = getString(IOpenShiftJsonConstants.PROPERTY_RESULT, node);
+		int exitCode = node.get(IOpenShiftJsonConstants.PROPERTY_EXIT_CODE).asInt();
+		OPENSHIFTOBJECT openshiftObject = createOpenShiftObject(node);
+		return new OpenShiftResponse<OPENSHIFTOBJECT>(debug, messages, result, openshiftObject, exitCode);
+	}
+
+	private String toString(byte[] response, int offset, int length) {
+		return IOUtils.UTF8.decode(ByteBuffer.wrap(response, offset, length)).toString();
+	}
+
+	protected abstract OPENSHIFTOBJECT createOpenShiftObject(IJsonNode responseNode) throws Exception;
 
 	protected String getResponse() {
 		return response;
 	}
 
-	protected String getDataNodeProperty(String property, ModelNode node) {
-		ModelNode dataNode = getChild(IOpenShiftJsonConstants.PROPERTY_DATA, node);
+	protected String getDataNodeProperty(String property, IJsonNode node) {
+		IJsonNode dataNode = getChild(IOpenShiftJsonConstants.PROPERTY_DATA, node);
 		if (dataNode == null) {
 			return null;
 		}
@@ -61,15 +138,15 @@ public abstract class AbstractOpenShiftJsonResponseUnmarshaller<OPENSHIFTOBJECT>
 		return getString(property, dataNode);
 	}
 
-	protected String getString(String property, ModelNode node) {
-		ModelNode child = getChild(property, node);
+	protected String getString(String property, IJsonNode node) {
+		IJsonNode child = getChild(property, node);
 		if (child == null) {
 			return null;
 		}
 		return child.asString();
 	}
 
-	protected String getNonEmptyString(String property, ModelNode node) {
+	protected String getNonEmptyString(String property, IJsonNode node) {
 		String value = getString(property, node);
 		if (StringUtils.isEmpty(value)) {
 			return null;
@@ -77,11 +154,11 @@ public abstract class AbstractOpenShiftJsonResponseUnmarshaller<OPENSHIFTOBJECT>
 		return value;
 	}
 
-	protected ModelNode getChild(String property, ModelNode node) {
+	protected IJsonNode getChild(String property, IJsonNode node) {
 		if (!(hasProperty(property, node))) {
 			return null;
 		}
-		ModelNode propertyNode = node.get(property);
+		IJsonNode propertyNode = node.get(property);
 		if (!isSet(propertyNode)) {
 			// replace "undefined" by null
 			return null;
@@ -90,25 +167,25 @@ public abstract class AbstractOpenShiftJsonResponseUnmarshaller<OPENSHIFTOBJECT>
 	}
 
 	
-	protected boolean hasProperty(String property, ModelNode node) {
+	protected boolean hasProperty(String property, IJsonNode node) {
 		if (!isSet(node)) {
 			return false;
 		}
 		return node.hasDefined(property);
 	}
 	
-	protected boolean isSet(ModelNode node) {
+	protected boolean isSet(IJsonNode node) {
 		return node != null
-				&& node.getType() != ModelType.UNDEFINED;
+				&& node.isDefined();
 	}
 
-	protected Date getDate(String property, ModelNode node) throws DatatypeConfigurationException {
-		ModelNode propertyNode = node.get(property);
+	protected Date getDate(String property, IJsonNode node) throws DatatypeConfigurationException {
+		IJsonNode propertyNode = node.get(property);
 		return RFC822DateUtils.getDate(propertyNode.asString());
 	}
 
-	protected long getLong(String property, ModelNode node) {
-		ModelNode propertyNode = node.get(property);
+	protected long getLong(String property, IJsonNode node) {
+		IJsonNode propertyNode = node.get(property);
 		return propertyNode.asLong(-1);
 	}
 }
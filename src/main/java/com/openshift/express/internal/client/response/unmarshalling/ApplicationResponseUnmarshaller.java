@@ -10,8 +10,6 @@
  ******************************************************************************/
 package com.openshift.express.internal.client.response.unmarshalling;
 
-import org.jboss.dmr.ModelNode;
-
 import com.openshift.express.client.HAProxyCartridge;
 import com.openshift.express.client.IApplication;
 import com.openshift.express.client.ICartridge;
@@ -25,6 +23,7 @@ import com.openshift.express.client.PerlCartridge;
 import com.openshift.express.client.PythonCartridge;
 import com.openshift.express.client.RawCartridge;
 import com.openshift.express.client.RubyCartridge;
+import com.openshift.express.client.json.IJsonNode;
 import com.openshift.express.internal.client.Application;
 import com.openshift.express.internal.client.HAProxyApplication;
 import com.openshift.express.internal.client.InternalUser;
@@ -56,7 +55,7 @@ public class ApplicationResponseUnmarshaller extends AbstractOpenShiftJsonRespon
 		this.service = service;
 	}
 
-	protected IApplication createOpenShiftObject(ModelNode node) {
+	protected IApplication createOpenShiftObject(IJsonNode node) {
 		String creationLog = getString(IOpenShiftJsonConstants.PROPERTY_RESULT, node);
 		String healthCheckPath = getDataNodeProperty(IOpenShiftJsonConstants.PROPERTY_HEALTH_CHECK_PATH, node);
 		String uuid = getDataNodeProperty(IOpenShiftJsonConstants.PROPERTY_UUID, node);
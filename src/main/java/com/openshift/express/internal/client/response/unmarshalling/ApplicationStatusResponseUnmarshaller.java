@@ -10,8 +10,7 @@
  ******************************************************************************/
 package com.openshift.express.internal.client.response.unmarshalling;
 
-import org.jboss.dmr.ModelNode;
-
+import com.openshift.express.client.json.IJsonNode;
 import com.openshift.express.internal.client.utils.IOpenShiftJsonConstants;
 
 
@@ -20,8 +19,8 @@ import com.openshift.express.internal.client.utils.IOpenShiftJsonConstants;
  */
 public class ApplicationStatusResponseUnmarshaller extends AbstractOpenShiftJsonResponseUnmarshaller<String> {
 
-	protected String createOpenShiftObject(ModelNode responseNode) {
-		ModelNode resultNode = responseNode.get(IOpenShiftJsonConstants.PROPERTY_RESULT);
+	protected String createOpenShiftObject(IJsonNode responseNode) {
+		IJsonNode resultNode = responseNode.get(IOpenShiftJsonConstants.PROPERTY_RESULT);
 		return resultNode.asString();
 	}
 
@@ -10,11 +10,10 @@
  ******************************************************************************/
 package com.openshift.express.internal.client.response.unmarshalling;
 
-import org.jboss.dmr.ModelNode;
-
 import com.openshift.express.client.IDomain;
 import com.openshift.express.client.IOpenShiftService;
 import com.openshift.express.client.IUser;
+import com.openshift.express.client.json.IJsonNode;
 import com.openshift.express.internal.client.Domain;
 import com.openshift.express.internal.client.InternalUser;
 
@@ -33,7 +32,7 @@ public class DomainResponseUnmarshaller extends AbstractOpenShiftJsonResponseUnm
 		this.service = service;
 	}
 
-	protected IDomain createOpenShiftObject(final ModelNode node) {
+	protected IDomain createOpenShiftObject(final IJsonNode node) {
 		return new Domain(domainName, user, service);
 	}
 }
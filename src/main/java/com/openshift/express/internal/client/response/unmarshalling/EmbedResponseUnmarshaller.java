@@ -10,10 +10,9 @@
  ******************************************************************************/
 package com.openshift.express.internal.client.response.unmarshalling;
 
-import org.jboss.dmr.ModelNode;
-
 import com.openshift.express.client.IEmbeddableCartridge;
 import com.openshift.express.client.OpenShiftException;
+import com.openshift.express.client.json.IJsonNode;
 import com.openshift.express.internal.client.utils.IOpenShiftJsonConstants;
 
 /**
@@ -27,7 +26,7 @@ public class EmbedResponseUnmarshaller extends AbstractOpenShiftJsonResponseUnma
 		this.embeddedCartridge = embeddedCartridge;
 	}
 
-	protected IEmbeddableCartridge createOpenShiftObject(ModelNode node) throws OpenShiftException {
+	protected IEmbeddableCartridge createOpenShiftObject(IJsonNode node) throws OpenShiftException {
 		embeddedCartridge.setCreationLog(getString(IOpenShiftJsonConstants.PROPERTY_RESULT, node));
 		return embeddedCartridge;
 	}
@@ -0,0 +1,343 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.response.unmarshalling;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.openshift.express.client.json.IJsonNode;
+import com.openshift.express.internal.client.utils.IOUtils;
+
+/**
+ * A node that the {@link JsonByteParser} creates. Strings and numbers are
+ * slices of the parsed bytes that are only decoded when they're read, names
+ * of properties are compared to the bytes, too. The parser validated the
+ * slices, decoding them does not fail.
+ * 
+ * @author Daniel Brenner
+ */
+class JsonByteNode implements IJsonNode {
+
+	private static final int TYPE_UNDEFINED = 0;
+	private static final int TYPE_OBJECT = 1;
+	private static final int TYPE_LIST = 2;
+	private static final int TYPE_STRING = 3;
+	private static final int TYPE_NUMBER = 4;
+	private static final int TYPE_BOOLEAN = 5;
+
+	/** long values with less digits cannot overflow */
+	private static final int MAX_LONG_DIGITS = 18;
+
+	static final JsonByteNode UNDEFINED = new JsonByteNode(TYPE_UNDEFINED, null, 0, 0, true);
+	static final JsonByteNode TRUE = new JsonByteNode(TYPE_BOOLEAN, null, 0, 0, true);
+	static final JsonByteNode FALSE = new JsonByteNode(TYPE_BOOLEAN, null, 0, 0, true);
+	static final JsonByteNode EMPTY_STRING = new JsonByteNode(TYPE_STRING, new byte[0], 0, 0, true);
+
+	private final int type;
+	private final byte[] bytes;
+	private final int start;
+	private int end;
+	/** ascii without escape sequences, a char per byte */
+	private final boolean plain;
+	private List<JsonByteNode> names;
+	private List<JsonByteNode> values;
+	private String string;
+
+	private JsonByteNode(int type, byte[] bytes, int start, int end, boolean plain) {
+		this.type = type;
+		this.bytes = bytes;
+		this.start = start;
+		this.end = end;
+		this.plain = plain;
+	}
+
+	static JsonByteNode object(byte[] bytes, int start) {
+		JsonByteNode node = new JsonByteNode(TYPE_OBJECT, bytes, start, start, true);
+		node.names = new ArrayList<JsonByteNode>(8);
+		node.values = new ArrayList<JsonByteNode>(8);
+		return node;
+	}
+
+	static JsonByteNode list(byte[] bytes, int start) {
+		JsonByteNode node = new JsonByteNode(TYPE_LIST, bytes, start, start, true);
+		node.values = new ArrayList<JsonByteNode>(4);
+		return node;
+	}
+
+	/**
+	 * Creates a string whose json escaped, UTF-8 encoded content is between
+	 * the given positions.
+	 */
+	static JsonByteNode string(byte[] bytes, int start, int end, boolean plain) {
+		return new JsonByteNode(TYPE_STRING, bytes, start, end, plain);
+	}
+
+	static JsonByteNode number(byte[] bytes, int start, int end) {
+		return new JsonByteNode(TYPE_NUMBER, bytes, start, end, true);
+	}
+
+	void add(JsonByteNode name, JsonByteNode value) {
+		names.add(name);
+		values.add(value);
+	}
+
+	void add(JsonByteNode element) {
+		values.add(element);
+	}
+
+	/**
+	 * Sets the position behind the closing bracket of this object or list.
+	 */
+	void close(int end) {
+		this.end = end;
+	}
+
+	public boolean isDefined() {
+		return type != TYPE_UNDEFINED;
+	}
+
+	public boolean isObject() {
+		return type == TYPE_OBJECT;
+	}
+
+	public boolean isList() {
+		return type == TYPE_LIST;
+	}
+
+	public IJsonNode get(String name) {
+		if (type != TYPE_OBJECT) {
+			return UNDEFINED;
+		}
+		// the last of duplicate properties wins
+		for (int i = names.size() - 1; i >= 0; i--) {
+			if (names.get(i).matches(name)) {
+				return values.get(i);
+			}
+		}
+		return UNDEFINED;
+	}
+
+	public boolean hasDefined(String name) {
+		return get(name).isDefined();
+	}
+
+	public Set<String> keys() {
+		if (type != TYPE_OBJECT) {
+			return Collections.emptySet();
+		}
+		Set<String> keys = new LinkedHashSet<String>(names.size() * 2);
+		for (JsonByteNode name : names) {
+			keys.add(name.asString());
+		}
+		return Collections.unmodifiableSet(keys);
+	}
+
+	public List<IJsonNode> asList() {
+		if (type != TYPE_LIST) {
+			return Collections.emptyList();
+		}
+		return Collections.<IJsonNode> unmodifiableList(values);
+	}
+
+	public String asString() {
+		switch (type) {
+		case TYPE_UNDEFINED:
+			return null;
+		case TYPE_BOOLEAN:
+			return this == TRUE ? "true" : "false";
+		case TYPE_STRING:
+			if (string == null) {
+				// racing threads decode the same string
+				this.string = plain ? ascii() : decode();
+			}
+			return string;
+		case TYPE_NUMBER:
+			return ascii();
+		default:
+			return IOUtils.UTF8.decode(ByteBuffer.wrap(bytes, start, end - start)).toString();
+		}
+	}
+
+	public boolean asBoolean() {
+		switch (type) {
+		case TYPE_BOOLEAN:
+			return this == TRUE;
+		case TYPE_STRING:
+			return Boolean.parseBoolean(asString());
+		case TYPE_NUMBER:
+			return asLong() != 0;
+		default:
+			return false;
+		}
+	}
+
+	public int asInt() throws IllegalArgumentException {
+		return (int) asLong();
+	}
+
+	public long asLong() throws IllegalArgumentException {
+		switch (type) {
+		case TYPE_NUMBER:
+			return parseLong();
+		case TYPE_STRING:
+			return Long.parseLong(asString());
+		default:
+			throw new IllegalArgumentException("Not a number: " + asString());
+		}
+	}
+
+	public long asLong(long defaultValue) {
+		try {
+			return asLong();
+		} catch (IllegalArgumentException e) {
+			return defaultValue;
+		}
+	}
+
+	public String toString() {
+		return String.valueOf(asString());
+	}
+
+	/**
+	 * Returns <code>true</code> if this string equals the given one. Plain
+	 * strings are compared to the bytes, without being decoded.
+	 */
+	private boolean matches(String value) {
+		if (!plain) {
+			return value.equals(asString());
+		}
+		if (value.length() != end - start) {
+			return false;
+		}
+		for (int i = 0; i < value.length(); i++) {
+			if (value.charAt(i) != bytes[start + i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns <code>true</code> if this string is the given ascii.
+	 */
+	boolean matches(byte[] ascii) {
+		if (!plain
+				|| ascii.length != end - start) {
+			return false;
+		}
+		for (int i = 0; i < ascii.length; i++) {
+			if (ascii[i] != bytes[start + i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private long parseLong() {
+		boolean negative = bytes[start] == '-';
+		int digits = end - start - (negative ? 1 : 0);
+		if (digits > MAX_LONG_DIGITS) {
+			return new BigDecimal(ascii()).longValue();
+		}
+		long value = 0;
+		for (int i = negative ? start + 1 : start; i < end; i++) {
+			if (bytes[i] < '0' || bytes[i] > '9') {
+				// fraction or exponent
+				return new BigDecimal(ascii()).longValue();
+			}
+			value = value * 10 + (bytes[i] - '0');
+		}
+		return negative ? -value : value;
+	}
+
+	private String ascii() {
+		char[] chars = new char[end - start];
+		for (int i = 0; i < chars.length; i++) {
+			chars[i] = (char) bytes[start + i];
+		}
+		return new String(chars);
+	}
+
+	/**
+	 * Decodes the UTF-8 encoded, json escaped content of this string.
+	 */
+	private String decode() {
+		char[] chars = new char[end - start];
+		int length = 0;
+		for (int i = start; i < end;) {
+			int current = bytes[i] & 0xff;
+			if (current == '\\') {
+				current = bytes[i + 1] & 0xff;
+				if (current == 'u') {
+					chars[length++] = (char) parseHex(i + 2);
+					i += 6;
+				} else {
+					chars[length++] = unescape(current);
+					i += 2;
+				}
+			} else if (current < 0x80) {
+				chars[length++] = (char) current;
+				i++;
+			} else if (current < 0xe0) {
+				chars[length++] = (char) (((current & 0x1f) << 6) | continuation(i + 1));
+				i += 2;
+			} else if (current < 0xf0) {
+				chars[length++] = (char) (((current & 0x0f) << 12)
+						| (continuation(i + 1) << 6)
+						| continuation(i + 2));
+				i += 3;
+			} else {
+				int codePoint = ((current & 0x07) << 18)
+						| (continuation(i + 1) << 12)
+						| (continuation(i + 2) << 6)
+						| continuation(i + 3);
+				length += Character.toChars(codePoint, chars, length);
+				i += 4;
+			}
+		}
+		return new String(chars, 0, length);
+	}
+
+	private int continuation(int index) {
+		return bytes[index] & 0x3f;
+	}
+
+	private int parseHex(int start) {
+		int value = 0;
+		for (int i = start; i < start + 4; i++) {
+			value = (value << 4) | Character.digit(bytes[i], 16);
+		}
+		return value;
+	}
+
+	static char unescape(int character) {
+		switch (character) {
+		case 'n':
+			return '\n';
+		case 'r':
+			return '\r';
+		case 't':
+			return '\t';
+		case 'b':
+			return '\b';
+		case 'f':
+			return '\f';
+		default:
+			// '"', '\\' and '/'
+			return (char) character;
+		}
+	}
+}
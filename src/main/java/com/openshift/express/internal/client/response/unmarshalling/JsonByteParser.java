@@ -0,0 +1,464 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.response.unmarshalling;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.openshift.express.client.json.IJsonNode;
+import com.openshift.express.internal.client.utils.IOpenShiftJsonConstants;
+
+/**
+ * Parses UTF-8 encoded json straight from bytes, without decoding the
+ * document to a String first. The nodes that it creates keep strings and
+ * numbers as slices of the bytes: a String is only created for the values
+ * that the unmarshallers read, names of properties are compared to the
+ * bytes. The values of {@link #skip(String) skipped} top level properties
+ * are stepped over and read as empty strings.
+ * <p>
+ * The whole document is validated while it's parsed, reading the nodes
+ * does not fail. The nodes refer to the given bytes, which must not be
+ * altered while they are read.
+ * <p>
+ * A json object that the broker erroneously sends as a quoted string in the
+ * data property is parsed as object (see {@link JsonSanitizer}).
+ * <p>
+ * Instances parse a single document and are not thread safe.
+ * 
+ * @author Daniel Brenner
+ */
+public class JsonByteParser {
+
+	private static final byte[] PROPERTY_DATA = ascii(IOpenShiftJsonConstants.PROPERTY_DATA);
+
+	private final byte[] bytes;
+	private final int end;
+	private int position;
+	private final List<byte[]> skippedProperties = new ArrayList<byte[]>(2);
+	/** whether the last string that was stepped over is plain ascii */
+	private boolean plainString;
+
+	public JsonByteParser(byte[] bytes) {
+		this(bytes, 0, bytes.length);
+	}
+
+	public JsonByteParser(byte[] bytes, int offset, int length) {
+		this.bytes = bytes;
+		this.position = offset;
+		this.end = offset + length;
+	}
+
+	/**
+	 * Steps over the value of the given top level property. String values
+	 * are read as empty strings, other values are parsed.
+	 * 
+	 * @param property
+	 *            the (ascii) name of the property to skip
+	 * @return this parser
+	 */
+	public JsonByteParser skip(String property) {
+		skippedProperties.add(ascii(property));
+		return this;
+	}
+
+	/**
+	 * Parses the json document.
+	 * 
+	 * @return the parsed document
+	 * @throws IllegalArgumentException
+	 *             if the bytes are no valid json
+	 */
+	public IJsonNode parse() throws IllegalArgumentException {
+		return parseDocument();
+	}
+
+	private JsonByteNode parseDocument() {
+		JsonByteNode node = parseValue(true);
+		skipWhitespace();
+		if (position < end) {
+			throw invalid("Unexpected content after json document");
+		}
+		return node;
+	}
+
+	/**
+	 * Parses the value at the current position.
+	 */
+	private JsonByteNode parseValue(boolean topLevel) {
+		skipWhitespace();
+		if (position >= end) {
+			throw invalid("Unexpected end of json document");
+		}
+		byte current = bytes[position];
+		switch (current) {
+		case '{':
+			return parseObject(topLevel);
+		case '[':
+			return parseArray();
+		case '"':
+			return parseString();
+		case 't':
+			expectLiteral("true");
+			return JsonByteNode.TRUE;
+		case 'f':
+			expectLiteral("false");
+			return JsonByteNode.FALSE;
+		case 'n':
+			// null is undefined
+			expectLiteral("null");
+			return JsonByteNode.UNDEFINED;
+		default:
+			if (current == '-'
+					|| (current >= '0' && current <= '9')) {
+				return parseNumber();
+			} else {
+				throw invalid("Unexpected character");
+			}
+		}
+	}
+
+	private JsonByteNode parseObject(boolean topLevel) {
+		JsonByteNode node = JsonByteNode.object(bytes, position);
+		position++;
+		skipWhitespace();
+		if (!consume('}')) {
+			do {
+				skipWhitespace();
+				expect('"');
+				JsonByteNode name = parseStringContent();
+				skipWhitespace();
+				expect(':');
+				if (topLevel
+						&& isSkipped(name)) {
+					node.add(name, skipValue());
+				} else if (topLevel
+						&& name.matches(PROPERTY_DATA)) {
+					node.add(name, parseData());
+				} else {
+					node.add(name, parseValue(false));
+				}
+				skipWhitespace();
+			} while (consume(','));
+			expect('}');
+		}
+		node.close(position);
+		return node;
+	}
+
+	private JsonByteNode parseArray() {
+		JsonByteNode node = JsonByteNode.list(bytes, position);
+		position++;
+		skipWhitespace();
+		if (!consume(']')) {
+			do {
+				node.add(parseValue(false));
+				skipWhitespace();
+			} while (consume(','));
+			expect(']');
+		}
+		node.close(position);
+		return node;
+	}
+
+	/**
+	 * Parses the data property. A quoted json object is parsed as object,
+	 * any other value as is.
+	 */
+	private JsonByteNode parseData() {
+		skipWhitespace();
+		if (position >= end
+				|| bytes[position] != '"') {
+			return parseValue(false);
+		}
+		position++;
+		int stringStart = position;
+		JsonByteNode string = parseStringContent();
+		int stringEnd = position - 1;
+		if (stringEnd - stringStart >= 2
+				&& bytes[stringStart] == '{'
+				&& bytes[stringEnd - 1] == '}') {
+			try {
+				return new JsonByteParser(unescape(stringStart, stringEnd)).parseDocument();
+			} catch (IllegalArgumentException e) {
+				// no json object, keep it as string
+			}
+		}
+		return string;
+	}
+
+	/**
+	 * Steps over the value at the current position. String values are
+	 * returned as empty strings, other values are parsed.
+	 */
+	private JsonByteNode skipValue() {
+		skipWhitespace();
+		if (position < end
+				&& bytes[position] == '"') {
+			position++;
+			skipString();
+			return JsonByteNode.EMPTY_STRING;
+		}
+		return parseValue(false);
+	}
+
+	/**
+	 * Parses the string at the current position (starting with its opening
+	 * quote).
+	 */
+	private JsonByteNode parseString() {
+		position++;
+		return parseStringContent();
+	}
+
+	/**
+	 * Parses the string whose content starts at the current position.
+	 */
+	private JsonByteNode parseStringContent() {
+		int start = position;
+		int stringEnd = skipString();
+		return JsonByteNode.string(bytes, start, stringEnd, plainString);
+	}
+
+	/**
+	 * Steps over and validates the string whose content starts at the current
+	 * position.
+	 * 
+	 * @return the position of the closing quote
+	 */
+	private int skipString() {
+		boolean plain = true;
+		while (position < end) {
+			int current = bytes[position] & 0xff;
+			if (current == '"') {
+				this.plainString = plain;
+				return position++;
+			} else if (current == '\\') {
+				plain = false;
+				skipEscapeSequence();
+			} else if (current < 0x80) {
+				position++;
+			} else {
+				plain = false;
+				skipUTF8Sequence(current);
+			}
+		}
+		throw invalid("Unterminated string");
+	}
+
+	private void skipEscapeSequence() {
+		if (position + 1 >= end) {
+			throw invalid("Unterminated string");
+		}
+		switch (bytes[position + 1]) {
+		case 'n':
+		case 'r':
+		case 't':
+		case 'b':
+		case 'f':
+		case '"':
+		case '\\':
+		case '/':
+			position += 2;
+			break;
+		case 'u':
+			parseHex(position + 2);
+			position += 6;
+			break;
+		default:
+			throw invalid("Invalid escape sequence");
+		}
+	}
+
+	private void skipUTF8Sequence(int first) {
+		int length;
+		if (first >= 0xc2 && first < 0xe0) {
+			length = 2;
+		} else if (first >= 0xe0 && first < 0xf0) {
+			length = 3;
+		} else if (first >= 0xf0 && first < 0xf5) {
+			length = 4;
+		} else {
+			throw invalid("Invalid UTF-8 sequence");
+		}
+		for (int i = position + 1; i < position + length; i++) {
+			if (i >= end
+					|| (bytes[i] & 0xc0) != 0x80) {
+				throw invalid("Invalid UTF-8 sequence");
+			}
+		}
+		position += length;
+	}
+
+	/**
+	 * Returns the UTF-8 encoded content of the json escaped string between
+	 * the given positions with its escape sequences resolved.
+	 */
+	private byte[] unescape(int start, int stringEnd) {
+		byte[] unescaped = new byte[stringEnd - start];
+		int length = 0;
+		for (int i = start; i < stringEnd;) {
+			byte current = bytes[i];
+			if (current != '\\') {
+				unescaped[length++] = current;
+				i++;
+			} else if (bytes[i + 1] == 'u') {
+				int codePoint = parseHex(i + 2);
+				i += 6;
+				if (Character.isHighSurrogate((char) codePoint)
+						&& i + 6 <= stringEnd
+						&& bytes[i] == '\\'
+						&& bytes[i + 1] == 'u') {
+					codePoint = Character.toCodePoint((char) codePoint, (char) parseHex(i + 2));
+					i += 6;
+				}
+				length = encodeUTF8(codePoint, unescaped, length);
+			} else {
+				unescaped[length++] = (byte) JsonByteNode.unescape(bytes[i + 1]);
+				i += 2;
+			}
+		}
+		byte[] content = new byte[length];
+		System.arraycopy(unescaped, 0, content, 0, length);
+		return content;
+	}
+
+	private int encodeUTF8(int codePoint, byte[] buffer, int offset) {
+		if (codePoint < 0x80) {
+			buffer[offset++] = (byte) codePoint;
+		} else if (codePoint < 0x800) {
+			buffer[offset++] = (byte) (0xc0 | (codePoint >> 6));
+			buffer[offset++] = (byte) (0x80 | (codePoint & 0x3f));
+		} else if (codePoint < 0x10000) {
+			buffer[offset++] = (byte) (0xe0 | (codePoint >> 12));
+			buffer[offset++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+			buffer[offset++] = (byte) (0x80 | (codePoint & 0x3f));
+		} else {
+			buffer[offset++] = (byte) (0xf0 | (codePoint >> 18));
+			buffer[offset++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+			buffer[offset++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+			buffer[offset++] = (byte) (0x80 | (codePoint & 0x3f));
+		}
+		return offset;
+	}
+
+	private int parseHex(int start) {
+		if (start + 4 > end) {
+			throw invalid("Invalid unicode escape sequence");
+		}
+		int value = 0;
+		for (int i = start; i < start + 4; i++) {
+			int digit = Character.digit(bytes[i], 16);
+			if (digit < 0) {
+				throw invalid("Invalid unicode escape sequence");
+			}
+			value = (value << 4) | digit;
+		}
+		return value;
+	}
+
+	/**
+	 * Steps over and validates the number at the current position.
+	 */
+	private JsonByteNode parseNumber() {
+		int start = position;
+		consume('-');
+		if (!consume('0')
+				&& skipDigits() == 0) {
+			throw invalid("Invalid number");
+		}
+		if (consume('.')
+				&& skipDigits() == 0) {
+			throw invalid("Invalid number");
+		}
+		if (consume('e')
+				|| consume('E')) {
+			if (!consume('+')) {
+				consume('-');
+			}
+			if (skipDigits() == 0) {
+				throw invalid("Invalid number");
+			}
+		}
+		return JsonByteNode.number(bytes, start, position);
+	}
+
+	private int skipDigits() {
+		int start = position;
+		while (position < end
+				&& bytes[position] >= '0'
+				&& bytes[position] <= '9') {
+			position++;
+		}
+		return position - start;
+	}
+
+	private boolean isSkipped(JsonByteNode name) {
+		for (byte[] skipped : skippedProperties) {
+			if (name.matches(skipped)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void expectLiteral(String literal) {
+		if (position + literal.length() > end) {
+			throw invalid("Unexpected end of json document");
+		}
+		for (int i = 0; i < literal.length(); i++) {
+			if (bytes[position + i] != literal.charAt(i)) {
+				throw invalid("Unexpected literal");
+			}
+		}
+		position += literal.length();
+	}
+
+	private void expect(char character) {
+		if (!consume(character)) {
+			throw invalid(MessageFormat.format("Expected ''{0}''", character));
+		}
+	}
+
+	private boolean consume(char character) {
+		if (position < end
+				&& bytes[position] == character) {
+			position++;
+			return true;
+		}
+		return false;
+	}
+
+	private void skipWhitespace() {
+		while (position < end) {
+			byte current = bytes[position];
+			if (current != ' '
+					&& current != '\n'
+					&& current != '\r'
+					&& current != '\t') {
+				return;
+			}
+			position++;
+		}
+	}
+
+	private static byte[] ascii(String value) {
+		byte[] bytes = new byte[value.length()];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = (byte) value.charAt(i);
+		}
+		return bytes;
+	}
+
+	private IllegalArgumentException invalid(String message) {
+		return new IllegalArgumentException(MessageFormat.format("{0} at position {1}", message, position));
+	}
+}
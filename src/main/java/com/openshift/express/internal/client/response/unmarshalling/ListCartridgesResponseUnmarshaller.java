@@ -13,21 +13,20 @@ package com.openshift.express.internal.client.response.unmarshalling;
 import java.util.ArrayList;
 import java.util.List;
 
-import org.jboss.dmr.ModelNode;
-
 import com.openshift.express.client.Cartridge;
 import com.openshift.express.client.ICartridge;
+import com.openshift.express.client.json.IJsonNode;
 
 /**
  * @author André Dietisheim
  */
 public class ListCartridgesResponseUnmarshaller extends AbstractListCartridgesResponseUnmarshaller<ICartridge> {
 
-	protected List<ICartridge> createOpenShiftObject(ModelNode responseNode) {
+	protected List<ICartridge> createOpenShiftObject(IJsonNode responseNode) {
 		return createCartridgeList(responseNode, new ArrayList<ICartridge>());
 	}
 
-	protected Cartridge createCartridge(ModelNode cartridgeNode) {
+	protected Cartridge createCartridge(IJsonNode cartridgeNode) {
 		String name = cartridgeNode.asString();
 		return new Cartridge(name);
 	}
@@ -13,9 +13,8 @@ package com.openshift.express.internal.client.response.unmarshalling;
 import java.util.ArrayList;
 import java.util.List;
 
-import org.jboss.dmr.ModelNode;
-
 import com.openshift.express.client.IEmbeddableCartridge;
+import com.openshift.express.client.json.IJsonNode;
 import com.openshift.express.internal.client.EmbeddableCartridge;
 
 /**
@@ -23,11 +22,11 @@ import com.openshift.express.internal.client.EmbeddableCartridge;
  */
 public class ListEmbeddableCartridgesResponseUnmarshaller extends AbstractListCartridgesResponseUnmarshaller<IEmbeddableCartridge> {
 
-	protected List<IEmbeddableCartridge> createOpenShiftObject(ModelNode responseNode) {
+	protected List<IEmbeddableCartridge> createOpenShiftObject(IJsonNode responseNode) {
 		return createCartridgeList(responseNode, new ArrayList<IEmbeddableCartridge>());
 	}
 
-	protected IEmbeddableCartridge createCartridge(ModelNode cartridgeNode) {
+	protected IEmbeddableCartridge createCartridge(IJsonNode cartridgeNode) {
 		String name = cartridgeNode.asString();
 		return new EmbeddableCartridge(name);
 	}
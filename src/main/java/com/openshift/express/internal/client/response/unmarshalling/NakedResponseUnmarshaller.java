@@ -10,16 +10,15 @@
  ******************************************************************************/
 package com.openshift.express.internal.client.response.unmarshalling;
 
-import org.jboss.dmr.ModelNode;
-
 import com.openshift.express.client.OpenShiftException;
+import com.openshift.express.client.json.IJsonNode;
 
 /**
  * @author André Dietisheim
  */
 public class NakedResponseUnmarshaller extends AbstractOpenShiftJsonResponseUnmarshaller<Object> {
 
-	protected Object createOpenShiftObject(ModelNode node) throws OpenShiftException {
+	protected Object createOpenShiftObject(IJsonNode node) throws OpenShiftException {
 		return null;
 	}
 }
@@ -19,11 +19,10 @@ import java.util.regex.Pattern;
 
 import javax.xml.datatype.DatatypeConfigurationException;
 
-import org.jboss.dmr.ModelNode;
-
 import com.openshift.express.client.Cartridge;
 import com.openshift.express.client.ICartridge;
 import com.openshift.express.client.OpenShiftUnknonwSSHKeyTypeException;
+import com.openshift.express.client.json.IJsonNode;
 import com.openshift.express.internal.client.ApplicationInfo;
 import com.openshift.express.internal.client.EmbeddableCartridgeInfo;
 import com.openshift.express.internal.client.UserInfo;
@@ -36,13 +35,13 @@ public class UserInfoResponseUnmarshaller extends AbstractOpenShiftJsonResponseU
 
 	private static final Pattern URL_REGEX = Pattern.compile(".*URL: (.+)");
 
-	protected UserInfo createOpenShiftObject(ModelNode node) throws DatatypeConfigurationException, OpenShiftUnknonwSSHKeyTypeException {
-		ModelNode dataNode = node.get(IOpenShiftJsonConstants.PROPERTY_DATA);
+	protected UserInfo createOpenShiftObject(IJsonNode node) throws DatatypeConfigurationException, OpenShiftUnknonwSSHKeyTypeException {
+		IJsonNode dataNode = node.get(IOpenShiftJsonConstants.PROPERTY_DATA);
 		if (!isSet(dataNode)) {
 			return null;
 		}
 
-		ModelNode userInfoNode = dataNode.get(IOpenShiftJsonConstants.PROPERTY_USER_INFO);
+		IJsonNode userInfoNode = dataNode.get(IOpenShiftJsonConstants.PROPERTY_USER_INFO);
 		if (!isSet(userInfoNode)) {
 			return null;
 		}
@@ -61,13 +60,13 @@ public class UserInfoResponseUnmarshaller extends AbstractOpenShiftJsonResponseU
 		return new UserInfo(rhlogin, uuid, keyProperties.sshPublicKey, rhcDomain, namespace, applicationInfos, keyProperties.sshKeyType, maxGears, consumedGears);
 	}
 	
-	private SSHKeyProperties getSSHKeyProperties(ModelNode userInfoNode) {
+	private SSHKeyProperties getSSHKeyProperties(IJsonNode userInfoNode) {
 		SSHKeyProperties keyProperties = new SSHKeyProperties();
 		if (hasSshKeyProperties(userInfoNode)) {
 			keyProperties.sshKeyType = getNonEmptyString(IOpenShiftJsonConstants.PROPERTY_SSH_TYPE, userInfoNode);
 			keyProperties.sshPublicKey = getNonEmptyString(IOpenShiftJsonConstants.PROPERTY_SSH_KEY, userInfoNode);
 		} else {
-			ModelNode sshKeyNode = getFirstKeyOfSeveral(userInfoNode);
+			IJsonNode sshKeyNode = getFirstKeyOfSeveral(userInfoNode);
 			if (isSet(sshKeyNode)) {
 				keyProperties.sshKeyType = getNonEmptyString(IOpenShiftJsonConstants.PROPERTY_TYPE, sshKeyNode);
 				keyProperties.sshPublicKey = getNonEmptyString(IOpenShiftJsonConstants.PROPERTY_KEY, sshKeyNode);
@@ -77,13 +76,13 @@ public class UserInfoResponseUnmarshaller extends AbstractOpenShiftJsonResponseU
 		return keyProperties;
 	}
 
-	private boolean hasSshKeyProperties(ModelNode userInfoNode) {
+	private boolean hasSshKeyProperties(IJsonNode userInfoNode) {
 		return getNonEmptyString(IOpenShiftJsonConstants.PROPERTY_SSH_TYPE, userInfoNode) != null;
 	}
 	
-	private ModelNode getFirstKeyOfSeveral(ModelNode userInfoNode) {
-		ModelNode sshKeyNode = null;
-		ModelNode sshKeysNode = getChild(IOpenShiftJsonConstants.PROPERTY_SSH_KEYS, userInfoNode);
+	private IJsonNode getFirstKeyOfSeveral(IJsonNode userInfoNode) {
+		IJsonNode sshKeyNode = null;
+		IJsonNode sshKeysNode = getChild(IOpenShiftJsonConstants.PROPERTY_SSH_KEYS, userInfoNode);
 		if (sshKeysNode != null) {
 			Set<String> keys = sshKeysNode.keys();
 			if (!keys.isEmpty()) {
@@ -94,7 +93,7 @@ public class UserInfoResponseUnmarshaller extends AbstractOpenShiftJsonResponseU
 		return sshKeyNode;
 	}
 
-	private List<ApplicationInfo> createApplicationInfos(ModelNode appInfoNode) throws DatatypeConfigurationException {
+	private List<ApplicationInfo> createApplicationInfos(IJsonNode appInfoNode) throws DatatypeConfigurationException {
 		List<ApplicationInfo> applicationInfos = new ArrayList<ApplicationInfo>();
 		if (!isSet(appInfoNode)) {
 			return applicationInfos;
@@ -106,7 +105,7 @@ public class UserInfoResponseUnmarshaller extends AbstractOpenShiftJsonResponseU
 		return applicationInfos;
 	}
 
-	private ApplicationInfo createApplicationInfo(String name, ModelNode appNode) throws DatatypeConfigurationException {
+	private ApplicationInfo createApplicationInfo(String name, IJsonNode appNode) throws DatatypeConfigurationException {
 		String uuid = getString(IOpenShiftJsonConstants.PROPERTY_UUID, appNode);
 		List<EmbeddableCartridgeInfo> embeddedCartridges = createEmbeddedCartridges(appNode);
 		ICartridge cartidge = new Cartridge(getString(IOpenShiftJsonConstants.PROPERTY_FRAMEWORK, appNode));
@@ -114,9 +113,9 @@ public class UserInfoResponseUnmarshaller extends AbstractOpenShiftJsonResponseU
 		return new ApplicationInfo(name, uuid, embeddedCartridges, cartidge, creationTime);
 	}
 
-	protected List<EmbeddableCartridgeInfo> createEmbeddedCartridges(ModelNode appNode) {
+	protected List<EmbeddableCartridgeInfo> createEmbeddedCartridges(IJsonNode appNode) {
 		List<EmbeddableCartridgeInfo> cartridges = new ArrayList<EmbeddableCartridgeInfo>();
-		ModelNode embeddedCartridgesNode = appNode.get(IOpenShiftJsonConstants.PROPERTY_EMBEDDED);
+		IJsonNode embeddedCartridgesNode = appNode.get(IOpenShiftJsonConstants.PROPERTY_EMBEDDED);
 		if (!isSet(embeddedCartridgesNode)) {
 			return cartridges;
 		}
@@ -126,7 +125,7 @@ public class UserInfoResponseUnmarshaller extends AbstractOpenShiftJsonResponseU
 		return cartridges;
 	}
 
-	private EmbeddableCartridgeInfo createEmbeddedCartridgeInfo(String name, ModelNode embeddedCartridgeNode) {
+	private EmbeddableCartridgeInfo createEmbeddedCartridgeInfo(String name, IJsonNode embeddedCartridgeNode) {
 		String infoPropertyValue = getString(IOpenShiftJsonConstants.PROPERTY_INFO, embeddedCartridgeNode);
 		return new EmbeddableCartridgeInfo(name, getUrl(infoPropertyValue));
 	}
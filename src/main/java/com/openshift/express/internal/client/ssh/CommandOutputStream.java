@@ -0,0 +1,76 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.ssh;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.CharBuffer;
+
+import com.openshift.express.client.ICommandOutputListener;
+import com.openshift.express.internal.client.utils.CharsetStreamDecoder;
+
+/**
+ * An output stream that jsch writes the remote output to. Decodes the bytes as
+ * they arrive and hands the characters to a listener.
+ * 
+ * @author Daniel Brenner
+ */
+class CommandOutputStream extends OutputStream implements Appendable {
+
+	private final CharsetStreamDecoder decoder = new CharsetStreamDecoder();
+	private final ICommandOutputListener listener;
+	private final boolean stderr;
+	private boolean finished;
+
+	CommandOutputStream(ICommandOutputListener listener, boolean stderr) {
+		this.listener = listener;
+		this.stderr = stderr;
+	}
+
+	public synchronized void write(int b) throws IOException {
+		write(new byte[] { (byte) b }, 0, 1);
+	}
+
+	public synchronized void write(byte[] bytes, int offset, int length) throws IOException {
+		if (finished) {
+			return;
+		}
+		decoder.decode(bytes, offset, length, this);
+	}
+
+	/**
+	 * Decodes pending bytes. Output that arrives afterwards is dropped.
+	 */
+	synchronized void finish() throws IOException {
+		if (finished) {
+			return;
+		}
+		this.finished = true;
+		decoder.finish(this);
+	}
+
+	public Appendable append(CharSequence output) {
+		if (stderr) {
+			listener.stderr(output);
+		} else {
+			listener.stdout(output);
+		}
+		return this;
+	}
+
+	public Appendable append(CharSequence output, int start, int end) {
+		return append(output.subSequence(start, end));
+	}
+
+	public Appendable append(char c) {
+		return append(CharBuffer.wrap(new char[] { c }));
+	}
+}
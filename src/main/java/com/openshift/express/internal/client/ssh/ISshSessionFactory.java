@@ -0,0 +1,34 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.ssh;
+
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.Session;
+
+/**
+ * @author Daniel Brenner
+ */
+public interface ISshSessionFactory {
+
+	/**
+	 * Creates a new, not yet connected session for the given user at the
+	 * given host.
+	 * 
+	 * @param username
+	 *            the user to log in as
+	 * @param host
+	 *            the host to connect to
+	 * @return the new session
+	 * @throws JSchException
+	 */
+	public Session createSession(String username, String host) throws JSchException;
+
+}
@@ -0,0 +1,81 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.ssh;
+
+import com.jcraft.jsch.Session;
+
+/**
+ * A connected ssh session that is shared among several channels.
+ * 
+ * @author Daniel Brenner
+ * 
+ * @see SshSessionPool
+ */
+public class PooledSshSession {
+
+	private final String key;
+	private final Session session;
+	private int leases;
+	private long lastUsed;
+	private boolean retired;
+
+	PooledSshSession(String key, Session session) {
+		this.key = key;
+		this.session = session;
+		this.lastUsed = System.currentTimeMillis();
+	}
+
+	public Session getSession() {
+		return session;
+	}
+
+	String getKey() {
+		return key;
+	}
+
+	boolean isAlive() {
+		return session.isConnected();
+	}
+
+	int getLeases() {
+		return leases;
+	}
+
+	void lease() {
+		leases++;
+	}
+
+	void release() {
+		leases--;
+		this.lastUsed = System.currentTimeMillis();
+	}
+
+	void retire() {
+		this.retired = true;
+	}
+
+	boolean isRetired() {
+		return retired;
+	}
+
+	boolean isIdleSince(long timestamp) {
+		return leases == 0
+				&& lastUsed < timestamp;
+	}
+
+	void disconnect() {
+		session.disconnect();
+	}
+
+	public String toString() {
+		return "PooledSshSession [key=" + key + ", leases=" + leases + ", retired=" + retired + "]";
+	}
+}
@@ -0,0 +1,383 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.ssh;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.ChannelSftp.LsEntry;
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.SftpATTRS;
+import com.jcraft.jsch.SftpException;
+import com.openshift.express.client.OpenShiftException;
+import com.openshift.express.client.TransferResult;
+
+/**
+ * Downloads files and directory trees from remote hosts over pooled ssh
+ * sessions. The files of a download are fetched over several sftp channels
+ * at the same time, the channels share the pooled sessions. Files are
+ * streamed to disk. Files that are complete on disk are skipped, files that
+ * are shorter on disk than on the remote host (ex. from an aborted download
+ * or a log that grew since) are resumed where they end if their last bytes
+ * match the remote file. Files that don't match (ex. a log that was rotated
+ * since) are downloaded again.
+ * 
+ * @author Daniel Brenner
+ */
+public class SftpDownloader {
+
+	public static final int DEFAULT_CHANNELS_PER_DOWNLOAD = 4;
+
+	private static final String CHANNEL_SFTP = "sftp";
+	private static final String CURRENT_DIRECTORY = ".";
+	private static final String PARENT_DIRECTORY = "..";
+	private static final int MAX_ATTEMPTS = 2;
+	/** the number of bytes at the end of a partial file that are compared before resuming */
+	private static final int RESUME_VERIFICATION_LENGTH = 4 * 1024;
+
+	private final SshSessionPool sessionPool;
+	private final ExecutorService executor;
+	private final int channelsPerDownload;
+
+	public SftpDownloader(SshSessionPool sessionPool, ExecutorService executor) {
+		this(sessionPool, executor, DEFAULT_CHANNELS_PER_DOWNLOAD);
+	}
+
+	/**
+	 * Creates a downloader that transfers files over the sessions of the
+	 * given pool and the threads of the given executor.
+	 * 
+	 * @param sessionPool
+	 *            the pool to get the ssh sessions from
+	 * @param executor
+	 *            the executor that runs the transfers
+	 * @param channelsPerDownload
+	 *            the max number of sftp channels that a single download uses
+	 *            at the same time
+	 */
+	public SftpDownloader(SshSessionPool sessionPool, ExecutorService executor, int channelsPerDownload) {
+		this.sessionPool = sessionPool;
+		this.executor = executor;
+		this.channelsPerDownload = channelsPerDownload;
+	}
+
+	/**
+	 * Downloads the given remote file or directory to the given local
+	 * directory. Directories are downloaded recursively, symbolic links are
+	 * not followed.
+	 * 
+	 * @param username
+	 *            the user to log in as
+	 * @param host
+	 *            the host to download from
+	 * @param remotePath
+	 *            the file or directory to download, relative paths are
+	 *            resolved against the home directory of the user
+	 * @param localDirectory
+	 *            the directory to download to
+	 * @return the result of the download
+	 * @throws OpenShiftException
+	 *             if any of the files could not be downloaded
+	 */
+	public TransferResult download(String username, String host, String remotePath, File localDirectory)
+			throws OpenShiftException {
+		long start = System.currentTimeMillis();
+		File localFile = getLocalFile(remotePath, localDirectory);
+		try {
+			List<RemoteFile> files = list(username, host, remotePath, localFile);
+			Queue<RemoteFile> queue = new ConcurrentLinkedQueue<RemoteFile>(files);
+			List<Future<long[]>> transfers = new ArrayList<Future<long[]>>();
+			for (int i = 0; i < Math.min(channelsPerDownload, files.size()); i++) {
+				transfers.add(executor.submit(new Transfer(username, host, queue)));
+			}
+			long bytesTransferred = 0;
+			long bytesReused = 0;
+			Throwable error = null;
+			for (Future<long[]> transfer : transfers) {
+				try {
+					long[] bytes = transfer.get();
+					bytesTransferred += bytes[0];
+					bytesReused += bytes[1];
+				} catch (ExecutionException e) {
+					queue.clear();
+					if (error == null) {
+						error = e.getCause();
+					}
+				}
+			}
+			if (error != null) {
+				throw new OpenShiftException(error, "Could not download {0} from {1}", remotePath, host);
+			}
+			return new TransferResult(remotePath, localFile, files.size(), bytesTransferred, bytesReused,
+					System.currentTimeMillis() - start);
+		} catch (JSchException e) {
+			throw new OpenShiftException(e, "Could not download {0} as {1} from {2}", remotePath, username, host);
+		} catch (SftpException e) {
+			throw new OpenShiftException(e, "Could not list {0} on {1}", remotePath, host);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new OpenShiftException(e, "Interrupted while downloading {0} from {1}", remotePath, host);
+		}
+	}
+
+	private File getLocalFile(String remotePath, File localDirectory) {
+		String path = remotePath;
+		while (path.endsWith("/")) {
+			path = path.substring(0, path.length() - 1);
+		}
+		String name = path.substring(path.lastIndexOf('/') + 1);
+		if (name.length() == 0
+				|| CURRENT_DIRECTORY.equals(name)
+				|| PARENT_DIRECTORY.equals(name)) {
+			return localDirectory;
+		}
+		return new File(localDirectory, name);
+	}
+
+	private List<RemoteFile> list(String username, String host, String remotePath, File localFile)
+			throws JSchException, SftpException, InterruptedException {
+		SftpChannel channel = openChannel(username, host);
+		try {
+			List<RemoteFile> files = new ArrayList<RemoteFile>();
+			SftpATTRS attributes = channel.getChannel().stat(remotePath);
+			if (attributes.isDir()) {
+				list(channel.getChannel(), remotePath, localFile, files);
+			} else {
+				files.add(new RemoteFile(remotePath, localFile, attributes));
+			}
+			return files;
+		} finally {
+			channel.close();
+		}
+	}
+
+	private void list(ChannelSftp channel, String remoteDirectory, File localDirectory, List<RemoteFile> files)
+			throws SftpException {
+		Vector<?> entries = channel.ls(remoteDirectory);
+		for (Object object : entries) {
+			LsEntry entry = (LsEntry) object;
+			String name = entry.getFilename();
+			SftpATTRS attributes = entry.getAttrs();
+			if (CURRENT_DIRECTORY.equals(name)
+					|| PARENT_DIRECTORY.equals(name)
+					|| attributes.isLink()) {
+				continue;
+			}
+			String remotePath = remoteDirectory.endsWith("/") ? remoteDirectory + name : remoteDirectory + '/' + name;
+			File localFile = new File(localDirectory, name);
+			if (attributes.isDir()) {
+				list(channel, remotePath, localFile, files);
+			} else {
+				files.add(new RemoteFile(remotePath, localFile, attributes));
+			}
+		}
+	}
+
+	private SftpChannel openChannel(String username, String host) throws JSchException, InterruptedException {
+		for (int attempt = 1;; attempt++) {
+			PooledSshSession session = sessionPool.acquire(username, host, 0);
+			try {
+				ChannelSftp channel = (ChannelSftp) session.getSession().openChannel(CHANNEL_SFTP);
+				channel.connect();
+				return new SftpChannel(session, channel);
+			} catch (JSchException e) {
+				// stale pooled session, retry with a fresh one
+				sessionPool.invalidate(session);
+				if (attempt >= MAX_ATTEMPTS) {
+					throw e;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Transfers files from a queue over a single sftp channel. Returns the
+	 * number of bytes transferred and the number of bytes that were reused.
+	 */
+	private class Transfer implements Callable<long[]> {
+
+		private final String username;
+		private final String host;
+		private final Queue<RemoteFile> queue;
+
+		private Transfer(String username, String host, Queue<RemoteFile> queue) {
+			this.username = username;
+			this.host = host;
+			this.queue = queue;
+		}
+
+		public long[] call() throws Exception {
+			long[] bytes = new long[2];
+			SftpChannel channel = openChannel(username, host);
+			try {
+				RemoteFile file = null;
+				while ((file = queue.poll()) != null) {
+					transfer(file, channel.getChannel(), bytes);
+				}
+				return bytes;
+			} finally {
+				channel.close();
+			}
+		}
+
+		private void transfer(RemoteFile file, ChannelSftp channel, long[] bytes) throws IOException,
+				SftpException {
+			File localFile = file.getLocalFile();
+			long offset = localFile.length();
+			if (file.isPresent()) {
+				bytes[1] += offset;
+				return;
+			}
+			if (offset >= file.getSize()
+					|| !isPrefix(file, offset, channel)) {
+				// remote file was replaced
+				offset = 0;
+			}
+			File parent = localFile.getParentFile();
+			if (parent != null
+					&& !parent.isDirectory()
+					&& !parent.mkdirs()) {
+				throw new IOException("Could not create directory " + parent);
+			}
+			OutputStream out = new FileOutputStream(localFile, offset > 0);
+			try {
+				channel.get(file.getRemotePath(), out, null, offset > 0 ? ChannelSftp.RESUME : ChannelSftp.OVERWRITE,
+						offset);
+			} finally {
+				out.close();
+			}
+			file.setModified();
+			bytes[0] += localFile.length() - offset;
+			bytes[1] += offset;
+		}
+
+		/**
+		 * Returns <code>true</code> if the local file is a prefix of the
+		 * remote file. Only the last bytes of the local file are compared
+		 * since comparing the whole file would cost as much as downloading it
+		 * again.
+		 */
+		private boolean isPrefix(RemoteFile file, long length, ChannelSftp channel) throws IOException,
+				SftpException {
+			if (length == 0) {
+				return true;
+			}
+			int verificationLength = (int) Math.min(length, RESUME_VERIFICATION_LENGTH);
+			long start = length - verificationLength;
+			byte[] local = new byte[verificationLength];
+			RandomAccessFile localFile = new RandomAccessFile(file.getLocalFile(), "r");
+			try {
+				localFile.seek(start);
+				localFile.readFully(local);
+			} finally {
+				localFile.close();
+			}
+			byte[] remote = new byte[verificationLength];
+			InputStream in = channel.get(file.getRemotePath(), null, start);
+			try {
+				int read = 0;
+				while (read < remote.length) {
+					int count = in.read(remote, read, remote.length - read);
+					if (count == -1) {
+						return false;
+					}
+					read += count;
+				}
+			} finally {
+				in.close();
+			}
+			return Arrays.equals(local, remote);
+		}
+	}
+
+	/**
+	 * A connected sftp channel and the pooled session that it was opened on.
+	 */
+	private class SftpChannel {
+
+		private final PooledSshSession session;
+		private final ChannelSftp channel;
+
+		private SftpChannel(PooledSshSession session, ChannelSftp channel) {
+			this.session = session;
+			this.channel = channel;
+		}
+
+		private ChannelSftp getChannel() {
+			return channel;
+		}
+
+		private void close() {
+			channel.disconnect();
+			sessionPool.release(session);
+		}
+	}
+
+	private static class RemoteFile {
+
+		private final String remotePath;
+		private final File localFile;
+		private final long size;
+		private final long modified;
+
+		private RemoteFile(String remotePath, File localFile, SftpATTRS attributes) {
+			this.remotePath = remotePath;
+			this.localFile = localFile;
+			this.size = attributes.getSize();
+			this.modified = attributes.getMTime() * 1000L;
+		}
+
+		private String getRemotePath() {
+			return remotePath;
+		}
+
+		private File getLocalFile() {
+			return localFile;
+		}
+
+		private long getSize() {
+			return size;
+		}
+
+		/**
+		 * Returns <code>true</code> if the local file is complete. The
+		 * modification time of the local file is set to the remote one once
+		 * the download completed, files that differ in size or modification
+		 * time are (re-)downloaded.
+		 */
+		private boolean isPresent() {
+			return localFile.isFile()
+					&& localFile.length() == size
+					&& (modified == 0 || localFile.lastModified() == modified);
+		}
+
+		private void setModified() {
+			if (modified > 0) {
+				localFile.setLastModified(modified);
+			}
+		}
+	}
+}
@@ -0,0 +1,163 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.ssh;
+
+import java.io.IOException;
+
+import com.jcraft.jsch.ChannelExec;
+import com.jcraft.jsch.JSchException;
+import com.openshift.express.client.CommandResult;
+import com.openshift.express.client.IBoundedOutputListener;
+import com.openshift.express.client.ICommandOutputListener;
+import com.openshift.express.client.OpenShiftException;
+
+/**
+ * Executes commands on remote hosts over pooled ssh sessions and streams their
+ * output to a listener while they run.
+ * 
+ * @author Daniel Brenner
+ */
+public class SshCommandExecutor {
+
+	private static final String CHANNEL_EXEC = "exec";
+	private static final String SIGNAL_KILL = "KILL";
+	private static final long POLL_DELAY = 10;
+	private static final int MAX_ATTEMPTS = 2;
+
+	private final SshSessionPool sessionPool;
+
+	public SshCommandExecutor(SshSessionPool sessionPool) {
+		this.sessionPool = sessionPool;
+	}
+
+	/**
+	 * Executes the given command as the given user on the given host.
+	 * 
+	 * @param username
+	 *            the user to log in as
+	 * @param host
+	 *            the host to execute the command on
+	 * @param command
+	 *            the command to execute
+	 * @param timeout
+	 *            the max time in milliseconds the command may run, it is
+	 *            killed if it runs longer. No timeout if 0 or negative.
+	 * @param listener
+	 *            the listener that gets the output, a
+	 *            {@link IBoundedOutputListener} stops the command once it is
+	 *            complete
+	 * @return the result
+	 * @throws OpenShiftException
+	 *             if the command could not be executed
+	 */
+	public CommandResult execute(String username, String host, String command, long timeout,
+			ICommandOutputListener listener) throws OpenShiftException {
+		long start = System.currentTimeMillis();
+		try {
+			for (int attempt = 1;; attempt++) {
+				PooledSshSession session = sessionPool.acquire(username, host, timeout);
+				CommandOutputStream stdout = new CommandOutputStream(listener, false);
+				CommandOutputStream stderr = new CommandOutputStream(listener, true);
+				ChannelExec channel = null;
+				try {
+					channel = startCommand(session, command, stdout, stderr);
+				} catch (JSchException e) {
+					// stale pooled session, retire it and retry with a fresh one
+					sessionPool.invalidate(session);
+					if (attempt >= MAX_ATTEMPTS) {
+						throw e;
+					}
+					continue;
+				}
+				try {
+					return waitForResult(channel, command, stdout, stderr, start, timeout, listener);
+				} finally {
+					channel.disconnect();
+					sessionPool.release(session);
+				}
+			}
+		} catch (JSchException e) {
+			throw new OpenShiftException(e, "Could not execute \"{0}\" as {1} on {2}", command, username, host);
+		} catch (IOException e) {
+			throw new OpenShiftException(e, "Could not read output of \"{0}\" on {1}", command, host);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new OpenShiftException(e, "Interrupted while executing \"{0}\" on {1}", command, host);
+		}
+	}
+
+	/**
+	 * Opens an exec channel on the given session and starts the given command
+	 * in it. JSch only notices that a pooled session went stale once the
+	 * channel is connected.
+	 */
+	private ChannelExec startCommand(PooledSshSession session, String command, CommandOutputStream stdout,
+			CommandOutputStream stderr) throws JSchException {
+		ChannelExec channel = (ChannelExec) session.getSession().openChannel(CHANNEL_EXEC);
+		try {
+			channel.setCommand(command);
+			channel.setInputStream(null);
+			channel.setOutputStream(stdout, true);
+			channel.setErrStream(stderr, true);
+			channel.connect();
+			return channel;
+		} catch (JSchException e) {
+			channel.disconnect();
+			throw e;
+		}
+	}
+
+	private CommandResult waitForResult(ChannelExec channel, String command, CommandOutputStream stdout,
+			CommandOutputStream stderr, long start, long timeout, ICommandOutputListener listener)
+			throws IOException, InterruptedException {
+		boolean timedOut = waitForExit(channel, start, timeout, listener);
+		boolean terminated = channel.isClosed();
+		if (!terminated) {
+			kill(channel);
+		}
+		stdout.finish();
+		stderr.finish();
+		int exitStatus = terminated ? channel.getExitStatus() : CommandResult.EXIT_STATUS_UNKNOWN;
+		return new CommandResult(command, exitStatus, timedOut, System.currentTimeMillis() - start, null, null);
+	}
+
+	/**
+	 * Waits for the command to exit or for the listener to be complete.
+	 * Returns <code>true</code> if neither happened within the timeout.
+	 */
+	private boolean waitForExit(ChannelExec channel, long start, long timeout, ICommandOutputListener listener)
+			throws InterruptedException {
+		while (!channel.isClosed()) {
+			if (isComplete(listener)) {
+				return false;
+			}
+			if (timeout > 0
+					&& System.currentTimeMillis() - start >= timeout) {
+				return true;
+			}
+			Thread.sleep(POLL_DELAY);
+		}
+		return false;
+	}
+
+	private boolean isComplete(ICommandOutputListener listener) {
+		return listener instanceof IBoundedOutputListener
+				&& ((IBoundedOutputListener) listener).isComplete();
+	}
+
+	private void kill(ChannelExec channel) {
+		try {
+			channel.sendSignal(SIGNAL_KILL);
+		} catch (Exception e) {
+			// ignore, channel gets disconnected anyways
+		}
+	}
+}
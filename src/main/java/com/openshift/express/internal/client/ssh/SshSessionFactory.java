@@ -0,0 +1,55 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.ssh;
+
+import java.util.Properties;
+
+import com.jcraft.jsch.JSch;
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.Session;
+
+/**
+ * Creates jsch sessions that authenticate with a private key. The key and the
+ * known hosts default to the files pointed to by the system properties
+ * <code>IDENTITY</code> and <code>KNOWN_HOSTS</code>.
+ * 
+ * @author Daniel Brenner
+ */
+public class SshSessionFactory implements ISshSessionFactory {
+
+	private static final String SYSPROPERTY_IDENTITY = "IDENTITY";
+	private static final String SYSPROPERTY_KNOWN_HOSTS = "KNOWN_HOSTS";
+	private static final int SSH_PORT = 22;
+
+	private final JSch jsch;
+
+	public SshSessionFactory() throws JSchException {
+		this(System.getProperty(SYSPROPERTY_IDENTITY), System.getProperty(SYSPROPERTY_KNOWN_HOSTS));
+	}
+
+	public SshSessionFactory(String identity, String knownHosts) throws JSchException {
+		this.jsch = new JSch();
+		if (knownHosts != null) {
+			jsch.setKnownHosts(knownHosts);
+		}
+		if (identity != null) {
+			jsch.addIdentity(identity);
+		}
+	}
+
+	public Session createSession(String username, String host) throws JSchException {
+		Session session = jsch.getSession(username, host, SSH_PORT);
+		Properties config = new Properties();
+		config.put("StrictHostKeyChecking", "no");
+		session.setConfig(config);
+		return session;
+	}
+}
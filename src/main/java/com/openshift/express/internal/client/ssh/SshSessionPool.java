@@ -0,0 +1,275 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.ssh;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.Session;
+
+/**
+ * A pool of connected ssh sessions. Sessions are kept per user and host and
+ * are shared by several channels (ssh multiplexes channels over a single
+ * connection) so that consecutive commands to the same gear don't pay for the
+ * key exchange and authentication again. Sessions that were not used for a
+ * while are disconnected.
+ * 
+ * @author Daniel Brenner
+ */
+public class SshSessionPool {
+
+	public static final int DEFAULT_MAX_SESSIONS_PER_HOST = 2;
+	/** sshd allows 10 channels per connection by default (MaxSessions) */
+	public static final int DEFAULT_MAX_CHANNELS_PER_SESSION = 8;
+	public static final long DEFAULT_IDLE_TIMEOUT = 5 * 60 * 1000;
+	private static final int DEFAULT_CONNECT_TIMEOUT = 10 * 1000;
+
+	private final ISshSessionFactory sessionFactory;
+	private final int maxSessionsPerHost;
+	private final int maxChannelsPerSession;
+	private long idleTimeout = DEFAULT_IDLE_TIMEOUT;
+	private int connectTimeout = DEFAULT_CONNECT_TIMEOUT;
+	private final Map<String, HostSessions> sessionsByHost = new HashMap<String, HostSessions>();
+	private boolean closed;
+
+	public SshSessionPool(ISshSessionFactory sessionFactory) {
+		this(sessionFactory, DEFAULT_MAX_SESSIONS_PER_HOST, DEFAULT_MAX_CHANNELS_PER_SESSION);
+	}
+
+	public SshSessionPool(ISshSessionFactory sessionFactory, int maxSessionsPerHost, int maxChannelsPerSession) {
+		this.sessionFactory = sessionFactory;
+		this.maxSessionsPerHost = maxSessionsPerHost;
+		this.maxChannelsPerSession = maxChannelsPerSession;
+	}
+
+	public void setIdleTimeout(long idleTimeout) {
+		this.idleTimeout = idleTimeout;
+	}
+
+	public void setConnectTimeout(int connectTimeout) {
+		this.connectTimeout = connectTimeout;
+	}
+
+	/**
+	 * Returns a connected session for the given user at the given host. Waits
+	 * for a session to become available if all sessions to this host are
+	 * fully used. The session has to be released by calling
+	 * {@link #release(PooledSshSession)} once the caller's channel is closed.
+	 * 
+	 * @param username
+	 *            the user to log in as
+	 * @param host
+	 *            the host to connect to
+	 * @param timeout
+	 *            the max time in milliseconds to wait for a session, waits
+	 *            forever if 0 or negative
+	 * @return a connected session
+	 * @throws JSchException
+	 *             if the session could not be connected or if no session got
+	 *             available within the timeout
+	 * @throws InterruptedException
+	 */
+	public PooledSshSession acquire(String username, String host, long timeout)
+			throws JSchException, InterruptedException {
+		String key = username + '@' + host;
+		long deadline = timeout > 0 ? System.currentTimeMillis() + timeout : Long.MAX_VALUE;
+		HostSessions hostSessions = null;
+		synchronized (this) {
+			assertNotClosed();
+			evictIdle(System.currentTimeMillis() - idleTimeout);
+			hostSessions = getHostSessions(key);
+			while (true) {
+				PooledSshSession session = hostSessions.leaseLeastUsed();
+				if (session != null) {
+					return session;
+				}
+				if (hostSessions.canOpen()) {
+					hostSessions.connecting++;
+					break;
+				}
+				long remaining = deadline - System.currentTimeMillis();
+				if (remaining <= 0) {
+					throw new JSchException("Timed out waiting for a ssh session to " + key);
+				}
+				wait(remaining);
+				assertNotClosed();
+			}
+		}
+		return connect(key, username, host, hostSessions);
+	}
+
+	private PooledSshSession connect(String key, String username, String host, HostSessions hostSessions)
+			throws JSchException {
+		PooledSshSession pooledSession = null;
+		try {
+			Session session = sessionFactory.createSession(username, host);
+			session.connect(connectTimeout);
+			pooledSession = new PooledSshSession(key, session);
+			pooledSession.lease();
+			return pooledSession;
+		} finally {
+			synchronized (this) {
+				hostSessions.connecting--;
+				if (pooledSession != null) {
+					hostSessions.sessions.add(pooledSession);
+				}
+				notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Hands the given session back to this pool.
+	 * 
+	 * @param session
+	 *            the session to release
+	 */
+	public synchronized void release(PooledSshSession session) {
+		session.release();
+		if ((closed || session.isRetired())
+				&& session.getLeases() == 0) {
+			session.disconnect();
+		}
+		notifyAll();
+	}
+
+	/**
+	 * Releases the caller's lease on the given session and removes the session
+	 * from this pool so that it is not handed out any more. Used when a
+	 * session turns out to be broken. A session that is still connected may
+	 * be used by other channels, it is therefore only disconnected once its
+	 * remaining leases are released.
+	 * 
+	 * @param session
+	 *            the session to discard
+	 */
+	public synchronized void invalidate(PooledSshSession session) {
+		HostSessions hostSessions = sessionsByHost.get(session.getKey());
+		if (hostSessions != null) {
+			hostSessions.sessions.remove(session);
+		}
+		session.release();
+		session.retire();
+		if (!session.isAlive()
+				|| session.getLeases() == 0) {
+			session.disconnect();
+		}
+		notifyAll();
+	}
+
+	/**
+	 * Disconnects all sessions that are not used and removes them from this
+	 * pool.
+	 */
+	public synchronized void evictIdle() {
+		evictIdle(Long.MAX_VALUE);
+	}
+
+	private void evictIdle(long idleSince) {
+		for (Iterator<HostSessions> hosts = sessionsByHost.values().iterator(); hosts.hasNext();) {
+			HostSessions hostSessions = hosts.next();
+			for (Iterator<PooledSshSession> sessions = hostSessions.sessions.iterator(); sessions.hasNext();) {
+				PooledSshSession session = sessions.next();
+				if (!session.isAlive()
+						|| session.isIdleSince(idleSince)) {
+					session.disconnect();
+					sessions.remove();
+				}
+			}
+			if (hostSessions.isEmpty()) {
+				hosts.remove();
+			}
+		}
+	}
+
+	/**
+	 * Disconnects all sessions. Sessions that are still in use are
+	 * disconnected once they're released.
+	 */
+	public synchronized void close() {
+		this.closed = true;
+		evictIdle();
+		notifyAll();
+	}
+
+	public synchronized int getOpenSessions() {
+		int openSessions = 0;
+		for (HostSessions hostSessions : sessionsByHost.values()) {
+			openSessions += hostSessions.sessions.size();
+		}
+		return openSessions;
+	}
+
+	public synchronized int getLeasedChannels() {
+		int leases = 0;
+		for (HostSessions hostSessions : sessionsByHost.values()) {
+			for (PooledSshSession session : hostSessions.sessions) {
+				leases += session.getLeases();
+			}
+		}
+		return leases;
+	}
+
+	private HostSessions getHostSessions(String key) {
+		HostSessions hostSessions = sessionsByHost.get(key);
+		if (hostSessions == null) {
+			hostSessions = new HostSessions();
+			sessionsByHost.put(key, hostSessions);
+		}
+		return hostSessions;
+	}
+
+	private void assertNotClosed() throws JSchException {
+		if (closed) {
+			throw new JSchException("ssh session pool is closed");
+		}
+	}
+
+	private class HostSessions {
+
+		private final List<PooledSshSession> sessions = new ArrayList<PooledSshSession>();
+		private int connecting;
+
+		private PooledSshSession leaseLeastUsed() {
+			PooledSshSession leastUsed = null;
+			for (Iterator<PooledSshSession> iterator = sessions.iterator(); iterator.hasNext();) {
+				PooledSshSession session = iterator.next();
+				if (!session.isAlive()) {
+					if (session.getLeases() == 0) {
+						iterator.remove();
+					}
+					continue;
+				}
+				if (session.getLeases() < maxChannelsPerSession
+						&& (leastUsed == null || session.getLeases() < leastUsed.getLeases())) {
+					leastUsed = session;
+				}
+			}
+			if (leastUsed != null) {
+				leastUsed.lease();
+			}
+			return leastUsed;
+		}
+
+		private boolean canOpen() {
+			return sessions.size() + connecting < maxSessionsPerHost;
+		}
+
+		private boolean isEmpty() {
+			return sessions.isEmpty()
+					&& connecting == 0;
+		}
+	}
+}
@@ -0,0 +1,117 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.utils;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A pool of byte and char buffers of a fixed size. Buffers are handed out by
+ * {@link #acquireBytes()} and {@link #acquireChars()} and should be handed
+ * back by {@link #release(byte[])} and {@link #release(char[])} once they're
+ * not used any more. Buffers that are handed back while the pool is full are
+ * left to the garbage collector.
+ * 
+ * @author Daniel Brenner
+ * 
+ * @see IOUtils
+ */
+public class BufferPool {
+
+	public static final int DEFAULT_BUFFER_SIZE = 8 * 1024;
+	private static final int DEFAULT_MAX_BUFFERS = 16;
+
+	private static final BufferPool DEFAULT = new BufferPool(DEFAULT_BUFFER_SIZE, DEFAULT_MAX_BUFFERS);
+
+	private final int bufferSize;
+	private final int maxBuffers;
+	private final Queue<byte[]> byteBuffers = new ConcurrentLinkedQueue<byte[]>();
+	private final Queue<char[]> charBuffers = new ConcurrentLinkedQueue<char[]>();
+	private final AtomicInteger pooledByteBuffers = new AtomicInteger();
+	private final AtomicInteger pooledCharBuffers = new AtomicInteger();
+
+	/**
+	 * Creates a pool of buffers of the given size.
+	 * 
+	 * @param bufferSize
+	 *            the size of the buffers
+	 * @param maxBuffers
+	 *            the max number of byte and of char buffers that are kept
+	 */
+	public BufferPool(int bufferSize, int maxBuffers) {
+		this.bufferSize = bufferSize;
+		this.maxBuffers = maxBuffers;
+	}
+
+	/**
+	 * Returns the pool that is shared by the client.
+	 */
+	public static BufferPool getDefault() {
+		return DEFAULT;
+	}
+
+	public byte[] acquireBytes() {
+		byte[] buffer = byteBuffers.poll();
+		if (buffer == null) {
+			return new byte[bufferSize];
+		}
+		pooledByteBuffers.decrementAndGet();
+		return buffer;
+	}
+
+	public void release(byte[] buffer) {
+		if (buffer == null
+				|| buffer.length != bufferSize
+				|| !reserve(pooledByteBuffers)) {
+			return;
+		}
+		byteBuffers.offer(buffer);
+	}
+
+	public char[] acquireChars() {
+		char[] buffer = charBuffers.poll();
+		if (buffer == null) {
+			return new char[bufferSize];
+		}
+		pooledCharBuffers.decrementAndGet();
+		return buffer;
+	}
+
+	public void release(char[] buffer) {
+		if (buffer == null
+				|| buffer.length != bufferSize
+				|| !reserve(pooledCharBuffers)) {
+			return;
+		}
+		charBuffers.offer(buffer);
+	}
+
+	public int getBufferSize() {
+		return bufferSize;
+	}
+
+	public int getPooledByteBuffers() {
+		return pooledByteBuffers.get();
+	}
+
+	public int getPooledCharBuffers() {
+		return pooledCharBuffers.get();
+	}
+
+	private boolean reserve(AtomicInteger pooled) {
+		if (pooled.incrementAndGet() > maxBuffers) {
+			pooled.decrementAndGet();
+			return false;
+		}
+		return true;
+	}
+}
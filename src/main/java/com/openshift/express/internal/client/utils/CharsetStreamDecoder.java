@@ -0,0 +1,188 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.express.internal.client.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Decodes a byte stream to characters chunk by chunk. Multi-byte sequences
+ * that are split across two reads are carried over to the next read instead
+ * of being decoded (and mangled) on their own.
+ * <p>
+ * Instances hold their buffers and may be reused for several streams, they
+ * are not thread safe though.
+ *
+ * @author Daniel Brenner
+ */
+public class CharsetStreamDecoder {
+
+	private static final int DEFAULT_BUFFER_SIZE = 32 * 1024;
+	/** the longest byte sequence of a single code point (ex. UTF-8, GB18030) */
+	private static final int MIN_BUFFER_SIZE = 4;
+
+	private final CharsetDecoder decoder;
+	private final ByteBuffer byteBuffer;
+	private final CharBuffer charBuffer;
+
+	public CharsetStreamDecoder() {
+		this(IOUtils.UTF8);
+	}
+
+	public CharsetStreamDecoder(Charset charset) {
+		this(charset, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * Creates a decoder with buffers of the given size.
+	 * 
+	 * @param charset
+	 *            the charset to decode
+	 * @param bufferSize
+	 *            the size of the buffers, at least 4 so that a buffer holds
+	 *            the longest byte sequence of a code point
+	 */
+	public CharsetStreamDecoder(Charset charset, int bufferSize) {
+		if (bufferSize < MIN_BUFFER_SIZE) {
+			throw new IllegalArgumentException("buffer size must be >= " + MIN_BUFFER_SIZE);
+		}
+		this.decoder = charset.newDecoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		this.byteBuffer = ByteBuffer.allocate(bufferSize);
+		this.charBuffer = CharBuffer.allocate(bufferSize);
+	}
+
+	/**
+	 * Reads the given stream until its end and returns its content.
+	 *
+	 * @param inputStream
+	 *            the stream to read from
+	 * @return the decoded content
+	 * @throws IOException
+	 */
+	public String decode(InputStream inputStream) throws IOException {
+		StringBuilder builder = new StringBuilder();
+		decode(inputStream, builder);
+		return builder.toString();
+	}
+
+	/**
+	 * Reads the given stream until its end and hands the decoded characters to
+	 * the given appendable as soon as they are available.
+	 *
+	 * @param inputStream
+	 *            the stream to read from
+	 * @param appendable
+	 *            the appendable to append the decoded characters to
+	 * @throws IOException
+	 */
+	public void decode(InputStream inputStream, Appendable appendable) throws IOException {
+		reset();
+		byte[] bytes = byteBuffer.array();
+		int read = -1;
+		while ((read = inputStream.read(bytes, byteBuffer.position(), byteBuffer.remaining())) != -1) {
+			byteBuffer.position(byteBuffer.position() + read);
+			byteBuffer.flip();
+			decode(false, appendable);
+			byteBuffer.compact();
+		}
+		finish(appendable);
+	}
+
+	/**
+	 * Decodes the given chunk of bytes and hands the decoded characters to the
+	 * given appendable. Bytes of an incomplete trailing sequence are kept
+	 * until the next chunk completes them. Call {@link #finish(Appendable)}
+	 * once the last chunk was handed in.
+	 *
+	 * @param bytes
+	 *            the bytes to decode
+	 * @param offset
+	 *            the offset of the first byte
+	 * @param length
+	 *            the number of bytes to decode
+	 * @param appendable
+	 *            the appendable to append the decoded characters to
+	 * @throws IOException
+	 * 
+	 * @see #finish(Appendable)
+	 */
+	public void decode(byte[] bytes, int offset, int length, Appendable appendable) throws IOException {
+		while (length > 0) {
+			int chunk = Math.min(length, byteBuffer.remaining());
+			byteBuffer.put(bytes, offset, chunk);
+			offset += chunk;
+			length -= chunk;
+			byteBuffer.flip();
+			decode(false, appendable);
+			byteBuffer.compact();
+		}
+	}
+
+	/**
+	 * Decodes what's left from former chunks and resets this decoder so that
+	 * it may be used for the next stream.
+	 *
+	 * @param appendable
+	 *            the appendable to append the decoded characters to
+	 * @throws IOException
+	 */
+	public void finish(Appendable appendable) throws IOException {
+		byteBuffer.flip();
+		decode(true, appendable);
+		flush(appendable);
+		reset();
+	}
+
+	public void reset() {
+		decoder.reset();
+		byteBuffer.clear();
+		charBuffer.clear();
+	}
+
+	private void decode(boolean endOfInput, Appendable appendable) throws IOException {
+		CoderResult result = null;
+		do {
+			result = decoder.decode(byteBuffer, charBuffer, endOfInput);
+			drain(appendable);
+		} while (result.isOverflow());
+	}
+
+	private void flush(Appendable appendable) throws IOException {
+		while (decoder.flush(charBuffer).isOverflow()) {
+			drain(appendable);
+		}
+		drain(appendable);
+	}
+
+	private void drain(Appendable appendable) throws IOException {
+		charBuffer.flip();
+		if (charBuffer.hasRemaining()) {
+			if (appendable instanceof StringBuilder) {
+				// bulk copy, StringBuilder#append(CharSequence) would copy char by char
+				((StringBuilder) appendable).append(charBuffer.array(), charBuffer.position(), charBuffer.remaining());
+			} else if (appendable instanceof Writer) {
+				((Writer) appendable).write(charBuffer.array(), charBuffer.position(), charBuffer.remaining());
+			} else {
+				appendable.append(charBuffer);
+			}
+		}
+		charBuffer.clear();
+	}
+}
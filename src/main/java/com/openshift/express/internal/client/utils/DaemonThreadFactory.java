@@ -0,0 +1,37 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.utils;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates daemon threads that are named after a given prefix, the number of
+ * the pool and the number of the thread.
+ * 
+ * @author Daniel Brenner
+ */
+public class DaemonThreadFactory implements ThreadFactory {
+
+	private static final AtomicInteger poolNumber = new AtomicInteger();
+	private final AtomicInteger threadNumber = new AtomicInteger();
+	private final String prefix;
+
+	public DaemonThreadFactory(String name) {
+		this.prefix = "openshift-" + name + "-" + poolNumber.incrementAndGet() + "-";
+	}
+
+	public Thread newThread(Runnable runnable) {
+		Thread thread = new Thread(runnable, prefix + threadNumber.incrementAndGet());
+		thread.setDaemon(true);
+		return thread;
+	}
+}
@@ -0,0 +1,247 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+
+/**
+ * Copies and reads streams in bulk, using buffers of the
+ * {@link BufferPool#getDefault() shared buffer pool}. Streams are read as
+ * UTF-8 unless told otherwise and may be limited to a max number of bytes.
+ * Line terminators are kept as they are.
+ * 
+ * @author Daniel Brenner
+ */
+public class IOUtils {
+
+	public static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/** no limit to the number of bytes that are read */
+	public static final long NO_LIMIT = -1;
+
+	private IOUtils() {
+		// inhibit instantiation
+	}
+
+	/**
+	 * Copies the content of the given input stream to the given output
+	 * stream. Neither of the streams is closed.
+	 * 
+	 * @return the number of bytes that were copied
+	 * @throws IOException
+	 */
+	public static long copy(InputStream in, OutputStream out) throws IOException {
+		return copy(in, out, NO_LIMIT);
+	}
+
+	/**
+	 * Copies the content of the given input stream to the given output
+	 * stream. Neither of the streams is closed.
+	 * 
+	 * @param limit
+	 *            the max number of bytes to copy or {@link #NO_LIMIT}
+	 * @return the number of bytes that were copied
+	 * @throws StreamLimitExceededException
+	 *             if the input stream holds more bytes than the given limit
+	 * @throws IOException
+	 */
+	public static long copy(InputStream in, OutputStream out, long limit) throws IOException {
+		BufferPool pool = BufferPool.getDefault();
+		byte[] buffer = pool.acquireBytes();
+		try {
+			return copy(in, out, buffer, 0, limit);
+		} finally {
+			pool.release(buffer);
+		}
+	}
+
+	/**
+	 * Copies the content of the given reader to the given writer. Neither of
+	 * them is closed.
+	 * 
+	 * @return the number of characters that were copied
+	 * @throws IOException
+	 */
+	public static long copy(Reader reader, Writer writer) throws IOException {
+		BufferPool pool = BufferPool.getDefault();
+		char[] buffer = pool.acquireChars();
+		try {
+			long count = 0;
+			for (int read = -1; (read = reader.read(buffer)) != -1;) {
+				writer.write(buffer, 0, read);
+				count += read;
+			}
+			return count;
+		} finally {
+			pool.release(buffer);
+		}
+	}
+
+	public static byte[] toByteArray(InputStream in) throws IOException {
+		return toByteArray(in, NO_LIMIT);
+	}
+
+	/**
+	 * Reads the given stream to its end and returns its content.
+	 * 
+	 * @param limit
+	 *            the max number of bytes to read or {@link #NO_LIMIT}
+	 * @return the content or <code>null</code> if the stream is
+	 *         <code>null</code>
+	 * @throws StreamLimitExceededException
+	 *             if the stream holds more bytes than the given limit
+	 * @throws IOException
+	 */
+	public static byte[] toByteArray(InputStream in, long limit) throws IOException {
+		if (in == null) {
+			return null;
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		copy(in, out, limit);
+		return out.toByteArray();
+	}
+
+	public static String toString(InputStream in) throws IOException {
+		return toString(in, UTF8, NO_LIMIT);
+	}
+
+	public static String toString(InputStream in, Charset charset) throws IOException {
+		return toString(in, charset, NO_LIMIT);
+	}
+
+	/**
+	 * Reads the given stream to its end and returns its content decoded in
+	 * the given charset. Content that fits into a single buffer is decoded
+	 * straight from it.
+	 * 
+	 * @param limit
+	 *            the max number of bytes to read or {@link #NO_LIMIT}
+	 * @return the content or <code>null</code> if the stream is
+	 *         <code>null</code>
+	 * @throws StreamLimitExceededException
+	 *             if the stream holds more bytes than the given limit
+	 * @throws IOException
+	 */
+	public static String toString(InputStream in, Charset charset, long limit) throws IOException {
+		if (in == null) {
+			return null;
+		}
+		BufferPool pool = BufferPool.getDefault();
+		byte[] buffer = pool.acquireBytes();
+		try {
+			int length = fill(in, buffer, limit);
+			if (length < buffer.length) {
+				return new String(buffer, 0, length, charset.name());
+			}
+			ByteArrayOutputStream out = new ByteArrayOutputStream(buffer.length * 2);
+			out.write(buffer, 0, length);
+			copy(in, out, buffer, length, limit);
+			return out.toString(charset.name());
+		} finally {
+			pool.release(buffer);
+		}
+	}
+
+	/**
+	 * Reads the given reader to its end and returns its content.
+	 * 
+	 * @return the content or <code>null</code> if the reader is
+	 *         <code>null</code>
+	 * @throws IOException
+	 */
+	public static String toString(Reader reader) throws IOException {
+		if (reader == null) {
+			return null;
+		}
+		BufferPool pool = BufferPool.getDefault();
+		char[] buffer = pool.acquireChars();
+		try {
+			StringBuilder builder = new StringBuilder();
+			for (int read = -1; (read = reader.read(buffer)) != -1;) {
+				builder.append(buffer, 0, read);
+			}
+			return builder.toString();
+		} finally {
+			pool.release(buffer);
+		}
+	}
+
+	/**
+	 * Reads the given file and returns its content decoded in the given
+	 * charset.
+	 * 
+	 * @throws IOException
+	 */
+	public static String toString(File file, Charset charset) throws IOException {
+		InputStream in = new FileInputStream(file);
+		try {
+			return toString(in, charset, NO_LIMIT);
+		} finally {
+			closeQuietly(in);
+		}
+	}
+
+	public static void close(Closeable closeable) throws IOException {
+		if (closeable != null) {
+			closeable.close();
+		}
+	}
+
+	public static void closeQuietly(Closeable closeable) {
+		try {
+			close(closeable);
+		} catch (IOException e) {
+			// ignore
+		}
+	}
+
+	private static long copy(InputStream in, OutputStream out, byte[] buffer, long count, long limit)
+			throws IOException {
+		for (int read = -1; (read = in.read(buffer)) != -1;) {
+			count += read;
+			assertLimit(count, limit);
+			out.write(buffer, 0, read);
+		}
+		return count;
+	}
+
+	/**
+	 * Reads from the given stream until the given buffer is full or the
+	 * stream has no more bytes.
+	 * 
+	 * @return the number of bytes in the buffer
+	 */
+	private static int fill(InputStream in, byte[] buffer, long limit) throws IOException {
+		int length = 0;
+		for (int read = -1; length < buffer.length
+				&& (read = in.read(buffer, length, buffer.length - length)) != -1;) {
+			length += read;
+			assertLimit(length, limit);
+		}
+		return length;
+	}
+
+	private static void assertLimit(long count, long limit) throws StreamLimitExceededException {
+		if (limit != NO_LIMIT
+				&& count > limit) {
+			throw new StreamLimitExceededException(limit);
+		}
+	}
+}
@@ -0,0 +1,55 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.utils;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * A byte array output stream that starts off with a buffer of the
+ * {@link BufferPool#getDefault() shared buffer pool} and grants access to its
+ * buffer so that its content may be read without copying it. The buffer is
+ * handed back to the pool on {@link #release()}, the stream must not be used
+ * afterwards.
+ * 
+ * @author Daniel Brenner
+ */
+public class PooledByteArrayOutputStream extends ByteArrayOutputStream {
+
+	private final BufferPool pool;
+
+	public PooledByteArrayOutputStream() {
+		this(BufferPool.getDefault());
+	}
+
+	public PooledByteArrayOutputStream(BufferPool pool) {
+		super(0);
+		this.pool = pool;
+		this.buf = pool.acquireBytes();
+	}
+
+	/**
+	 * Returns the buffer of this stream. Only the first {@link #size()} bytes
+	 * are valid. The buffer is replaced when the stream grows beyond it.
+	 */
+	public byte[] getBuffer() {
+		return buf;
+	}
+
+	/**
+	 * Hands the buffer back to the pool. Buffers that were grown beyond the
+	 * size of the pooled buffers are left to the garbage collector.
+	 */
+	public void release() {
+		pool.release(buf);
+		this.buf = new byte[0];
+		reset();
+	}
+}
@@ -0,0 +1,37 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.utils;
+
+import java.io.IOException;
+import java.text.MessageFormat;
+
+/**
+ * Signals that a stream held more bytes than it was allowed to.
+ * 
+ * @author Daniel Brenner
+ * 
+ * @see IOUtils#toByteArray(java.io.InputStream, long)
+ */
+public class StreamLimitExceededException extends IOException {
+
+	private static final long serialVersionUID = 1L;
+
+	private final long limit;
+
+	public StreamLimitExceededException(long limit) {
+		super(MessageFormat.format("Stream exceeded the limit of {0} bytes", limit));
+		this.limit = limit;
+	}
+
+	public long getLimit() {
+		return limit;
+	}
+}
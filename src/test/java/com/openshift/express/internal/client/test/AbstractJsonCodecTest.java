@@ -0,0 +1,211 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+
+import org.jboss.dmr.ModelNode;
+import org.junit.Test;
+
+import com.openshift.express.client.ICartridge;
+import com.openshift.express.client.json.DmrJsonCodec;
+import com.openshift.express.client.json.IJsonCodec;
+import com.openshift.express.client.json.IJsonNode;
+import com.openshift.express.client.json.IJsonObjectWriter;
+import com.openshift.express.internal.client.UserInfo;
+import com.openshift.express.internal.client.request.ApplicationAction;
+import com.openshift.express.internal.client.request.ApplicationRequest;
+import com.openshift.express.internal.client.request.marshalling.ApplicationRequestJsonMarshaller;
+import com.openshift.express.internal.client.response.unmarshalling.UserInfoResponseUnmarshaller;
+import com.openshift.express.internal.client.test.fakes.ApplicationResponseFake;
+
+/**
+ * The conformance tests that all json codecs have to pass.
+ * 
+ * @author Daniel Brenner
+ */
+public abstract class AbstractJsonCodecTest {
+
+	private static final String UNICODE = "Gr\u00fc\u00dfe aus Z\u00fcrich \u20ac \ud83d\ude00";
+	private static final String SPECIAL = "quote \" backslash \\ slash / newline \n return \r tab \t";
+
+	private static final String USER_INFO =
+			"{\"user_info\":{\"rhc_domain\":\"rhcloud.com\",\"rhlogin\":\"toolsjboss@gmail.com\","
+					+ "\"namespace\":\"toolsjboss\",\"uuid\":\"5f34b742db754cc9ab70fd1db2c9a2bd\","
+					+ "\"ssh_key\":\"AAAAB3NzaC1yc2E\",\"ssh_type\":\"ssh-rsa\",\"max_gears\":5,\"consumed_gears\":1},"
+					+ "\"app_info\":{\"app1\":{\"embedded\":null,"
+					+ "\"uuid\":\"810540bafc1c4b5e8cac830fb8ca786f\",\"framework\":\"jbossas-7\","
+					+ "\"creation_time\":\"2011-09-12T10:15:48-04:00\"}}}";
+
+	protected abstract IJsonCodec createCodec();
+
+	@Test
+	public void writesPropertiesThatParseToTheirValues() throws Exception {
+		IJsonCodec codec = createCodec();
+		IJsonObjectWriter writer = codec.createObjectWriter();
+		writer.writeProperty("plain", "value");
+		writer.writeProperty("unicode", UNICODE);
+		writer.writeProperty("special", SPECIAL);
+		writer.writeProperty("empty", "");
+		String json = writer.toJson();
+
+		assertProperties(codec.parse(json));
+		// other engines have to read it, too
+		assertProperties(DmrJsonCodec.INSTANCE.parse(json));
+	}
+
+	@Test
+	public void writesEmptyObject() throws Exception {
+		IJsonCodec codec = createCodec();
+		IJsonNode node = codec.parse(codec.createObjectWriter().toJson());
+		assertTrue(node.isObject());
+		assertTrue(node.keys().isEmpty());
+	}
+
+	@Test
+	public void marshallsRequestLikeDmr() throws Exception {
+		ApplicationRequest request = new ApplicationRequest("test-application", ICartridge.JBOSSAS_7,
+				ApplicationAction.CONFIGURE, ApplicationResponseFake.RHLOGIN, true);
+		ApplicationRequestJsonMarshaller marshaller = new ApplicationRequestJsonMarshaller();
+		String expected = marshaller.marshall(request);
+		marshaller.setJsonCodec(createCodec());
+		String actual = marshaller.marshall(request);
+
+		assertEquals(ModelNode.fromJSONString(expected), ModelNode.fromJSONString(actual));
+	}
+
+	@Test
+	public void parsesStringsAndBytesAlike() throws Exception {
+		IJsonCodec codec = createCodec();
+		String json = "{\"raw\":\"" + UNICODE + "\",\"escaped\":\"Gr\\u00fc\\u00DFe \\ud83d\\ude00\","
+				+ "\"control\":\"a\\nb\\tc\\\"d\\\\e\"}";
+		byte[] bytes = json.getBytes("UTF-8");
+
+		IJsonNode node = codec.parse(json);
+		assertEquals(node.asString(), codec.parse(bytes, 0, bytes.length).asString());
+		assertEquals(UNICODE, node.get("raw").asString());
+		assertEquals("Gr\u00fc\u00dfe \ud83d\ude00", node.get("escaped").asString());
+		assertEquals("a\nb\tc\"d\\e", node.get("control").asString());
+	}
+
+	@Test
+	public void parsesBytesAtOffset() throws Exception {
+		byte[] bytes = "xx{\"a\":\"b\"}yy".getBytes("UTF-8");
+		assertEquals("b", createCodec().parse(bytes, 2, bytes.length - 4).get("a").asString());
+	}
+
+	@Test
+	public void parsesLiteralsNumbersAndLists() throws Exception {
+		IJsonNode node = createCodec().parse(" {\"int\":-42, \"long\":12345678901, \"true\":true, \"false\":false,"
+				+ "\"null\":null, \"list\":[1, \"two\", {}], \"empty\":{}} ");
+		assertEquals(-42, node.get("int").asInt());
+		assertEquals(12345678901L, node.get("long").asLong());
+		assertTrue(node.get("true").asBoolean());
+		assertFalse(node.get("false").asBoolean());
+		assertFalse(node.get("null").isDefined());
+		List<IJsonNode> list = node.get("list").asList();
+		assertEquals(3, list.size());
+		assertEquals(1, list.get(0).asInt());
+		assertEquals("two", list.get(1).asString());
+		assertTrue(list.get(2).isObject());
+		assertTrue(node.get("empty").isObject());
+	}
+
+	@Test
+	public void readsMissingValuesAsUndefined() throws Exception {
+		IJsonNode node = createCodec().parse("{\"string\":\"value\",\"null\":null,\"list\":[]}");
+		IJsonNode missing = node.get("missing");
+		assertFalse(missing.isDefined());
+		assertNull(missing.asString());
+		assertFalse(missing.asBoolean());
+		assertEquals(-1, missing.asLong(-1));
+		assertFalse(missing.get("child").isDefined());
+		assertFalse(node.hasDefined("missing"));
+		assertFalse(node.hasDefined("null"));
+		assertTrue(node.hasDefined("string"));
+		assertEquals(-1, node.get("string").asLong(-1));
+		assertFalse(node.get("string").get("child").isDefined());
+		assertTrue(node.get("string").keys().isEmpty());
+		assertTrue(node.get("string").asList().isEmpty());
+		assertTrue(node.get("list").isList());
+		assertTrue(node.get("list").asList().isEmpty());
+		assertEquals(3, node.keys().size());
+	}
+
+	@Test
+	public void parsesQuotedDataInBytes() throws Exception {
+		byte[] bytes = createResponse(quote(USER_INFO), "").getBytes("UTF-8");
+		IJsonNode node = createCodec().parse(bytes, 0, bytes.length);
+		assertTrue(node.get("data").isObject());
+		assertEquals("toolsjboss", node.get("data").get("user_info").get("namespace").asString());
+	}
+
+	@Test
+	public void skippedPropertiesAreParsedOrEmpty() throws Exception {
+		byte[] bytes = createResponse(USER_INFO, "debug trace").getBytes("UTF-8");
+		IJsonNode node = createCodec().parse(bytes, 0, bytes.length, "debug");
+		String debug = node.get("debug").asString();
+		assertTrue(debug.equals("debug trace") || debug.equals(""));
+		assertEquals(0, node.get("exit_code").asInt());
+		assertEquals("toolsjboss", node.get("data").get("user_info").get("namespace").asString());
+	}
+
+	@Test
+	public void rejectsInvalidJson() throws Exception {
+		String[] invalid = { "{", "{\"a\":}", "{\"a\" \"b\"}" };
+		IJsonCodec codec = createCodec();
+		for (String json : invalid) {
+			try {
+				codec.parse(json);
+				fail("parsed invalid json " + json);
+			} catch (IllegalArgumentException e) {
+				// expected
+			}
+		}
+	}
+
+	@Test
+	public void unmarshallsUserInfo() throws Exception {
+		UserInfoResponseUnmarshaller unmarshaller = new UserInfoResponseUnmarshaller();
+		unmarshaller.setJsonCodec(createCodec());
+		unmarshaller.setRetainMessages(false);
+		byte[] response = createResponse(quote(USER_INFO), "debug trace").getBytes("UTF-8");
+
+		UserInfo userInfo = unmarshaller.unmarshall(response, 0, response.length).getOpenShiftObject();
+		assertEquals("toolsjboss@gmail.com", userInfo.getRhLogin());
+		assertEquals("toolsjboss", userInfo.getNamespace());
+		assertEquals(5, userInfo.getMaxGears());
+		assertEquals(1, userInfo.getApplicationInfos().size());
+		assertEquals("app1", userInfo.getApplicationInfos().get(0).getName());
+	}
+
+	private void assertProperties(IJsonNode node) {
+		assertEquals("value", node.get("plain").asString());
+		assertEquals(UNICODE, node.get("unicode").asString());
+		assertEquals(SPECIAL, node.get("special").asString());
+		assertEquals("", node.get("empty").asString());
+	}
+
+	private String createResponse(String data, String debug) {
+		return "{\"debug\":\"" + debug + "\",\"messages\":\"\",\"data\":" + data
+				+ ",\"api\":\"1.1.1\",\"api_c\":[\"placeholder\"],\"result\":null,\"exit_code\":0}";
+	}
+
+	private String quote(String json) {
+		return "\"" + json.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+	}
+}
@@ -0,0 +1,123 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.openshift.express.client.AsyncOpenShiftService;
+import com.openshift.express.client.ICartridge;
+import com.openshift.express.client.IEmbeddableCartridge;
+import com.openshift.express.client.User;
+import com.openshift.express.client.pipeline.ApplicationCreation;
+import com.openshift.express.client.pipeline.ApplicationCreationPipeline;
+import com.openshift.express.client.pipeline.CreationStage;
+import com.openshift.express.internal.client.test.broker.BrokerSimulatorRule;
+
+/**
+ * @author Daniel Brenner
+ */
+public class ApplicationCreationPipelineTest {
+
+	private static final long TIMEOUT = 30 * 1000;
+
+	@Rule
+	public BrokerSimulatorRule simulator = new BrokerSimulatorRule(ApplicationCreationPipelineTest.class);
+
+	private AsyncOpenShiftService async;
+	private ApplicationCreationPipeline pipeline;
+	private User user;
+
+	@Before
+	public void setUp() throws Exception {
+		this.user = simulator.getUser();
+		simulator.createDomain();
+		this.async = new AsyncOpenShiftService(simulator.getService());
+		this.pipeline = new ApplicationCreationPipeline(async);
+		// the hosts of the simulated applications do not resolve
+		pipeline.setWaitForAccessible(false);
+	}
+
+	@After
+	public void tearDown() {
+		pipeline.shutdown();
+		async.shutdown();
+	}
+
+	@Test
+	public void createsApplicationsConcurrently() throws Exception {
+		List<ApplicationCreation> creations = new ArrayList<ApplicationCreation>();
+		for (int i = 0; i < 3; i++) {
+			creations.add(pipeline.submit(user, "app" + i, ICartridge.JBOSSAS_7,
+					Arrays.asList(IEmbeddableCartridge.MYSQL_51)));
+		}
+		assertTrue(ApplicationCreationPipeline.awaitAll(creations, TIMEOUT).isEmpty());
+		for (ApplicationCreation creation : creations) {
+			assertTrue(String.valueOf(creation.getError()), creation.isSuccessful());
+			assertNotNull(creation.getApplication());
+			assertNotNull(creation.getGitUri());
+			assertTrue(simulator.getAccount().getApplication(creation.getName())
+					.isEmbedded(IEmbeddableCartridge.MYSQL_51.getName()));
+			assertTrue(user.hasApplication(creation.getName()));
+		}
+	}
+
+	@Test
+	public void reportsStageTimings() throws Exception {
+		ApplicationCreation creation = pipeline.submit(user, "app", ICartridge.JBOSSAS_7,
+				Arrays.asList(IEmbeddableCartridge.MYSQL_51));
+		assertTrue(creation.await(TIMEOUT));
+		assertTrue(creation.getStageDuration(CreationStage.CREATE) >= 0);
+		assertTrue(creation.getStageDuration(CreationStage.EMBED) >= 0);
+		assertTrue(creation.getStageDuration(CreationStage.GIT_URI) >= 0);
+		assertTrue(creation.getStageStart(CreationStage.EMBED) >= creation.getStageDuration(CreationStage.CREATE));
+		assertEquals(-1, creation.getStageStart(CreationStage.RESOLVE_HOST));
+		assertTrue(creation.getDuration() >= creation.getStageDuration(CreationStage.EMBED));
+	}
+
+	@Test
+	public void skipsEmbeddingIfThereAreNoCartridges() throws Exception {
+		ApplicationCreation creation = pipeline.submit(user, "app", ICartridge.JBOSSAS_7,
+				Collections.<IEmbeddableCartridge> emptyList());
+		assertTrue(creation.await(TIMEOUT));
+		assertTrue(creation.isSuccessful());
+		assertEquals(-1, creation.getStageStart(CreationStage.EMBED));
+	}
+
+	@Test
+	public void reportsFailedCreation() throws Exception {
+		simulator.getAccount().setMaxGears(1);
+		ApplicationCreation first = pipeline.submit(user, "app1", ICartridge.JBOSSAS_7,
+				Collections.<IEmbeddableCartridge> emptyList());
+		assertTrue(first.await(TIMEOUT));
+		ApplicationCreation second = pipeline.submit(user, "app2", ICartridge.JBOSSAS_7,
+				Arrays.asList(IEmbeddableCartridge.MYSQL_51));
+		assertTrue(second.await(TIMEOUT));
+		assertTrue(first.isSuccessful());
+		assertFalse(second.isSuccessful());
+		assertNotNull(second.getError());
+		assertNull(second.getApplication());
+		assertEquals(-1, second.getStageStart(CreationStage.EMBED));
+	}
+}
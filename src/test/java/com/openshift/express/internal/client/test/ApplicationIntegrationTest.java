@@ -63,7 +63,7 @@ import com.openshift.express.internal.client.EmbeddableCartridge;
 import com.openshift.express.internal.client.UserInfo;
 import com.openshift.express.internal.client.test.fakes.TestUser;
 import com.openshift.express.internal.client.test.utils.ApplicationUtils;
-import com.openshift.express.internal.client.utils.StreamUtils;
+import com.openshift.express.internal.client.utils.IOUtils;
 
 /**
  * @author André Dietisheim
@@ -488,7 +488,7 @@ public class ApplicationIntegrationTest {
 			HttpURLConnection connection = (HttpURLConnection) url.openConnection();
 			
 			//Need to hit the app to start the Rack/Ruby process
-			String result = StreamUtils.readToString(connection.getInputStream());
+			String result = IOUtils.toString(connection.getInputStream());
 			
 			String logFile = application.threadDump();
 							
@@ -0,0 +1,189 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.net.ServerSocket;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.openshift.express.client.OpenShiftEndpointException;
+import com.openshift.express.client.OpenShiftService;
+import com.openshift.express.client.User;
+import com.openshift.express.client.balancing.BrokerEndpoint;
+import com.openshift.express.client.balancing.BrokerEndpointGroup;
+import com.openshift.express.client.balancing.EndpointSelection;
+import com.openshift.express.client.balancing.IHealthCheck;
+import com.openshift.express.internal.client.test.broker.BrokerSimulator;
+import com.openshift.express.internal.client.test.broker.BrokerSimulatorRule;
+import com.openshift.express.internal.client.test.broker.FaultInjectingBrokerSimulator;
+import com.openshift.express.internal.client.test.broker.FaultProfile;
+import com.openshift.express.internal.client.test.fakes.OpenShiftCredentials;
+
+/**
+ * @author Daniel Brenner
+ */
+public class BrokerEndpointGroupTest {
+
+	private final BrokerSimulator broker = new BrokerSimulator(false);
+
+	@Rule
+	public BrokerSimulatorRule simulator = new BrokerSimulatorRule(BrokerEndpointGroupTest.class, broker);
+
+	@Test
+	public void selectsLeastOutstandingRequests() {
+		BrokerEndpointGroup group = new BrokerEndpointGroup(Arrays.asList("http://a", "http://b"));
+		BrokerEndpoint a = group.getEndpoints().get(0);
+		BrokerEndpoint b = group.getEndpoints().get(1);
+		group.requestStarted(a);
+		for (int i = 0; i < 4; i++) {
+			assertSame(b, group.select(null, Collections.<BrokerEndpoint> emptyList()));
+		}
+		assertSame(a, group.select(null, Arrays.asList(b)));
+		assertNull(group.select(null, Arrays.asList(a, b)));
+	}
+
+	@Test
+	public void selectsLowestLatency() {
+		BrokerEndpointGroup group = new BrokerEndpointGroup(Arrays.asList("http://a", "http://b"));
+		group.setSelection(EndpointSelection.LATENCY_AWARE);
+		BrokerEndpoint a = group.getEndpoints().get(0);
+		BrokerEndpoint b = group.getEndpoints().get(1);
+		group.requestStarted(a);
+		group.requestSucceeded(a, 100);
+		group.requestStarted(b);
+		group.requestSucceeded(b, 10);
+		for (int i = 0; i < 4; i++) {
+			assertSame(b, group.select(null, Collections.<BrokerEndpoint> emptyList()));
+		}
+	}
+
+	@Test
+	public void sticksToBrokerOfAffinityKey() {
+		BrokerEndpointGroup group = new BrokerEndpointGroup(Arrays.asList("http://a", "http://b"));
+		BrokerEndpoint first = group.select(OpenShiftCredentials.USERNAME, Collections.<BrokerEndpoint> emptyList());
+		group.requestStarted(first);
+		for (int i = 0; i < 4; i++) {
+			assertSame(first, group.select(OpenShiftCredentials.USERNAME, Collections.<BrokerEndpoint> emptyList()));
+		}
+	}
+
+	@Test
+	public void marksBrokerDownAndUp() {
+		BrokerEndpointGroup group = new BrokerEndpointGroup(Arrays.asList("http://a", "http://b"));
+		group.setMaxConsecutiveFailures(2);
+		BrokerEndpoint a = group.getEndpoints().get(0);
+		BrokerEndpoint b = group.getEndpoints().get(1);
+		for (int i = 0; i < 2; i++) {
+			group.requestStarted(a);
+			group.requestFailed(a);
+		}
+		assertFalse(a.isHealthy());
+		// b is busier but a is down
+		group.requestStarted(b);
+		assertSame(b, group.select(null, Collections.<BrokerEndpoint> emptyList()));
+
+		group.setHealthCheck(new IHealthCheck() {
+
+			public boolean isHealthy(BrokerEndpoint endpoint) {
+				return true;
+			}
+		});
+		group.checkHealth();
+		assertTrue(a.isHealthy());
+		assertSame(a, group.select(null, Collections.<BrokerEndpoint> emptyList()));
+	}
+
+	@Test
+	public void healthCheckMarksUnreachableBrokerDown() throws Exception {
+		BrokerEndpointGroup group = new BrokerEndpointGroup(Arrays.asList(getUnreachableUrl(), broker.getBaseUrl()));
+		group.checkHealth();
+		assertFalse(group.getEndpoints().get(0).isHealthy());
+		assertTrue(group.getEndpoints().get(1).isHealthy());
+	}
+
+	@Test
+	public void failsOverIdempotentRequests() throws Exception {
+		String unreachable = getUnreachableUrl();
+		OpenShiftService service = simulator.createService(unreachable);
+		service.setEndpointGroup(new BrokerEndpointGroup(Arrays.asList(unreachable, broker.getBaseUrl())));
+		User user = simulator.createUser(service);
+		for (int i = 0; i < 4; i++) {
+			assertFalse(service.getCartridges(user).isEmpty());
+		}
+		assertEquals(4, broker.getRequests());
+	}
+
+	@Test
+	public void doesNotRetryMutatingRequests() throws Exception {
+		String unreachable = getUnreachableUrl();
+		OpenShiftService service = simulator.createService(unreachable);
+		BrokerEndpointGroup group = new BrokerEndpointGroup(Arrays.asList(unreachable, broker.getBaseUrl()));
+		service.setEndpointGroup(group);
+		List<BrokerEndpoint> endpoints = group.getEndpoints();
+		// bind the user to the unreachable broker
+		assertSame(endpoints.get(0), group.select(OpenShiftCredentials.USERNAME, Arrays.asList(endpoints.get(1))));
+		try {
+			service.createDomain(BrokerSimulatorRule.DOMAIN, BrokerSimulatorRule.createSshKey(),
+					simulator.createUser(service));
+			fail("mutating request was retried at another broker");
+		} catch (OpenShiftEndpointException e) {
+			assertEquals(0, broker.getRequests());
+		}
+	}
+
+	@Test
+	public void doesNotFailOverIfBrokerAnswersWithError() throws Exception {
+		FaultInjectingBrokerSimulator failing = new FaultInjectingBrokerSimulator(false);
+		failing.start();
+		try {
+			failing.addAccount(OpenShiftCredentials.USERNAME, OpenShiftCredentials.PASSWORD);
+			failing.setFaults(FaultProfile.parse("error=1"));
+			OpenShiftService service = simulator.getService();
+			BrokerEndpointGroup group = new BrokerEndpointGroup(
+					Arrays.asList(failing.getBaseUrl(), broker.getBaseUrl()));
+			group.setMaxConsecutiveFailures(1);
+			service.setEndpointGroup(group);
+			User user = simulator.getUser();
+			int errors = 0;
+			for (int i = 0; i < 4; i++) {
+				try {
+					service.getCartridges(user);
+				} catch (OpenShiftEndpointException e) {
+					errors++;
+				}
+			}
+			assertEquals(2, errors);
+			assertEquals(2, failing.getRequests());
+			assertEquals(2, broker.getRequests());
+			assertTrue(group.getEndpoints().get(0).isHealthy());
+		} finally {
+			failing.stop();
+		}
+	}
+
+	private String getUnreachableUrl() throws Exception {
+		ServerSocket socket = new ServerSocket(0);
+		int port = socket.getLocalPort();
+		socket.close();
+		return "http://127.0.0.1:" + port;
+	}
+}
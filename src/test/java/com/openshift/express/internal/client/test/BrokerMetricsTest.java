@@ -0,0 +1,159 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.openshift.express.client.ICartridge;
+import com.openshift.express.client.IEmbeddableCartridge;
+import com.openshift.express.client.IUser;
+import com.openshift.express.client.InvalidCredentialsOpenShiftException;
+import com.openshift.express.client.OpenShiftException;
+import com.openshift.express.client.OpenShiftService;
+import com.openshift.express.client.User;
+import com.openshift.express.client.metrics.BrokerRequestMetrics;
+import com.openshift.express.client.metrics.InMemoryBrokerMetrics;
+import com.openshift.express.client.metrics.NoopBrokerMetrics;
+import com.openshift.express.client.metrics.OperationMetrics;
+import com.openshift.express.internal.client.httpclient.RequestTimer;
+import com.openshift.express.internal.client.test.broker.Broker;
+import com.openshift.express.internal.client.test.broker.BrokerSimulatorRule;
+import com.openshift.express.internal.client.test.broker.FaultInjectingBrokerSimulator;
+import com.openshift.express.internal.client.test.broker.FaultProfile;
+import com.openshift.express.internal.client.test.broker.LatencyDistribution;
+import com.openshift.express.internal.client.test.fakes.OpenShiftCredentials;
+
+/**
+ * @author Daniel Brenner
+ */
+public class BrokerMetricsTest {
+
+	private final FaultInjectingBrokerSimulator broker = new FaultInjectingBrokerSimulator(false, 0);
+
+	@Rule
+	public BrokerSimulatorRule simulator = new BrokerSimulatorRule(BrokerMetricsTest.class, broker);
+
+	private OpenShiftService service;
+	private InMemoryBrokerMetrics metrics;
+	private IUser user;
+
+	@Before
+	public void setUp() throws Exception {
+		this.service = simulator.getService();
+		this.metrics = new InMemoryBrokerMetrics();
+		service.setMetrics(metrics);
+		this.user = simulator.getUser();
+	}
+
+	@Test
+	public void recordsEachOperation() throws Exception {
+		simulator.createDomain();
+		service.createApplication("test", ICartridge.JBOSSAS_7, user);
+		service.stopApplication("test", ICartridge.JBOSSAS_7, user);
+		service.stopApplication("test", ICartridge.JBOSSAS_7, user);
+		service.addEmbeddedCartridge("test", IEmbeddableCartridge.MYSQL_51, user);
+		service.getUserInfo(user);
+		service.getEmbeddableCartridges(user);
+
+		assertEquals(1, metrics.getOperation("domain:create").getCount());
+		assertEquals(1, metrics.getOperation("cartridge:configure").getCount());
+		assertEquals(2, metrics.getOperation("cartridge:stop").getCount());
+		assertEquals(1, metrics.getOperation("embed_cartridge:configure").getCount());
+		assertEquals(1, metrics.getOperation("userinfo").getCount());
+		assertEquals(1, metrics.getOperation("cartlist:embedded").getCount());
+		assertNull(metrics.getOperation("cartlist:standalone"));
+		assertEquals(6, metrics.getOperations().size());
+	}
+
+	@Test
+	public void recordsSizesAndPhases() throws Exception {
+		broker.setFaults(Broker.RESOURCE_CARTLIST, new FaultProfile().setLatency(LatencyDistribution.fixed(100)));
+		service.getCartridges(user);
+
+		OperationMetrics cartlist = metrics.getOperation("cartlist:standalone");
+		assertTrue(cartlist.getRequestBytes().getMax() > 0);
+		assertTrue(cartlist.getResponseBytes().getMax() > 100);
+		// the broker latency is waited for until the first byte arrives
+		long timeToFirstByte = cartlist.getTimeToFirstByteLatencies().getMax();
+		assertTrue(timeToFirstByte >= TimeUnit.MILLISECONDS.toMicros(99));
+		assertTrue(cartlist.getTotalLatencies().getMax() >= timeToFirstByte);
+		assertEquals(1, cartlist.getParseLatencies().getCount());
+		assertEquals(0, cartlist.getErrorCount());
+	}
+
+	@Test
+	public void operationMetricsAreSnapshots() throws Exception {
+		service.getCartridges(user);
+		OperationMetrics cartlist = metrics.getOperation("cartlist:standalone");
+		service.getCartridges(user);
+
+		assertEquals(1, cartlist.getCount());
+		assertEquals(1, cartlist.getTotalLatencies().getCount());
+		OperationMetrics updated = metrics.getOperation("cartlist:standalone");
+		assertEquals(2, updated.getCount());
+		assertTrue(updated.getTotalLatencies().get99thPercentile() >= updated.getTotalLatencies().getMedian());
+	}
+
+	@Test
+	public void connectPhaseStartsWhenConnecting() throws Exception {
+		RequestTimer timer = new RequestTimer();
+		Thread.sleep(50);
+		timer.connecting();
+		timer.connected();
+		BrokerRequestMetrics requestMetrics = timer.stop(null);
+
+		assertTrue(requestMetrics.getConnectNanos() < TimeUnit.MILLISECONDS.toNanos(50));
+		assertTrue(requestMetrics.getTotalNanos() >= TimeUnit.MILLISECONDS.toNanos(50));
+	}
+
+	@Test
+	public void recordsErrorClass() throws Exception {
+		IUser invalidUser = new User(OpenShiftCredentials.USERNAME, "wrong", null, service);
+		try {
+			service.getUserInfo(invalidUser);
+			fail("invalid credentials were not reported");
+		} catch (InvalidCredentialsOpenShiftException e) {
+			// expected
+		}
+		broker.setFaults(new FaultProfile().setTruncatedJsonRate(1.0));
+		try {
+			service.getUserInfo(user);
+			fail("truncated json was not reported");
+		} catch (OpenShiftException e) {
+			// expected
+		}
+
+		OperationMetrics userInfo = metrics.getOperation("userinfo");
+		assertEquals(2, userInfo.getCount());
+		assertEquals(2, userInfo.getErrorCount());
+		assertEquals(Long.valueOf(1), userInfo.getErrors().get(InvalidCredentialsOpenShiftException.class.getName()));
+		assertEquals(Long.valueOf(1), userInfo.getErrors().get(OpenShiftException.class.getName()));
+	}
+
+	@Test
+	public void doesNotRecordByDefault() throws Exception {
+		OpenShiftService defaultService = simulator.createService(simulator.getBaseUrl());
+		assertNotNull(defaultService.getMetrics());
+		assertTrue(defaultService.getMetrics() instanceof NoopBrokerMetrics);
+		defaultService.getCartridges(user);
+		assertTrue(metrics.getOperations().isEmpty());
+	}
+}
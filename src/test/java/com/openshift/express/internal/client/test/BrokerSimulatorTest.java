@@ -0,0 +1,142 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.openshift.express.client.IApplication;
+import com.openshift.express.client.ICartridge;
+import com.openshift.express.client.IDomain;
+import com.openshift.express.client.IEmbeddableCartridge;
+import com.openshift.express.client.IUser;
+import com.openshift.express.client.InvalidCredentialsOpenShiftException;
+import com.openshift.express.client.OpenShiftEndpointException;
+import com.openshift.express.client.User;
+import com.openshift.express.internal.client.test.broker.BrokerAccount;
+import com.openshift.express.internal.client.test.broker.BrokerApplication;
+import com.openshift.express.internal.client.test.broker.BrokerSimulator;
+import com.openshift.express.internal.client.test.broker.BrokerSimulatorRule;
+import com.openshift.express.internal.client.test.fakes.OpenShiftCredentials;
+
+/**
+ * Runs the client stack against the in-process broker simulator.
+ * 
+ * @author Daniel Brenner
+ */
+public class BrokerSimulatorTest {
+
+	@Rule
+	public BrokerSimulatorRule http = new BrokerSimulatorRule(BrokerSimulatorTest.class);
+
+	@Rule
+	public BrokerSimulatorRule https = new BrokerSimulatorRule(BrokerSimulatorTest.class, new BrokerSimulator(true));
+
+	@Test
+	public void canCreateDomainOverHttp() throws Exception {
+		assertCanCreateDomain(http);
+	}
+
+	@Test
+	public void canCreateDomainOverHttps() throws Exception {
+		assertCanCreateDomain(https);
+	}
+
+	@Test
+	public void listsCartridges() throws Exception {
+		IUser user = http.getUser();
+		List<ICartridge> cartridges = user.getCartridges();
+		assertEquals(9, cartridges.size());
+		assertNotNull(user.getCartridgeByName(ICartridge.JBOSSAS_7.getName()));
+		List<IEmbeddableCartridge> embeddableCartridges = user.getEmbeddableCartridges();
+		assertTrue(embeddableCartridges.contains(IEmbeddableCartridge.MYSQL_51));
+	}
+
+	@Test
+	public void canCreateEmbedAndDestroyApplication() throws Exception {
+		IUser user = https.getUser();
+		https.createDomain();
+		IApplication application = user.createApplication("test", ICartridge.JBOSSAS_7);
+		BrokerApplication brokerApplication = https.getAccount().getApplication("test");
+		assertNotNull(brokerApplication);
+		assertEquals(brokerApplication.getUUID(), application.getUUID());
+		assertTrue(application.getCreationLog().contains("test"));
+
+		application.addEmbbedCartridge(IEmbeddableCartridge.MYSQL_51);
+		assertTrue(brokerApplication.isEmbedded(IEmbeddableCartridge.MYSQL_51.getName()));
+
+		application.stop();
+		assertEquals(BrokerApplication.STATE_STOPPED, brokerApplication.getState());
+		application.start();
+		assertEquals(BrokerApplication.STATE_STARTED, brokerApplication.getState());
+
+		IUser otherSession = https.createUser(https.createService(https.getBaseUrl()));
+		IApplication reloaded = otherSession.getApplicationByName("test");
+		assertNotNull(reloaded);
+		assertTrue(reloaded.hasEmbeddedCartridge(IEmbeddableCartridge.MYSQL_51.getName()));
+
+		reloaded.destroy();
+		assertNull(https.getAccount().getApplication("test"));
+	}
+
+	@Test(expected = OpenShiftEndpointException.class)
+	public void cannotCreateApplicationTwice() throws Exception {
+		IUser user = http.getUser();
+		http.createDomain();
+		user.createApplication("test", ICartridge.JBOSSAS_7);
+		http.createService(http.getBaseUrl()).createApplication("test", ICartridge.JBOSSAS_7, user);
+	}
+
+	@Test
+	public void reportsBrokerMessagesOnErrors() throws Exception {
+		IUser user = http.getUser();
+		http.getAccount().setMaxGears(1);
+		http.createDomain();
+		user.createApplication("test", ICartridge.JBOSSAS_7);
+		try {
+			user.createApplication("test2", ICartridge.JBOSSAS_7);
+		} catch (OpenShiftEndpointException e) {
+			assertEquals(104, e.getResponseExitCode());
+			assertTrue(e.getResponseMessage().contains("limit"));
+			return;
+		}
+		throw new AssertionError("application limit was not enforced");
+	}
+
+	@Test(expected = InvalidCredentialsOpenShiftException.class)
+	public void invalidCredentialsAreReported() throws Exception {
+		IUser user = new User(OpenShiftCredentials.USERNAME, "wrong", null, http.getService());
+		user.getDomain();
+	}
+
+	private void assertCanCreateDomain(BrokerSimulatorRule simulator) throws Exception {
+		IUser user = simulator.getUser();
+		assertFalse(user.hasDomain());
+		IDomain domain = simulator.createDomain();
+		assertEquals(BrokerSimulatorRule.DOMAIN, domain.getNamespace());
+		BrokerAccount account = simulator.getAccount();
+		assertEquals(BrokerSimulatorRule.DOMAIN, account.getNamespace());
+		assertEquals(BrokerSimulatorRule.SSH_KEY, account.getSshKey());
+
+		IUser otherSession = simulator.createUser(simulator.createService(simulator.getBaseUrl()));
+		assertEquals(BrokerSimulatorRule.DOMAIN, otherSession.getDomain().getNamespace());
+		assertEquals(BrokerAccount.DEFAULT_MAX_GEARS, account.getMaxGears());
+		assertEquals(BrokerSimulatorRule.SSH_KEY, otherSession.getSshKey().getPublicKey());
+	}
+}
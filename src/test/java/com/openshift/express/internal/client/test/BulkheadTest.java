@@ -0,0 +1,147 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.openshift.express.client.AsyncOpenShiftService;
+import com.openshift.express.client.OverloadedOpenShiftException;
+import com.openshift.express.client.bulkhead.Bulkhead;
+import com.openshift.express.client.bulkhead.OperationClass;
+import com.openshift.express.internal.client.test.broker.BrokerSimulatorRule;
+
+/**
+ * @author Daniel Brenner
+ */
+public class BulkheadTest {
+
+	@Rule
+	public BrokerSimulatorRule simulator = new BrokerSimulatorRule(BulkheadTest.class);
+
+	private AsyncOpenShiftService async;
+
+	@After
+	public void tearDown() {
+		if (async != null) {
+			async.shutdown();
+		}
+	}
+
+	@Test
+	public void rejectsIfSaturated() throws Exception {
+		Bulkhead bulkhead = new Bulkhead("test", 1, 1);
+		CountDownLatch release = new CountDownLatch(1);
+		try {
+			bulkhead.submit(new Blocking(release));
+			bulkhead.submit(new Blocking(release));
+			waitForActiveThreads(1, bulkhead);
+			assertEquals(1.0, bulkhead.getSaturation(), 0.0);
+			try {
+				bulkhead.submit(new Blocking(release));
+				fail("saturated bulkhead accepted an operation");
+			} catch (OverloadedOpenShiftException e) {
+				assertEquals(1, bulkhead.getRejected());
+			}
+		} finally {
+			release.countDown();
+			bulkhead.shutdown();
+		}
+	}
+
+	@Test
+	public void lifecycleBurstDoesNotStarveReadOnly() throws Exception {
+		this.async = new AsyncOpenShiftService(null,
+				new Bulkhead("lifecycle", 2, 2), new Bulkhead("embed", 1, 1), new Bulkhead("read-only", 2, 2));
+		CountDownLatch release = new CountDownLatch(1);
+		try {
+			for (int i = 0; i < 4; i++) {
+				async.submit(OperationClass.LIFECYCLE, new Blocking(release));
+			}
+			try {
+				async.submit(OperationClass.LIFECYCLE, new Blocking(release));
+				fail("saturated lifecycle bulkhead accepted an operation");
+			} catch (OverloadedOpenShiftException e) {
+				// expected
+			}
+			Future<String> status = async.submit(OperationClass.READ_ONLY, new Callable<String>() {
+
+				public String call() throws Exception {
+					return "started";
+				}
+			});
+			assertEquals("started", status.get(5, TimeUnit.SECONDS));
+			waitForActiveThreads(2, async.getBulkhead(OperationClass.LIFECYCLE));
+			assertEquals(2, async.getBulkhead(OperationClass.LIFECYCLE).getActiveThreads());
+			assertEquals(2, async.getBulkhead(OperationClass.LIFECYCLE).getQueueDepth());
+			assertEquals(0, async.getBulkhead(OperationClass.READ_ONLY).getRejected());
+		} finally {
+			release.countDown();
+		}
+	}
+
+	@Test
+	public void recordsQueueWaits() throws Exception {
+		Bulkhead bulkhead = new Bulkhead("test", 1, 10);
+		CountDownLatch release = new CountDownLatch(1);
+		try {
+			Future<Void> first = bulkhead.submit(new Blocking(release));
+			Future<Void> second = bulkhead.submit(new Blocking(release));
+			Thread.sleep(50);
+			release.countDown();
+			first.get(5, TimeUnit.SECONDS);
+			second.get(5, TimeUnit.SECONDS);
+			assertEquals(2, bulkhead.getQueueWaits().getCount());
+			assertTrue(bulkhead.getQueueWaits().getMax() >= TimeUnit.MILLISECONDS.toMicros(40));
+		} finally {
+			bulkhead.shutdown();
+		}
+	}
+
+	@Test
+	public void sendsRequestsAsynchronously() throws Exception {
+		this.async = new AsyncOpenShiftService(simulator.getService());
+		assertFalse(async.getCartridges(simulator.getUser()).get(10, TimeUnit.SECONDS).isEmpty());
+	}
+
+	private void waitForActiveThreads(int threads, Bulkhead bulkhead) throws InterruptedException {
+		long timeout = System.currentTimeMillis() + 5 * 1000;
+		while (bulkhead.getActiveThreads() < threads
+				&& System.currentTimeMillis() < timeout) {
+			Thread.sleep(5);
+		}
+	}
+
+	private static class Blocking implements Callable<Void> {
+
+		private final CountDownLatch release;
+
+		private Blocking(CountDownLatch release) {
+			this.release = release;
+		}
+
+		public Void call() throws Exception {
+			release.await(10, TimeUnit.SECONDS);
+			return null;
+		}
+	}
+}
@@ -0,0 +1,89 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.express.internal.client.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+import com.openshift.express.internal.client.test.fakes.SshChannelInputStreamFake;
+import com.openshift.express.internal.client.utils.CharsetStreamDecoder;
+import com.openshift.express.internal.client.utils.IOUtils;
+
+/**
+ * @author Daniel Brenner
+ */
+public class CharsetStreamDecoderTest {
+
+	private static final String MULTIBYTE_LOG =
+			"12:01:02,003 INFO  [org.jboss.as] (MSC service thread 1-1) Gr\u00fc\u00dfe aus Z\u00fcrich \u20ac \ud83d\ude00\n";
+
+	@Test
+	public void doesNotDropBytesAtChunkBoundaries() throws IOException {
+		String log = "11:31:36,289 INFO  [org.jboss.as.ee] (Controller Boot Thread) Activating EE subsystem\n";
+		String decoded = new CharsetStreamDecoder().decode(
+				new SshChannelInputStreamFake(log.getBytes("UTF-8"), 7));
+		assertEquals(log, decoded);
+	}
+
+	@Test
+	public void decodesCodePointsSplitAcrossReads() throws IOException {
+		byte[] data = MULTIBYTE_LOG.getBytes("UTF-8");
+		for (int maxChunkSize = 1; maxChunkSize < 8; maxChunkSize++) {
+			String decoded = new CharsetStreamDecoder().decode(new SshChannelInputStreamFake(data, maxChunkSize));
+			assertEquals(MULTIBYTE_LOG, decoded);
+		}
+	}
+
+	@Test
+	public void decodesCodePointsSplitAtBufferBoundaries() throws IOException {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < 200; i++) {
+			builder.append(MULTIBYTE_LOG);
+		}
+		String log = builder.toString();
+		// buffer of 16 bytes forces every multi-byte sequence to cross a buffer end
+		String decoded = new CharsetStreamDecoder(IOUtils.UTF8, 16).decode(
+				new SshChannelInputStreamFake(log.getBytes("UTF-8"), 64));
+		assertEquals(log, decoded);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsBufferSmallerThanACodePoint() {
+		new CharsetStreamDecoder(IOUtils.UTF8, 3);
+	}
+
+	@Test
+	public void decodesWithSmallestBuffer() throws IOException {
+		String decoded = new CharsetStreamDecoder(IOUtils.UTF8, 4).decode(
+				new SshChannelInputStreamFake(MULTIBYTE_LOG.getBytes("UTF-8"), 7));
+		assertEquals(MULTIBYTE_LOG, decoded);
+	}
+
+	@Test
+	public void canBeReused() throws IOException {
+		CharsetStreamDecoder decoder = new CharsetStreamDecoder();
+		// truncated euro sign, decoder must not carry it over to the next stream
+		decoder.decode(new ByteArrayInputStream(new byte[] { 'a', (byte) 0xe2, (byte) 0x82 }));
+		assertEquals(MULTIBYTE_LOG, decoder.decode(new ByteArrayInputStream(MULTIBYTE_LOG.getBytes("UTF-8"))));
+	}
+
+	@Test
+	public void appendsToWriter() throws IOException {
+		StringWriter writer = new StringWriter();
+		new CharsetStreamDecoder().decode(new ByteArrayInputStream(MULTIBYTE_LOG.getBytes("UTF-8")), writer);
+		assertEquals(MULTIBYTE_LOG, writer.toString());
+	}
+}
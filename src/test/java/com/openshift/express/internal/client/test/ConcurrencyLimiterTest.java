@@ -0,0 +1,161 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.openshift.express.client.OpenShiftService;
+import com.openshift.express.client.OverloadedOpenShiftException;
+import com.openshift.express.client.limit.ConcurrencyLimiter;
+import com.openshift.express.internal.client.test.broker.BrokerSimulatorRule;
+
+/**
+ * @author Daniel Brenner
+ */
+public class ConcurrencyLimiterTest {
+
+	private static final long MILLI = 1000 * 1000;
+
+	@Rule
+	public BrokerSimulatorRule simulator = new BrokerSimulatorRule(ConcurrencyLimiterTest.class);
+
+	@Test
+	public void rejectsIfQueueIsFull() throws Exception {
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter(2, 1, 10).setMaxQueueSize(0);
+		limiter.acquire();
+		limiter.acquire();
+		try {
+			limiter.acquire();
+			fail("request beyond the limit was not rejected");
+		} catch (OverloadedOpenShiftException e) {
+			assertEquals(1, limiter.getRejected());
+		}
+		limiter.releaseIgnored();
+		limiter.acquire();
+		assertEquals(2, limiter.getInFlight());
+	}
+
+	@Test
+	public void rejectsIfQueuedTooLong() throws Exception {
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 1, 10).setMaxQueueWait(50);
+		limiter.acquire();
+		long start = System.currentTimeMillis();
+		try {
+			limiter.acquire();
+			fail("queued request was not rejected");
+		} catch (OverloadedOpenShiftException e) {
+			assertTrue(System.currentTimeMillis() - start >= 40);
+			assertEquals(0, limiter.getQueueDepth());
+		}
+	}
+
+	@Test
+	public void queuedRequestProceedsOnRelease() throws Exception {
+		final ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 1, 10);
+		limiter.acquire();
+		final CountDownLatch acquired = new CountDownLatch(1);
+		Thread waiter = new Thread() {
+
+			public void run() {
+				try {
+					limiter.acquire();
+					acquired.countDown();
+				} catch (OverloadedOpenShiftException e) {
+					// latch is not counted down
+				}
+			}
+		};
+		waiter.start();
+		while (limiter.getQueueDepth() == 0) {
+			Thread.sleep(5);
+		}
+		assertFalse(acquired.await(50, TimeUnit.MILLISECONDS));
+		limiter.release(10 * MILLI);
+		assertTrue(acquired.await(5, TimeUnit.SECONDS));
+		assertEquals(1, limiter.getInFlight());
+		assertEquals(0, limiter.getQueueDepth());
+	}
+
+	@Test
+	public void growsWhileLatencyIsLow() throws Exception {
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter(4, 1, 100);
+		for (int i = 0; i < 50; i++) {
+			saturate(limiter, 10 * MILLI);
+		}
+		assertTrue(limiter.getLimit() > 4);
+	}
+
+	@Test
+	public void doesNotGrowIfLimitIsNotUsed() throws Exception {
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter(4, 1, 100);
+		for (int i = 0; i < 50; i++) {
+			limiter.acquire();
+			limiter.release(10 * MILLI);
+		}
+		assertEquals(4, limiter.getLimit());
+	}
+
+	@Test
+	public void shrinksIfLatencyRises() throws Exception {
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter(50, 1, 100);
+		saturate(limiter, 10 * MILLI);
+		int limit = limiter.getLimit();
+		for (int i = 0; i < 20; i++) {
+			saturate(limiter, 100 * MILLI);
+		}
+		assertTrue(limiter.getLimit() < limit);
+	}
+
+	@Test
+	public void backsOffIfRequestsAreDropped() throws Exception {
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter(10, 2, 100);
+		for (int i = 0; i < 50; i++) {
+			limiter.acquire();
+			limiter.releaseDropped();
+		}
+		assertEquals(2, limiter.getLimit());
+	}
+
+	@Test
+	public void serviceReleasesPermits() throws Exception {
+		OpenShiftService service = simulator.getService();
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 1, 10).setMaxQueueSize(0);
+		service.setConcurrencyLimiter(limiter);
+		for (int i = 0; i < 5; i++) {
+			service.getCartridges(simulator.getUser());
+		}
+		assertEquals(0, limiter.getInFlight());
+		assertEquals(0, limiter.getRejected());
+	}
+
+	/**
+	 * Fills the limit of the given limiter and releases all requests with the
+	 * given latency.
+	 */
+	private void saturate(ConcurrencyLimiter limiter, long latency) throws OverloadedOpenShiftException {
+		int limit = limiter.getLimit();
+		for (int i = 0; i < limit; i++) {
+			limiter.acquire();
+		}
+		for (int i = 0; i < limit; i++) {
+			limiter.release(latency);
+		}
+	}
+}
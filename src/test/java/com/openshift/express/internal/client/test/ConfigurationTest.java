@@ -17,7 +17,6 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 import java.io.Writer;
 import java.util.Properties;
@@ -37,7 +36,7 @@ import com.openshift.express.client.configuration.UserConfiguration;
 import com.openshift.express.internal.client.test.fakes.SystemConfigurationFake;
 import com.openshift.express.internal.client.test.fakes.TestUser;
 import com.openshift.express.internal.client.test.fakes.UserConfigurationFake;
-import com.openshift.express.internal.client.utils.StreamUtils;
+import com.openshift.express.internal.client.utils.IOUtils;
 
 /**
  * @author André Dietisheim
@@ -84,7 +83,7 @@ public class ConfigurationTest {
 		userConfiguration.save();
 		final File userConfigurationFile = userConfiguration.getFile();
 		assertNotNull(userConfigurationFile);
-		String fileContent = StreamUtils.readToString(new FileReader(userConfigurationFile));
+		String fileContent = IOUtils.toString(userConfigurationFile, IOUtils.UTF8).trim();
 		Pattern pattern = Pattern.compile(USERNAME_REGEX);
 		Matcher matcher = pattern.matcher(fileContent);
 		assertTrue(matcher.matches());
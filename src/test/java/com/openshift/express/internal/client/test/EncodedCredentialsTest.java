@@ -0,0 +1,155 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.openshift.express.client.ICartridge;
+import com.openshift.express.client.InvalidCredentialsOpenShiftException;
+import com.openshift.express.client.OpenShiftException;
+import com.openshift.express.client.OpenShiftService;
+import com.openshift.express.client.User;
+import com.openshift.express.internal.client.request.ApplicationAction;
+import com.openshift.express.internal.client.request.ApplicationRequest;
+import com.openshift.express.internal.client.request.EncodedCredentials;
+import com.openshift.express.internal.client.request.ListCartridgesRequest;
+import com.openshift.express.internal.client.request.OpenShiftEnvelope;
+import com.openshift.express.internal.client.request.marshalling.ApplicationRequestJsonMarshaller;
+import com.openshift.express.internal.client.request.marshalling.ListCartridgesRequestJsonMarshaller;
+import com.openshift.express.internal.client.test.broker.BrokerSimulatorRule;
+import com.openshift.express.internal.client.test.fakes.OpenShiftCredentials;
+
+/**
+ * @author Daniel Brenner
+ */
+public class EncodedCredentialsTest {
+
+	private static final String RHLOGIN = OpenShiftCredentials.USERNAME;
+	private static final String PASSWORD = OpenShiftCredentials.PASSWORD;
+
+	@Rule
+	public BrokerSimulatorRule simulator = new BrokerSimulatorRule(EncodedCredentialsTest.class);
+
+	private OpenShiftService service;
+	private User user;
+
+	@Before
+	public void setUp() throws Exception {
+		this.service = simulator.getService();
+		this.user = simulator.getUser();
+	}
+
+	@Test
+	public void encodesLikeEnvelope() throws Exception {
+		ApplicationRequest request =
+				new ApplicationRequest("test\u00fc", ICartridge.JBOSSAS_7, ApplicationAction.CONFIGURE, RHLOGIN, true);
+		ApplicationRequestJsonMarshaller marshaller = new ApplicationRequestJsonMarshaller();
+
+		assertEquals(
+				new OpenShiftEnvelope<ApplicationRequest>(PASSWORD, null, null, marshaller, request).createString(),
+				new OpenShiftEnvelope<ApplicationRequest>(
+						EncodedCredentials.create(RHLOGIN, PASSWORD, null, null), marshaller, request).createString());
+		assertEquals(
+				new OpenShiftEnvelope<ApplicationRequest>(null, "k3y+/=", "1v+/=", marshaller, request).createString(),
+				new OpenShiftEnvelope<ApplicationRequest>(
+						EncodedCredentials.create(RHLOGIN, null, "k3y+/=", "1v+/="), marshaller, request)
+						.createString());
+	}
+
+	@Test
+	public void encodesWithoutRhlogin() throws Exception {
+		ListCartridgesRequest request = new ListCartridgesRequest(null, false);
+		ListCartridgesRequestJsonMarshaller marshaller = new ListCartridgesRequestJsonMarshaller();
+		EncodedCredentials credentials = EncodedCredentials.create("", PASSWORD, null, null);
+
+		assertTrue(credentials.isFor(null));
+		assertFalse(credentials.isFor(RHLOGIN));
+		assertEquals(
+				new OpenShiftEnvelope<ListCartridgesRequest>(PASSWORD, null, null, marshaller, request).createString(),
+				new OpenShiftEnvelope<ListCartridgesRequest>(credentials, marshaller, request).createString());
+	}
+
+	@Test(expected = OpenShiftException.class)
+	public void cannotBeUsedForOtherUsers() throws Exception {
+		new OpenShiftEnvelope<ListCartridgesRequest>(
+				EncodedCredentials.create(RHLOGIN, PASSWORD, null, null),
+				new ListCartridgesRequestJsonMarshaller(), new ListCartridgesRequest("other@redhat.com", false));
+	}
+
+	@Test(expected = OpenShiftException.class)
+	public void requiresCredentials() throws Exception {
+		EncodedCredentials.create(RHLOGIN, null, "k3y+/=", null);
+	}
+
+	@Test
+	public void areEncodedOncePerUser() throws Exception {
+		EncodedCredentials credentials = user.getEncodedCredentials();
+		service.getCartridges(user);
+		service.getEmbeddableCartridges(user);
+		assertSame(credentials, user.getEncodedCredentials());
+		assertFalse(credentials.isCleared());
+	}
+
+	@Test
+	public void areEncodedAgainIfPasswordChanges() throws Exception {
+		simulator.createDomain();
+		EncodedCredentials credentials = user.getEncodedCredentials();
+
+		user.setPassword("wrong");
+		assertTrue(credentials.isCleared());
+		assertNotSame(credentials, user.getEncodedCredentials());
+		try {
+			service.getUserInfo(user);
+			fail("password was not changed");
+		} catch (InvalidCredentialsOpenShiftException e) {
+			// expected
+		}
+
+		user.setPassword(PASSWORD);
+		assertEquals(RHLOGIN, service.getUserInfo(user).getRhLogin());
+	}
+
+	@Test
+	public void areClearedOnLogout() throws Exception {
+		EncodedCredentials credentials = user.getEncodedCredentials();
+		ListCartridgesRequest request = new ListCartridgesRequest(RHLOGIN, false);
+		OpenShiftEnvelope<ListCartridgesRequest> envelope = new OpenShiftEnvelope<ListCartridgesRequest>(
+				credentials, new ListCartridgesRequestJsonMarshaller(), request);
+
+		user.logout();
+
+		assertTrue(credentials.isCleared());
+		try {
+			envelope.writeTo(new ByteArrayOutputStream());
+			fail("cleared credentials were written");
+		} catch (IOException e) {
+			// expected
+		}
+		try {
+			service.getCartridges(user);
+			fail("request was sent after logout");
+		} catch (OpenShiftException e) {
+			// expected
+		}
+	}
+}
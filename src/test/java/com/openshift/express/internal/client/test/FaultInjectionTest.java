@@ -0,0 +1,155 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.openshift.express.client.IOpenShiftService;
+import com.openshift.express.client.IUser;
+import com.openshift.express.client.OpenShiftEndpointException;
+import com.openshift.express.client.OpenShiftException;
+import com.openshift.express.internal.client.test.broker.Broker;
+import com.openshift.express.internal.client.test.broker.BrokerSimulatorRule;
+import com.openshift.express.internal.client.test.broker.FaultInjectingBrokerSimulator;
+import com.openshift.express.internal.client.test.broker.FaultProfile;
+import com.openshift.express.internal.client.test.broker.FaultProfile.Fault;
+import com.openshift.express.internal.client.test.broker.LatencyDistribution;
+import com.openshift.express.internal.client.utils.IOUtils;
+
+/**
+ * @author Daniel Brenner
+ */
+public class FaultInjectionTest {
+
+	private final FaultInjectingBrokerSimulator broker = new FaultInjectingBrokerSimulator(false, 42);
+
+	@Rule
+	public BrokerSimulatorRule simulator = new BrokerSimulatorRule(FaultInjectionTest.class, broker);
+
+	private IOpenShiftService service;
+	private IUser user;
+
+	@Before
+	public void setUp() throws Exception {
+		this.service = simulator.getService();
+		this.user = simulator.getUser();
+	}
+
+	@Test
+	public void injectsLatencyPerEndpoint() throws Exception {
+		broker.setFaults(Broker.RESOURCE_CARTLIST, new FaultProfile().setLatency(LatencyDistribution.fixed(200)));
+		long start = System.currentTimeMillis();
+		service.getCartridges(user);
+		assertTrue(System.currentTimeMillis() - start >= 200);
+		start = System.currentTimeMillis();
+		service.getEmbeddableCartridges(user);
+		// all cartlist requests are delayed, regardless of the cartridge type
+		assertTrue(System.currentTimeMillis() - start >= 200);
+	}
+
+	@Test
+	public void serverErrorIsReportedAsEndpointException() throws Exception {
+		broker.setFaults(Broker.RESOURCE_CARTLIST, new FaultProfile().setErrorRate(1.0));
+		try {
+			service.getCartridges(user);
+			fail("injected server error was not reported");
+		} catch (OpenShiftEndpointException e) {
+			assertEquals("Injected fault", e.getResponseMessage());
+		}
+		assertEquals(1, broker.getInjected(Fault.ERROR));
+	}
+
+	@Test(expected = OpenShiftException.class)
+	public void truncatedJsonIsReported() throws Exception {
+		broker.setFaults(new FaultProfile().setTruncatedJsonRate(1.0));
+		service.getCartridges(user);
+	}
+
+	@Test(expected = OpenShiftException.class)
+	public void partialBodyIsReported() throws Exception {
+		broker.setFaults(new FaultProfile().setPartialBodyRate(1.0));
+		service.getCartridges(user);
+	}
+
+	@Test(expected = OpenShiftException.class)
+	public void connectionResetIsReported() throws Exception {
+		broker.setFaults(new FaultProfile().setConnectionResetRate(1.0));
+		service.getCartridges(user);
+	}
+
+	@Test
+	public void stalledSocketTimesOut() throws Exception {
+		broker.setFaults(new FaultProfile().setStallRate(1.0, 10 * 1000));
+		HttpURLConnection connection = (HttpURLConnection)
+				new URL(broker.getBaseUrl() + IOpenShiftService.SERVICE_PATH + "/cartlist").openConnection();
+		connection.setReadTimeout(200);
+		connection.setDoOutput(true);
+		OutputStream out = connection.getOutputStream();
+		out.write("json_data=%7B%22cart_type%22%3A%22standalone%22%7D".getBytes("UTF-8"));
+		out.close();
+		long start = System.currentTimeMillis();
+		try {
+			IOUtils.toString(connection.getInputStream());
+			fail("stalled request did not time out");
+		} catch (SocketTimeoutException e) {
+			assertTrue(System.currentTimeMillis() - start < 10 * 1000);
+		} finally {
+			connection.disconnect();
+		}
+	}
+
+	@Test
+	public void injectsFaultsAtConfiguredRates() throws Exception {
+		FaultProfile profile = FaultProfile.parse("error=0.2,reset=0.1");
+		Random random = new Random(0);
+		int errors = 0;
+		int resets = 0;
+		for (int i = 0; i < 10000; i++) {
+			Fault fault = profile.nextFault(random);
+			if (fault == Fault.ERROR) {
+				errors++;
+			} else if (fault == Fault.CONNECTION_RESET) {
+				resets++;
+			}
+		}
+		assertEquals(2000, errors, 150);
+		assertEquals(1000, resets, 150);
+	}
+
+	@Test
+	public void parsesLatencyDistributions() throws IOException {
+		Random random = new Random(0);
+		assertEquals(20, LatencyDistribution.parse("fixed:20").next(random));
+		long uniform = LatencyDistribution.parse("uniform:10:20").next(random);
+		assertTrue(uniform >= 10 && uniform <= 20);
+		assertTrue(LatencyDistribution.parse("pareto:10:1.5").next(random) >= 10);
+		long sum = 0;
+		LatencyDistribution exponential = LatencyDistribution.parse("exp:20");
+		for (int i = 0; i < 10000; i++) {
+			sum += exponential.next(random);
+		}
+		// truncated to whole milliseconds
+		assertEquals(19.5, sum / 10000.0, 1.0);
+	}
+}
@@ -0,0 +1,152 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+
+import org.junit.Test;
+
+import com.openshift.express.internal.client.test.fakes.SshChannelInputStreamFake;
+import com.openshift.express.internal.client.utils.BufferPool;
+import com.openshift.express.internal.client.utils.IOUtils;
+import com.openshift.express.internal.client.utils.StreamLimitExceededException;
+
+/**
+ * @author Daniel Brenner
+ */
+public class IOUtilsTest {
+
+	private static final String MULTIBYTE_LINES =
+			"Gr\u00fc\u00dfe aus Z\u00fcrich \u20ac \ud83d\ude00\r\n{\"result\":\"ok\"}\n";
+
+	@Test
+	public void keepsLineTerminators() throws IOException {
+		assertEquals(MULTIBYTE_LINES, IOUtils.toString(new StringReader(MULTIBYTE_LINES)));
+		assertEquals(MULTIBYTE_LINES, IOUtils.toString(new ByteArrayInputStream(MULTIBYTE_LINES.getBytes("UTF-8"))));
+	}
+
+	@Test
+	public void readsUTF8ByDefault() throws IOException {
+		String content = createContent(3 * BufferPool.DEFAULT_BUFFER_SIZE);
+		// multi-byte characters are split across reads and buffers
+		assertEquals(content, IOUtils.toString(new SshChannelInputStreamFake(content.getBytes("UTF-8"), 17)));
+	}
+
+	@Test
+	public void readsInGivenCharset() throws IOException {
+		Charset latin1 = Charset.forName("ISO-8859-1");
+		assertEquals("Z\u00fcrich", IOUtils.toString(new ByteArrayInputStream("Z\u00fcrich".getBytes("ISO-8859-1")), latin1));
+	}
+
+	@Test
+	public void returnsNullForNullStreams() throws IOException {
+		assertNull(IOUtils.toString((InputStream) null));
+		assertNull(IOUtils.toByteArray(null));
+	}
+
+	@Test
+	public void copiesStreamsLargerThanBuffer() throws IOException {
+		byte[] data = createContent(5 * BufferPool.DEFAULT_BUFFER_SIZE + 3).getBytes("UTF-8");
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		long copied = IOUtils.copy(new SshChannelInputStreamFake(data, 1000), out);
+		assertEquals(data.length, copied);
+		assertArrayEquals(data, out.toByteArray());
+		assertArrayEquals(data, IOUtils.toByteArray(new ByteArrayInputStream(data)));
+	}
+
+	@Test
+	public void copiesReaders() throws IOException {
+		String content = createContent(2 * BufferPool.DEFAULT_BUFFER_SIZE);
+		StringWriter writer = new StringWriter();
+		assertEquals(content.length(), IOUtils.copy(new StringReader(content), writer));
+		assertEquals(content, writer.toString());
+	}
+
+	@Test
+	public void readsUpToLimit() throws IOException {
+		byte[] data = new byte[100];
+		assertEquals(100, IOUtils.toByteArray(new ByteArrayInputStream(data), 100).length);
+		assertEquals(100, IOUtils.toString(new ByteArrayInputStream(data), IOUtils.UTF8, 100).length());
+	}
+
+	@Test
+	public void failsBeyondLimit() throws IOException {
+		byte[] small = new byte[101];
+		byte[] large = new byte[3 * BufferPool.DEFAULT_BUFFER_SIZE];
+		assertLimitExceeded(small, 100);
+		assertLimitExceeded(large, 100);
+		assertLimitExceeded(large, BufferPool.DEFAULT_BUFFER_SIZE);
+		assertLimitExceeded(large, 2 * BufferPool.DEFAULT_BUFFER_SIZE + 1);
+	}
+
+	@Test
+	public void reusesPooledBuffers() {
+		BufferPool pool = new BufferPool(16, 1);
+		byte[] bytes = pool.acquireBytes();
+		char[] chars = pool.acquireChars();
+		pool.release(bytes);
+		pool.release(chars);
+		assertSame(bytes, pool.acquireBytes());
+		assertSame(chars, pool.acquireChars());
+		assertNotSame(bytes, pool.acquireBytes());
+	}
+
+	@Test
+	public void keepsAtMostMaxBuffers() {
+		BufferPool pool = new BufferPool(16, 2);
+		for (int i = 0; i < 5; i++) {
+			pool.release(new byte[16]);
+		}
+		// buffers of other sizes are not pooled
+		pool.release(new byte[8]);
+		assertEquals(2, pool.getPooledByteBuffers());
+		pool.acquireBytes();
+		pool.acquireBytes();
+		pool.acquireBytes();
+		assertEquals(0, pool.getPooledByteBuffers());
+	}
+
+	private void assertLimitExceeded(byte[] data, long limit) throws IOException {
+		try {
+			IOUtils.toString(new ByteArrayInputStream(data), IOUtils.UTF8, limit);
+			fail("limit of " + limit + " bytes was not enforced");
+		} catch (StreamLimitExceededException e) {
+			assertEquals(limit, e.getLimit());
+		}
+		try {
+			IOUtils.copy(new ByteArrayInputStream(data), new ByteArrayOutputStream(), limit);
+			fail("limit of " + limit + " bytes was not enforced");
+		} catch (StreamLimitExceededException e) {
+			assertEquals(limit, e.getLimit());
+		}
+	}
+
+	private String createContent(int minLength) {
+		StringBuilder builder = new StringBuilder(minLength + MULTIBYTE_LINES.length());
+		while (builder.length() < minLength) {
+			builder.append(MULTIBYTE_LINES);
+		}
+		return builder.toString();
+	}
+}
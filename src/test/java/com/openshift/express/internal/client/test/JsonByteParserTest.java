@@ -0,0 +1,206 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com.openshift.express.client.json.IJsonNode;
+import com.openshift.express.client.json.StreamingJsonCodec;
+import com.openshift.express.internal.client.ApplicationInfo;
+import com.openshift.express.internal.client.UserInfo;
+import com.openshift.express.internal.client.response.OpenShiftResponse;
+import com.openshift.express.internal.client.response.unmarshalling.JsonByteParser;
+import com.openshift.express.internal.client.response.unmarshalling.JsonSanitizer;
+import com.openshift.express.internal.client.response.unmarshalling.UserInfoResponseUnmarshaller;
+import com.openshift.express.internal.client.test.fakes.UserInfoResponseFake;
+
+/**
+ * @author Daniel Brenner
+ */
+public class JsonByteParserTest {
+
+	private static final String UNICODE = "Gr\u00fc\u00dfe aus Z\u00fcrich \u20ac \ud83d\ude00";
+
+	private static final String USER_INFO =
+			"{\"user_info\":{\"rhc_domain\":\"rhcloud.com\",\"rhlogin\":\"toolsjboss@gmail.com\","
+					+ "\"namespace\":\"toolsjboss\",\"uuid\":\"5f34b742db754cc9ab70fd1db2c9a2bd\","
+					+ "\"ssh_key\":\"AAAAB3NzaC1yc2E\",\"ssh_type\":\"ssh-rsa\",\"max_gears\":5,\"consumed_gears\":1},"
+					+ "\"app_info\":{\"app1\":{\"embedded\":{\"mysql-5.1\":{\"info\":\"Connection URL: mysql://127.0.0.1/\"}},"
+					+ "\"uuid\":\"810540bafc1c4b5e8cac830fb8ca786f\",\"framework\":\"jbossas-7\","
+					+ "\"creation_time\":\"2011-09-12T10:15:48-04:00\"}}}";
+
+	@Test
+	public void unmarshallsLikeSanitizedString() throws Exception {
+		String response = createResponse(quote(USER_INFO), "debug trace\\nline 2", "");
+
+		UserInfo expected = new UserInfoResponseUnmarshaller()
+				.unmarshall(JsonSanitizer.sanitize(response)).getOpenShiftObject();
+		UserInfo actual = unmarshall(response.getBytes("UTF-8")).getOpenShiftObject();
+
+		assertUserInfoEquals(expected, actual);
+		assertEquals(5, actual.getMaxGears());
+		assertEquals(1, actual.getConsumedGears());
+		assertEquals("mysql://127.0.0.1/", actual.getApplicationInfos().get(0).getEmbeddedCartridges().get(0).getUrl());
+	}
+
+	@Test
+	public void fallsBackToSanitizerForMangledQuoting() throws Exception {
+		UserInfo expected = new UserInfoResponseUnmarshaller()
+				.unmarshall(JsonSanitizer.sanitize(UserInfoResponseFake.RESPONSE)).getOpenShiftObject();
+		UserInfo actual = unmarshall(UserInfoResponseFake.RESPONSE.getBytes("UTF-8")).getOpenShiftObject();
+
+		assertUserInfoEquals(expected, actual);
+	}
+
+	@Test
+	public void parsesUnquotedData() throws Exception {
+		UserInfo userInfo = unmarshall(createResponse(USER_INFO, "", "").getBytes("UTF-8")).getOpenShiftObject();
+		assertEquals("toolsjboss", userInfo.getNamespace());
+	}
+
+	@Test
+	public void keepsQuotedDataThatIsNoObject() throws Exception {
+		IJsonNode node = parse("{\"data\":\"{no json}\",\"other\":\"{\\\"a\\\":1}\"}");
+		assertEquals("{no json}", node.get("data").asString());
+		// only the data property is corrected
+		assertEquals("{\"a\":1}", node.get("other").asString());
+	}
+
+	@Test
+	public void skipsDebugAndMessages() throws Exception {
+		String response = createResponse(quote(USER_INFO), "debug trace", "some messages");
+
+		UserInfoResponseUnmarshaller unmarshaller = new UserInfoResponseUnmarshaller();
+		unmarshaller.setJsonCodec(StreamingJsonCodec.INSTANCE);
+		assertEquals("some messages", unmarshaller.unmarshall(response.getBytes("UTF-8"), 0, response.length())
+				.getMessages());
+		unmarshaller.setRetainMessages(false);
+		OpenShiftResponse<UserInfo> userInfoResponse =
+				unmarshaller.unmarshall(response.getBytes("UTF-8"), 0, response.length());
+		assertNull(userInfoResponse.getMessages());
+		assertFalse(userInfoResponse.isDebug());
+
+		IJsonNode node = new JsonByteParser(response.getBytes("UTF-8")).skip("debug").skip("messages").parse();
+		assertEquals("", node.get("debug").asString());
+		assertEquals("", node.get("messages").asString());
+		assertEquals(0, node.get("exit_code").asInt());
+	}
+
+	@Test
+	public void decodesUTF8AndEscapes() throws Exception {
+		IJsonNode node = parse("{\"raw\":\"" + UNICODE + "\","
+				+ "\"escaped\":\"Gr\\u00fc\\u00DFe \\ud83d\\ude00\","
+				+ "\"control\":\"a\\nb\\tc\\\"d\\\\e\\/f\"}");
+		assertEquals(UNICODE, node.get("raw").asString());
+		assertEquals("Gr\u00fc\u00dfe \ud83d\ude00", node.get("escaped").asString());
+		assertEquals("a\nb\tc\"d\\e/f", node.get("control").asString());
+	}
+
+	@Test
+	public void decodesEscapesInQuotedData() throws Exception {
+		IJsonNode node = parse("{\"data\":\"{\\\"name\\\":\\\"Z\\\\u00fcrich \\\\ud83d\\\\ude00 " + UNICODE + "\\\"}\"}");
+		assertEquals("Z\u00fcrich \ud83d\ude00 " + UNICODE, node.get("data").get("name").asString());
+	}
+
+	@Test
+	public void parsesLiteralsNumbersAndLists() throws Exception {
+		IJsonNode node = parse(" {\"int\":-42, \"long\":12345678901, \"big\":123456789012345678901234567890,"
+				+ "\"decimal\":1.5e3, \"true\":true, \"false\":false, \"null\":null,"
+				+ "\"list\":[1, \"two\", [], {}], \"empty\":{}} ");
+		assertEquals(-42, node.get("int").asInt());
+		assertEquals(12345678901L, node.get("long").asLong());
+		assertEquals("123456789012345678901234567890", node.get("big").asString());
+		assertEquals("1.5e3", node.get("decimal").asString());
+		assertEquals(1500, node.get("decimal").asLong());
+		assertTrue(node.get("true").asBoolean());
+		assertFalse(node.get("false").asBoolean());
+		assertFalse(node.get("null").isDefined());
+		List<IJsonNode> list = node.get("list").asList();
+		assertEquals(4, list.size());
+		assertEquals("two", list.get(1).asString());
+		assertTrue(list.get(2).isList());
+		assertTrue(list.get(3).isObject());
+		assertTrue(node.get("empty").isObject());
+	}
+
+	@Test
+	public void rejectsInvalidJson() throws Exception {
+		String[] invalid = {
+				"", "{", "{\"a\"}", "{\"a\":}", "{\"a\":1,}", "[1 2]", "{\"a\":tru}", "{\"a\":\"b}",
+				"{\"a\":-}", "{\"a\":\"\\x\"}", "{\"a\":\"\\u00g0\"}", "{} {}", "{\"a\":\"\u00fc\"}garbage" };
+		for (String json : invalid) {
+			try {
+				parse(json);
+				fail("parsed invalid json " + json);
+			} catch (IllegalArgumentException e) {
+				// expected
+			}
+		}
+	}
+
+	@Test
+	public void rejectsInvalidUTF8() throws Exception {
+		byte[] truncated = { '"', (byte) 0xe2, (byte) 0x82, '"' };
+		try {
+			new JsonByteParser(truncated).parse();
+			fail("parsed truncated UTF-8 sequence");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	private IJsonNode parse(String json) throws Exception {
+		return new JsonByteParser(json.getBytes("UTF-8")).parse();
+	}
+
+	private OpenShiftResponse<UserInfo> unmarshall(byte[] response) throws Exception {
+		UserInfoResponseUnmarshaller unmarshaller = new UserInfoResponseUnmarshaller();
+		unmarshaller.setJsonCodec(StreamingJsonCodec.INSTANCE);
+		return unmarshaller.unmarshall(response, 0, response.length);
+	}
+
+	private String createResponse(String data, String debug, String messages) {
+		return "{\"debug\":\"" + debug + "\",\"messages\":\"" + messages + "\",\"data\":" + data
+				+ ",\"api\":\"1.1.1\",\"api_c\":[\"placeholder\"],\"result\":null,\"exit_code\":0}";
+	}
+
+	private String quote(String json) {
+		return "\"" + json.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+	}
+
+	private void assertUserInfoEquals(UserInfo expected, UserInfo actual) {
+		assertEquals(expected.getRhLogin(), actual.getRhLogin());
+		assertEquals(expected.getUuid(), actual.getUuid());
+		assertEquals(expected.getNamespace(), actual.getNamespace());
+		assertEquals(expected.getRhcDomain(), actual.getRhcDomain());
+		assertEquals(expected.getSshPublicKey().getPublicKey(), actual.getSshPublicKey().getPublicKey());
+		assertEquals(expected.getMaxGears(), actual.getMaxGears());
+		assertEquals(expected.getConsumedGears(), actual.getConsumedGears());
+		assertEquals(expected.getApplicationInfos().size(), actual.getApplicationInfos().size());
+		for (int i = 0; i < expected.getApplicationInfos().size(); i++) {
+			ApplicationInfo expectedInfo = expected.getApplicationInfos().get(i);
+			ApplicationInfo actualInfo = actual.getApplicationInfos().get(i);
+			assertEquals(expectedInfo.getName(), actualInfo.getName());
+			assertEquals(expectedInfo.getUuid(), actualInfo.getUuid());
+			assertEquals(expectedInfo.getCartridge(), actualInfo.getCartridge());
+			assertEquals(expectedInfo.getCreationTime(), actualInfo.getCreationTime());
+			assertEquals(expectedInfo.getEmbeddedCartridges().size(), actualInfo.getEmbeddedCartridges().size());
+		}
+	}
+}
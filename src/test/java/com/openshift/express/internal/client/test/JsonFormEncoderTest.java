@@ -0,0 +1,150 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+
+import org.jboss.dmr.ModelNode;
+import org.junit.Test;
+
+import com.openshift.express.client.OpenShiftException;
+import com.openshift.express.client.SSHKeyType;
+import com.openshift.express.client.SSHPublicKey;
+import com.openshift.express.internal.client.request.AbstractDomainRequest;
+import com.openshift.express.internal.client.request.CreateDomainRequest;
+import com.openshift.express.internal.client.request.JsonFormEncoder;
+import com.openshift.express.internal.client.request.ListCartridgesRequest;
+import com.openshift.express.internal.client.request.OpenShiftEnvelope;
+import com.openshift.express.internal.client.request.OpenShiftEnvelopeFactory;
+import com.openshift.express.internal.client.request.marshalling.DomainRequestJsonMarshaller;
+import com.openshift.express.internal.client.request.marshalling.ListCartridgesRequestJsonMarshaller;
+
+/**
+ * @author Daniel Brenner
+ */
+public class JsonFormEncoderTest {
+
+	private static final String RHLOGIN = "toolsjboss@gmail.com";
+	private static final String PASSWORD = "1q2w3e";
+	private static final String SSH_KEY = "AAAAB3NzaC1yc2EAAAADAQABAAABAQC4JlQ9JvGbUcUv4hK1h8GrzIjSdq+/=";
+	private static final String UNICODE = "Gr\u00fc\u00dfe aus Z\u00fcrich \u20ac \ud83d\ude00";
+
+	@Test
+	public void writesCompactJson() throws Exception {
+		String envelope = new OpenShiftEnvelope<ListCartridgesRequest>(PASSWORD, null, null,
+				new ListCartridgesRequestJsonMarshaller(), new ListCartridgesRequest(RHLOGIN, true)).createString();
+
+		assertEquals("password=" + PASSWORD + "&json_data="
+				+ URLEncoder.encode("{\"rhlogin\":\"" + RHLOGIN + "\",\"debug\":\"true\",\"cart_type\":\"standalone\"}",
+						"UTF-8"), envelope);
+	}
+
+	@Test
+	public void encodesLikeEnvelopeFactory() throws Exception {
+		AbstractDomainRequest request =
+				new CreateDomainRequest("toolsjboss", new SSHPublicKey(SSH_KEY, SSHKeyType.SSH_RSA), RHLOGIN, true);
+		DomainRequestJsonMarshaller marshaller = new DomainRequestJsonMarshaller();
+		String legacy = new OpenShiftEnvelopeFactory(PASSWORD, null, null, marshaller.marshall(request)).createString();
+		String streamed = new OpenShiftEnvelope<AbstractDomainRequest>(PASSWORD, null, null, marshaller, request)
+				.createString();
+
+		assertEquals(getFormProperty("password", legacy), getFormProperty("password", streamed));
+		assertEquals(ModelNode.fromJSONString(getFormProperty("json_data", legacy)),
+				ModelNode.fromJSONString(getFormProperty("json_data", streamed)));
+	}
+
+	@Test
+	public void writesAuthKeyAndIV() throws Exception {
+		String envelope = new OpenShiftEnvelope<ListCartridgesRequest>(PASSWORD, "k3y+/=", "1v+/=",
+				new ListCartridgesRequestJsonMarshaller(), new ListCartridgesRequest(RHLOGIN, false)).createString();
+
+		assertEquals("k3y+/=", getFormProperty("broker_auth_key", envelope));
+		assertEquals("1v+/=", getFormProperty("broker_auth_iv", envelope));
+		assertEquals(null, getFormProperty("password", envelope));
+	}
+
+	@Test
+	public void requiresCredentials() throws Exception {
+		try {
+			new OpenShiftEnvelope<ListCartridgesRequest>(null, "k3y", null,
+					new ListCartridgesRequestJsonMarshaller(), new ListCartridgesRequest(RHLOGIN, false));
+			fail("missing credentials were not reported");
+		} catch (OpenShiftException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void encodesMultiByteCharactersLikeURLEncoder() throws Exception {
+		assertEquals("p=" + URLEncoder.encode(UNICODE, "UTF-8"), encodeFormProperty("p", UNICODE));
+		assertEquals("p=" + URLEncoder.encode("*-._ ~!'()&=+%", "UTF-8"), encodeFormProperty("p", "*-._ ~!'()&=+%"));
+		assertEquals("p=" + URLEncoder.encode("\ud83d", "UTF-8"), encodeFormProperty("p", "\ud83d"));
+	}
+
+	@Test
+	public void escapesJsonStrings() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		JsonFormEncoder encoder = new JsonFormEncoder(out);
+		encoder.beginJsonProperty("json_data");
+		encoder.writeProperty("value", "quote \" backslash \\ newline \n tab \t bell \u0007 " + UNICODE);
+		encoder.writeProperty("empty", "");
+		encoder.writeProperty("null", null);
+		encoder.endJsonProperty();
+		encoder.flush();
+
+		assertEquals("{\"value\":\"quote \\\" backslash \\\\ newline \\n tab \\t bell \\u0007 " + UNICODE + "\","
+				+ "\"empty\":\"\",\"null\":null}",
+				getFormProperty("json_data", out.toString("US-ASCII")));
+	}
+
+	@Test
+	public void writesBodiesLargerThanItsBuffer() throws Exception {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < 2000; i++) {
+			builder.append(UNICODE);
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		JsonFormEncoder encoder = new JsonFormEncoder(out);
+		encoder.writeFormProperty("password", PASSWORD);
+		encoder.beginJsonProperty("json_data");
+		encoder.writeProperty("app_name", builder.toString());
+		encoder.endJsonProperty();
+		long written = encoder.flush();
+
+		assertEquals(out.size(), written);
+		assertEquals("password=" + PASSWORD + "&json_data="
+				+ URLEncoder.encode("{\"app_name\":\"" + builder + "\"}", "UTF-8"),
+				out.toString("US-ASCII"));
+	}
+
+	private String encodeFormProperty(String name, String value) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		JsonFormEncoder encoder = new JsonFormEncoder(out);
+		encoder.writeFormProperty(name, value);
+		encoder.flush();
+		return out.toString("US-ASCII");
+	}
+
+	private String getFormProperty(String name, String form) throws Exception {
+		for (String property : form.split("&")) {
+			int separator = property.indexOf('=');
+			if (name.equals(property.substring(0, separator))) {
+				return URLDecoder.decode(property.substring(separator + 1), "UTF-8");
+			}
+		}
+		return null;
+	}
+}
@@ -0,0 +1,32 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.test;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import com.openshift.express.internal.client.test.load.LoadMix;
+import com.openshift.express.internal.client.test.load.LoadOperation;
+
+/**
+ * @author Daniel Brenner
+ */
+public class LoadMixTest {
+
+	@Test
+	public void parsesMix() {
+		LoadMix mix = LoadMix.parse("userinfo=3, embed=1");
+		assertEquals(2, mix.getOperations().size());
+		assertEquals(LoadOperation.USERINFO, mix.getOperations().get(0));
+		assertEquals("userinfo=3,embed=1", mix.toString());
+	}
+}
@@ -0,0 +1,143 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.openshift.express.internal.client.logging.CredentialsRedactor;
+import com.openshift.express.internal.client.logging.Logger;
+
+/**
+ * @author Daniel Brenner
+ */
+public class LoggerTest {
+
+	private static final String REQUEST =
+			"password=1q2w3e&json_data=%7B%22rhlogin%22%3A%22toolsjboss%40gmail.com%22%7D";
+	private static final String AUTHKEY_REQUEST =
+			"broker_auth_key=s3cr3t%2Bkey&broker_auth_iv=s3cr3t%2Biv&json_data=%7B%7D";
+
+	private java.util.logging.Logger julLogger;
+	private RecordingHandler handler;
+	private Logger logger;
+
+	@Before
+	public void setUp() {
+		this.julLogger = java.util.logging.Logger.getLogger(LoggerTest.class.getName());
+		this.handler = new RecordingHandler();
+		julLogger.addHandler(handler);
+		julLogger.setUseParentHandlers(false);
+		this.logger = Logger.getLogger(LoggerTest.class);
+	}
+
+	@After
+	public void tearDown() {
+		julLogger.removeHandler(handler);
+		julLogger.setUseParentHandlers(true);
+		julLogger.setLevel(null);
+	}
+
+	@Test
+	public void doesNotFormatDisabledMessages() {
+		julLogger.setLevel(Level.INFO);
+		ToStringCounter argument = new ToStringCounter();
+		logger.debug("posting {0}", argument);
+		logger.debug("posting {0} {1}", argument, argument);
+		logger.trace("posting {0}", argument);
+
+		assertFalse(logger.isDebugEnabled());
+		assertEquals(0, argument.count);
+		assertTrue(handler.records.isEmpty());
+	}
+
+	@Test
+	public void logsEnabledMessages() {
+		julLogger.setLevel(Level.FINE);
+		logger.debug("Posting to {0}: {1}", "http://localhost", "json_data=%7B%7D");
+
+		assertTrue(logger.isDebugEnabled());
+		assertEquals(1, handler.records.size());
+		assertEquals(Level.FINE, handler.records.get(0).getLevel());
+		assertEquals("Posting to http://localhost: json_data=%7B%7D", handler.records.get(0).getMessage());
+	}
+
+	@Test
+	public void redactsCredentialsInLoggedMessages() {
+		julLogger.setLevel(Level.FINE);
+		logger.debug("Posting to {0}: {1}", "http://localhost", REQUEST);
+
+		String message = handler.records.get(0).getMessage();
+		assertFalse(message.contains("1q2w3e"));
+		assertTrue(message.contains("password=" + CredentialsRedactor.REDACTED + "&json_data="));
+	}
+
+	@Test
+	public void redactsFormCredentials() {
+		assertEquals("password=" + CredentialsRedactor.REDACTED
+				+ "&json_data=%7B%22rhlogin%22%3A%22toolsjboss%40gmail.com%22%7D",
+				CredentialsRedactor.redact(REQUEST));
+		assertEquals("broker_auth_key=" + CredentialsRedactor.REDACTED
+				+ "&broker_auth_iv=" + CredentialsRedactor.REDACTED + "&json_data=%7B%7D",
+				CredentialsRedactor.redact(AUTHKEY_REQUEST));
+		assertEquals("post http://localhost?password=" + CredentialsRedactor.REDACTED,
+				CredentialsRedactor.redact("post http://localhost?password=1q2w3e"));
+	}
+
+	@Test
+	public void redactsJsonCredentials() {
+		assertEquals("{\"rhlogin\":\"toolsjboss\",\"password\":\"" + CredentialsRedactor.REDACTED + "\"}",
+				CredentialsRedactor.redact("{\"rhlogin\":\"toolsjboss\",\"password\":\"1q\\\"2w3e\"}"));
+	}
+
+	@Test
+	public void leavesOtherMessagesUntouched() {
+		String message = "Could not get user info for user \"toolsjboss\"";
+		assertEquals(message, CredentialsRedactor.redact(message));
+		assertEquals("new_password_hint=x", CredentialsRedactor.redact("new_password_hint=x"));
+	}
+
+	private static class ToStringCounter {
+
+		private int count;
+
+		public String toString() {
+			count++;
+			return "counter";
+		}
+	}
+
+	private static class RecordingHandler extends Handler {
+
+		private List<LogRecord> records = new ArrayList<LogRecord>();
+
+		public void publish(LogRecord record) {
+			records.add(record);
+		}
+
+		public void flush() {
+		}
+
+		public void close() {
+		}
+	}
+}
@@ -0,0 +1,206 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.management.JMX;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.openshift.express.client.IDomain;
+import com.openshift.express.client.IUser;
+import com.openshift.express.client.InvalidCredentialsOpenShiftException;
+import com.openshift.express.client.OpenShiftService;
+import com.openshift.express.client.User;
+import com.openshift.express.client.management.OpenShiftServiceMXBean;
+import com.openshift.express.internal.client.ssh.ISshSessionFactory;
+import com.openshift.express.internal.client.ssh.SshSessionPool;
+import com.openshift.express.internal.client.test.broker.Broker;
+import com.openshift.express.internal.client.test.broker.BrokerSimulatorRule;
+import com.openshift.express.internal.client.test.broker.FaultInjectingBrokerSimulator;
+import com.openshift.express.internal.client.test.broker.FaultProfile;
+import com.openshift.express.internal.client.test.broker.LatencyDistribution;
+import com.openshift.express.internal.client.test.fakes.OpenShiftCredentials;
+
+/**
+ * @author Daniel Brenner
+ */
+public class OpenShiftServiceMBeanTest {
+
+	private final FaultInjectingBrokerSimulator broker = new FaultInjectingBrokerSimulator(false, 0);
+
+	@Rule
+	public BrokerSimulatorRule simulator = new BrokerSimulatorRule(OpenShiftServiceMBeanTest.class, broker);
+
+	private OpenShiftService service;
+	private MBeanServer server;
+	private ObjectName name;
+	private OpenShiftServiceMXBean mbean;
+
+	@Before
+	public void setUp() throws Exception {
+		this.service = simulator.getService();
+		this.server = ManagementFactory.getPlatformMBeanServer();
+		this.name = service.registerMBean();
+		this.mbean = JMX.newMXBeanProxy(server, name, OpenShiftServiceMXBean.class);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		service.unregisterMBean();
+	}
+
+	@Test
+	public void isRegisteredOnce() throws Exception {
+		assertTrue(server.isRegistered(name));
+		assertEquals(name, service.registerMBean());
+		assertEquals(OpenShiftServiceMBeanTest.class.getSimpleName(), mbean.getId());
+		assertEquals(service.getServiceUrl(), mbean.getServiceUrl());
+
+		service.unregisterMBean();
+		assertFalse(server.isRegistered(name));
+	}
+
+	@Test
+	public void exposesCacheHitsAndMisses() throws Exception {
+		IUser user = simulator.getUser();
+		user.getCartridges();
+		user.getCartridges();
+		user.getCartridges();
+
+		assertEquals(1, mbean.getCartridgeCacheMisses());
+		assertEquals(2, mbean.getCartridgeCacheHits());
+		assertEquals(2d / 3, mbean.getCartridgeCacheHitRate(), 0.001);
+	}
+
+	@Test
+	public void flushCachesReloadsFromBroker() throws Exception {
+		IUser user = simulator.getUser();
+		simulator.createDomain();
+		user.getUUID();
+		user.getUUID();
+		long requests = broker.getRequests();
+
+		mbean.flushCaches();
+		user.getUUID();
+		assertEquals(requests + 1, broker.getRequests());
+		assertEquals(2, mbean.getUserInfoCacheMisses());
+		assertEquals(1, mbean.getUserInfoCacheHits());
+
+		mbean.resetStatistics();
+		assertEquals(0, mbean.getUserInfoCacheMisses());
+	}
+
+	@Test
+	public void flushCachesDiscardsDomain() throws Exception {
+		IUser user = simulator.getUser();
+		IDomain domain = simulator.createDomain();
+		assertSame(domain, user.getDomain());
+
+		mbean.flushCaches();
+		IDomain reloadedDomain = user.getDomain();
+		assertNotSame(domain, reloadedDomain);
+		assertEquals(BrokerSimulatorRule.DOMAIN, reloadedDomain.getNamespace());
+	}
+
+	@Test
+	public void exposesInFlightRequestsPerOperation() throws Exception {
+		broker.setFaults(Broker.RESOURCE_CARTLIST, new FaultProfile().setLatency(LatencyDistribution.fixed(500)));
+		final IUser user = simulator.getUser();
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<?> cartridges = executor.submit(new Callable<Object>() {
+
+				public Object call() throws Exception {
+					return service.getCartridges(user);
+				}
+			});
+			waitForInFlightRequest();
+			assertEquals(1, mbean.getOpenHttpConnections());
+			assertEquals(Integer.valueOf(1), mbean.getInFlightRequestsByOperation().get("cartlist:standalone"));
+
+			cartridges.get();
+			assertEquals(0, mbean.getInFlightRequests());
+			assertEquals(Integer.valueOf(0), mbean.getInFlightRequestsByOperation().get("cartlist:standalone"));
+			assertEquals(1, mbean.getCompletedRequests());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private void waitForInFlightRequest() throws InterruptedException {
+		long timeout = System.currentTimeMillis() + 5000;
+		while (mbean.getInFlightRequests() == 0) {
+			if (System.currentTimeMillis() > timeout) {
+				fail("request did not get in flight");
+			}
+			Thread.sleep(10);
+		}
+	}
+
+	@Test
+	public void exposesErrorRates() throws Exception {
+		service.getCartridges(simulator.getUser());
+		try {
+			service.getUserInfo(new User(OpenShiftCredentials.USERNAME, "wrong", null, service));
+			fail("invalid credentials were not reported");
+		} catch (InvalidCredentialsOpenShiftException e) {
+			// expected
+		}
+
+		assertEquals(2, mbean.getCompletedRequests());
+		assertEquals(1, mbean.getFailedRequests());
+		assertEquals(0.5, mbean.getErrorRate(), 0.001);
+		assertEquals(Long.valueOf(1), mbean.getErrorsByType().get(InvalidCredentialsOpenShiftException.class.getName()));
+	}
+
+	@Test
+	public void doesNotCreateSshSessionPool() throws Exception {
+		assertEquals(0, mbean.getSshOpenSessions());
+		mbean.drainPools();
+		assertFalse(service.hasSshSessionPool());
+
+		service.setSshSessionPool(new SshSessionPool(mock(ISshSessionFactory.class)));
+		assertEquals(0, mbean.getSshOpenSessions());
+		assertEquals(0, mbean.getSshLeasedChannels());
+		mbean.drainPools();
+	}
+
+	@Test
+	public void registersEachService() throws Exception {
+		OpenShiftService other = new OpenShiftService(service.getId(), broker.getBaseUrl());
+		try {
+			ObjectName otherName = other.registerMBean();
+			assertFalse(name.equals(otherName));
+			assertTrue(server.isRegistered(otherName));
+		} finally {
+			other.unregisterMBean();
+		}
+	}
+}
@@ -25,7 +25,34 @@ import org.junit.runners.Suite;
 	UserTest.class,
 	CartridgeTest.class,
 	EmbeddableCartridgeTest.class,
-	SSHKeyTest.class
+	SSHKeyTest.class,
+	CharsetStreamDecoderTest.class,
+	RemoteCommandTest.class,
+	SftpDownloaderTest.class,
+	SshSessionPoolTest.class,
+	ThreadDumpTest.class,
+	BrokerSimulatorTest.class,
+	LoadMixTest.class,
+	FaultInjectionTest.class,
+	BrokerMetricsTest.class,
+	RequestListenerTest.class,
+	OpenShiftServiceMBeanTest.class,
+	LoggerTest.class,
+	ProductionModeTest.class,
+	JsonFormEncoderTest.class,
+	EncodedCredentialsTest.class,
+	IOUtilsTest.class,
+	JsonByteParserTest.class,
+	DmrJsonCodecTest.class,
+	StreamingJsonCodecTest.class,
+	TimeoutPolicyTest.class,
+	TransportConfigurationTest.class,
+	BrokerEndpointGroupTest.class,
+	ConcurrencyLimiterTest.class,
+	BulkheadTest.class,
+	ValueWindowTest.class,
+	ApplicationCreationPipelineTest.class,
+	WarmApplicationPoolTest.class
 })
 /**
  * @author André Dietisheim
@@ -0,0 +1,131 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.openshift.express.client.IUser;
+import com.openshift.express.client.InvalidCredentialsOpenShiftException;
+import com.openshift.express.client.OpenShiftService;
+import com.openshift.express.client.User;
+import com.openshift.express.client.metrics.InMemoryBrokerMetrics;
+import com.openshift.express.internal.client.response.OpenShiftResponse;
+import com.openshift.express.internal.client.response.unmarshalling.ListCartridgesResponseUnmarshaller;
+import com.openshift.express.internal.client.test.broker.BrokerException;
+import com.openshift.express.internal.client.test.broker.BrokerRequest;
+import com.openshift.express.internal.client.test.broker.BrokerSimulator;
+import com.openshift.express.internal.client.test.broker.BrokerSimulatorRule;
+import com.openshift.express.internal.client.test.fakes.OpenShiftCredentials;
+import com.openshift.express.internal.client.utils.IOpenShiftJsonConstants;
+import com.sun.net.httpserver.HttpExchange;
+
+/**
+ * @author Daniel Brenner
+ */
+public class ProductionModeTest {
+
+	private final DebugRecordingBrokerSimulator broker = new DebugRecordingBrokerSimulator();
+
+	@Rule
+	public BrokerSimulatorRule simulator = new BrokerSimulatorRule(ProductionModeTest.class, broker);
+
+	private OpenShiftService service;
+	private IUser user;
+
+	@Before
+	public void setUp() throws Exception {
+		this.service = simulator.getService();
+		this.user = simulator.getUser();
+	}
+
+	@Test
+	public void requestsDebugOutputByDefault() throws Exception {
+		assertFalse(service.isProductionMode());
+		service.getCartridges(user);
+		assertTrue(broker.debug);
+	}
+
+	@Test
+	public void doesNotRequestDebugOutputInProductionMode() throws Exception {
+		service.setProductionMode(true);
+		service.getCartridges(user);
+		assertFalse(broker.debug);
+	}
+
+	@Test
+	public void receivesLessInProductionMode() throws Exception {
+		InMemoryBrokerMetrics metrics = new InMemoryBrokerMetrics();
+		service.setMetrics(metrics);
+		service.getCartridges(user);
+		long debugBytes = metrics.getOperation("cartlist:standalone").getResponseBytes().getMax();
+
+		metrics.clear();
+		service.setProductionMode(true);
+		service.getCartridges(user);
+		long productionBytes = metrics.getOperation("cartlist:standalone").getResponseBytes().getMax();
+
+		assertTrue(productionBytes < debugBytes);
+	}
+
+	@Test
+	public void keepsErrorMessagesInProductionMode() throws Exception {
+		service.setProductionMode(true);
+		try {
+			service.getUserInfo(new User(OpenShiftCredentials.USERNAME, "wrong", null, service));
+			fail("invalid credentials were not reported");
+		} catch (InvalidCredentialsOpenShiftException e) {
+			assertTrue(e.getCause().getMessage().contains("Invalid user credentials"));
+		}
+	}
+
+	@Test
+	public void unmarshallerDropsMessagesIfNotRetained() throws Exception {
+		String response = "{\"messages\":\"some messages\",\"debug\":\"\",\"data\":"
+				+ "{\"carts\":[\"jbossas-7\"]},\"api\":\"1.1.1\",\"api_c\":[\"placeholder\"],"
+				+ "\"result\":null,\"broker\":\"1.1.1\",\"exit_code\":0}";
+		ListCartridgesResponseUnmarshaller unmarshaller = new ListCartridgesResponseUnmarshaller();
+		assertEquals("some messages", unmarshaller.unmarshall(response).getMessages());
+
+		unmarshaller.setRetainMessages(false);
+		OpenShiftResponse<?> openShiftResponse = unmarshaller.unmarshall(response);
+		assertNull(openShiftResponse.getMessages());
+		assertEquals(1, ((List<?>) openShiftResponse.getOpenShiftObject()).size());
+	}
+
+	private static class DebugRecordingBrokerSimulator extends BrokerSimulator {
+
+		private volatile boolean debug;
+
+		public DebugRecordingBrokerSimulator() {
+			super(false);
+		}
+
+		protected void handle(HttpExchange exchange, BrokerRequest request) throws IOException {
+			try {
+				this.debug = request.getBoolean(IOpenShiftJsonConstants.PROPERTY_DEBUG);
+			} catch (BrokerException e) {
+				this.debug = false;
+			}
+			super.handle(exchange, request);
+		}
+	}
+}
@@ -0,0 +1,274 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.jcraft.jsch.ChannelExec;
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.Session;
+import com.openshift.express.client.CommandOutputCollector;
+import com.openshift.express.client.CommandResult;
+import com.openshift.express.client.IApplication;
+import com.openshift.express.client.ICartridge;
+import com.openshift.express.client.OpenShiftException;
+import com.openshift.express.client.ParallelCommandExecutor;
+import com.openshift.express.client.threaddump.ThreadDumpParser;
+import com.openshift.express.internal.client.Application;
+import com.openshift.express.internal.client.ssh.ISshSessionFactory;
+import com.openshift.express.internal.client.ssh.SshCommandExecutor;
+import com.openshift.express.internal.client.ssh.SshSessionPool;
+
+/**
+ * @author Daniel Brenner
+ */
+public class RemoteCommandTest {
+
+	private static final String USERNAME = "0123456789abcdefg";
+	private static final String HOST = "test-1315839296868.rhcloud.com";
+	private static final String STDOUT = "Gr\u00fc\u00dfe aus Z\u00fcrich \u20ac\n";
+	private static final String STDERR = "du: cannot access `nonexisting': No such file or directory\n";
+
+	private SessionFactoryFake sessionFactory;
+	private SshSessionPool sessionPool;
+
+	@Before
+	public void setUp() {
+		this.sessionFactory = new SessionFactoryFake();
+		this.sessionPool = new SshSessionPool(sessionFactory);
+	}
+
+	@Test
+	public void streamsOutputToListener() throws Exception {
+		sessionFactory.channels.add(createChannel(STDOUT, STDERR, 3, true));
+		CommandOutputCollector collector = new CommandOutputCollector();
+
+		CommandResult result = new SshCommandExecutor(sessionPool).execute(USERNAME, HOST, "du -sh", 0, collector);
+
+		assertEquals(STDOUT, collector.getStdout());
+		assertEquals(STDERR, collector.getStderr());
+		assertEquals(3, result.getExitStatus());
+		assertFalse(result.isTimedOut());
+		assertNull(result.getStdout());
+	}
+
+	@Test
+	public void reusesPooledSession() throws Exception {
+		sessionFactory.channels.add(createChannel(STDOUT, "", 0, true));
+		sessionFactory.channels.add(createChannel(STDOUT, "", 0, true));
+		SshCommandExecutor executor = new SshCommandExecutor(sessionPool);
+
+		executor.execute(USERNAME, HOST, "ps", 0, new CommandOutputCollector());
+		executor.execute(USERNAME, HOST, "ps", 0, new CommandOutputCollector());
+
+		assertEquals(1, sessionFactory.sessionsCreated);
+		assertEquals(1, sessionPool.getOpenSessions());
+		assertEquals(0, sessionPool.getLeasedChannels());
+	}
+
+	@Test
+	public void killsCommandOnTimeout() throws Exception {
+		ChannelExec channel = createChannel("partial output", "", 0, false);
+		sessionFactory.channels.add(channel);
+		CommandOutputCollector collector = new CommandOutputCollector();
+
+		CommandResult result = new SshCommandExecutor(sessionPool).execute(USERNAME, HOST, "jstack 1", 50, collector);
+
+		assertTrue(result.isTimedOut());
+		assertEquals(CommandResult.EXIT_STATUS_UNKNOWN, result.getExitStatus());
+		assertEquals("partial output", collector.getStdout());
+		verify(channel).sendSignal("KILL");
+		verify(channel).disconnect();
+	}
+
+	@Test
+	public void stopsCommandOnceBoundedListenerIsComplete() throws Exception {
+		ChannelExec channel = createChannel("JNI global references: 1234\n", "", 0, false);
+		sessionFactory.channels.add(channel);
+
+		CommandResult result = new SshCommandExecutor(sessionPool).execute(USERNAME, HOST, "tail -F server.log", 0,
+				new ThreadDumpParser() {
+
+					public boolean isComplete() {
+						return true;
+					}
+				});
+
+		assertFalse(result.isTimedOut());
+		assertEquals(CommandResult.EXIT_STATUS_UNKNOWN, result.getExitStatus());
+		verify(channel).disconnect();
+	}
+
+	@Test
+	public void retriesWithNewSessionIfChannelCannotBeConnected() throws Exception {
+		sessionFactory.brokenSessions = 1;
+		sessionFactory.channels.add(createChannel(STDOUT, "", 0, true));
+
+		CommandResult result =
+				new SshCommandExecutor(sessionPool).execute(USERNAME, HOST, "ps", 0, new CommandOutputCollector());
+
+		assertEquals(0, result.getExitStatus());
+		assertEquals(2, sessionFactory.sessionsCreated);
+		assertEquals(1, sessionPool.getOpenSessions());
+		assertEquals(0, sessionPool.getLeasedChannels());
+		// the stale session is not handed back to the pool
+		verify(sessionFactory.sessions.get(0)).disconnect();
+	}
+
+	@Test(expected = OpenShiftException.class)
+	public void throwsIfChannelCannotBeConnectedWithFreshSession() throws Exception {
+		sessionFactory.brokenSessions = 2;
+		try {
+			new SshCommandExecutor(sessionPool).execute(USERNAME, HOST, "ps", 0, new CommandOutputCollector());
+		} finally {
+			assertEquals(0, sessionPool.getOpenSessions());
+		}
+	}
+
+	@Test(expected = OpenShiftException.class)
+	public void throwsIfSessionCannotBeConnected() throws Exception {
+		sessionFactory.unreachable = true;
+		new SshCommandExecutor(sessionPool).execute(USERNAME, HOST, "ps", 0, new CommandOutputCollector());
+	}
+
+	@Test
+	public void parallelExecutorBoundsConcurrency() throws Exception {
+		final AtomicInteger running = new AtomicInteger();
+		final AtomicInteger maxRunning = new AtomicInteger();
+		List<IApplication> applications = new ArrayList<IApplication>();
+		for (int i = 0; i < 12; i++) {
+			applications.add(new Application("app" + i, "uuid" + i, null, null, ICartridge.JBOSSAS_7, null, null) {
+
+				public CommandResult executeCommand(String command, long timeout) throws OpenShiftException {
+					int current = running.incrementAndGet();
+					synchronized (maxRunning) {
+						maxRunning.set(Math.max(maxRunning.get(), current));
+					}
+					try {
+						Thread.sleep(20);
+					} catch (InterruptedException e) {
+					}
+					running.decrementAndGet();
+					if (getName().equals("app5")) {
+						throw new OpenShiftException("gear {0} is down", getName());
+					}
+					return new CommandResult(command, 0, false, 20, getName(), "");
+				}
+			});
+		}
+		ParallelCommandExecutor executor = new ParallelCommandExecutor(3);
+		try {
+			Map<IApplication, CommandResult> results = executor.execute(applications, "ps", 1000);
+
+			assertEquals(12, results.size());
+			assertTrue(maxRunning.get() <= 3);
+			assertEquals("app0", results.get(applications.get(0)).getStdout());
+			assertNotNull(results.get(applications.get(5)).getError());
+			assertFalse(results.get(applications.get(5)).isSuccessful());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	private ChannelExec createChannel(final String stdout, final String stderr, int exitStatus, boolean terminates)
+			throws Exception {
+		ChannelExec channel = mock(ChannelExec.class);
+		final OutputStream[] streams = new OutputStream[2];
+		doAnswer(new Answer<Object>() {
+			public Object answer(InvocationOnMock invocation) {
+				streams[0] = (OutputStream) invocation.getArguments()[0];
+				return null;
+			}
+		}).when(channel).setOutputStream((OutputStream) org.mockito.Matchers.any(), anyBoolean());
+		doAnswer(new Answer<Object>() {
+			public Object answer(InvocationOnMock invocation) {
+				streams[1] = (OutputStream) invocation.getArguments()[0];
+				return null;
+			}
+		}).when(channel).setErrStream((OutputStream) org.mockito.Matchers.any(), anyBoolean());
+		doAnswer(new Answer<Object>() {
+			public Object answer(InvocationOnMock invocation) throws Exception {
+				writeInChunks(stdout.getBytes("UTF-8"), streams[0]);
+				writeInChunks(stderr.getBytes("UTF-8"), streams[1]);
+				return null;
+			}
+		}).when(channel).connect();
+		when(channel.isClosed()).thenReturn(terminates);
+		when(channel.getExitStatus()).thenReturn(exitStatus);
+		return channel;
+	}
+
+	private void writeInChunks(byte[] data, OutputStream out) throws Exception {
+		for (int i = 0; i < data.length; i += 3) {
+			out.write(data, i, Math.min(3, data.length - i));
+		}
+	}
+
+	private static class SessionFactoryFake implements ISshSessionFactory {
+
+		private List<ChannelExec> channels = new ArrayList<ChannelExec>();
+		private List<Session> sessions = new ArrayList<Session>();
+		private int sessionsCreated;
+		private int brokenSessions;
+		private boolean unreachable;
+
+		public Session createSession(String username, String host) throws JSchException {
+			sessionsCreated++;
+			Session session = mock(Session.class);
+			sessions.add(session);
+			if (unreachable) {
+				doAnswer(new Answer<Object>() {
+					public Object answer(InvocationOnMock invocation) throws JSchException {
+						throw new JSchException("java.net.UnknownHostException: " + HOST);
+					}
+				}).when(session).connect(anyInt());
+				return session;
+			}
+			when(session.isConnected()).thenReturn(true);
+			if (brokenSessions-- > 0) {
+				// jsch only notices that a session is down once a channel is connected
+				ChannelExec channel = mock(ChannelExec.class);
+				doThrow(new JSchException("session is down")).when(channel).connect();
+				when(session.openChannel(anyString())).thenReturn(channel);
+			} else {
+				when(session.openChannel(anyString())).thenAnswer(new Answer<ChannelExec>() {
+					public ChannelExec answer(InvocationOnMock invocation) {
+						return channels.remove(0);
+					}
+				});
+			}
+			return session;
+		}
+	}
+}
@@ -0,0 +1,165 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.openshift.express.client.IUser;
+import com.openshift.express.client.InvalidCredentialsOpenShiftException;
+import com.openshift.express.client.OpenShiftService;
+import com.openshift.express.client.User;
+import com.openshift.express.client.tracing.IRequestListener;
+import com.openshift.express.client.tracing.RequestStage;
+import com.openshift.express.internal.client.test.broker.BrokerSimulator;
+import com.openshift.express.internal.client.test.broker.BrokerSimulatorRule;
+import com.openshift.express.internal.client.test.fakes.OpenShiftCredentials;
+
+/**
+ * @author Daniel Brenner
+ */
+public class RequestListenerTest {
+
+	private final BrokerSimulator broker = new BrokerSimulator(false);
+
+	@Rule
+	public BrokerSimulatorRule simulator = new BrokerSimulatorRule(RequestListenerTest.class, broker);
+
+	private OpenShiftService service;
+	private RecordingRequestListener listener;
+
+	@Before
+	public void setUp() throws Exception {
+		this.service = simulator.getService();
+		this.listener = new RecordingRequestListener();
+		service.addRequestListener(listener);
+	}
+
+	@Test
+	public void reportsAllStagesInOrder() throws Exception {
+		service.getCartridges(simulator.getUser());
+
+		assertEquals("cartlist:standalone", listener.operation);
+		assertTrue(listener.url.startsWith(broker.getBaseUrl()));
+		assertEquals(Arrays.asList(RequestStage.values()), listener.stages);
+		assertTrue(listener.completed);
+		assertNull(listener.error);
+	}
+
+	@Test
+	public void reportsMonotonicTimestamps() throws Exception {
+		service.getCartridges(simulator.getUser());
+
+		long previous = listener.startTime;
+		for (Long time : listener.times) {
+			assertTrue(time >= previous);
+			previous = time;
+		}
+		assertTrue(listener.completionTime >= previous);
+	}
+
+	@Test
+	public void sendsRequestIdToBroker() throws Exception {
+		IUser user = simulator.getUser();
+		service.getCartridges(user);
+		String firstId = listener.requestId;
+		assertNotNull(firstId);
+		assertEquals(firstId, broker.getLastRequestId());
+
+		service.getCartridges(user);
+		assertEquals(listener.requestId, broker.getLastRequestId());
+		assertFalse(firstId.equals(listener.requestId));
+	}
+
+	@Test
+	public void reportsError() throws Exception {
+		try {
+			service.getUserInfo(new User(OpenShiftCredentials.USERNAME, "wrong", null, service));
+			fail("invalid credentials were not reported");
+		} catch (InvalidCredentialsOpenShiftException e) {
+			assertTrue(listener.completed);
+			assertEquals(e, listener.error);
+			assertFalse(listener.stages.contains(RequestStage.UNMARSHALLED));
+		}
+	}
+
+	@Test
+	public void ignoresFailingListeners() throws Exception {
+		service.removeRequestListener(listener);
+		service.addRequestListener(new IRequestListener() {
+
+			public void started(String requestId, String operation, String url, long nanoTime) {
+				throw new IllegalStateException();
+			}
+
+			public void stageReached(String requestId, RequestStage stage, long nanoTime) {
+				throw new IllegalStateException();
+			}
+
+			public void completed(String requestId, Throwable error, long nanoTime) {
+				throw new IllegalStateException();
+			}
+		});
+		service.addRequestListener(listener);
+
+		service.getCartridges(simulator.getUser());
+		assertEquals(Arrays.asList(RequestStage.values()), listener.stages);
+		assertTrue(listener.completed);
+	}
+
+	private static class RecordingRequestListener implements IRequestListener {
+
+		private String requestId;
+		private String operation;
+		private String url;
+		private long startTime;
+		private List<RequestStage> stages = new ArrayList<RequestStage>();
+		private List<Long> times = new ArrayList<Long>();
+		private boolean completed;
+		private Throwable error;
+		private long completionTime;
+
+		public void started(String requestId, String operation, String url, long nanoTime) {
+			this.requestId = requestId;
+			this.operation = operation;
+			this.url = url;
+			this.startTime = nanoTime;
+			stages.clear();
+			times.clear();
+			this.completed = false;
+		}
+
+		public void stageReached(String requestId, RequestStage stage, long nanoTime) {
+			assertEquals(this.requestId, requestId);
+			stages.add(stage);
+			times.add(nanoTime);
+		}
+
+		public void completed(String requestId, Throwable error, long nanoTime) {
+			assertEquals(this.requestId, requestId);
+			this.completed = true;
+			this.error = error;
+			this.completionTime = nanoTime;
+		}
+	}
+}
@@ -0,0 +1,404 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.Vector;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.ChannelSftp.LsEntry;
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.Session;
+import com.jcraft.jsch.SftpATTRS;
+import com.jcraft.jsch.SftpException;
+import com.jcraft.jsch.SftpProgressMonitor;
+import com.openshift.express.client.OpenShiftException;
+import com.openshift.express.client.TransferResult;
+import com.openshift.express.internal.client.ssh.ISshSessionFactory;
+import com.openshift.express.internal.client.ssh.SftpDownloader;
+import com.openshift.express.internal.client.ssh.SshSessionPool;
+
+/**
+ * @author Daniel Brenner
+ */
+public class SftpDownloaderTest {
+
+	private static final String USERNAME = "0123456789abcdefg";
+	private static final String HOST = "test-1315839296868.rhcloud.com";
+	private static final int MTIME = 1315839296;
+
+	private RemoteFileSystemFake fileSystem;
+	private SshSessionPool sessionPool;
+	private ExecutorService executor;
+	private File localDirectory;
+
+	@Before
+	public void setUp() throws IOException {
+		this.fileSystem = new RemoteFileSystemFake();
+		this.sessionPool = new SshSessionPool(fileSystem);
+		this.executor = Executors.newCachedThreadPool();
+		this.localDirectory = createTempDirectory();
+		fileSystem.addFile("logs/server.log", createContent("11:31:36,289 INFO  [org.jboss.as] JBoss AS started\n", 200));
+		fileSystem.addFile("logs/boot.log", createContent("11:31:30,001 INFO  [org.jboss.modules]\n", 10));
+		fileSystem.addFile("logs/archive/server.log.2011-09-11", createContent("11:31:36,289 DEBUG\n", 50));
+	}
+
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+		sessionPool.close();
+		delete(localDirectory);
+	}
+
+	@Test
+	public void downloadsDirectoryTree() throws Exception {
+		TransferResult result = new SftpDownloader(sessionPool, executor).download(USERNAME, HOST, "logs", localDirectory);
+
+		assertEquals(3, result.getFiles());
+		assertEquals(fileSystem.getTotalSize(), result.getBytesTransferred());
+		assertEquals(0, result.getBytesReused());
+		assertEquals(new File(localDirectory, "logs"), result.getLocalFile());
+		assertLocalFile("logs/server.log");
+		assertLocalFile("logs/boot.log");
+		assertLocalFile("logs/archive/server.log.2011-09-11");
+		assertEquals(MTIME * 1000L, new File(localDirectory, "logs/boot.log").lastModified());
+	}
+
+	@Test
+	public void downloadsSingleFile() throws Exception {
+		TransferResult result =
+				new SftpDownloader(sessionPool, executor).download(USERNAME, HOST, "logs/boot.log", localDirectory);
+
+		assertEquals(1, result.getFiles());
+		assertEquals(new File(localDirectory, "boot.log"), result.getLocalFile());
+		assertEquals(new String(fileSystem.getContent("logs/boot.log"), "UTF-8"),
+				new String(read(new File(localDirectory, "boot.log")), "UTF-8"));
+	}
+
+	@Test
+	public void transfersOverSeveralChannelsOfOneSession() throws Exception {
+		for (int i = 0; i < 20; i++) {
+			fileSystem.addFile("logs/access-" + i + ".log", createContent("GET / HTTP/1.1 200\n", i));
+		}
+		new SftpDownloader(sessionPool, executor, 4).download(USERNAME, HOST, "logs", localDirectory);
+
+		assertEquals(1, fileSystem.sessionsCreated);
+		// one channel for listing the files, 4 for transferring them
+		assertEquals(5, fileSystem.channels.size());
+		assertEquals(0, sessionPool.getLeasedChannels());
+	}
+
+	@Test
+	public void resumesPartialFiles() throws Exception {
+		byte[] content = fileSystem.getContent("logs/server.log");
+		File partialFile = new File(localDirectory, "logs/server.log");
+		partialFile.getParentFile().mkdirs();
+		write(content, content.length / 3, partialFile);
+
+		TransferResult result = new SftpDownloader(sessionPool, executor).download(USERNAME, HOST, "logs", localDirectory);
+
+		assertLocalFile("logs/server.log");
+		assertEquals(content.length / 3, result.getBytesReused());
+		assertEquals(fileSystem.getTotalSize() - content.length / 3, result.getBytesTransferred());
+		assertTrue(fileSystem.isResumed("logs/server.log", content.length / 3));
+	}
+
+	@Test
+	public void downloadsPartialFilesAgainIfTheyDontMatch() throws Exception {
+		byte[] content = fileSystem.getContent("logs/server.log");
+		File partialFile = new File(localDirectory, "logs/server.log");
+		partialFile.getParentFile().mkdirs();
+		byte[] rotatedContent = createContent("11:20:01,001 INFO  [org.jboss.as] JBoss AS stopped\n", 10);
+		write(rotatedContent, rotatedContent.length, partialFile);
+
+		TransferResult result = new SftpDownloader(sessionPool, executor).download(USERNAME, HOST, "logs", localDirectory);
+
+		assertLocalFile("logs/server.log");
+		assertEquals(0, result.getBytesReused());
+		assertEquals(fileSystem.getTotalSize(), result.getBytesTransferred());
+		assertFalse(fileSystem.isResumed("logs/server.log", rotatedContent.length));
+		assertTrue(content.length > rotatedContent.length);
+	}
+
+	@Test
+	public void skipsCompleteFiles() throws Exception {
+		new SftpDownloader(sessionPool, executor).download(USERNAME, HOST, "logs", localDirectory);
+		fileSystem.channels.clear();
+
+		TransferResult result = new SftpDownloader(sessionPool, executor).download(USERNAME, HOST, "logs", localDirectory);
+
+		assertEquals(0, result.getBytesTransferred());
+		assertEquals(fileSystem.getTotalSize(), result.getBytesReused());
+		for (ChannelSftp channel : fileSystem.channels) {
+			verify(channel, never()).get(anyString(), any(OutputStream.class), any(SftpProgressMonitor.class),
+					anyInt(), anyLong());
+		}
+	}
+
+	@Test(expected = OpenShiftException.class)
+	public void throwsIfRemotePathDoesNotExist() throws Exception {
+		new SftpDownloader(sessionPool, executor).download(USERNAME, HOST, "nonexisting", localDirectory);
+	}
+
+	@Test
+	public void keepsPartialFileIfTransferFails() throws Exception {
+		fileSystem.failingFile = "logs/server.log";
+		try {
+			new SftpDownloader(sessionPool, executor, 1).download(USERNAME, HOST, "logs/server.log", localDirectory);
+		} catch (OpenShiftException e) {
+			// expected
+		}
+		File partialFile = new File(localDirectory, "server.log");
+		assertTrue(partialFile.length() > 0);
+		assertFalse(partialFile.length() == fileSystem.getContent("logs/server.log").length);
+
+		fileSystem.failingFile = null;
+		TransferResult result =
+				new SftpDownloader(sessionPool, executor, 1).download(USERNAME, HOST, "logs/server.log", localDirectory);
+		assertEquals(partialFile.length(), fileSystem.getContent("logs/server.log").length);
+		assertTrue(result.getBytesReused() > 0);
+	}
+
+	private void assertLocalFile(String path) throws IOException {
+		File file = new File(localDirectory, path);
+		assertTrue(file.isFile());
+		assertEquals(new String(fileSystem.getContent(path), "UTF-8"), new String(read(file), "UTF-8"));
+	}
+
+	private byte[] createContent(String line, int lines) throws IOException {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < lines; i++) {
+			builder.append(line);
+		}
+		return builder.toString().getBytes("UTF-8");
+	}
+
+	private File createTempDirectory() throws IOException {
+		File file = File.createTempFile("openshift-sftp", "");
+		file.delete();
+		file.mkdirs();
+		return file;
+	}
+
+	private void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+
+	private byte[] read(File file) throws IOException {
+		byte[] content = new byte[(int) file.length()];
+		FileInputStream in = new FileInputStream(file);
+		try {
+			int read = 0;
+			while (read < content.length) {
+				read += in.read(content, read, content.length - read);
+			}
+			return content;
+		} finally {
+			in.close();
+		}
+	}
+
+	private void write(byte[] content, int length, File file) throws IOException {
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			out.write(content, 0, length);
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * A remote file system that is served by mocked sessions and sftp
+	 * channels.
+	 */
+	private static class RemoteFileSystemFake implements ISshSessionFactory {
+
+		private final Map<String, byte[]> files = new TreeMap<String, byte[]>();
+		private final List<ChannelSftp> channels = new Vector<ChannelSftp>();
+		private final List<String> resumes = new Vector<String>();
+		private volatile String failingFile;
+		private int sessionsCreated;
+
+		public void addFile(String path, byte[] content) {
+			files.put(path, content);
+		}
+
+		public byte[] getContent(String path) {
+			return files.get(path);
+		}
+
+		public long getTotalSize() {
+			long size = 0;
+			for (byte[] content : files.values()) {
+				size += content.length;
+			}
+			return size;
+		}
+
+		public boolean isResumed(String path, long offset) {
+			return resumes.contains(path + "@" + offset);
+		}
+
+		public Session createSession(String username, String host) throws JSchException {
+			sessionsCreated++;
+			Session session = mock(Session.class);
+			when(session.isConnected()).thenReturn(true);
+			when(session.openChannel("sftp")).thenAnswer(new Answer<ChannelSftp>() {
+				public ChannelSftp answer(InvocationOnMock invocation) throws Exception {
+					ChannelSftp channel = createChannel();
+					channels.add(channel);
+					return channel;
+				}
+			});
+			return session;
+		}
+
+		private ChannelSftp createChannel() throws SftpException {
+			ChannelSftp channel = mock(ChannelSftp.class);
+			when(channel.stat(anyString())).thenAnswer(new Answer<SftpATTRS>() {
+				public SftpATTRS answer(InvocationOnMock invocation) throws SftpException {
+					return stat((String) invocation.getArguments()[0]);
+				}
+			});
+			when(channel.ls(anyString())).thenAnswer(new Answer<Vector<LsEntry>>() {
+				public Vector<LsEntry> answer(InvocationOnMock invocation) throws SftpException {
+					return ls((String) invocation.getArguments()[0]);
+				}
+			});
+			doAnswer(new Answer<Object>() {
+				public Object answer(InvocationOnMock invocation) throws Exception {
+					Object[] arguments = invocation.getArguments();
+					get((String) arguments[0], (OutputStream) arguments[1], (Integer) arguments[3],
+							(Long) arguments[4]);
+					return null;
+				}
+			}).when(channel).get(anyString(), any(OutputStream.class), any(SftpProgressMonitor.class), anyInt(),
+					anyLong());
+			when(channel.get(anyString(), any(SftpProgressMonitor.class), anyLong())).thenAnswer(
+					new Answer<InputStream>() {
+						public InputStream answer(InvocationOnMock invocation) {
+							Object[] arguments = invocation.getArguments();
+							byte[] content = files.get((String) arguments[0]);
+							int offset = (int) ((Long) arguments[2]).longValue();
+							return new ByteArrayInputStream(content, offset, content.length - offset);
+						}
+					});
+			return channel;
+		}
+
+		private SftpATTRS stat(String path) throws SftpException {
+			if (files.containsKey(path)) {
+				return createAttributes(false, files.get(path).length);
+			}
+			if (isDirectory(path)) {
+				return createAttributes(true, 4096);
+			}
+			throw new SftpException(ChannelSftp.SSH_FX_NO_SUCH_FILE, "No such file");
+		}
+
+		private boolean isDirectory(String path) {
+			for (String file : files.keySet()) {
+				if (file.startsWith(path + "/")) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private Vector<LsEntry> ls(String directory) throws SftpException {
+			Vector<LsEntry> entries = new Vector<LsEntry>();
+			entries.add(createEntry(".", createAttributes(true, 4096)));
+			entries.add(createEntry("..", createAttributes(true, 4096)));
+			List<String> names = new ArrayList<String>();
+			for (String file : files.keySet()) {
+				if (!file.startsWith(directory + "/")) {
+					continue;
+				}
+				String name = file.substring(directory.length() + 1);
+				if (name.indexOf('/') >= 0) {
+					name = name.substring(0, name.indexOf('/'));
+				}
+				if (!names.contains(name)) {
+					names.add(name);
+					entries.add(createEntry(name, stat(directory + "/" + name)));
+				}
+			}
+			return entries;
+		}
+
+		private void get(String path, OutputStream out, int mode, long offset) throws Exception {
+			if (mode == ChannelSftp.RESUME) {
+				resumes.add(path + "@" + offset);
+			}
+			byte[] content = files.get(path);
+			int length = content.length - (int) offset;
+			if (path.equals(failingFile)) {
+				out.write(content, (int) offset, length / 2);
+				throw new SftpException(ChannelSftp.SSH_FX_CONNECTION_LOST, "connection lost");
+			}
+			for (int i = (int) offset; i < content.length; i += 1024) {
+				out.write(content, i, Math.min(1024, content.length - i));
+			}
+		}
+
+		private SftpATTRS createAttributes(boolean directory, long size) {
+			SftpATTRS attributes = mock(SftpATTRS.class);
+			when(attributes.isDir()).thenReturn(directory);
+			when(attributes.getSize()).thenReturn(size);
+			when(attributes.getMTime()).thenReturn(MTIME);
+			return attributes;
+		}
+
+		private LsEntry createEntry(String name, SftpATTRS attributes) {
+			LsEntry entry = mock(LsEntry.class);
+			when(entry.getFilename()).thenReturn(name);
+			when(entry.getAttrs()).thenReturn(attributes);
+			return entry;
+		}
+	}
+}
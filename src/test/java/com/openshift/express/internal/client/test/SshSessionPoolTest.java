@@ -0,0 +1,95 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.Session;
+import com.openshift.express.internal.client.ssh.ISshSessionFactory;
+import com.openshift.express.internal.client.ssh.PooledSshSession;
+import com.openshift.express.internal.client.ssh.SshSessionPool;
+
+/**
+ * @author Daniel Brenner
+ */
+public class SshSessionPoolTest {
+
+	private static final String USERNAME = "0123456789abcdefg";
+	private static final String HOST = "test-1315839296868.rhcloud.com";
+
+	private SshSessionPool sessionPool;
+
+	@Before
+	public void setUp() {
+		this.sessionPool = new SshSessionPool(new ISshSessionFactory() {
+
+			public Session createSession(String username, String host) throws JSchException {
+				Session session = mock(Session.class);
+				when(session.isConnected()).thenReturn(true);
+				return session;
+			}
+		}, 1, 8);
+	}
+
+	@Test
+	public void sharesSessionAmongChannels() throws Exception {
+		PooledSshSession first = sessionPool.acquire(USERNAME, HOST, 0);
+		PooledSshSession second = sessionPool.acquire(USERNAME, HOST, 0);
+		assertEquals(first, second);
+		assertEquals(1, sessionPool.getOpenSessions());
+		assertEquals(2, sessionPool.getLeasedChannels());
+	}
+
+	@Test
+	public void invalidatedSessionIsDisconnectedOnceItsLeasesAreReleased() throws Exception {
+		PooledSshSession session = sessionPool.acquire(USERNAME, HOST, 0);
+		PooledSshSession sharedSession = sessionPool.acquire(USERNAME, HOST, 0);
+
+		sessionPool.invalidate(session);
+
+		verify(session.getSession(), never()).disconnect();
+		assertEquals(0, sessionPool.getOpenSessions());
+		sessionPool.release(sharedSession);
+		verify(session.getSession()).disconnect();
+	}
+
+	@Test
+	public void invalidatedSessionIsNotHandedOutAgain() throws Exception {
+		PooledSshSession session = sessionPool.acquire(USERNAME, HOST, 0);
+		PooledSshSession sharedSession = sessionPool.acquire(USERNAME, HOST, 0);
+
+		sessionPool.invalidate(session);
+		PooledSshSession freshSession = sessionPool.acquire(USERNAME, HOST, 0);
+
+		assertNotSame(sharedSession, freshSession);
+		assertEquals(1, sessionPool.getOpenSessions());
+	}
+
+	@Test
+	public void disconnectedSessionIsDisconnectedWhenInvalidated() throws Exception {
+		PooledSshSession session = sessionPool.acquire(USERNAME, HOST, 0);
+		sessionPool.acquire(USERNAME, HOST, 0);
+		when(session.getSession().isConnected()).thenReturn(false);
+
+		sessionPool.invalidate(session);
+
+		verify(session.getSession()).disconnect();
+	}
+}
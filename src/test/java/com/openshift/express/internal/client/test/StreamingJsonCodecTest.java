@@ -0,0 +1,24 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.test;
+
+import com.openshift.express.client.json.IJsonCodec;
+import com.openshift.express.client.json.StreamingJsonCodec;
+
+/**
+ * @author Daniel Brenner
+ */
+public class StreamingJsonCodecTest extends AbstractJsonCodecTest {
+
+	protected IJsonCodec createCodec() {
+		return StreamingJsonCodec.INSTANCE;
+	}
+}
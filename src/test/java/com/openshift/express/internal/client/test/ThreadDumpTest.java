@@ -0,0 +1,297 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.openshift.express.client.CommandResult;
+import com.openshift.express.client.IApplication;
+import com.openshift.express.client.ICartridge;
+import com.openshift.express.client.ICommandOutputListener;
+import com.openshift.express.client.IJBossASApplication;
+import com.openshift.express.client.IUser;
+import com.openshift.express.client.OpenShiftException;
+import com.openshift.express.client.threaddump.IThreadDumpListener;
+import com.openshift.express.client.threaddump.JavaThread;
+import com.openshift.express.client.threaddump.ThreadDump;
+import com.openshift.express.client.threaddump.ThreadDumpParser;
+import com.openshift.express.client.threaddump.ThreadDumpSampler;
+import com.openshift.express.internal.client.JBossASApplication;
+import com.openshift.express.internal.client.test.fakes.NoopOpenShiftServiceFake;
+
+/**
+ * @author Daniel Brenner
+ */
+public class ThreadDumpTest {
+
+	private static final String LOG =
+			"11:32:14,207 INFO  [org.jboss.as.server.controller] (DeploymentScanner-threads - 2) Deployed \"ROOT.war\"\n"
+					+ "\"bogus\" line that looks like a thread\n";
+
+	private static final String THREAD_DUMP =
+			"2012-03-22 11:34:02\n"
+					+ "Full thread dump OpenJDK 64-Bit Server VM (20.0-b11 mixed mode):\n"
+					+ "\n"
+					+ "\"http--127.1.9.1-8080-1\" daemon prio=10 tid=0x00007f3c3c1b6000 nid=0x5f2c waiting for monitor entry [0x00007f3c2a2c1000]\n"
+					+ "   java.lang.Thread.State: BLOCKED (on object monitor)\n"
+					+ "\tat org.jboss.example.Counter.increment(Counter.java:12)\n"
+					+ "\t- waiting to lock <0x00000000e0a5b0c8> (a org.jboss.example.Counter)\n"
+					+ "\tat org.jboss.example.CounterServlet.doGet(CounterServlet.java:27)\n"
+					+ "\n"
+					+ "\"MSC service thread 1-4\" prio=10 tid=0x00007f3c3c0e5800 nid=0x5f1a waiting on condition [0x00007f3c2b9d8000]\n"
+					+ "   java.lang.Thread.State: WAITING (parking)\n"
+					+ "\tat sun.misc.Unsafe.park(Native Method)\n"
+					+ "\t- parking to wait for  <0x00000000e0c2e0a0> (a java.util.concurrent.locks.AbstractQueuedSynchronizer$ConditionObject)\n"
+					+ "\tat java.util.concurrent.locks.LockSupport.park(LockSupport.java:186)\n"
+					+ "\n"
+					+ "\"http--127.1.9.1-8080-2\" daemon prio=10 tid=0x00007f3c3c1b8000 nid=0x5f2d runnable [0x00007f3c2a1c0000]\n"
+					+ "   java.lang.Thread.State: RUNNABLE\n"
+					+ "\tat org.jboss.example.Counter.increment(Counter.java:14)\n"
+					+ "\t- locked <0x00000000e0a5b0c8> (a org.jboss.example.Counter)\n"
+					+ "\tat org.jboss.example.CounterServlet.doGet(CounterServlet.java:27)\n"
+					+ "\n"
+					+ "   Locked ownable synchronizers:\n"
+					+ "\t- None\n"
+					+ "\n"
+					+ "\"VM Thread\" prio=10 tid=0x00007f3c3c06a000 nid=0x5f0c runnable \n"
+					+ "\n"
+					+ "\"GC task thread#0 (ParallelGC)\" os_prio=0 tid=0x00007f3c3c01e800 nid=0x5f0a runnable \n"
+					+ "\n"
+					+ "JNI global references: 1234\n"
+					+ "\n";
+
+	private static final String JAVA_11_THREAD_DUMP =
+			"2019-02-14 09:12:41\n"
+					+ "Full thread dump OpenJDK 64-Bit Server VM (11.0.2+9 mixed mode):\n"
+					+ "\n"
+					+ "Threads class SMR info:\n"
+					+ "_java_thread_list=0x00007f7d40001f00, length=2, elements={\n"
+					+ "0x00007f7d74012800, 0x00007f7d74120000\n"
+					+ "}\n"
+					+ "\n"
+					+ "\"main\" #1 prio=5 os_prio=0 cpu=312.51ms elapsed=12.04s tid=0x00007f7d74012800 nid=0x6a1 waiting on condition  [0x00007f7d7b5fe000]\n"
+					+ "   java.lang.Thread.State: TIMED_WAITING (sleeping)\n"
+					+ "\tat java.lang.Thread.sleep(java.base@11.0.2/Native Method)\n"
+					+ "\tat org.jboss.example.Main.main(Main.java:8)\n"
+					+ "\n"
+					+ "\"Reference Handler\" #2 daemon prio=10 os_prio=0 cpu=0.21ms elapsed=12.01s tid=0x00007f7d74120000 nid=0x6a8 waiting on condition  [0x00007f7d4c8f9000]\n"
+					+ "   java.lang.Thread.State: RUNNABLE\n"
+					+ "\tat java.lang.ref.Reference.waitForReferencePendingList(java.base@11.0.2/Native Method)\n"
+					+ "\n"
+					+ "\"VM Thread\" os_prio=0 cpu=1.37ms elapsed=12.02s tid=0x00007f7d74117800 nid=0x6a7 runnable  \n"
+					+ "\n"
+					+ "JNI global refs: 5, weak refs: 0\n"
+					+ "\n";
+
+	private static final String HEAP =
+			"Heap\n"
+					+ " par new generation   total 19136K, used 5021K [0x00000000dc000000, 0x00000000dd4c0000, 0x00000000e0d80000)\n";
+
+	@Test
+	public void parsesThreadsOfDumpInLog() throws Exception {
+		ThreadDumpParser parser = new ThreadDumpParser();
+		parser.stdout(LOG + THREAD_DUMP + HEAP);
+
+		assertTrue(parser.isComplete());
+		ThreadDump threadDump = parser.getThreadDump();
+		assertNotNull(threadDump);
+		assertTrue(threadDump.isComplete());
+		assertEquals("2012-03-22 11:34:02", threadDump.getTimestamp());
+		assertEquals("OpenJDK 64-Bit Server VM (20.0-b11 mixed mode)", threadDump.getVmInfo());
+		assertEquals(5, threadDump.getThreads().size());
+
+		JavaThread blocked = threadDump.getThread("http--127.1.9.1-8080-1");
+		assertTrue(blocked.isDaemon());
+		assertEquals(10, blocked.getPriority());
+		assertEquals("0x00007f3c3c1b6000", blocked.getTid());
+		assertEquals("0x5f2c", blocked.getNid());
+		assertEquals("waiting for monitor entry", blocked.getDescription());
+		assertEquals(Thread.State.BLOCKED, blocked.getState());
+		assertEquals(Arrays.asList(
+				"org.jboss.example.Counter.increment(Counter.java:12)",
+				"org.jboss.example.CounterServlet.doGet(CounterServlet.java:27)"), blocked.getStackTrace());
+		assertEquals("0x00000000e0a5b0c8", blocked.getWaitingOn());
+
+		JavaThread owner = threadDump.getThread("http--127.1.9.1-8080-2");
+		assertEquals(Arrays.asList("0x00000000e0a5b0c8"), owner.getLockedMonitors());
+		assertNull(owner.getWaitingOn());
+
+		JavaThread parked = threadDump.getThread("MSC service thread 1-4");
+		assertFalse(parked.isDaemon());
+		assertEquals(Thread.State.WAITING, parked.getState());
+		assertEquals("0x00000000e0c2e0a0", parked.getWaitingOn());
+
+		JavaThread gcThread = threadDump.getThread("GC task thread#0 (ParallelGC)");
+		assertEquals(JavaThread.PRIORITY_UNKNOWN, gcThread.getPriority());
+		assertNull(gcThread.getState());
+		assertEquals(1, threadDump.getThreads(Thread.State.BLOCKED).size());
+	}
+
+	@Test
+	public void parsesDumpOfNewerVms() throws Exception {
+		ThreadDumpParser parser = new ThreadDumpParser();
+		parser.stdout(LOG + JAVA_11_THREAD_DUMP + HEAP);
+
+		assertTrue(parser.isComplete());
+		ThreadDump threadDump = parser.getThreadDump();
+		assertTrue(threadDump.isComplete());
+		assertEquals("OpenJDK 64-Bit Server VM (11.0.2+9 mixed mode)", threadDump.getVmInfo());
+		assertEquals(3, threadDump.getThreads().size());
+
+		JavaThread main = threadDump.getThread("main");
+		assertFalse(main.isDaemon());
+		assertEquals(5, main.getPriority());
+		assertEquals("0x6a1", main.getNid());
+		assertEquals(Thread.State.TIMED_WAITING, main.getState());
+		assertEquals(2, main.getStackTrace().size());
+		assertTrue(threadDump.getThread("Reference Handler").isDaemon());
+	}
+
+	@Test
+	public void parsesDumpStreamedInChunks() throws Exception {
+		String output = LOG + THREAD_DUMP;
+		for (int chunkSize = 1; chunkSize < 20; chunkSize++) {
+			ThreadDumpParser parser = new ThreadDumpParser();
+			for (int i = 0; i < output.length(); i += chunkSize) {
+				parser.stdout(output.subSequence(i, Math.min(output.length(), i + chunkSize)));
+			}
+			assertTrue(parser.isComplete());
+			assertEquals(5, parser.getThreadDump().getThreads().size());
+			assertEquals(2, parser.getThreadDump().getThread("MSC service thread 1-4").getStackTrace().size());
+		}
+	}
+
+	@Test
+	public void isNotCompleteUntilEndOfDump() throws Exception {
+		ThreadDumpParser parser = new ThreadDumpParser();
+		parser.stdout(LOG);
+		assertNull(parser.getThreadDump());
+
+		String partialDump = THREAD_DUMP.substring(0, THREAD_DUMP.indexOf("\"VM Thread\""));
+		parser.stdout(partialDump.replace("\n", "\r\n"));
+		assertFalse(parser.isComplete());
+		assertFalse(parser.getThreadDump().isComplete());
+		assertEquals(3, parser.getThreadDump().getThreads().size());
+	}
+
+	@Test
+	public void capturesDumpFromLogTail() throws Exception {
+		final List<String> commands = new ArrayList<String>();
+		NoopOpenShiftServiceFake service = new NoopOpenShiftServiceFake() {
+
+			public IApplication threadDumpApplication(String name, ICartridge cartridge, IUser user)
+					throws OpenShiftException {
+				commands.add("threaddump");
+				return null;
+			}
+
+			public CommandResult executeCommand(IApplication application, String command, long timeout,
+					ICommandOutputListener listener) throws OpenShiftException {
+				commands.add(command);
+				if (command.startsWith("stat")) {
+					listener.stdout("4096\n");
+				} else {
+					listener.stdout(THREAD_DUMP);
+				}
+				return new CommandResult(command, 0, false, 1, null, null);
+			}
+		};
+		JBossASApplication application =
+				new JBossASApplication("test", "0123456789abcdefg", null, null, ICartridge.JBOSSAS_7, null, service);
+
+		ThreadDump threadDump = application.captureThreadDump(10 * 1000);
+
+		assertTrue(threadDump.isComplete());
+		assertEquals(5, threadDump.getThreads().size());
+		assertEquals(3, commands.size());
+		assertEquals("stat -c %s test/test.log 2>/dev/null || echo 0", commands.get(0));
+		assertEquals("threaddump", commands.get(1));
+		assertEquals("tail -c +4097 -F test/test.log", commands.get(2));
+	}
+
+	@Test
+	public void samplesApplicationsPeriodically() throws Exception {
+		final CountDownLatch samples = new CountDownLatch(6);
+		final List<String> sampled = new ArrayList<String>();
+		List<IJBossASApplication> applications = new ArrayList<IJBossASApplication>();
+		for (int i = 0; i < 2; i++) {
+			applications.add(new JBossASApplication("app" + i, "uuid" + i, null, null, ICartridge.JBOSSAS_7, null, null) {
+
+				public ThreadDump captureThreadDump(long timeout) throws OpenShiftException {
+					ThreadDumpParser parser = new ThreadDumpParser();
+					parser.stdout(THREAD_DUMP);
+					return parser.getThreadDump();
+				}
+			});
+		}
+		ThreadDumpSampler sampler = new ThreadDumpSampler(2);
+		sampler.start(applications, 10, 1000, new IThreadDumpListener() {
+
+			public void threadDump(IJBossASApplication application, ThreadDump threadDump) {
+				synchronized (sampled) {
+					sampled.add(application.getName());
+				}
+				samples.countDown();
+			}
+
+			public void error(IJBossASApplication application, OpenShiftException e) {
+			}
+		});
+		try {
+			assertTrue(samples.await(5, TimeUnit.SECONDS));
+		} finally {
+			sampler.stop();
+		}
+		synchronized (sampled) {
+			assertTrue(sampled.contains("app0"));
+			assertTrue(sampled.contains("app1"));
+		}
+	}
+
+	@Test
+	public void keepsSamplingIfCaptureThrows() throws Exception {
+		final CountDownLatch samples = new CountDownLatch(3);
+		List<IJBossASApplication> applications = new ArrayList<IJBossASApplication>();
+		applications.add(new JBossASApplication("app0", "uuid0", null, null, ICartridge.JBOSSAS_7, null, null) {
+
+			public ThreadDump captureThreadDump(long timeout) throws OpenShiftException {
+				samples.countDown();
+				throw new IllegalStateException("bogus dump");
+			}
+		});
+		ThreadDumpSampler sampler = new ThreadDumpSampler(1);
+		sampler.start(applications, 10, 1000, new IThreadDumpListener() {
+
+			public void threadDump(IJBossASApplication application, ThreadDump threadDump) {
+			}
+
+			public void error(IJBossASApplication application, OpenShiftException e) {
+			}
+		});
+		try {
+			assertTrue(samples.await(5, TimeUnit.SECONDS));
+		} finally {
+			sampler.stop();
+		}
+	}
+}
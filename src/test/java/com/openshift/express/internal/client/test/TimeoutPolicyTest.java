@@ -0,0 +1,146 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.openshift.express.client.OpenShiftEndpointException;
+import com.openshift.express.client.timeout.AdaptiveTimeoutPolicy;
+import com.openshift.express.client.timeout.FixedTimeoutPolicy;
+import com.openshift.express.client.timeout.ITimeoutPolicy;
+import com.openshift.express.client.timeout.TimeoutPolicies;
+import com.openshift.express.internal.client.test.broker.Broker;
+import com.openshift.express.internal.client.test.broker.BrokerSimulatorRule;
+import com.openshift.express.internal.client.test.broker.FaultInjectingBrokerSimulator;
+import com.openshift.express.internal.client.test.broker.FaultProfile;
+
+/**
+ * @author Daniel Brenner
+ */
+public class TimeoutPolicyTest {
+
+	private final FaultInjectingBrokerSimulator broker = new FaultInjectingBrokerSimulator(false, 42);
+
+	@Rule
+	public BrokerSimulatorRule simulator = new BrokerSimulatorRule(TimeoutPolicyTest.class, broker);
+
+	@Test
+	public void operationPolicyWinsOverResourceAndDefault() {
+		TimeoutPolicies policies = new TimeoutPolicies();
+		assertNull(policies.getPolicy("cartridge:status"));
+
+		ITimeoutPolicy defaultPolicy = new FixedTimeoutPolicy(1000, 60000);
+		ITimeoutPolicy resourcePolicy = new FixedTimeoutPolicy(1000, 30000);
+		ITimeoutPolicy statusPolicy = new FixedTimeoutPolicy(1000, 5000);
+		policies.setDefaultPolicy(defaultPolicy);
+		policies.setPolicy(Broker.RESOURCE_CARTRIDGE, resourcePolicy);
+		policies.setPolicy("cartridge:status", statusPolicy);
+
+		assertSame(statusPolicy, policies.getPolicy("cartridge:status"));
+		assertSame(resourcePolicy, policies.getPolicy("cartridge:configure"));
+		assertSame(defaultPolicy, policies.getPolicy("userinfo"));
+		policies.setPolicy("cartridge:status", null);
+		assertSame(resourcePolicy, policies.getPolicy("cartridge:status"));
+	}
+
+	@Test
+	public void adaptsReadTimeoutToPercentile() {
+		AdaptiveTimeoutPolicy policy = new AdaptiveTimeoutPolicy(1000, 60000, 500, 30000, 10)
+				.setPercentile(90).setMultiplier(2).setMinSamples(5);
+		for (int i = 0; i < 4; i++) {
+			policy.record(400);
+		}
+		// not enough samples yet
+		assertEquals(60000, policy.getReadTimeout());
+		policy.record(400);
+		assertEquals(800, policy.getReadTimeout());
+		for (int i = 1; i <= 10; i++) {
+			policy.record(i * 100);
+		}
+		// 90th percentile of 100..1000 is 900
+		assertEquals(1800, policy.getReadTimeout());
+		assertEquals(1000, policy.getConnectTimeout());
+	}
+
+	@Test
+	public void keepsReadTimeoutWithinCaps() {
+		AdaptiveTimeoutPolicy policy = new AdaptiveTimeoutPolicy(1000, 60000, 500, 30000, 10).setMinSamples(1);
+		policy.record(1);
+		assertEquals(500, policy.getReadTimeout());
+		for (int i = 0; i < 10; i++) {
+			policy.record(60 * 1000);
+		}
+		assertEquals(30000, policy.getReadTimeout());
+		policy.reset();
+		assertEquals(60000, policy.getReadTimeout());
+	}
+
+	@Test
+	public void growsReadTimeoutIfRequestsTimeOut() {
+		AdaptiveTimeoutPolicy policy = new AdaptiveTimeoutPolicy(1000, 60000, 500, 30000, 10)
+				.setPercentile(90).setMultiplier(2).setMinSamples(1);
+		for (int i = 0; i < 10; i++) {
+			policy.record(300);
+		}
+		assertEquals(600, policy.getReadTimeout());
+		policy.recordTimeout();
+		policy.recordTimeout();
+		// the 90th percentile are timeouts now
+		assertEquals(1200, policy.getReadTimeout());
+		for (int i = 0; i < 20; i++) {
+			policy.recordTimeout();
+		}
+		assertEquals(30000, policy.getReadTimeout());
+	}
+
+	@Test
+	public void recordsTimedOutRequests() throws Exception {
+		broker.setFaults(Broker.RESOURCE_CARTLIST, new FaultProfile().setStallRate(1.0, 10 * 1000));
+		AdaptiveTimeoutPolicy policy = new AdaptiveTimeoutPolicy(1000, 300, 300, 30000, 1)
+				.setMultiplier(2).setMinSamples(1);
+		simulator.getService().getTimeoutPolicies().setPolicy(Broker.RESOURCE_CARTLIST, policy);
+		try {
+			simulator.getService().getCartridges(simulator.getUser());
+			fail("stalled request did not time out");
+		} catch (OpenShiftEndpointException e) {
+			assertEquals(600, policy.getReadTimeout());
+		}
+	}
+
+	@Test
+	public void stalledOperationTimesOutPerPolicy() throws Exception {
+		broker.setFaults(Broker.RESOURCE_CARTLIST, new FaultProfile().setStallRate(1.0, 10 * 1000));
+		simulator.getService().getTimeoutPolicies()
+				.setPolicy(Broker.RESOURCE_CARTLIST, new FixedTimeoutPolicy(1000, 300));
+		long start = System.currentTimeMillis();
+		try {
+			simulator.getService().getCartridges(simulator.getUser());
+			fail("stalled request did not time out");
+		} catch (OpenShiftEndpointException e) {
+			assertTrue(System.currentTimeMillis() - start < 5 * 1000);
+		}
+	}
+
+	@Test
+	public void recordsLatencyOfSuccessfulRequests() throws Exception {
+		AdaptiveTimeoutPolicy policy = new AdaptiveTimeoutPolicy(1000, 60000, 100, 30000).setMinSamples(1);
+		simulator.getService().getTimeoutPolicies().setDefaultPolicy(policy);
+		simulator.getService().getCartridges(simulator.getUser());
+		assertTrue(policy.getReadTimeout() < 60000);
+	}
+}
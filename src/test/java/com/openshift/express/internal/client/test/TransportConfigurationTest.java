@@ -0,0 +1,207 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.openshift.express.client.OpenShiftException;
+import com.openshift.express.client.OpenShiftService;
+import com.openshift.express.client.TransportConfiguration;
+import com.openshift.express.internal.client.httpclient.NoSNISSLSocketFactory;
+import com.openshift.express.internal.client.test.broker.BrokerSimulator;
+import com.openshift.express.internal.client.test.broker.BrokerSimulatorRule;
+
+/**
+ * @author Daniel Brenner
+ */
+public class TransportConfigurationTest {
+
+	private static final String SERVER_NAME = "openshift.example.com";
+
+	@Rule
+	public BrokerSimulatorRule simulator =
+			new BrokerSimulatorRule(TransportConfigurationTest.class, new BrokerSimulator(true));
+
+	@Test
+	public void copiesAreModifiedOriginalIsNot() {
+		TransportConfiguration configuration = new TransportConfiguration();
+		TransportConfiguration modified = configuration
+				.withTimeouts(1000, 2000)
+				.withSSLChecks(true)
+				.withSNI(true)
+				.withHttpProxy("proxy.example.com", 3128);
+
+		assertEquals(TransportConfiguration.DEFAULT_CONNECT_TIMEOUT, configuration.getConnectTimeout());
+		assertEquals(TransportConfiguration.DEFAULT_READ_TIMEOUT, configuration.getReadTimeout());
+		assertFalse(configuration.isSSLChecks());
+		assertFalse(configuration.isSNIEnabled());
+		assertNull(configuration.getProxy());
+
+		assertEquals(1000, modified.getConnectTimeout());
+		assertEquals(2000, modified.getReadTimeout());
+		assertTrue(modified.isSSLChecks());
+		assertTrue(modified.isSNIEnabled());
+		assertEquals(Proxy.Type.HTTP, modified.getProxy().type());
+		assertEquals(3128, ((InetSocketAddress) modified.getProxy().address()).getPort());
+	}
+
+	@Test
+	public void readsTimeoutsFromSystemPropertiesOnce() {
+		String property = "sun.net.client.defaultReadTimeout";
+		String value = System.getProperty(property);
+		try {
+			System.setProperty(property, "4242");
+			TransportConfiguration configuration = TransportConfiguration.fromSystemProperties();
+			System.setProperty(property, "1");
+			assertEquals(4242, configuration.getReadTimeout());
+		} finally {
+			if (value == null) {
+				System.clearProperty(property);
+			} else {
+				System.setProperty(property, value);
+			}
+		}
+	}
+
+	@Test
+	public void serviceDoesNotSetSystemProperties() {
+		String sni = System.getProperty("jsse.enableSNIExtension");
+		String proxyHost = System.getProperty("proxyHost");
+		OpenShiftService service = new OpenShiftService(TransportConfigurationTest.class.getSimpleName(),
+				"http://localhost");
+		service.setProxySet(true);
+		service.setProxyHost("proxy.example.com");
+		service.setProxyPort("3128");
+
+		assertEquals(sni, System.getProperty("jsse.enableSNIExtension"));
+		assertEquals(proxyHost, System.getProperty("proxyHost"));
+		assertEquals(Proxy.Type.HTTP, service.getTransportConfiguration().getProxy().type());
+		service.setProxySet(false);
+		assertNull(service.getTransportConfiguration().getProxy());
+	}
+
+	@Test
+	public void servicesUseTheirOwnProxy() throws Exception {
+		OpenShiftService direct = simulator.getService();
+		direct.setTransportConfiguration(new TransportConfiguration().withProxy(Proxy.NO_PROXY));
+		OpenShiftService proxied = simulator.createService(simulator.getBaseUrl());
+		ServerSocket closedPort = new ServerSocket(0);
+		int port = closedPort.getLocalPort();
+		closedPort.close();
+		proxied.setTransportConfiguration(new TransportConfiguration()
+				.withTimeouts(1000, 1000)
+				.withHttpProxy("localhost", port));
+
+		assertFalse(direct.getCartridges(simulator.getUser()).isEmpty());
+		try {
+			proxied.getCartridges(simulator.createUser(proxied));
+			fail("request did not go through the unreachable proxy");
+		} catch (OpenShiftException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void connectsOverHttpsWithoutSNI() throws Exception {
+		OpenShiftService service = simulator.getService();
+		service.setTransportConfiguration(new TransportConfiguration().withSNI(false).withSSLChecks(false));
+
+		assertFalse(service.getCartridges(simulator.getUser()).isEmpty());
+	}
+
+	@Test
+	public void clientHelloContainsServerNameByDefault() throws Exception {
+		byte[] clientHello = captureClientHello((SSLSocketFactory) SSLSocketFactory.getDefault());
+
+		assertTrue(contains(clientHello, SERVER_NAME.getBytes("US-ASCII")));
+	}
+
+	@Test
+	public void clientHelloDoesNotContainServerNameIfSNIIsDisabled() throws Exception {
+		SSLSocketFactory factory = new NoSNISSLSocketFactory((SSLSocketFactory) SSLSocketFactory.getDefault());
+		// HttpsURLConnection sets the host of unconnected ssl sockets, it has to layer tls itself
+		assertFalse(factory.createSocket() instanceof SSLSocket);
+
+		byte[] clientHello = captureClientHello(factory);
+
+		assertFalse(contains(clientHello, SERVER_NAME.getBytes("US-ASCII")));
+	}
+
+	/**
+	 * Layers tls over a plain connection the way HttpsURLConnection does and
+	 * returns the handshake record that the client sends first.
+	 */
+	private byte[] captureClientHello(SSLSocketFactory factory) throws Exception {
+		ServerSocket server = new ServerSocket(0);
+		try {
+			Socket socket = new Socket("127.0.0.1", server.getLocalPort());
+			final SSLSocket sslSocket =
+					(SSLSocket) factory.createSocket(socket, SERVER_NAME, server.getLocalPort(), true);
+			Thread handshake = new Thread() {
+
+				public void run() {
+					try {
+						sslSocket.startHandshake();
+					} catch (IOException e) {
+						// expected, the server does not answer
+					}
+				}
+			};
+			handshake.start();
+			Socket accepted = server.accept();
+			try {
+				DataInputStream in = new DataInputStream(accepted.getInputStream());
+				byte[] header = new byte[5];
+				in.readFully(header);
+				byte[] clientHello = new byte[((header[3] & 0xff) << 8) | (header[4] & 0xff)];
+				in.readFully(clientHello);
+				return clientHello;
+			} finally {
+				accepted.close();
+				handshake.join(5000);
+				sslSocket.close();
+			}
+		} finally {
+			server.close();
+		}
+	}
+
+	private boolean contains(byte[] bytes, byte[] sequence) {
+		for (int i = 0; i <= bytes.length - sequence.length; i++) {
+			int matching = 0;
+			while (matching < sequence.length
+					&& bytes[i + matching] == sequence[matching]) {
+				matching++;
+			}
+			if (matching == sequence.length) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,64 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.test;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import com.openshift.express.client.metrics.DistributionSnapshot;
+import com.openshift.express.client.metrics.ValueWindow;
+
+/**
+ * @author Daniel Brenner
+ */
+public class ValueWindowTest {
+
+	@Test
+	public void reportsDistributionOfValues() {
+		ValueWindow window = new ValueWindow(100);
+		for (int i = 100; i >= 1; i--) {
+			window.record(i);
+		}
+
+		DistributionSnapshot snapshot = window.snapshot();
+		assertEquals(100, snapshot.getCount());
+		assertEquals(1, snapshot.getMin());
+		assertEquals(100, snapshot.getMax());
+		assertEquals(50.5, snapshot.getMean(), 0.001);
+		assertEquals(50, snapshot.getMedian());
+		assertEquals(90, snapshot.get90thPercentile());
+		assertEquals(99, snapshot.get99thPercentile());
+		assertEquals(100, snapshot.get999thPercentile());
+	}
+
+	@Test
+	public void keepsLatestValues() {
+		ValueWindow window = new ValueWindow(10);
+		for (int i = 1; i <= 25; i++) {
+			window.record(i);
+		}
+
+		DistributionSnapshot snapshot = window.snapshot();
+		assertEquals(25, window.getRecorded());
+		assertEquals(10, snapshot.getCount());
+		assertEquals(16, snapshot.getMin());
+		assertEquals(25, snapshot.getMax());
+	}
+
+	@Test
+	public void emptyWindowHasEmptyDistribution() {
+		DistributionSnapshot snapshot = new ValueWindow().snapshot();
+		assertEquals(0, snapshot.getCount());
+		assertEquals(0, snapshot.getMax());
+		assertEquals(0, snapshot.getMean(), 0);
+	}
+}
@@ -0,0 +1,127 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.openshift.express.client.AsyncOpenShiftService;
+import com.openshift.express.client.IApplication;
+import com.openshift.express.client.ICartridge;
+import com.openshift.express.client.pool.WarmApplicationPool;
+import com.openshift.express.internal.client.test.broker.BrokerAccount;
+import com.openshift.express.internal.client.test.broker.BrokerSimulatorRule;
+
+/**
+ * @author Daniel Brenner
+ */
+public class WarmApplicationPoolTest {
+
+	private static final long TIMEOUT = 30 * 1000;
+
+	@Rule
+	public BrokerSimulatorRule simulator = new BrokerSimulatorRule(WarmApplicationPoolTest.class);
+
+	private BrokerAccount account;
+	private AsyncOpenShiftService async;
+	private WarmApplicationPool pool;
+
+	@Before
+	public void setUp() throws Exception {
+		this.account = simulator.getAccount();
+		simulator.createDomain();
+		this.async = new AsyncOpenShiftService(simulator.getService());
+		this.pool = new WarmApplicationPool(simulator.getUser(), async)
+				// the hosts of the simulated applications do not resolve
+				.setWaitForAccessible(false);
+	}
+
+	@After
+	public void tearDown() {
+		pool.stop(false);
+		async.shutdown();
+	}
+
+	@Test
+	public void handsOutWarmApplicationsAndReplenishes() throws Exception {
+		pool.setPoolSize(ICartridge.JBOSSAS_7, 2);
+		pool.replenish();
+		waitForWarmApplications(2);
+		IApplication application = pool.acquire(ICartridge.JBOSSAS_7);
+		assertNotNull(application);
+		assertEquals(1, pool.getHits());
+		waitForWarmApplications(2);
+		assertEquals(3, account.getApplications().size());
+		assertEquals(3, pool.getCreated());
+		assertEquals(3, pool.getProvisioningLatencies().getCount());
+	}
+
+	@Test
+	public void missesIfNoApplicationIsWarm() throws Exception {
+		assertNull(pool.acquire(ICartridge.JBOSSAS_7));
+		assertEquals(1, pool.getMisses());
+	}
+
+	@Test
+	public void respectsFreeGears() throws Exception {
+		account.setMaxGears(3);
+		pool.setReservedGears(1)
+				.setPoolSize(ICartridge.JBOSSAS_7, 5);
+		pool.replenish();
+		assertEquals(2, pool.getPendingCreations(ICartridge.JBOSSAS_7) + pool.getWarmApplications(ICartridge.JBOSSAS_7));
+		waitForWarmApplications(2);
+		pool.replenish();
+		assertEquals(0, pool.getPendingCreations(ICartridge.JBOSSAS_7));
+		assertEquals(2, account.getApplications().size());
+		assertEquals(0, pool.getFailed());
+	}
+
+	@Test
+	public void expiresApplicationsAfterTimeToLive() throws Exception {
+		pool.setTimeToLive(50)
+				.setPoolSize(ICartridge.JBOSSAS_7, 1);
+		pool.replenish();
+		waitForWarmApplications(1);
+		Thread.sleep(100);
+		assertNull(pool.acquire(ICartridge.JBOSSAS_7));
+		assertEquals(1, pool.getExpired());
+	}
+
+	@Test
+	public void destroysWarmApplicationsOnStop() throws Exception {
+		pool.setPoolSize(ICartridge.JBOSSAS_7, 2);
+		pool.replenish();
+		waitForWarmApplications(2);
+		pool.stop(true);
+		long timeout = System.currentTimeMillis() + TIMEOUT;
+		while (!account.getApplications().isEmpty()
+				&& System.currentTimeMillis() < timeout) {
+			Thread.sleep(10);
+		}
+		assertTrue(account.getApplications().isEmpty());
+	}
+
+	private void waitForWarmApplications(int count) throws InterruptedException {
+		long timeout = System.currentTimeMillis() + TIMEOUT;
+		while (pool.getWarmApplications(ICartridge.JBOSSAS_7) < count
+				&& System.currentTimeMillis() < timeout) {
+			Thread.sleep(10);
+		}
+		assertEquals(count, pool.getWarmApplications(ICartridge.JBOSSAS_7));
+	}
+}
@@ -0,0 +1,81 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.test.benchmark;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.openshift.express.internal.client.test.broker.BrokerSimulatorRule;
+import com.openshift.express.internal.client.test.broker.FaultInjectingBrokerSimulator;
+import com.openshift.express.internal.client.test.broker.FaultProfile;
+import com.openshift.express.internal.client.test.load.LoadGenerator;
+import com.openshift.express.internal.client.test.load.LoadMix;
+import com.openshift.express.internal.client.test.load.LoadReport;
+
+/**
+ * Runs a mix of broker operations from many threads against the in-process
+ * broker simulator and reports throughput and latency percentiles per
+ * operation. The load is configured by system properties:
+ * 
+ * <pre>
+ * mvn test -Dbenchmarks -Dtest=BrokerLoadBenchmark \
+ *   -Dload.users=10 -Dload.applications=3 -Dload.threads=32 \
+ *   -Dload.warmup=5 -Dload.duration=20 -Dload.https=true \
+ *   -Dload.mix=userinfo=40,cartlist=10,start=10,stop=10,restart=10,embed=10,create=10 \
+ *   -Dload.faults=latency=exp:20,error=0.01,reset=0.001,stall=0.001:5000
+ * </pre>
+ * 
+ * The faults are injected once the users and applications are set up.
+ * 
+ * @see FaultProfile#parse(String)
+ * 
+ * @author Daniel Brenner
+ */
+public class BrokerLoadBenchmark {
+
+	private final FaultInjectingBrokerSimulator broker = new FaultInjectingBrokerSimulator(
+			Boolean.parseBoolean(System.getProperty("load.https", "true")),
+			getInteger("load.brokerThreads", 32),
+			System.nanoTime());
+
+	@Rule
+	public BrokerSimulatorRule simulator = new BrokerSimulatorRule(BrokerLoadBenchmark.class, broker);
+
+	@Test
+	public void runLoad() throws Exception {
+		LoadGenerator generator = new LoadGenerator(broker,
+				getInteger("load.users", 10),
+				getInteger("load.applications", 3),
+				getInteger("load.threads", 32));
+		generator.setup();
+		broker.setFaults(FaultProfile.parse(System.getProperty("load.faults")));
+		LoadReport report = generator.run(
+				LoadMix.parse(System.getProperty("load.mix", LoadMix.DEFAULT_MIX)),
+				getInteger("load.warmup", 5),
+				getInteger("load.duration", 20),
+				TimeUnit.SECONDS);
+		report.print(System.out);
+		assertTrue(report.getTotalLatencies().getTotalCount() > 0);
+	}
+
+	private int getInteger(String property, int defaultValue) {
+		String value = System.getProperty(property);
+		if (value == null
+				|| value.length() == 0) {
+			return defaultValue;
+		}
+		return Integer.parseInt(value);
+	}
+}
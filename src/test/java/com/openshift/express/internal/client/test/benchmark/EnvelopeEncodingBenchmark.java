@@ -0,0 +1,106 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.test.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+
+import org.junit.Test;
+
+import com.openshift.express.client.ICartridge;
+import com.openshift.express.internal.client.request.ApplicationAction;
+import com.openshift.express.internal.client.request.ApplicationRequest;
+import com.openshift.express.internal.client.request.EncodedCredentials;
+import com.openshift.express.internal.client.request.OpenShiftEnvelope;
+import com.openshift.express.internal.client.request.OpenShiftEnvelopeFactory;
+import com.openshift.express.internal.client.request.marshalling.ApplicationRequestJsonMarshaller;
+
+/**
+ * Compares the bytes that are allocated per request when encoding an
+ * application request to a form body: the legacy marshalling to a json
+ * string that gets url encoded to another string and then converted to bytes,
+ * the {@link OpenShiftEnvelope} that streams to the output and the envelope
+ * that writes credentials that were encoded ahead.
+ * 
+ * @author Daniel Brenner
+ */
+public class EnvelopeEncodingBenchmark {
+
+	private static final String RHLOGIN = "toolsjboss@gmail.com";
+	private static final String PASSWORD = "1q2w3e";
+	private static final int WARMUP_ROUNDS = 20000;
+	private static final int ROUNDS = 100000;
+
+	private final ApplicationRequestJsonMarshaller marshaller = new ApplicationRequestJsonMarshaller();
+	private final ApplicationRequest request =
+			new ApplicationRequest("benchmark", ICartridge.JBOSSAS_7, ApplicationAction.CONFIGURE, RHLOGIN, true);
+	private final ByteArrayOutputStream out = new ByteArrayOutputStream(1024);
+	private EncodedCredentials credentials;
+
+	@Test
+	public void encodeApplicationRequest() throws Exception {
+		com.sun.management.ThreadMXBean threads =
+				(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long threadId = Thread.currentThread().getId();
+		this.credentials = EncodedCredentials.create(RHLOGIN, PASSWORD, null, null);
+
+		for (int i = 0; i < WARMUP_ROUNDS; i++) {
+			encodeLegacy();
+			encodeStreaming();
+			encodePreEncoded();
+		}
+
+		long allocated = threads.getThreadAllocatedBytes(threadId);
+		long start = System.nanoTime();
+		for (int i = 0; i < ROUNDS; i++) {
+			encodeLegacy();
+		}
+		report("legacy string envelope", System.nanoTime() - start,
+				threads.getThreadAllocatedBytes(threadId) - allocated);
+
+		allocated = threads.getThreadAllocatedBytes(threadId);
+		start = System.nanoTime();
+		for (int i = 0; i < ROUNDS; i++) {
+			encodeStreaming();
+		}
+		report("streaming envelope", System.nanoTime() - start,
+				threads.getThreadAllocatedBytes(threadId) - allocated);
+
+		allocated = threads.getThreadAllocatedBytes(threadId);
+		start = System.nanoTime();
+		for (int i = 0; i < ROUNDS; i++) {
+			encodePreEncoded();
+		}
+		report("pre-encoded credentials", System.nanoTime() - start,
+				threads.getThreadAllocatedBytes(threadId) - allocated);
+	}
+
+	private void encodeLegacy() throws Exception {
+		out.reset();
+		String body = new OpenShiftEnvelopeFactory(PASSWORD, null, null, marshaller.marshall(request)).createString();
+		out.write(body.getBytes("UTF-8"));
+	}
+
+	private void encodeStreaming() throws Exception {
+		out.reset();
+		new OpenShiftEnvelope<ApplicationRequest>(PASSWORD, null, null, marshaller, request).writeTo(out);
+	}
+
+	private void encodePreEncoded() throws Exception {
+		out.reset();
+		new OpenShiftEnvelope<ApplicationRequest>(credentials, marshaller, request).writeTo(out);
+	}
+
+	private void report(String name, long nanos, long allocatedBytes) {
+		System.out.println(String.format("%-24s %8.0f bytes/request %8.2f us/request",
+				name, (double) allocatedBytes / ROUNDS, nanos / 1e3 / ROUNDS));
+	}
+}
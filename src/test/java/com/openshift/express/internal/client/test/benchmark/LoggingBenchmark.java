@@ -0,0 +1,151 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.test.benchmark;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import org.junit.Test;
+
+import com.openshift.express.internal.client.httpclient.UrlConnectionHttpClient;
+import com.openshift.express.internal.client.logging.Logger;
+import com.openshift.express.internal.client.request.OpenShiftEnvelopeFactory;
+
+/**
+ * Compares the throughput of 64 concurrent callers that log each request
+ * the way UrlConnectionHttpClient#post used to (System.out.println of the
+ * url and payload) with the level gated {@link Logger}, disabled and enabled.
+ * System.out is replaced by a stream that discards its output so that only
+ * the cost of formatting and of the contention on System.out is measured.
+ * 
+ * @author Daniel Brenner
+ */
+public class LoggingBenchmark {
+
+	private static final int CALLERS = 64;
+	private static final long WARMUP = TimeUnit.SECONDS.toMillis(1);
+	private static final long DURATION = TimeUnit.SECONDS.toMillis(3);
+	private static final String URL = "https://openshift.redhat.com/broker/userinfo";
+
+	private static final Logger LOGGER = Logger.getLogger(UrlConnectionHttpClient.class);
+
+	@Test
+	public void logUnder64ConcurrentCallers() throws Exception {
+		final String data = new OpenShiftEnvelopeFactory("1q2w3e", null, null,
+				"{\"rhlogin\":\"toolsjboss@gmail.com\",\"debug\":\"true\"}").createString();
+		PrintStream out = System.out;
+		java.util.logging.Logger julLogger =
+				java.util.logging.Logger.getLogger(UrlConnectionHttpClient.class.getName());
+		Level level = julLogger.getLevel();
+		Handler handler = new NullHandler();
+		try {
+			System.setOut(new PrintStream(new NullOutputStream()));
+			long legacy = measure(new Runnable() {
+
+				public void run() {
+					System.out.println("***** post " + URL + " " + data);
+				}
+			});
+
+			julLogger.setLevel(Level.INFO);
+			Runnable logging = new Runnable() {
+
+				public void run() {
+					LOGGER.debug("Posting to {0}: {1}", URL, data);
+				}
+			};
+			long disabled = measure(logging);
+
+			julLogger.setLevel(Level.FINE);
+			julLogger.setUseParentHandlers(false);
+			julLogger.addHandler(handler);
+			long enabled = measure(logging);
+
+			System.setOut(out);
+			report("System.out.println", legacy);
+			report("Logger, debug disabled", disabled);
+			report("Logger, debug enabled", enabled);
+		} finally {
+			System.setOut(out);
+			julLogger.removeHandler(handler);
+			julLogger.setUseParentHandlers(true);
+			julLogger.setLevel(level);
+		}
+	}
+
+	private long measure(final Runnable call) throws InterruptedException {
+		run(call, WARMUP);
+		return run(call, DURATION);
+	}
+
+	private long run(final Runnable call, long duration) throws InterruptedException {
+		final AtomicLong calls = new AtomicLong();
+		final CountDownLatch start = new CountDownLatch(1);
+		final long end = System.currentTimeMillis() + duration;
+		Thread[] callers = new Thread[CALLERS];
+		for (int i = 0; i < CALLERS; i++) {
+			callers[i] = new Thread(new Runnable() {
+
+				public void run() {
+					try {
+						start.await();
+					} catch (InterruptedException e) {
+						return;
+					}
+					long count = 0;
+					while ((count & 0xff) != 0
+							|| System.currentTimeMillis() < end) {
+						call.run();
+						count++;
+					}
+					calls.addAndGet(count);
+				}
+			});
+			callers[i].start();
+		}
+		start.countDown();
+		for (Thread caller : callers) {
+			caller.join();
+		}
+		return calls.get() * 1000 / duration;
+	}
+
+	private void report(String name, long callsPerSecond) {
+		System.out.println(String.format("%-24s %,14d calls/s (%d callers)", name, callsPerSecond, CALLERS));
+	}
+
+	private static class NullOutputStream extends OutputStream {
+
+		public void write(int b) {
+		}
+
+		public void write(byte[] b, int off, int len) {
+		}
+	}
+
+	private static class NullHandler extends Handler {
+
+		public void publish(LogRecord record) {
+		}
+
+		public void flush() {
+		}
+
+		public void close() {
+		}
+	}
+}
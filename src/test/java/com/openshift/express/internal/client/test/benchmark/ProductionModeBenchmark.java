@@ -0,0 +1,112 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.test.benchmark;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.openshift.express.client.ICartridge;
+import com.openshift.express.client.IEmbeddableCartridge;
+import com.openshift.express.client.IUser;
+import com.openshift.express.client.OpenShiftException;
+import com.openshift.express.client.OpenShiftService;
+import com.openshift.express.client.metrics.InMemoryBrokerMetrics;
+import com.openshift.express.client.metrics.OperationMetrics;
+import com.openshift.express.internal.client.test.broker.BrokerSimulatorRule;
+
+/**
+ * Compares the response sizes and parse times of a representative set of
+ * broker requests (userinfo, cartridge lists, application and embed
+ * actions) with and without broker debug output.
+ * 
+ * @author Daniel Brenner
+ * 
+ * @see OpenShiftService#setProductionMode(boolean)
+ */
+public class ProductionModeBenchmark {
+
+	private static final String APPLICATION = "benchmark";
+	private static final int WARMUP_ROUNDS = 200;
+	private static final int ROUNDS = 1000;
+
+	@Rule
+	public BrokerSimulatorRule simulator = new BrokerSimulatorRule(ProductionModeBenchmark.class);
+
+	private OpenShiftService service;
+	private IUser user;
+
+	@Before
+	public void setUp() throws Exception {
+		this.service = simulator.getService();
+		this.user = simulator.getUser();
+		simulator.createDomain();
+		service.createApplication(APPLICATION, ICartridge.JBOSSAS_7, user);
+	}
+
+	@Test
+	public void compareDebugAndProductionMode() throws Exception {
+		InMemoryBrokerMetrics debug = measure(false);
+		InMemoryBrokerMetrics production = measure(true);
+
+		System.out.println(String.format("%-28s %14s %14s %12s %12s",
+				"operation", "debug bytes", "prod bytes", "debug parse", "prod parse"));
+		long debugBytes = 0;
+		long productionBytes = 0;
+		double debugParse = 0;
+		double productionParse = 0;
+		for (OperationMetrics debugOperation : debug.getOperations()) {
+			OperationMetrics productionOperation = production.getOperation(debugOperation.getOperation());
+			report(debugOperation.getOperation(), debugOperation, productionOperation);
+			debugBytes += getTotal(debugOperation.getResponseBytes().getMean(), debugOperation);
+			productionBytes += getTotal(productionOperation.getResponseBytes().getMean(), productionOperation);
+			debugParse += getTotal(debugOperation.getParseLatencies().getMean(), debugOperation);
+			productionParse += getTotal(productionOperation.getParseLatencies().getMean(), productionOperation);
+		}
+		System.out.println(String.format("%d rounds: %,d bytes saved (%.1f%%), %.1f ms parse time saved (%.1f%%)",
+				ROUNDS, debugBytes - productionBytes, 100d * (debugBytes - productionBytes) / debugBytes,
+				(debugParse - productionParse) / 1000, 100d * (debugParse - productionParse) / debugParse));
+	}
+
+	private InMemoryBrokerMetrics measure(boolean productionMode) throws OpenShiftException {
+		service.setProductionMode(productionMode);
+		InMemoryBrokerMetrics metrics = new InMemoryBrokerMetrics();
+		for (int i = 0; i < WARMUP_ROUNDS; i++) {
+			requestAll();
+		}
+		service.setMetrics(metrics);
+		for (int i = 0; i < ROUNDS; i++) {
+			requestAll();
+		}
+		service.setMetrics(new InMemoryBrokerMetrics());
+		return metrics;
+	}
+
+	private void requestAll() throws OpenShiftException {
+		service.getUserInfo(user);
+		service.getCartridges(user);
+		service.getEmbeddableCartridges(user);
+		service.stopApplication(APPLICATION, ICartridge.JBOSSAS_7, user);
+		service.startApplication(APPLICATION, ICartridge.JBOSSAS_7, user);
+		service.addEmbeddedCartridge(APPLICATION, IEmbeddableCartridge.MYSQL_51, user);
+		service.removeEmbeddedCartridge(APPLICATION, IEmbeddableCartridge.MYSQL_51, user);
+	}
+
+	private long getTotal(double mean, OperationMetrics operation) {
+		return Math.round(mean * operation.getCount());
+	}
+
+	private void report(String operation, OperationMetrics debug, OperationMetrics production) {
+		System.out.println(String.format("%-28s %14.0f %14.0f %10.1fus %10.1fus", operation,
+				debug.getResponseBytes().getMean(), production.getResponseBytes().getMean(),
+				debug.getParseLatencies().getMean(), production.getParseLatencies().getMean()));
+	}
+}
@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.express.internal.client.test.benchmark;
+
+import static org.junit.Assert.assertEquals;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.Test;
+
+import com.openshift.express.client.json.DmrJsonCodec;
+import com.openshift.express.client.json.StreamingJsonCodec;
+import com.openshift.express.internal.client.UserInfo;
+import com.openshift.express.internal.client.response.unmarshalling.JsonByteParser;
+import com.openshift.express.internal.client.response.unmarshalling.JsonSanitizer;
+import com.openshift.express.internal.client.response.unmarshalling.UserInfoResponseUnmarshaller;
+
+/**
+ * Compares the bytes that are allocated and the time that is spent per
+ * userinfo response: the legacy decoding of the body to a string that gets
+ * sanitized and parsed by dmr and the {@link StreamingJsonCodec} whose
+ * {@link JsonByteParser} parses the bytes in place and skips the debug output.
+ * 
+ * @author Daniel Brenner
+ */
+public class ResponseParsingBenchmark {
+
+	private static final int WARMUP_ROUNDS = 10000;
+	private static final int ROUNDS = 50000;
+	private static final int APPLICATIONS = 5;
+	private static final int DEBUG_LINES = 40;
+
+	private final UserInfoResponseUnmarshaller unmarshaller = new UserInfoResponseUnmarshaller();
+	private final UserInfoResponseUnmarshaller streamingUnmarshaller = new UserInfoResponseUnmarshaller();
+
+	@Test
+	public void parseUserInfoResponse() throws Exception {
+		com.sun.management.ThreadMXBean threads =
+				(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long threadId = Thread.currentThread().getId();
+		byte[] response = createResponse().getBytes("UTF-8");
+		unmarshaller.setRetainMessages(false);
+		unmarshaller.setJsonCodec(DmrJsonCodec.INSTANCE);
+		streamingUnmarshaller.setRetainMessages(false);
+		streamingUnmarshaller.setJsonCodec(StreamingJsonCodec.INSTANCE);
+
+		assertEquals(APPLICATIONS, parseLegacy(response).getApplicationInfos().size());
+		assertEquals(APPLICATIONS, parseBytes(response).getApplicationInfos().size());
+		for (int i = 0; i < WARMUP_ROUNDS; i++) {
+			parseLegacy(response);
+			parseBytes(response);
+		}
+
+		long allocated = threads.getThreadAllocatedBytes(threadId);
+		long start = System.nanoTime();
+		for (int i = 0; i < ROUNDS; i++) {
+			parseLegacy(response);
+		}
+		report("legacy string + dmr", System.nanoTime() - start,
+				threads.getThreadAllocatedBytes(threadId) - allocated, response.length);
+
+		allocated = threads.getThreadAllocatedBytes(threadId);
+		start = System.nanoTime();
+		for (int i = 0; i < ROUNDS; i++) {
+			parseBytes(response);
+		}
+		report("byte parser", System.nanoTime() - start,
+				threads.getThreadAllocatedBytes(threadId) - allocated, response.length);
+	}
+
+	private UserInfo parseLegacy(byte[] response) throws Exception {
+		String json = JsonSanitizer.sanitize(new String(response, "UTF-8"));
+		return unmarshaller.unmarshall(json).getOpenShiftObject();
+	}
+
+	private UserInfo parseBytes(byte[] response) throws Exception {
+		return streamingUnmarshaller.unmarshall(response, 0, response.length).getOpenShiftObject();
+	}
+
+	private String createResponse() {
+		StringBuilder data = new StringBuilder()
+				.append("{\"user_info\":{\"rhc_domain\":\"rhcloud.com\",\"rhlogin\":\"toolsjboss@gmail.com\",")
+				.append("\"namespace\":\"toolsjboss\",\"uuid\":\"5f34b742db754cc9ab70fd1db2c9a2bd\",")
+				.append("\"ssh_key\":\"AAAAB3NzaC1yc2EAAAADAQABAAABAQC\",\"ssh_type\":\"ssh-rsa\",")
+				.append("\"max_gears\":5,\"consumed_gears\":").append(APPLICATIONS).append("},\"app_info\":{");
+		for (int i = 0; i < APPLICATIONS; i++) {
+			if (i > 0) {
+				data.append(',');
+			}
+			data.append("\"app").append(i).append("\":{\"embedded\":null,")
+					.append("\"uuid\":\"810540bafc1c4b5e8cac830fb8ca786").append(i).append("\",")
+					.append("\"framework\":\"jbossas-7\",\"creation_time\":\"2011-09-12T10:15:48-04:00\"}");
+		}
+		data.append("}}");
+
+		StringBuilder debug = new StringBuilder();
+		for (int i = 0; i < DEBUG_LINES; i++) {
+			debug.append("DEBUG: node ex-std-node").append(i).append(".prod.rhcloud.com answered in 12ms\\n");
+		}
+		return "{\"debug\":\"" + debug + "\",\"messages\":\"\",\"data\":\""
+				+ data.toString().replace("\"", "\\\"")
+				+ "\",\"api\":\"1.1.1\",\"api_c\":[\"placeholder\"],\"result\":null,\"exit_code\":0}";
+	}
+
+	private void report(String name, long nanos, long allocatedBytes, int responseSize) {
+		System.out.println(String.format("%-20s %8.0f bytes/response %8.2f us/response (%d bytes response)",
+				name, (double) allocatedBytes / ROUNDS, nanos / 1e3 / ROUNDS, responseSize));
+	}
+}
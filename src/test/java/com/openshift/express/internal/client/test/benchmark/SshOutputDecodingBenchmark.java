@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.express.internal.client.test.benchmark;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.junit.Test;
+
+import com.openshift.express.internal.client.test.fakes.SshChannelInputStreamFake;
+import com.openshift.express.internal.client.utils.CharsetStreamDecoder;
+
+/**
+ * Compares the former chunk-wise <code>new String(byte[])</code> decoding of
+ * the ssh output in OpenShiftService#getStatus with the
+ * {@link CharsetStreamDecoder} on multi-megabyte logs.
+ *
+ * @author Daniel Brenner
+ */
+public class SshOutputDecodingBenchmark {
+
+	private static final int LOG_SIZE = 8 * 1024 * 1024;
+	/** the max ssh channel packet size that jsch uses */
+	private static final int MAX_PACKET_SIZE = 32 * 1024;
+	private static final int WARMUP_ROUNDS = 5;
+	private static final int ROUNDS = 20;
+
+	private static final String LOG_LINE =
+			"11:32:13,772 INFO  [org.jboss.as.server.deployment] (MSC service thread 1-4) "
+					+ "Starting deployment of \"ROOT.war\" f\u00fcr Z\u00fcrich \u20ac\n";
+
+	@Test
+	public void decodeMultiMegabyteLog() throws IOException {
+		byte[] log = createLog(LOG_SIZE);
+		SshChannelInputStreamFake channelStream = new SshChannelInputStreamFake(log, MAX_PACKET_SIZE);
+
+		String expected = new String(log, "UTF-8");
+		assertEquals(expected, new CharsetStreamDecoder().decode(channelStream));
+		channelStream.reset();
+
+		report("legacy chunk-wise String", measureLegacy(channelStream), log.length);
+		report("CharsetStreamDecoder", measureDecoder(channelStream), log.length);
+	}
+
+	private long measureLegacy(SshChannelInputStreamFake channelStream) throws IOException {
+		for (int i = 0; i < WARMUP_ROUNDS; i++) {
+			channelStream.reset();
+			decodeLegacy(channelStream);
+		}
+		long start = System.nanoTime();
+		for (int i = 0; i < ROUNDS; i++) {
+			channelStream.reset();
+			decodeLegacy(channelStream);
+		}
+		return System.nanoTime() - start;
+	}
+
+	private long measureDecoder(SshChannelInputStreamFake channelStream) throws IOException {
+		CharsetStreamDecoder decoder = new CharsetStreamDecoder();
+		for (int i = 0; i < WARMUP_ROUNDS; i++) {
+			channelStream.reset();
+			decoder.decode(channelStream);
+		}
+		long start = System.nanoTime();
+		for (int i = 0; i < ROUNDS; i++) {
+			channelStream.reset();
+			decoder.decode(channelStream);
+		}
+		return System.nanoTime() - start;
+	}
+
+	/**
+	 * The decoding that OpenShiftService#getStatus used to do, including its
+	 * dropping of the last byte of each chunk.
+	 */
+	private String decodeLegacy(InputStream in) throws IOException {
+		byte[] tmp = new byte[1024];
+		StringBuffer buff = new StringBuffer();
+		int read = 0;
+		while ((read = in.read(tmp)) > 0) {
+			buff.append(new String(tmp, 0, read - 1));
+		}
+		return buff.toString();
+	}
+
+	private byte[] createLog(int size) throws IOException {
+		StringBuilder builder = new StringBuilder(size);
+		while (builder.length() < size) {
+			builder.append(LOG_LINE);
+		}
+		return builder.toString().getBytes("UTF-8");
+	}
+
+	private void report(String name, long nanos, int bytes) {
+		double seconds = nanos / 1e9;
+		double megabytes = ((double) bytes * ROUNDS) / (1024 * 1024);
+		System.out.println(String.format("%-28s %8.1f MB/s (%d rounds of %d bytes in %.2fs)",
+				name, megabytes / seconds, ROUNDS, bytes, seconds));
+	}
+}
@@ -0,0 +1,86 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.test.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.text.MessageFormat;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.openshift.express.client.ICartridge;
+import com.openshift.express.client.IUser;
+import com.openshift.express.client.OpenShiftService;
+import com.openshift.express.internal.client.test.broker.BrokerSimulatorRule;
+
+/**
+ * Measures the bytes that a successful status call allocates on the calling
+ * thread and the bytes that formatting its error message up front (as
+ * OpenShiftService did before) would add to it.
+ * 
+ * @author Daniel Brenner
+ */
+public class StatusAllocationBenchmark {
+
+	private static final String APPLICATION = "benchmark";
+	private static final int WARMUP_ROUNDS = 500;
+	private static final int ROUNDS = 2000;
+
+	@Rule
+	public BrokerSimulatorRule simulator = new BrokerSimulatorRule(StatusAllocationBenchmark.class);
+
+	private OpenShiftService service;
+	private IUser user;
+
+	@Before
+	public void setUp() throws Exception {
+		this.service = simulator.getService();
+		service.setProductionMode(true);
+		this.user = simulator.getUser();
+		simulator.createDomain();
+		service.createApplication(APPLICATION, ICartridge.JBOSSAS_7, user);
+	}
+
+	@Test
+	public void successfulStatusCall() throws Exception {
+		com.sun.management.ThreadMXBean threads =
+				(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long threadId = Thread.currentThread().getId();
+		String url = simulator.getBaseUrl() + "/cartridge";
+
+		for (int i = 0; i < WARMUP_ROUNDS; i++) {
+			service.getStatus(APPLICATION, ICartridge.JBOSSAS_7, user);
+			formatErrorMessage(url);
+		}
+
+		long allocated = threads.getThreadAllocatedBytes(threadId);
+		for (int i = 0; i < ROUNDS; i++) {
+			service.getStatus(APPLICATION, ICartridge.JBOSSAS_7, user);
+		}
+		long perCall = (threads.getThreadAllocatedBytes(threadId) - allocated) / ROUNDS;
+
+		allocated = threads.getThreadAllocatedBytes(threadId);
+		for (int i = 0; i < ROUNDS; i++) {
+			formatErrorMessage(url);
+		}
+		long perMessage = (threads.getThreadAllocatedBytes(threadId) - allocated) / ROUNDS;
+
+		System.out.println(String.format("%-32s %8d bytes/call", "status call, lazy error message", perCall));
+		System.out.println(String.format("%-32s %8d bytes/call", "eager error message", perMessage));
+		System.out.println(String.format("%-32s %8.1f %%", "saved by lazy message",
+				100d * perMessage / (perCall + perMessage)));
+	}
+
+	private String formatErrorMessage(String url) {
+		return MessageFormat.format("Could not {0} application \"{1}\" at \"{2}\"", "status", APPLICATION, url);
+	}
+}
@@ -0,0 +1,155 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.test.benchmark;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.openshift.express.internal.client.utils.IOUtils;
+
+/**
+ * Compares the throughput of the former StreamUtils (byte by byte copies
+ * into a list of boxed bytes, line by line reading) with {@link IOUtils}
+ * when copying a multi-megabyte stream and when reading typical broker
+ * responses to strings.
+ * 
+ * @author Daniel Brenner
+ */
+public class StreamThroughputBenchmark {
+
+	private static final int COPY_SIZE = 4 * 1024 * 1024;
+	private static final int RESPONSE_SIZE = 4 * 1024;
+	private static final int WARMUP_ROUNDS = 3;
+	private static final int COPY_ROUNDS = 5;
+	private static final int RESPONSE_ROUNDS = 20000;
+
+	private static final String RESPONSE_LINE =
+			"{\"debug\":\"\",\"messages\":\"\",\"data\":\"{\\\"rhc_domain\\\":\\\"rhcloud.com\\\"}\",\"exit_code\":0}";
+
+	@Test
+	public void copyMultiMegabyteStream() throws IOException {
+		byte[] data = createContent(COPY_SIZE).getBytes("UTF-8");
+		ByteArrayOutputStream out = new ByteArrayOutputStream(data.length);
+		IOUtils.copy(new ByteArrayInputStream(data), out);
+		assertArrayEquals(data, out.toByteArray());
+
+		for (int i = 0; i < WARMUP_ROUNDS; i++) {
+			copyLegacy(data, out);
+			copy(data, out);
+		}
+		report("legacy byte-wise copy", copyLegacy(data, out), data.length, COPY_ROUNDS);
+		report("IOUtils#copy", copy(data, out), data.length, COPY_ROUNDS);
+	}
+
+	@Test
+	public void readBrokerResponses() throws IOException {
+		byte[] response = createContent(RESPONSE_SIZE).getBytes("UTF-8");
+		assertEquals(new String(response, "UTF-8"), IOUtils.toString(new ByteArrayInputStream(response)));
+
+		for (int i = 0; i < WARMUP_ROUNDS; i++) {
+			readLegacy(response);
+			read(response);
+		}
+		report("legacy line-wise read", readLegacy(response), response.length, RESPONSE_ROUNDS);
+		report("IOUtils#toString", read(response), response.length, RESPONSE_ROUNDS);
+	}
+
+	private long copyLegacy(byte[] data, ByteArrayOutputStream out) throws IOException {
+		long start = System.nanoTime();
+		for (int i = 0; i < COPY_ROUNDS; i++) {
+			out.reset();
+			legacyWriteTo(new ByteArrayInputStream(data), out);
+		}
+		return System.nanoTime() - start;
+	}
+
+	private long copy(byte[] data, ByteArrayOutputStream out) throws IOException {
+		long start = System.nanoTime();
+		for (int i = 0; i < COPY_ROUNDS; i++) {
+			out.reset();
+			IOUtils.copy(new ByteArrayInputStream(data), out);
+		}
+		return System.nanoTime() - start;
+	}
+
+	private long readLegacy(byte[] response) throws IOException {
+		long start = System.nanoTime();
+		for (int i = 0; i < RESPONSE_ROUNDS; i++) {
+			legacyReadToString(new ByteArrayInputStream(response));
+		}
+		return System.nanoTime() - start;
+	}
+
+	private long read(byte[] response) throws IOException {
+		long start = System.nanoTime();
+		for (int i = 0; i < RESPONSE_ROUNDS; i++) {
+			IOUtils.toString(new ByteArrayInputStream(response));
+		}
+		return System.nanoTime() - start;
+	}
+
+	/**
+	 * The former StreamUtils#writeTo(InputStream, OutputStream)
+	 */
+	private InputStream legacyWriteTo(InputStream inputStream, OutputStream outputStream) throws IOException {
+		List<Byte> data = new ArrayList<Byte>();
+		for (int character = -1; (character = inputStream.read()) != -1;) {
+			data.add((byte) character);
+			outputStream.write(character);
+		}
+		byte[] byteArray = new byte[data.size()];
+		for (int i = byteArray.length - 1; i >= 0; i--) {
+			byteArray[i] = data.get(i);
+		}
+		return new ByteArrayInputStream(byteArray);
+	}
+
+	/**
+	 * The former StreamUtils#readToString(InputStream)
+	 */
+	private String legacyReadToString(InputStream inputStream) throws IOException {
+		BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(inputStream));
+		StringWriter writer = new StringWriter();
+		String line = null;
+		while ((line = bufferedReader.readLine()) != null) {
+			writer.write(line);
+		}
+		return writer.toString();
+	}
+
+	private String createContent(int size) {
+		StringBuilder builder = new StringBuilder(size);
+		while (builder.length() < size) {
+			builder.append(RESPONSE_LINE).append('\n');
+		}
+		return builder.toString();
+	}
+
+	private void report(String name, long nanos, int bytes, int rounds) {
+		double seconds = nanos / 1e9;
+		double megabytes = ((double) bytes * rounds) / (1024 * 1024);
+		System.out.println(String.format("%-24s %8.1f MB/s (%d rounds of %d bytes in %.2fs)",
+				name, megabytes / seconds, rounds, bytes, seconds));
+	}
+}
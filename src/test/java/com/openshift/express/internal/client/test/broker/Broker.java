@@ -0,0 +1,428 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.test.broker;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import javax.xml.datatype.DatatypeConfigurationException;
+
+import org.jboss.dmr.ModelNode;
+
+import com.openshift.express.client.utils.RFC822DateUtils;
+import com.openshift.express.internal.client.utils.IOpenShiftJsonConstants;
+
+/**
+ * The in-memory logic of the broker simulator. Handles the userinfo,
+ * cartlist, domain, cartridge and embed_cartridge resources the way the
+ * OpenShift Express broker does and keeps the accounts in memory.
+ * 
+ * @author Daniel Brenner
+ * 
+ * @see BrokerSimulator
+ */
+public class Broker {
+
+	public static final String RESOURCE_USERINFO = "userinfo";
+	public static final String RESOURCE_CARTLIST = "cartlist";
+	public static final String RESOURCE_DOMAIN = "domain";
+	public static final String RESOURCE_CARTRIDGE = "cartridge";
+	public static final String RESOURCE_EMBED_CARTRIDGE = "embed_cartridge";
+
+	public static final String RHC_DOMAIN = "rhcloud.com";
+	public static final String HEALTH_CHECK_PATH = "health";
+
+	public static final List<String> STANDALONE_CARTRIDGES = Collections.unmodifiableList(Arrays.asList(
+			"jbossas-7", "python-2.6", "ruby-1.8", "php-5.3", "perl-5.10", "nodejs-0.6", "jenkins-1.4",
+			"haproxy-1.4", "diy-0.1"));
+	public static final List<String> EMBEDDABLE_CARTRIDGES = Collections.unmodifiableList(Arrays.asList(
+			"mysql-5.1", "postgresql-8.4", "mongodb-2.0", "phpmyadmin-3.4", "rockmongo-1.1", "jenkins-client-1.4",
+			"cron-1.4", "metrics-0.1", "10gen-mms-agent-0.1"));
+
+	private static final String CART_TYPE_EMBEDDED = "embedded";
+	private static final String ACTION_CONFIGURE = "configure";
+	private static final String ACTION_DECONFIGURE = "deconfigure";
+	private static final String ACTION_START = "start";
+	private static final String ACTION_STOP = "stop";
+	private static final String ACTION_RESTART = "restart";
+	private static final String ACTION_STATUS = "status";
+	private static final String ACTION_THREADDUMP = "threaddump";
+	private static final String API_VERSION = "1.1.1";
+	private static final String NO_DEBUG = ",\"debug\":\"\"";
+	/** the number of lines of debug output the broker sends if asked to */
+	private static final int DEBUG_LINES = 24;
+
+	private final Map<String, BrokerAccount> accounts = new HashMap<String, BrokerAccount>();
+	private final Map<String, BrokerAccount> namespaces = new HashMap<String, BrokerAccount>();
+
+	/**
+	 * Adds an account with the given credentials.
+	 * 
+	 * @param rhlogin
+	 *            the login of the account
+	 * @param password
+	 *            the password of the account
+	 * @return the new account
+	 */
+	public synchronized BrokerAccount addAccount(String rhlogin, String password) {
+		BrokerAccount account = new BrokerAccount(rhlogin, password);
+		accounts.put(rhlogin, account);
+		return account;
+	}
+
+	public synchronized BrokerAccount getAccount(String rhlogin) {
+		return accounts.get(rhlogin);
+	}
+
+	/**
+	 * Handles the given request and returns the response body.
+	 * 
+	 * @param request
+	 *            the request to handle
+	 * @return the response body
+	 * @throws BrokerException
+	 *             if the request is invalid
+	 */
+	public String handle(BrokerRequest request) throws BrokerException {
+		String response = dispatch(request);
+		if (request.getBoolean(IOpenShiftJsonConstants.PROPERTY_DEBUG)) {
+			response = response.replace(NO_DEBUG, ",\"debug\":" + quote(createDebugOutput(request)));
+		}
+		return response;
+	}
+
+	private String dispatch(BrokerRequest request) throws BrokerException {
+		String resource = request.getResource();
+		if (RESOURCE_CARTLIST.equals(resource)) {
+			return listCartridges(request);
+		}
+		BrokerAccount account = authenticate(request);
+		if (RESOURCE_USERINFO.equals(resource)) {
+			return getUserInfo(account);
+		} else if (RESOURCE_DOMAIN.equals(resource)) {
+			return requestDomainAction(request, account);
+		} else if (RESOURCE_CARTRIDGE.equals(resource)) {
+			return requestApplicationAction(request, account);
+		} else if (RESOURCE_EMBED_CARTRIDGE.equals(resource)) {
+			return requestEmbedAction(request, account);
+		}
+		throw new BrokerException(BrokerException.STATUS_NOT_FOUND, BrokerException.EXIT_INVALID_REQUEST,
+				"Unknown resource {0}", resource);
+	}
+
+	private BrokerAccount authenticate(BrokerRequest request) throws BrokerException {
+		BrokerAccount account = getAccount(request.getRhlogin());
+		if (account == null
+				|| (!request.hasAuthKey() && !account.isPassword(request.getPassword()))) {
+			throw new BrokerException(BrokerException.STATUS_UNAUTHORIZED, BrokerException.EXIT_INVALID_CREDENTIALS,
+					"Invalid user credentials");
+		}
+		return account;
+	}
+
+	private String listCartridges(BrokerRequest request) throws BrokerException {
+		List<String> cartridges = STANDALONE_CARTRIDGES;
+		if (CART_TYPE_EMBEDDED.equals(request.getString(IOpenShiftJsonConstants.PROPERTY_CART_TYPE))) {
+			cartridges = EMBEDDABLE_CARTRIDGES;
+		}
+		ModelNode data = new ModelNode();
+		ModelNode carts = data.get(IOpenShiftJsonConstants.PROPERTY_CARTS);
+		for (String cartridge : cartridges) {
+			carts.add(cartridge);
+		}
+		// the broker sends the data of cartlist and userinfo as quoted json
+		return createResponse(quote(data.toJSONString(true)), null);
+	}
+
+	private String getUserInfo(BrokerAccount account) throws BrokerException {
+		if (account.getNamespace() == null) {
+			throw new BrokerException(BrokerException.STATUS_NOT_FOUND, BrokerException.EXIT_USER_NOT_FOUND,
+					"User {0} does not exist", account.getRhlogin());
+		}
+		ModelNode data = new ModelNode();
+		ModelNode userInfo = data.get(IOpenShiftJsonConstants.PROPERTY_USER_INFO);
+		userInfo.get(IOpenShiftJsonConstants.PROPERTY_RHC_DOMAIN).set(RHC_DOMAIN);
+		userInfo.get(IOpenShiftJsonConstants.PROPERTY_RHLOGIN).set(account.getRhlogin());
+		userInfo.get(IOpenShiftJsonConstants.PROPERTY_NAMESPACE).set(account.getNamespace());
+		userInfo.get(IOpenShiftJsonConstants.PROPERTY_UUID).set(account.getUUID());
+		setIfNotNull(IOpenShiftJsonConstants.PROPERTY_SSH_KEY, account.getSshKey(), userInfo);
+		setIfNotNull(IOpenShiftJsonConstants.PROPERTY_SSH_TYPE, account.getSshKeyType(), userInfo);
+		userInfo.get(IOpenShiftJsonConstants.PROPERTY_MAX_GEARS).set(account.getMaxGears());
+		userInfo.get(IOpenShiftJsonConstants.PROPERTY_CONSUMED_GEARS).set(account.getApplications().size());
+		ModelNode appInfo = data.get(IOpenShiftJsonConstants.PROPERTY_APP_INFO);
+		appInfo.setEmptyObject();
+		for (BrokerApplication application : account.getApplications()) {
+			ModelNode applicationNode = appInfo.get(application.getName());
+			applicationNode.get(IOpenShiftJsonConstants.PROPERTY_UUID).set(application.getUUID());
+			applicationNode.get(IOpenShiftJsonConstants.PROPERTY_FRAMEWORK).set(application.getFramework());
+			applicationNode.get(IOpenShiftJsonConstants.PROPERTY_CREATION_TIME).set(
+					toXmlDate(application.getCreationTime()));
+			ModelNode embeddedNode = applicationNode.get(IOpenShiftJsonConstants.PROPERTY_EMBEDDED);
+			for (Entry<String, String> embedded : application.getEmbedded().entrySet()) {
+				embeddedNode.get(embedded.getKey()).get(IOpenShiftJsonConstants.PROPERTY_INFO).set(embedded.getValue());
+			}
+		}
+		return createResponse(quote(data.toJSONString(true)), null);
+	}
+
+	private String requestDomainAction(BrokerRequest request, BrokerAccount account) throws BrokerException {
+		String namespace = request.getString(IOpenShiftJsonConstants.PROPERTY_NAMESPACE);
+		assertValidName(namespace, "namespace");
+		synchronized (this) {
+			if (request.getBoolean(IOpenShiftJsonConstants.PROPERTY_DELETE)) {
+				return destroyDomain(namespace, account);
+			}
+			BrokerAccount owner = namespaces.get(namespace);
+			if (owner != null
+					&& owner != account) {
+				throw new BrokerException(BrokerException.STATUS_BAD_REQUEST, BrokerException.EXIT_NAMESPACE_EXISTS,
+						"A namespace with name \"{0}\" already exists", namespace);
+			}
+			boolean alter = request.getBoolean(IOpenShiftJsonConstants.PROPERTY_ALTER);
+			if (!alter
+					&& account.getNamespace() != null) {
+				throw new BrokerException(BrokerException.STATUS_BAD_REQUEST, BrokerException.EXIT_NAMESPACE_EXISTS,
+						"User {0} already has namespace {1}", account.getRhlogin(), account.getNamespace());
+			}
+			if (account.getNamespace() != null) {
+				namespaces.remove(account.getNamespace());
+			}
+			namespaces.put(namespace, account);
+			account.setNamespace(namespace);
+			account.setSshKey(request.getString(IOpenShiftJsonConstants.PROPERTY_SSH),
+					request.getString(IOpenShiftJsonConstants.PROPERTY_KEY_TYPE));
+		}
+		ModelNode data = new ModelNode();
+		data.get(IOpenShiftJsonConstants.PROPERTY_RHLOGIN).set(account.getRhlogin());
+		data.get(IOpenShiftJsonConstants.PROPERTY_UUID).set(account.getUUID());
+		return createResponse(data.toJSONString(true), quote("Successfully created domain " + namespace));
+	}
+
+	private String destroyDomain(String namespace, BrokerAccount account) throws BrokerException {
+		if (!namespace.equals(account.getNamespace())) {
+			throw new BrokerException(BrokerException.STATUS_NOT_FOUND, BrokerException.EXIT_USER_NOT_FOUND,
+					"Namespace {0} does not exist", namespace);
+		}
+		if (!account.getApplications().isEmpty()) {
+			throw new BrokerException(BrokerException.STATUS_BAD_REQUEST, BrokerException.EXIT_DOMAIN_NOT_EMPTY,
+					"Domain {0} contains applications", namespace);
+		}
+		namespaces.remove(namespace);
+		account.setNamespace(null);
+		return createResponse(null, quote("Successfully destroyed domain " + namespace));
+	}
+
+	private String requestApplicationAction(BrokerRequest request, BrokerAccount account) throws BrokerException {
+		String action = request.getString(IOpenShiftJsonConstants.PROPERTY_ACTION);
+		String name = request.getString(IOpenShiftJsonConstants.PROPERTY_APP_NAME);
+		if (ACTION_CONFIGURE.equals(action)) {
+			return createApplication(name, request.getString(IOpenShiftJsonConstants.PROPERTY_CARTRIDGE), account);
+		}
+		BrokerApplication application = getApplication(name, account);
+		if (ACTION_DECONFIGURE.equals(action)) {
+			account.removeApplication(name);
+			return createResponse(null, quote("Successfully destroyed application: " + name));
+		} else if (ACTION_START.equals(action)
+				|| ACTION_RESTART.equals(action)) {
+			application.setState(BrokerApplication.STATE_STARTED);
+		} else if (ACTION_STOP.equals(action)) {
+			application.setState(BrokerApplication.STATE_STOPPED);
+		} else if (ACTION_STATUS.equals(action)) {
+			return createResponse(null, quote(
+					"tailing " + application.getUUID() + "/" + name + "/logs/server.log\n"
+							+ "------ Tail of " + name + " application server.log ------\n"
+							+ "application is " + application.getState() + "\n"));
+		} else if (!ACTION_THREADDUMP.equals(action)) {
+			throw new BrokerException(BrokerException.STATUS_BAD_REQUEST, BrokerException.EXIT_INVALID_ACTION,
+					"Invalid action {0}", action);
+		}
+		return createResponse(null, quote(""));
+	}
+
+	private String createApplication(String name, String cartridge, BrokerAccount account) throws BrokerException {
+		assertValidName(name, "application name");
+		if (!STANDALONE_CARTRIDGES.contains(cartridge)) {
+			throw new BrokerException(BrokerException.STATUS_BAD_REQUEST, BrokerException.EXIT_INVALID_CARTRIDGE,
+					"Invalid cartridge {0}", cartridge);
+		}
+		BrokerApplication application = null;
+		synchronized (account) {
+			if (account.getNamespace() == null) {
+				throw new BrokerException(BrokerException.STATUS_NOT_FOUND, BrokerException.EXIT_USER_NOT_FOUND,
+						"User {0} has no domain", account.getRhlogin());
+			}
+			if (account.getApplication(name) != null) {
+				throw new BrokerException(BrokerException.STATUS_BAD_REQUEST, BrokerException.EXIT_APPLICATION_EXISTS,
+						"An application named \"{0}\" already exists", name);
+			}
+			if (account.getApplications().size() >= account.getMaxGears()) {
+				throw new BrokerException(BrokerException.STATUS_BAD_REQUEST, BrokerException.EXIT_APPLICATION_LIMIT,
+						"{0} has already reached the application limit of {1}", account.getRhlogin(),
+						account.getMaxGears());
+			}
+			application = account.addApplication(name, cartridge);
+		}
+		ModelNode data = new ModelNode();
+		data.get(IOpenShiftJsonConstants.PROPERTY_HEALTH_CHECK_PATH).set(HEALTH_CHECK_PATH);
+		data.get(IOpenShiftJsonConstants.PROPERTY_UUID).set(application.getUUID());
+		return createResponse(data.toJSONString(true), quote("Successfully created application: " + name));
+	}
+
+	private String requestEmbedAction(BrokerRequest request, BrokerAccount account) throws BrokerException {
+		String action = request.getString(IOpenShiftJsonConstants.PROPERTY_ACTION);
+		String cartridge = request.getString(IOpenShiftJsonConstants.PROPERTY_CARTRIDGE);
+		BrokerApplication application = getApplication(request.getString(IOpenShiftJsonConstants.PROPERTY_APP_NAME),
+				account);
+		if (!EMBEDDABLE_CARTRIDGES.contains(cartridge)) {
+			throw new BrokerException(BrokerException.STATUS_BAD_REQUEST, BrokerException.EXIT_INVALID_CARTRIDGE,
+					"Invalid cartridge {0}", cartridge);
+		}
+		if (ACTION_CONFIGURE.equals(action)) {
+			synchronized (application) {
+				if (application.isEmbedded(cartridge)) {
+					throw new BrokerException(BrokerException.STATUS_BAD_REQUEST,
+							BrokerException.EXIT_CARTRIDGE_EMBEDDED,
+							"{0} already embedded in {1}", cartridge, application.getName());
+				}
+				String info = "Connection URL: " + cartridge.substring(0, cartridge.indexOf('-')) + "://127.0.0.1/";
+				application.embed(cartridge, info);
+				return createResponse(null, quote(cartridge + " added to " + application.getName() + "\n\n" + info));
+			}
+		} else if (ACTION_DECONFIGURE.equals(action)) {
+			application.unembed(cartridge);
+			return createResponse(null, quote(cartridge + " removed from " + application.getName()));
+		}
+		return createResponse(null, quote(""));
+	}
+
+	private BrokerApplication getApplication(String name, BrokerAccount account) throws BrokerException {
+		BrokerApplication application = account.getApplication(name);
+		if (application == null) {
+			throw new BrokerException(BrokerException.STATUS_NOT_FOUND, BrokerException.EXIT_APPLICATION_NOT_FOUND,
+					"Application {0} not found", name);
+		}
+		return application;
+	}
+
+	private void assertValidName(String name, String type) throws BrokerException {
+		if (name == null
+				|| name.length() == 0) {
+			throw new BrokerException(BrokerException.STATUS_BAD_REQUEST, BrokerException.EXIT_INVALID_NAME,
+					"No {0} given", type);
+		}
+		for (int i = 0; i < name.length(); i++) {
+			if (!Character.isLetterOrDigit(name.charAt(i))) {
+				throw new BrokerException(BrokerException.STATUS_BAD_REQUEST, BrokerException.EXIT_INVALID_NAME,
+						"Invalid {0} \"{1}\"", type, name);
+			}
+		}
+	}
+
+	private void setIfNotNull(String property, String value, ModelNode node) {
+		if (value != null) {
+			node.get(property).set(value);
+		}
+	}
+
+	private String toXmlDate(Date date) {
+		try {
+			return RFC822DateUtils.getString(date);
+		} catch (DatatypeConfigurationException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Creates a response with the given (json) data and (json) result.
+	 */
+	private String createResponse(String data, String result) {
+		return createResponse(data, result, 0, "");
+	}
+
+	/**
+	 * Creates the error response for the given exception.
+	 * 
+	 * @param e
+	 *            the exception to report
+	 * @return the response body
+	 */
+	public String createErrorResponse(BrokerException e) {
+		return createResponse(quote(""), null, e.getExitCode(), e.getMessage());
+	}
+
+	/**
+	 * Creates the debug output that the broker sends if a request asks for
+	 * it: a trace of the calls to the nodes that it made.
+	 */
+	private String createDebugOutput(BrokerRequest request) throws BrokerException {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < DEBUG_LINES; i++) {
+			builder.append("DEBUG: ").append(request.getResource())
+					.append(" for ").append(request.getRhlogin())
+					.append(": mcollective call ").append(i)
+					.append(" to ex-std-node").append(i % 8).append(".prod.").append(RHC_DOMAIN)
+					.append(" returned exit code 0 after 0.0").append(10 + i).append("s\n");
+		}
+		return builder.toString();
+	}
+
+	private String createResponse(String data, String result, int exitCode, String messages) {
+		return new StringBuilder()
+				.append("{\"messages\":").append(quote(messages))
+				.append(NO_DEBUG)
+				.append(",\"data\":").append(data == null ? "\"\"" : data)
+				.append(",\"api\":\"").append(API_VERSION).append('"')
+				.append(",\"api_c\":[\"placeholder\"]")
+				.append(",\"result\":").append(result == null ? "null" : result)
+				.append(",\"broker\":\"").append(API_VERSION).append('"')
+				.append(",\"broker_c\":[\"namespace\",\"rhlogin\",\"ssh\",\"app_uuid\",\"debug\",\"alter\","
+						+ "\"cartridge\",\"cart_type\",\"action\",\"app_name\",\"api\"]")
+				.append(",\"exit_code\":").append(exitCode)
+				.append('}')
+				.toString();
+	}
+
+	private static String quote(String value) {
+		StringBuilder builder = new StringBuilder(value.length() + 2).append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char character = value.charAt(i);
+			switch (character) {
+			case '"':
+				builder.append("\\\"");
+				break;
+			case '\\':
+				builder.append("\\\\");
+				break;
+			case '\n':
+				builder.append("\\n");
+				break;
+			case '\r':
+				builder.append("\\r");
+				break;
+			case '\t':
+				builder.append("\\t");
+				break;
+			default:
+				if (character < 0x20) {
+					builder.append(String.format("\\u%04x", (int) character));
+				} else {
+					builder.append(character);
+				}
+			}
+		}
+		return builder.append('"').toString();
+	}
+}
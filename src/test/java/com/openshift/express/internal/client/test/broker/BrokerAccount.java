@@ -0,0 +1,106 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.test.broker;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * The state that the broker simulator keeps for a user account: its
+ * credentials, domain, ssh key and applications.
+ * 
+ * @author Daniel Brenner
+ */
+public class BrokerAccount {
+
+	public static final int DEFAULT_MAX_GEARS = 5;
+
+	private final String rhlogin;
+	private final String password;
+	private final String uuid;
+	private String namespace;
+	private String sshKey;
+	private String sshKeyType;
+	private int maxGears = DEFAULT_MAX_GEARS;
+	private final Map<String, BrokerApplication> applications = new LinkedHashMap<String, BrokerApplication>();
+
+	public BrokerAccount(String rhlogin, String password) {
+		this.rhlogin = rhlogin;
+		this.password = password;
+		this.uuid = createUUID();
+	}
+
+	public String getRhlogin() {
+		return rhlogin;
+	}
+
+	public boolean isPassword(String password) {
+		return this.password.equals(password);
+	}
+
+	public String getUUID() {
+		return uuid;
+	}
+
+	public synchronized String getNamespace() {
+		return namespace;
+	}
+
+	public synchronized void setNamespace(String namespace) {
+		this.namespace = namespace;
+	}
+
+	public synchronized String getSshKey() {
+		return sshKey;
+	}
+
+	public synchronized String getSshKeyType() {
+		return sshKeyType;
+	}
+
+	public synchronized void setSshKey(String sshKey, String sshKeyType) {
+		this.sshKey = sshKey;
+		this.sshKeyType = sshKeyType;
+	}
+
+	public synchronized int getMaxGears() {
+		return maxGears;
+	}
+
+	public synchronized void setMaxGears(int maxGears) {
+		this.maxGears = maxGears;
+	}
+
+	public synchronized BrokerApplication getApplication(String name) {
+		return applications.get(name);
+	}
+
+	public synchronized List<BrokerApplication> getApplications() {
+		return new ArrayList<BrokerApplication>(applications.values());
+	}
+
+	public synchronized BrokerApplication addApplication(String name, String framework) {
+		BrokerApplication application = new BrokerApplication(name, createUUID(), framework);
+		applications.put(name, application);
+		return application;
+	}
+
+	public synchronized BrokerApplication removeApplication(String name) {
+		return applications.remove(name);
+	}
+
+	static String createUUID() {
+		return UUID.randomUUID().toString().replace("-", "");
+	}
+}
@@ -0,0 +1,86 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.test.broker;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * An application that the broker simulator keeps for an account.
+ * 
+ * @author Daniel Brenner
+ */
+public class BrokerApplication {
+
+	public static final String STATE_STARTED = "started";
+	public static final String STATE_STOPPED = "stopped";
+
+	private final String name;
+	private final String uuid;
+	private final String framework;
+	private final Date creationTime;
+	private String state = STATE_STARTED;
+	private final Map<String, String> embedded = new LinkedHashMap<String, String>();
+
+	BrokerApplication(String name, String uuid, String framework) {
+		this.name = name;
+		this.uuid = uuid;
+		this.framework = framework;
+		this.creationTime = new Date();
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getUUID() {
+		return uuid;
+	}
+
+	public String getFramework() {
+		return framework;
+	}
+
+	public Date getCreationTime() {
+		return creationTime;
+	}
+
+	public synchronized String getState() {
+		return state;
+	}
+
+	public synchronized void setState(String state) {
+		this.state = state;
+	}
+
+	/**
+	 * Returns the embedded cartridges by name with the info the broker
+	 * reports for them.
+	 * 
+	 * @return the embedded cartridges
+	 */
+	public synchronized Map<String, String> getEmbedded() {
+		return new LinkedHashMap<String, String>(embedded);
+	}
+
+	public synchronized boolean isEmbedded(String cartridge) {
+		return embedded.containsKey(cartridge);
+	}
+
+	public synchronized void embed(String cartridge, String info) {
+		embedded.put(cartridge, info);
+	}
+
+	public synchronized void unembed(String cartridge) {
+		embedded.remove(cartridge);
+	}
+}
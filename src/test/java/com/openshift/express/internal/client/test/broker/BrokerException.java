@@ -0,0 +1,58 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.test.broker;
+
+import java.text.MessageFormat;
+
+/**
+ * An error that the broker simulator reports to the client: a http status,
+ * a broker exit code and a message.
+ * 
+ * @author Daniel Brenner
+ */
+public class BrokerException extends Exception {
+
+	private static final long serialVersionUID = 1L;
+
+	public static final int STATUS_BAD_REQUEST = 400;
+	public static final int STATUS_UNAUTHORIZED = 401;
+	public static final int STATUS_NOT_FOUND = 404;
+
+	public static final int EXIT_INVALID_CREDENTIALS = 97;
+	public static final int EXIT_USER_NOT_FOUND = 99;
+	public static final int EXIT_APPLICATION_EXISTS = 100;
+	public static final int EXIT_APPLICATION_NOT_FOUND = 101;
+	public static final int EXIT_NAMESPACE_EXISTS = 103;
+	public static final int EXIT_APPLICATION_LIMIT = 104;
+	public static final int EXIT_INVALID_NAME = 105;
+	public static final int EXIT_INVALID_CARTRIDGE = 109;
+	public static final int EXIT_INVALID_ACTION = 111;
+	public static final int EXIT_DOMAIN_NOT_EMPTY = 128;
+	public static final int EXIT_CARTRIDGE_EMBEDDED = 136;
+	public static final int EXIT_INVALID_REQUEST = 1;
+
+	private final int status;
+	private final int exitCode;
+
+	public BrokerException(int status, int exitCode, String message, Object... arguments) {
+		super(MessageFormat.format(message, arguments));
+		this.status = status;
+		this.exitCode = exitCode;
+	}
+
+	public int getStatus() {
+		return status;
+	}
+
+	public int getExitCode() {
+		return exitCode;
+	}
+}
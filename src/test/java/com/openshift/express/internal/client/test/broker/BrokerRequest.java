@@ -0,0 +1,119 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.test.broker;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jboss.dmr.ModelNode;
+
+import com.openshift.express.internal.client.utils.IOpenShiftJsonConstants;
+
+/**
+ * A request to the broker simulator: the resource that was posted to and the
+ * form properties that the client sent (credentials and json_data).
+ * 
+ * @author Daniel Brenner
+ */
+public class BrokerRequest {
+
+	private static final String PROPERTY_PASSWORD = "password";
+	private static final String PROPERTY_AUTHKEY = "broker_auth_key";
+	private static final String PROPERTY_AUTHIV = "broker_auth_iv";
+	private static final String PROPERTY_JSON_DATA = "json_data";
+
+	private final String resource;
+	private final Map<String, String> properties;
+	private ModelNode jsonData;
+
+	public BrokerRequest(String resource, String body) throws BrokerException {
+		this.resource = resource;
+		this.properties = parseForm(body);
+	}
+
+	public String getResource() {
+		return resource;
+	}
+
+	public String getPassword() {
+		return properties.get(PROPERTY_PASSWORD);
+	}
+
+	public boolean hasAuthKey() {
+		return properties.get(PROPERTY_AUTHKEY) != null
+				&& properties.get(PROPERTY_AUTHIV) != null;
+	}
+
+	public String getRhlogin() throws BrokerException {
+		return getString(IOpenShiftJsonConstants.PROPERTY_RHLOGIN);
+	}
+
+	/**
+	 * Returns the given property of the json data. Returns <code>null</code>
+	 * if it's not set.
+	 * 
+	 * @param property
+	 *            the name of the property
+	 * @return the value of the property
+	 * @throws BrokerException
+	 *             if the json data is missing or invalid
+	 */
+	public String getString(String property) throws BrokerException {
+		ModelNode jsonData = getJsonData();
+		if (!jsonData.hasDefined(property)) {
+			return null;
+		}
+		return jsonData.get(property).asString();
+	}
+
+	public boolean getBoolean(String property) throws BrokerException {
+		return Boolean.valueOf(getString(property));
+	}
+
+	private synchronized ModelNode getJsonData() throws BrokerException {
+		if (jsonData == null) {
+			String json = properties.get(PROPERTY_JSON_DATA);
+			if (json == null) {
+				throw new BrokerException(BrokerException.STATUS_BAD_REQUEST, BrokerException.EXIT_INVALID_REQUEST,
+						"No json_data in request to {0}", resource);
+			}
+			try {
+				this.jsonData = ModelNode.fromJSONString(json);
+			} catch (IllegalArgumentException e) {
+				throw new BrokerException(BrokerException.STATUS_BAD_REQUEST, BrokerException.EXIT_INVALID_REQUEST,
+						"Invalid json_data {0}", json);
+			}
+		}
+		return jsonData;
+	}
+
+	private Map<String, String> parseForm(String body) throws BrokerException {
+		Map<String, String> properties = new HashMap<String, String>();
+		try {
+			for (String pair : body.split("&")) {
+				int separator = pair.indexOf('=');
+				if (separator < 0) {
+					continue;
+				}
+				properties.put(URLDecoder.decode(pair.substring(0, separator), "UTF-8"),
+						URLDecoder.decode(pair.substring(separator + 1), "UTF-8"));
+			}
+			return properties;
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		} catch (IllegalArgumentException e) {
+			throw new BrokerException(BrokerException.STATUS_BAD_REQUEST, BrokerException.EXIT_INVALID_REQUEST,
+					"Invalid form data {0}", body);
+		}
+	}
+}
@@ -0,0 +1,244 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.test.broker;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+
+import com.openshift.express.client.IOpenShiftService;
+import com.openshift.express.internal.client.utils.DaemonThreadFactory;
+import com.openshift.express.internal.client.utils.IOUtils;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsServer;
+
+/**
+ * An in-process stand-in for the OpenShift Express broker. Serves the
+ * <code>/broker</code> resources over http or https on a free local port and
+ * keeps its accounts in memory so that the client stack may be tested (and
+ * load-tested) without a network connection.
+ * 
+ * <pre>
+ * BrokerSimulator broker = new BrokerSimulator(true).start();
+ * broker.addAccount("toolsjboss@gmail.com", "secret");
+ * IOpenShiftService service = new OpenShiftService("test", broker.getBaseUrl());
+ * ...
+ * broker.stop();
+ * </pre>
+ * 
+ * @author Daniel Brenner
+ * 
+ * @see Broker
+ */
+public class BrokerSimulator {
+
+	private static final String KEYSTORE = "/broker-simulator.jks";
+	private static final char[] KEYSTORE_PASSWORD = "openshift".toCharArray();
+	private static final String CONTENT_TYPE = "application/json";
+	private static final String HEADER_REQUEST_ID = "X-Request-Id";
+	protected static final int DEFAULT_THREADS = 16;
+
+	private final boolean https;
+	private final int threads;
+	private final Broker broker = new Broker();
+	private final AtomicLong requests = new AtomicLong();
+	private volatile String lastRequestId;
+	private HttpServer server;
+	private ExecutorService executor;
+
+	public BrokerSimulator(boolean https) {
+		this(https, DEFAULT_THREADS);
+	}
+
+	public BrokerSimulator(boolean https, int threads) {
+		this.https = https;
+		this.threads = threads;
+	}
+
+	/**
+	 * Starts serving on a free port of the loopback interface.
+	 * 
+	 * @return this simulator
+	 * @throws IOException
+	 *             if the server could not be started
+	 */
+	public synchronized BrokerSimulator start() throws IOException {
+		if (server != null) {
+			return this;
+		}
+		InetSocketAddress address = new InetSocketAddress(InetAddress.getByName("127.0.0.1"), 0);
+		if (https) {
+			HttpsServer httpsServer = HttpsServer.create(address, 0);
+			httpsServer.setHttpsConfigurator(new HttpsConfigurator(createSSLContext()));
+			this.server = httpsServer;
+		} else {
+			this.server = HttpServer.create(address, 0);
+		}
+		this.executor = Executors.newFixedThreadPool(threads, new DaemonThreadFactory("broker"));
+		server.setExecutor(executor);
+		server.createContext(IOpenShiftService.SERVICE_PATH + "/", new BrokerHandler());
+		server.start();
+		return this;
+	}
+
+	public synchronized void stop() {
+		if (server == null) {
+			return;
+		}
+		server.stop(0);
+		executor.shutdownNow();
+		try {
+			executor.awaitTermination(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		this.server = null;
+		this.executor = null;
+	}
+
+	/**
+	 * Returns the url that the client shall use as base url, the broker
+	 * resources are served at &lt;baseUrl&gt;/broker/&lt;resource&gt;.
+	 * 
+	 * @return the base url of this simulator
+	 */
+	public synchronized String getBaseUrl() {
+		if (server == null) {
+			throw new IllegalStateException("broker simulator is not started");
+		}
+		InetSocketAddress address = server.getAddress();
+		return (https ? "https" : "http") + "://" + address.getAddress().getHostAddress() + ":" + address.getPort();
+	}
+
+	public BrokerAccount addAccount(String rhlogin, String password) {
+		return broker.addAccount(rhlogin, password);
+	}
+
+	public BrokerAccount getAccount(String rhlogin) {
+		return broker.getAccount(rhlogin);
+	}
+
+	public Broker getBroker() {
+		return broker;
+	}
+
+	/**
+	 * Returns the number of requests that this simulator has received.
+	 * 
+	 * @return the number of requests received
+	 */
+	public long getRequests() {
+		return requests.get();
+	}
+
+	/**
+	 * Returns the request id that the client sent with the last request or
+	 * <code>null</code> if it sent none.
+	 * 
+	 * @return the id of the last request
+	 */
+	public String getLastRequestId() {
+		return lastRequestId;
+	}
+
+	/**
+	 * Handles the given request. Subclasses may override this to alter the
+	 * responses of the simulator.
+	 * 
+	 * @param exchange
+	 *            the http exchange to respond to
+	 * @param request
+	 *            the parsed broker request
+	 * @throws IOException
+	 */
+	protected void handle(HttpExchange exchange, BrokerRequest request) throws IOException {
+		try {
+			respond(exchange, 200, broker.handle(request));
+		} catch (BrokerException e) {
+			respond(exchange, e.getStatus(), broker.createErrorResponse(e));
+		}
+	}
+
+	protected void respond(HttpExchange exchange, int status, String body) throws IOException {
+		byte[] bytes = body.getBytes("UTF-8");
+		exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+		String requestId = exchange.getRequestHeaders().getFirst(HEADER_REQUEST_ID);
+		if (requestId != null) {
+			exchange.getResponseHeaders().set(HEADER_REQUEST_ID, requestId);
+		}
+		// a length of 0 would switch to chunked encoding, -1 is no body
+		exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+		if (bytes.length > 0) {
+			OutputStream out = exchange.getResponseBody();
+			out.write(bytes);
+			out.flush();
+		}
+	}
+
+	private SSLContext createSSLContext() throws IOException {
+		InputStream in = getClass().getResourceAsStream(KEYSTORE);
+		if (in == null) {
+			throw new IOException("Could not find keystore " + KEYSTORE);
+		}
+		try {
+			KeyStore keyStore = KeyStore.getInstance("JKS");
+			keyStore.load(in, KEYSTORE_PASSWORD);
+			KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance(
+					KeyManagerFactory.getDefaultAlgorithm());
+			keyManagerFactory.init(keyStore, KEYSTORE_PASSWORD);
+			SSLContext sslContext = SSLContext.getInstance("TLS");
+			sslContext.init(keyManagerFactory.getKeyManagers(), null, null);
+			return sslContext;
+		} catch (GeneralSecurityException e) {
+			throw new IOException("Could not load keystore " + KEYSTORE + ": " + e.getMessage());
+		} finally {
+			IOUtils.closeQuietly(in);
+		}
+	}
+
+	private class BrokerHandler implements HttpHandler {
+
+		public void handle(HttpExchange exchange) throws IOException {
+			requests.incrementAndGet();
+			lastRequestId = exchange.getRequestHeaders().getFirst(HEADER_REQUEST_ID);
+			try {
+				String path = exchange.getRequestURI().getPath();
+				String resource = path.substring(path.lastIndexOf('/') + 1);
+				if (!"POST".equals(exchange.getRequestMethod())) {
+					respond(exchange, 404, "");
+					return;
+				}
+				String body = IOUtils.toString(exchange.getRequestBody());
+				try {
+					BrokerSimulator.this.handle(exchange, new BrokerRequest(resource, body));
+				} catch (BrokerException e) {
+					respond(exchange, e.getStatus(), broker.createErrorResponse(e));
+				}
+			} finally {
+				exchange.close();
+			}
+		}
+	}
+}
@@ -0,0 +1,130 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.test.broker;
+
+import org.junit.rules.ExternalResource;
+
+import com.openshift.express.client.IDomain;
+import com.openshift.express.client.IOpenShiftService;
+import com.openshift.express.client.OpenShiftException;
+import com.openshift.express.client.OpenShiftService;
+import com.openshift.express.client.SSHKeyType;
+import com.openshift.express.client.SSHPublicKey;
+import com.openshift.express.client.User;
+import com.openshift.express.internal.client.test.fakes.OpenShiftCredentials;
+
+/**
+ * Starts a broker simulator before each test and stops it afterwards. The
+ * simulator has an account for the {@link OpenShiftCredentials}, the rule
+ * provides a service that talks to the simulator and a user of that account.
+ * 
+ * <pre>
+ * &#064;Rule
+ * public BrokerSimulatorRule simulator = new BrokerSimulatorRule(MyTest.class);
+ * 
+ * &#064;Test
+ * public void listsCartridges() throws Exception {
+ * 	simulator.getUser().getCartridges();
+ * }
+ * </pre>
+ * 
+ * @author Daniel Brenner
+ */
+public class BrokerSimulatorRule extends ExternalResource {
+
+	public static final String DOMAIN = "toolsjboss";
+	public static final String SSH_KEY = "AAAAB3NzaC1yc2EAAAADAQABAAABAQC4JlQ9JvGbUcUv4hK1h8GrzIjSdq";
+
+	private final String serviceId;
+	private final BrokerSimulator broker;
+	private OpenShiftService service;
+	private User user;
+
+	/**
+	 * Creates a rule for a http broker simulator.
+	 * 
+	 * @param test
+	 *            the test class, names the services of the rule
+	 */
+	public BrokerSimulatorRule(Class<?> test) {
+		this(test, new BrokerSimulator(false));
+	}
+
+	/**
+	 * Creates a rule for the given, not yet started broker simulator.
+	 * 
+	 * @param test
+	 *            the test class, names the services of the rule
+	 * @param broker
+	 *            the simulator to start
+	 */
+	public BrokerSimulatorRule(Class<?> test, BrokerSimulator broker) {
+		this.serviceId = test.getSimpleName();
+		this.broker = broker;
+	}
+
+	protected void before() throws Throwable {
+		broker.start();
+		broker.addAccount(OpenShiftCredentials.USERNAME, OpenShiftCredentials.PASSWORD);
+		this.service = createService(broker.getBaseUrl());
+		this.user = createUser(service);
+	}
+
+	protected void after() {
+		broker.stop();
+	}
+
+	public BrokerSimulator getBroker() {
+		return broker;
+	}
+
+	public String getBaseUrl() {
+		return broker.getBaseUrl();
+	}
+
+	public BrokerAccount getAccount() {
+		return broker.getAccount(OpenShiftCredentials.USERNAME);
+	}
+
+	public OpenShiftService getService() {
+		return service;
+	}
+
+	public User getUser() {
+		return user;
+	}
+
+	/**
+	 * Creates a service for the given broker url.
+	 */
+	public OpenShiftService createService(String baseUrl) {
+		return new OpenShiftService(serviceId, baseUrl);
+	}
+
+	/**
+	 * Creates a user of the account of the simulator that uses the given
+	 * service.
+	 */
+	public User createUser(IOpenShiftService service) {
+		return new User(OpenShiftCredentials.USERNAME, OpenShiftCredentials.PASSWORD, null, service);
+	}
+
+	/**
+	 * Creates the domain of the user of this rule.
+	 */
+	public IDomain createDomain() throws OpenShiftException {
+		return user.createDomain(DOMAIN, createSshKey());
+	}
+
+	public static SSHPublicKey createSshKey() {
+		return new SSHPublicKey(SSH_KEY, SSHKeyType.SSH_RSA);
+	}
+}
@@ -0,0 +1,160 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.test.broker;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.openshift.express.internal.client.test.broker.FaultProfile.Fault;
+import com.sun.net.httpserver.HttpExchange;
+
+/**
+ * A broker simulator that injects faults into its responses: latencies,
+ * error responses, truncated json, partial bodies, connection resets and
+ * stalled sockets. Faults are configured per endpoint (resource) with a
+ * default that applies to all other endpoints.
+ * 
+ * <pre>
+ * FaultInjectingBrokerSimulator broker = new FaultInjectingBrokerSimulator(false);
+ * broker.setFaults(new FaultProfile().setLatency(LatencyDistribution.exponential(20)));
+ * broker.setFaults(Broker.RESOURCE_USERINFO, new FaultProfile().setErrorRate(0.1));
+ * broker.start();
+ * </pre>
+ * 
+ * @author Daniel Brenner
+ */
+public class FaultInjectingBrokerSimulator extends BrokerSimulator {
+
+	private final Map<String, FaultProfile> faults = new ConcurrentHashMap<String, FaultProfile>();
+	private final Map<Fault, AtomicLong> injected = new EnumMap<Fault, AtomicLong>(Fault.class);
+	private final Random random;
+	private volatile FaultProfile defaultFaults = new FaultProfile();
+
+	public FaultInjectingBrokerSimulator(boolean https) {
+		this(https, System.nanoTime());
+	}
+
+	/**
+	 * Creates a simulator whose faults are picked by a random generator with
+	 * the given seed.
+	 */
+	public FaultInjectingBrokerSimulator(boolean https, long seed) {
+		this(https, DEFAULT_THREADS, seed);
+	}
+
+	/**
+	 * Creates a simulator that serves with the given number of threads and
+	 * picks its faults by a random generator with the given seed.
+	 */
+	public FaultInjectingBrokerSimulator(boolean https, int threads, long seed) {
+		super(https, threads);
+		this.random = new Random(seed);
+		for (Fault fault : Fault.values()) {
+			injected.put(fault, new AtomicLong());
+		}
+	}
+
+	/**
+	 * Sets the faults for all endpoints that have no faults of their own.
+	 */
+	public void setFaults(FaultProfile faults) {
+		this.defaultFaults = faults;
+	}
+
+	/**
+	 * Sets the faults for the given endpoint.
+	 * 
+	 * @param resource
+	 *            the resource of the endpoint, ex. {@link Broker#RESOURCE_USERINFO}
+	 * @param faults
+	 *            the faults to inject
+	 */
+	public void setFaults(String resource, FaultProfile faults) {
+		this.faults.put(resource, faults);
+	}
+
+	public FaultProfile getFaults(String resource) {
+		FaultProfile resourceFaults = faults.get(resource);
+		if (resourceFaults == null) {
+			return defaultFaults;
+		}
+		return resourceFaults;
+	}
+
+	/**
+	 * Returns how many times the given fault was injected.
+	 */
+	public long getInjected(Fault fault) {
+		return injected.get(fault).get();
+	}
+
+	protected void handle(HttpExchange exchange, BrokerRequest request) throws IOException {
+		FaultProfile profile = getFaults(request.getResource());
+		sleep(profile.getLatency().next(random));
+		Fault fault = profile.nextFault(random);
+		injected.get(fault).incrementAndGet();
+		switch (fault) {
+		case ERROR:
+			respond(exchange, profile.getErrorStatus(), getBroker().createErrorResponse(
+					new BrokerException(profile.getErrorStatus(), BrokerException.EXIT_INVALID_REQUEST,
+							"Injected fault")));
+			break;
+		case TRUNCATED_JSON:
+			String response = getResponse(request);
+			respond(exchange, 200, response.substring(0, response.length() / 2));
+			break;
+		case PARTIAL_BODY:
+			sendPartialBody(exchange, getResponse(request).getBytes("UTF-8"));
+			break;
+		case STALL:
+			sleep(profile.getStallMillis());
+			// close without answering, as for a reset
+			break;
+		case CONNECTION_RESET:
+			// closing the exchange before any headers were sent closes the connection
+			break;
+		default:
+			super.handle(exchange, request);
+		}
+	}
+
+	private String getResponse(BrokerRequest request) {
+		try {
+			return getBroker().handle(request);
+		} catch (BrokerException e) {
+			return getBroker().createErrorResponse(e);
+		}
+	}
+
+	private void sendPartialBody(HttpExchange exchange, byte[] body) throws IOException {
+		exchange.sendResponseHeaders(200, body.length);
+		OutputStream out = exchange.getResponseBody();
+		out.write(body, 0, body.length / 2);
+		out.flush();
+		// the server closes the connection since the announced length was not sent
+	}
+
+	private void sleep(long millis) {
+		if (millis <= 0) {
+			return;
+		}
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,182 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.test.broker;
+
+import java.util.Random;
+
+/**
+ * The faults that the {@link FaultInjectingBrokerSimulator} injects into the
+ * responses of an endpoint: an added latency and the rates (0..1) at which
+ * requests fail in one of the ways a broker or the network between client and
+ * broker may fail.
+ * 
+ * <pre>
+ * new FaultProfile()
+ * 	.setLatency(LatencyDistribution.exponential(20))
+ * 	.setErrorRate(0.01)
+ * 	.setStallRate(0.001, 5000);
+ * </pre>
+ * 
+ * @author Daniel Brenner
+ */
+public class FaultProfile {
+
+	public enum Fault {
+		/** no fault, the request is answered normally */
+		NONE,
+		/** the broker answers with an error status */
+		ERROR,
+		/** the broker answers with a json body that is cut in half */
+		TRUNCATED_JSON,
+		/** the connection is closed after half of the announced body was sent */
+		PARTIAL_BODY,
+		/** the connection is closed without any response */
+		CONNECTION_RESET,
+		/** the broker does not answer for the stall time, then closes */
+		STALL
+	}
+
+	public static final int DEFAULT_ERROR_STATUS = 500;
+
+	private LatencyDistribution latency = LatencyDistribution.NONE;
+	private double errorRate;
+	private int errorStatus = DEFAULT_ERROR_STATUS;
+	private double truncatedJsonRate;
+	private double partialBodyRate;
+	private double connectionResetRate;
+	private double stallRate;
+	private long stallMillis;
+
+	public FaultProfile setLatency(LatencyDistribution latency) {
+		this.latency = latency;
+		return this;
+	}
+
+	public LatencyDistribution getLatency() {
+		return latency;
+	}
+
+	public FaultProfile setErrorRate(double rate) {
+		return setErrorRate(rate, DEFAULT_ERROR_STATUS);
+	}
+
+	public FaultProfile setErrorRate(double rate, int status) {
+		this.errorRate = assertRate(rate);
+		this.errorStatus = status;
+		return this;
+	}
+
+	public int getErrorStatus() {
+		return errorStatus;
+	}
+
+	public FaultProfile setTruncatedJsonRate(double rate) {
+		this.truncatedJsonRate = assertRate(rate);
+		return this;
+	}
+
+	public FaultProfile setPartialBodyRate(double rate) {
+		this.partialBodyRate = assertRate(rate);
+		return this;
+	}
+
+	public FaultProfile setConnectionResetRate(double rate) {
+		this.connectionResetRate = assertRate(rate);
+		return this;
+	}
+
+	public FaultProfile setStallRate(double rate, long stallMillis) {
+		this.stallRate = assertRate(rate);
+		this.stallMillis = stallMillis;
+		return this;
+	}
+
+	public long getStallMillis() {
+		return stallMillis;
+	}
+
+	/**
+	 * Picks the fault to inject into the next request.
+	 * 
+	 * @param random
+	 *            the source of randomness to use
+	 * @return the fault to inject
+	 */
+	public Fault nextFault(Random random) {
+		double value = random.nextDouble();
+		double threshold = errorRate;
+		if (value < threshold) {
+			return Fault.ERROR;
+		}
+		if (value < (threshold += truncatedJsonRate)) {
+			return Fault.TRUNCATED_JSON;
+		}
+		if (value < (threshold += partialBodyRate)) {
+			return Fault.PARTIAL_BODY;
+		}
+		if (value < (threshold += connectionResetRate)) {
+			return Fault.CONNECTION_RESET;
+		}
+		if (value < (threshold += stallRate)) {
+			return Fault.STALL;
+		}
+		return Fault.NONE;
+	}
+
+	private double assertRate(double rate) {
+		if (rate < 0 || rate > 1) {
+			throw new IllegalArgumentException("rate must be within 0..1");
+		}
+		return rate;
+	}
+
+	/**
+	 * Parses profiles in the form
+	 * <code>latency=exp:20,error=0.01,truncate=0.001,partial=0.001,reset=0.001,stall=0.001:5000</code>
+	 * . All entries are optional.
+	 * 
+	 * @see LatencyDistribution#parse(String)
+	 */
+	public static FaultProfile parse(String profile) {
+		FaultProfile faults = new FaultProfile();
+		if (profile == null
+				|| profile.trim().length() == 0) {
+			return faults;
+		}
+		for (String entry : profile.split(",")) {
+			int separator = entry.indexOf('=');
+			if (separator < 0) {
+				throw new IllegalArgumentException("Invalid fault \"" + entry + "\"");
+			}
+			String key = entry.substring(0, separator).trim();
+			String value = entry.substring(separator + 1).trim();
+			if ("latency".equals(key)) {
+				faults.setLatency(LatencyDistribution.parse(value));
+			} else if ("error".equals(key)) {
+				String[] rateAndStatus = value.split(":");
+				faults.setErrorRate(Double.parseDouble(rateAndStatus[0]),
+						rateAndStatus.length > 1 ? Integer.parseInt(rateAndStatus[1]) : DEFAULT_ERROR_STATUS);
+			} else if ("truncate".equals(key)) {
+				faults.setTruncatedJsonRate(Double.parseDouble(value));
+			} else if ("partial".equals(key)) {
+				faults.setPartialBodyRate(Double.parseDouble(value));
+			} else if ("reset".equals(key)) {
+				faults.setConnectionResetRate(Double.parseDouble(value));
+			} else if ("stall".equals(key)) {
+				String[] rateAndTime = value.split(":");
+				faults.setStallRate(Double.parseDouble(rateAndTime[0]), Long.parseLong(rateAndTime[1]));
+			} else {
+				throw new IllegalArgumentException("Unknown fault \"" + key + "\"");
+			}
+		}
+		return faults;
+	}
+}
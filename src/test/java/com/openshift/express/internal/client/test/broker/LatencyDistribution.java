@@ -0,0 +1,125 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.test.broker;
+
+import java.util.Random;
+
+/**
+ * A distribution of the latencies that the broker simulator adds to its
+ * responses.
+ * 
+ * @author Daniel Brenner
+ * 
+ * @see FaultProfile
+ */
+public abstract class LatencyDistribution {
+
+	public static final LatencyDistribution NONE = fixed(0);
+
+	/**
+	 * Returns the next latency in milliseconds.
+	 * 
+	 * @param random
+	 *            the source of randomness to use
+	 * @return the latency in milliseconds
+	 */
+	public abstract long next(Random random);
+
+	public static LatencyDistribution fixed(final long millis) {
+		return new LatencyDistribution() {
+
+			public long next(Random random) {
+				return millis;
+			}
+
+			public String toString() {
+				return "fixed:" + millis;
+			}
+		};
+	}
+
+	public static LatencyDistribution uniform(final long minMillis, final long maxMillis) {
+		if (maxMillis < minMillis) {
+			throw new IllegalArgumentException("max latency must be >= min latency");
+		}
+		return new LatencyDistribution() {
+
+			public long next(Random random) {
+				return minMillis + (long) (random.nextDouble() * (maxMillis - minMillis));
+			}
+
+			public String toString() {
+				return "uniform:" + minMillis + ":" + maxMillis;
+			}
+		};
+	}
+
+	/**
+	 * Latencies that are exponentially distributed around the given mean,
+	 * the way service times of a loaded server typically are.
+	 */
+	public static LatencyDistribution exponential(final long meanMillis) {
+		return new LatencyDistribution() {
+
+			public long next(Random random) {
+				return (long) (-meanMillis * Math.log(1 - random.nextDouble()));
+			}
+
+			public String toString() {
+				return "exp:" + meanMillis;
+			}
+		};
+	}
+
+	/**
+	 * Latencies with a heavy tail: most are close to the given minimum, a few
+	 * are orders of magnitude higher. The lower the shape, the heavier the
+	 * tail.
+	 */
+	public static LatencyDistribution pareto(final long minMillis, final double shape) {
+		if (shape <= 0) {
+			throw new IllegalArgumentException("shape must be > 0");
+		}
+		return new LatencyDistribution() {
+
+			public long next(Random random) {
+				return (long) (minMillis / Math.pow(1 - random.nextDouble(), 1 / shape));
+			}
+
+			public String toString() {
+				return "pareto:" + minMillis + ":" + shape;
+			}
+		};
+	}
+
+	/**
+	 * Parses distributions in the form <code>fixed:20</code>,
+	 * <code>uniform:10:50</code>, <code>exp:20</code> or
+	 * <code>pareto:10:1.5</code>.
+	 */
+	public static LatencyDistribution parse(String distribution) {
+		String[] tokens = distribution.trim().split(":");
+		try {
+			if ("fixed".equals(tokens[0])) {
+				return fixed(Long.parseLong(tokens[1]));
+			} else if ("uniform".equals(tokens[0])) {
+				return uniform(Long.parseLong(tokens[1]), Long.parseLong(tokens[2]));
+			} else if ("exp".equals(tokens[0])) {
+				return exponential(Long.parseLong(tokens[1]));
+			} else if ("pareto".equals(tokens[0])) {
+				return pareto(Long.parseLong(tokens[1]), Double.parseDouble(tokens[2]));
+			}
+		} catch (ArrayIndexOutOfBoundsException e) {
+			// fall through
+		}
+		throw new IllegalArgumentException("Invalid latency distribution \"" + distribution + "\"");
+	}
+}
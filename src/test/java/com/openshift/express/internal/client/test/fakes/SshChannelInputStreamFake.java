@@ -0,0 +1,62 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.express.internal.client.test.fakes;
+
+import java.io.InputStream;
+import java.util.Random;
+
+/**
+ * Stands in for the input stream of a remote ssh channel: hands out the given
+ * data in chunks of varying size, the way ssh packets arrive at the client.
+ *
+ * @author Daniel Brenner
+ */
+public class SshChannelInputStreamFake extends InputStream {
+
+	private final byte[] data;
+	private final int maxChunkSize;
+	private final Random random;
+	private int position;
+
+	public SshChannelInputStreamFake(byte[] data, int maxChunkSize) {
+		this(data, maxChunkSize, 0);
+	}
+
+	public SshChannelInputStreamFake(byte[] data, int maxChunkSize, long seed) {
+		this.data = data;
+		this.maxChunkSize = maxChunkSize;
+		this.random = new Random(seed);
+	}
+
+	public int read() {
+		if (position >= data.length) {
+			return -1;
+		}
+		return data[position++] & 0xff;
+	}
+
+	public int read(byte[] buffer, int offset, int length) {
+		if (position >= data.length) {
+			return -1;
+		}
+		if (length == 0) {
+			return 0;
+		}
+		int chunkSize = Math.min(length, Math.min(data.length - position, 1 + random.nextInt(maxChunkSize)));
+		System.arraycopy(data, position, buffer, offset, chunkSize);
+		position += chunkSize;
+		return chunkSize;
+	}
+
+	public void reset() {
+		this.position = 0;
+	}
+}
@@ -20,7 +20,7 @@ import java.util.Properties;
 import com.openshift.express.client.OpenShiftException;
 import com.openshift.express.client.configuration.SystemConfiguration;
 import com.openshift.express.client.configuration.UserConfiguration;
-import com.openshift.express.internal.client.utils.StreamUtils;
+import com.openshift.express.internal.client.utils.IOUtils;
 
 /**
  * @author André Dietisheim
@@ -51,7 +51,7 @@ public class UserConfigurationFake extends UserConfiguration {
 			throw new RuntimeException(e);
 		} finally {
 			try {
-				StreamUtils.close(writer);
+				IOUtils.close(writer);
 			} catch (Exception e) {
 				throw new RuntimeException(e);
 			}
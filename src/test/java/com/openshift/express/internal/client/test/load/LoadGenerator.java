@@ -0,0 +1,172 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.test.load;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.openshift.express.client.ICartridge;
+import com.openshift.express.client.IOpenShiftService;
+import com.openshift.express.client.IUser;
+import com.openshift.express.client.OpenShiftException;
+import com.openshift.express.client.OpenShiftService;
+import com.openshift.express.client.SSHKeyType;
+import com.openshift.express.client.SSHPublicKey;
+import com.openshift.express.client.User;
+import com.openshift.express.internal.client.test.broker.BrokerSimulator;
+import com.openshift.express.internal.client.utils.DaemonThreadFactory;
+
+/**
+ * Drives a mix of {@link IOpenShiftService} operations from many threads
+ * against a {@link BrokerSimulator} and records their latencies. Sets up the
+ * given number of users, each with a domain and the given number of
+ * applications, and spreads the threads over these users.
+ * 
+ * @author Daniel Brenner
+ * 
+ * @see LoadReport
+ */
+public class LoadGenerator {
+
+	private static final String PASSWORD = "load";
+	private static final String SSH_KEY = "AAAAB3NzaC1yc2EAAAADAQABAAABAQC4JlQ9JvGbUcUv4hK1h8GrzIjSdq";
+
+	private final BrokerSimulator broker;
+	private final int users;
+	private final int applicationsPerUser;
+	private final int threads;
+	private List<LoadSession> sessions;
+
+	public LoadGenerator(BrokerSimulator broker, int users, int applicationsPerUser, int threads) {
+		if (users < 1 || applicationsPerUser < 1 || threads < 1) {
+			throw new IllegalArgumentException("users, applications and threads must be > 0");
+		}
+		this.broker = broker;
+		this.users = users;
+		this.applicationsPerUser = applicationsPerUser;
+		this.threads = threads;
+	}
+
+	/**
+	 * Runs the given mix of operations for the given warmup and measurement
+	 * period. Only the operations that complete within the measurement period
+	 * are reported.
+	 * 
+	 * @param mix
+	 *            the operations to run
+	 * @param warmup
+	 *            the time to run before measuring
+	 * @param duration
+	 *            the time to measure
+	 * @param unit
+	 *            the unit of warmup and duration
+	 * @return the report of the measured operations
+	 * @throws OpenShiftException
+	 *             if the users or applications could not be set up
+	 * @throws InterruptedException
+	 * 
+	 * @see #setup()
+	 */
+	public LoadReport run(final LoadMix mix, long warmup, long duration, TimeUnit unit)
+			throws OpenShiftException, InterruptedException {
+		setup();
+		final LoadReport report = new LoadReport(mix, users, applicationsPerUser, threads);
+		final long measureStart = System.nanoTime() + unit.toNanos(warmup);
+		final long measureEnd = measureStart + unit.toNanos(duration);
+		final CountDownLatch done = new CountDownLatch(sessions.size());
+		ExecutorService executor = Executors.newFixedThreadPool(threads, new DaemonThreadFactory("load"));
+		try {
+			for (final LoadSession session : sessions) {
+				executor.submit(new Runnable() {
+
+					public void run() {
+						try {
+							runSession(session, mix, report, measureStart, measureEnd);
+						} finally {
+							done.countDown();
+						}
+					}
+				});
+			}
+			done.await();
+		} finally {
+			executor.shutdownNow();
+		}
+		report.setDuration(measureEnd - measureStart);
+		return report;
+	}
+
+	private void runSession(LoadSession session, LoadMix mix, LoadReport report, long measureStart, long measureEnd) {
+		long now = System.nanoTime();
+		while (now < measureEnd
+				&& !Thread.currentThread().isInterrupted()) {
+			LoadOperation operation = session.toApplicable(mix.next(session.getRandom()));
+			Exception error = null;
+			long start = System.nanoTime();
+			try {
+				operation.execute(session);
+				session.executed(operation);
+			} catch (Exception e) {
+				error = e;
+			}
+			now = System.nanoTime();
+			if (start >= measureStart
+					&& now <= measureEnd) {
+				report.record(operation, now - start, error);
+			}
+		}
+	}
+
+	/**
+	 * Creates the users, domains and applications that the load is run with.
+	 * Is done by {@link #run} if it was not called before.
+	 * 
+	 * @throws OpenShiftException
+	 *             if the users or applications could not be set up
+	 */
+	public synchronized void setup() throws OpenShiftException {
+		if (sessions != null) {
+			return;
+		}
+		IOpenShiftService service = new OpenShiftService(LoadGenerator.class.getSimpleName(), broker.getBaseUrl());
+		List<IUser> loadUsers = new ArrayList<IUser>();
+		List<List<String>> applications = new ArrayList<List<String>>();
+		for (int i = 0; i < users; i++) {
+			String rhlogin = "loaduser" + i + "@redhat.com";
+			broker.addAccount(rhlogin, PASSWORD).setMaxGears(applicationsPerUser + threads * 2);
+			IUser user = new User(rhlogin, PASSWORD, null, service);
+			service.createDomain("load" + i, new SSHPublicKey(SSH_KEY, SSHKeyType.SSH_RSA), user);
+			List<String> userApplications = new ArrayList<String>();
+			for (int j = 0; j < applicationsPerUser; j++) {
+				String name = "load" + i + "app" + j;
+				service.createApplication(name, ICartridge.JBOSSAS_7, user);
+				userApplications.add(name);
+			}
+			loadUsers.add(user);
+			applications.add(Collections.unmodifiableList(userApplications));
+		}
+		List<LoadSession> sessions = new ArrayList<LoadSession>();
+		for (int i = 0; i < threads; i++) {
+			int userIndex = i % users;
+			IUser user = loadUsers.get(userIndex);
+			String ownApplication = "thread" + i + "app";
+			service.createApplication(ownApplication, ICartridge.JBOSSAS_7, user);
+			sessions.add(new LoadSession(service, user, applications.get(userIndex), ownApplication,
+					"thread" + i + "scratch", i));
+		}
+		this.sessions = sessions;
+	}
+}
@@ -0,0 +1,93 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.test.load;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * A weighted mix of operations. Parsed from strings like
+ * <code>userinfo=50,cartlist=10,start=10,stop=10,embed=10,create=10</code>
+ * where each value is the relative weight of the operation. Operations that
+ * alter state (embed/unembed, create/destroy) alternate with their opposite.
+ * 
+ * @author Daniel Brenner
+ */
+public class LoadMix {
+
+	public static final String DEFAULT_MIX = "userinfo=40,cartlist=10,start=10,stop=10,restart=10,embed=10,create=10";
+
+	private final Map<LoadOperation, Integer> weights;
+	private final LoadOperation[] operations;
+	private final int[] cumulativeWeights;
+	private final int totalWeight;
+
+	public LoadMix(Map<LoadOperation, Integer> weights) {
+		if (weights.isEmpty()) {
+			throw new IllegalArgumentException("mix has no operations");
+		}
+		this.weights = Collections.unmodifiableMap(new LinkedHashMap<LoadOperation, Integer>(weights));
+		this.operations = new LoadOperation[weights.size()];
+		this.cumulativeWeights = new int[weights.size()];
+		int i = 0;
+		int total = 0;
+		for (Map.Entry<LoadOperation, Integer> entry : weights.entrySet()) {
+			if (entry.getValue() <= 0) {
+				throw new IllegalArgumentException("weight of " + entry.getKey().getName() + " must be > 0");
+			}
+			total += entry.getValue();
+			operations[i] = entry.getKey();
+			cumulativeWeights[i++] = total;
+		}
+		this.totalWeight = total;
+	}
+
+	public static LoadMix parse(String mix) {
+		Map<LoadOperation, Integer> weights = new LinkedHashMap<LoadOperation, Integer>();
+		for (String entry : mix.split(",")) {
+			String[] keyValue = entry.split("=");
+			if (keyValue.length != 2) {
+				throw new IllegalArgumentException("Invalid mix entry \"" + entry + "\"");
+			}
+			weights.put(LoadOperation.getByName(keyValue[0]), Integer.parseInt(keyValue[1].trim()));
+		}
+		return new LoadMix(weights);
+	}
+
+	public LoadOperation next(Random random) {
+		int value = random.nextInt(totalWeight);
+		for (int i = 0; i < cumulativeWeights.length; i++) {
+			if (value < cumulativeWeights[i]) {
+				return operations[i];
+			}
+		}
+		return operations[operations.length - 1];
+	}
+
+	public List<LoadOperation> getOperations() {
+		return new ArrayList<LoadOperation>(weights.keySet());
+	}
+
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		for (Map.Entry<LoadOperation, Integer> entry : weights.entrySet()) {
+			if (builder.length() > 0) {
+				builder.append(',');
+			}
+			builder.append(entry.getKey().getName()).append('=').append(entry.getValue());
+		}
+		return builder.toString();
+	}
+}
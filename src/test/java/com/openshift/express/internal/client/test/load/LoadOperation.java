@@ -0,0 +1,112 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.test.load;
+
+import com.openshift.express.client.ICartridge;
+import com.openshift.express.client.IEmbeddableCartridge;
+import com.openshift.express.client.OpenShiftException;
+
+/**
+ * The broker operations that the load generator issues through
+ * {@link com.openshift.express.client.IOpenShiftService}.
+ * 
+ * @author Daniel Brenner
+ */
+public enum LoadOperation {
+
+	USERINFO {
+		protected void execute(LoadSession session) throws OpenShiftException {
+			session.getService().getUserInfo(session.getUser());
+		}
+	},
+	CARTLIST {
+		protected void execute(LoadSession session) throws OpenShiftException {
+			session.getService().getCartridges(session.getUser());
+		}
+	},
+	START {
+		protected void execute(LoadSession session) throws OpenShiftException {
+			session.getService().startApplication(session.getRandomApplication(), ICartridge.JBOSSAS_7,
+					session.getUser());
+		}
+	},
+	STOP {
+		protected void execute(LoadSession session) throws OpenShiftException {
+			session.getService().stopApplication(session.getRandomApplication(), ICartridge.JBOSSAS_7,
+					session.getUser());
+		}
+	},
+	RESTART {
+		protected void execute(LoadSession session) throws OpenShiftException {
+			session.getService().restartApplication(session.getRandomApplication(), ICartridge.JBOSSAS_7,
+					session.getUser());
+		}
+	},
+	/** embeds mysql into the application of the session */
+	EMBED {
+		protected void execute(LoadSession session) throws OpenShiftException {
+			session.getService().addEmbeddedCartridge(session.getOwnApplication(), IEmbeddableCartridge.MYSQL_51,
+					session.getUser());
+		}
+	},
+	/** removes mysql from the application of the session */
+	UNEMBED {
+		protected void execute(LoadSession session) throws OpenShiftException {
+			session.getService().removeEmbeddedCartridge(session.getOwnApplication(), IEmbeddableCartridge.MYSQL_51,
+					session.getUser());
+		}
+	},
+	/** creates the scratch application of the session */
+	CREATE {
+		protected void execute(LoadSession session) throws OpenShiftException {
+			session.getService().createApplication(session.getScratchApplication(), ICartridge.JBOSSAS_7,
+					session.getUser());
+		}
+	},
+	/** destroys the scratch application of the session */
+	DESTROY {
+		protected void execute(LoadSession session) throws OpenShiftException {
+			session.getService().destroyApplication(session.getScratchApplication(), ICartridge.JBOSSAS_7,
+					session.getUser());
+		}
+	};
+
+	protected abstract void execute(LoadSession session) throws OpenShiftException;
+
+	/**
+	 * Returns the operation that undoes this one or <code>null</code> if this
+	 * operation does not change any state.
+	 * 
+	 * @return the opposite operation or <code>null</code>
+	 */
+	public LoadOperation getOpposite() {
+		switch (this) {
+		case EMBED:
+			return UNEMBED;
+		case UNEMBED:
+			return EMBED;
+		case CREATE:
+			return DESTROY;
+		case DESTROY:
+			return CREATE;
+		default:
+			return null;
+		}
+	}
+
+	public String getName() {
+		return name().toLowerCase();
+	}
+
+	public static LoadOperation getByName(String name) {
+		return valueOf(name.trim().toUpperCase());
+	}
+}
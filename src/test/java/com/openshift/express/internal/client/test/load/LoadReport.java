@@ -0,0 +1,143 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.test.load;
+
+import java.io.PrintStream;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.HdrHistogram.AtomicHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * The latencies and errors that the {@link LoadGenerator} recorded, per
+ * operation. Latencies are kept in microseconds.
+ * 
+ * @author Daniel Brenner
+ */
+public class LoadReport {
+
+	/** an hour in microseconds */
+	private static final long HIGHEST_TRACKABLE_LATENCY = TimeUnit.HOURS.toMicros(1);
+	private static final int SIGNIFICANT_DIGITS = 3;
+	private static final double MICROS_PER_MILLI = 1000.0;
+
+	private final LoadMix mix;
+	private final int users;
+	private final int applicationsPerUser;
+	private final int threads;
+	private final Map<LoadOperation, Histogram> latencies =
+			new EnumMap<LoadOperation, Histogram>(LoadOperation.class);
+	private final Map<LoadOperation, AtomicLong> errors = new EnumMap<LoadOperation, AtomicLong>(LoadOperation.class);
+	private volatile Exception firstError;
+	private long duration;
+
+	LoadReport(LoadMix mix, int users, int applicationsPerUser, int threads) {
+		this.mix = mix;
+		this.users = users;
+		this.applicationsPerUser = applicationsPerUser;
+		this.threads = threads;
+		for (LoadOperation operation : LoadOperation.values()) {
+			latencies.put(operation, new AtomicHistogram(HIGHEST_TRACKABLE_LATENCY, SIGNIFICANT_DIGITS));
+			errors.put(operation, new AtomicLong());
+		}
+	}
+
+	void record(LoadOperation operation, long nanos, Exception error) {
+		latencies.get(operation).recordValue(
+				Math.min(TimeUnit.NANOSECONDS.toMicros(nanos), HIGHEST_TRACKABLE_LATENCY));
+		if (error != null) {
+			errors.get(operation).incrementAndGet();
+			if (firstError == null) {
+				this.firstError = error;
+			}
+		}
+	}
+
+	void setDuration(long nanos) {
+		this.duration = nanos;
+	}
+
+	public Histogram getLatencies(LoadOperation operation) {
+		return latencies.get(operation);
+	}
+
+	public long getErrors(LoadOperation operation) {
+		return errors.get(operation).get();
+	}
+
+	public Exception getFirstError() {
+		return firstError;
+	}
+
+	public Histogram getTotalLatencies() {
+		Histogram total = new Histogram(HIGHEST_TRACKABLE_LATENCY, SIGNIFICANT_DIGITS);
+		for (Histogram histogram : latencies.values()) {
+			total.add(histogram);
+		}
+		return total;
+	}
+
+	/**
+	 * Returns the number of operations per second over the measured period.
+	 */
+	public double getThroughput(Histogram histogram) {
+		return duration == 0 ? 0 : histogram.getTotalCount() / (duration / 1e9);
+	}
+
+	/**
+	 * Prints the throughput and the p50/p99/p999 latencies of each operation,
+	 * followed by the full percentile distributions in HdrHistogram format.
+	 * 
+	 * @param out
+	 *            the stream to print to
+	 */
+	public void print(PrintStream out) {
+		out.println(String.format("%d users x %d applications, %d threads, %.1fs, mix: %s",
+				users, applicationsPerUser, threads, duration / 1e9, mix));
+		out.println(String.format("%-10s %10s %10s %10s %10s %10s %10s %8s",
+				"operation", "count", "ops/s", "p50 ms", "p99 ms", "p999 ms", "max ms", "errors"));
+		long totalErrors = 0;
+		for (LoadOperation operation : LoadOperation.values()) {
+			Histogram histogram = latencies.get(operation);
+			if (histogram.getTotalCount() > 0) {
+				printRow(operation.getName(), histogram, getErrors(operation), out);
+				totalErrors += getErrors(operation);
+			}
+		}
+		printRow("total", getTotalLatencies(), totalErrors, out);
+		if (firstError != null) {
+			out.println("first error: " + firstError);
+		}
+		for (LoadOperation operation : LoadOperation.values()) {
+			Histogram histogram = latencies.get(operation);
+			if (histogram.getTotalCount() > 0) {
+				out.println();
+				out.println("# " + operation.getName() + " latency (ms)");
+				histogram.outputPercentileDistribution(out, MICROS_PER_MILLI);
+			}
+		}
+	}
+
+	private void printRow(String name, Histogram histogram, long errors, PrintStream out) {
+		out.println(String.format("%-10s %10d %10.1f %10.3f %10.3f %10.3f %10.3f %8d",
+				name,
+				histogram.getTotalCount(),
+				getThroughput(histogram),
+				histogram.getValueAtPercentile(50) / MICROS_PER_MILLI,
+				histogram.getValueAtPercentile(99) / MICROS_PER_MILLI,
+				histogram.getValueAtPercentile(99.9) / MICROS_PER_MILLI,
+				histogram.getMaxValue() / MICROS_PER_MILLI,
+				errors));
+	}
+}
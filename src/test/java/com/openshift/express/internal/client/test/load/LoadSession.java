@@ -0,0 +1,109 @@
+/******************************************************************************* 
+ * Copyright (c) 2011 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.express.internal.client.test.load;
+
+import java.util.List;
+import java.util.Random;
+
+import com.openshift.express.client.IOpenShiftService;
+import com.openshift.express.client.IUser;
+
+/**
+ * The state of a single load generating thread: the user it acts as, the
+ * applications of that user and the applications that only this thread
+ * alters (embeds into, creates and destroys) so that concurrent threads do
+ * not step on each other.
+ * 
+ * @author Daniel Brenner
+ */
+public class LoadSession {
+
+	private final IOpenShiftService service;
+	private final IUser user;
+	private final List<String> applications;
+	private final String ownApplication;
+	private final String scratchApplication;
+	private final Random random;
+	private boolean embedded;
+	private boolean scratchCreated;
+
+	LoadSession(IOpenShiftService service, IUser user, List<String> applications, String ownApplication,
+			String scratchApplication, long seed) {
+		this.service = service;
+		this.user = user;
+		this.applications = applications;
+		this.ownApplication = ownApplication;
+		this.scratchApplication = scratchApplication;
+		this.random = new Random(seed);
+	}
+
+	public IOpenShiftService getService() {
+		return service;
+	}
+
+	public IUser getUser() {
+		return user;
+	}
+
+	public String getRandomApplication() {
+		return applications.get(random.nextInt(applications.size()));
+	}
+
+	public String getOwnApplication() {
+		return ownApplication;
+	}
+
+	public String getScratchApplication() {
+		return scratchApplication;
+	}
+
+	Random getRandom() {
+		return random;
+	}
+
+	/**
+	 * Returns the given operation or its opposite if the state of this session
+	 * would not allow it (ex. embedding an already embedded cartridge).
+	 */
+	LoadOperation toApplicable(LoadOperation operation) {
+		switch (operation) {
+		case EMBED:
+		case UNEMBED:
+			return embedded ? LoadOperation.UNEMBED : LoadOperation.EMBED;
+		case CREATE:
+		case DESTROY:
+			return scratchCreated ? LoadOperation.DESTROY : LoadOperation.CREATE;
+		default:
+			return operation;
+		}
+	}
+
+	/**
+	 * Tracks the state that the given, successfully executed, operation left.
+	 */
+	void executed(LoadOperation operation) {
+		switch (operation) {
+		case EMBED:
+			this.embedded = true;
+			break;
+		case UNEMBED:
+			this.embedded = false;
+			break;
+		case CREATE:
+			this.scratchCreated = true;
+			break;
+		case DESTROY:
+			this.scratchCreated = false;
+			break;
+		default:
+		}
+	}
+}